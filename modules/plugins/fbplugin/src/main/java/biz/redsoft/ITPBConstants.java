@@ -25,6 +25,7 @@ public interface ITPBConstants {
     int isc_tpb_no_auto_undo = 20;
     int isc_tpb_lock_timeout = 21;
     int isc_tpb_read_consistency = 22;
+    int isc_tpb_at_snapshot_number = 23;
     int isc_tpb_multiple_txn_isolation = 335544886;
     int isc_tpb_reserv_before_table = 335544887;
     int isc_tpb_multiple_spec = 335544888;
@@ -221,6 +221,14 @@ public interface DatabaseConnection extends Serializable {
 
     void setNamesToUpperCase(boolean flag);
 
+    /**
+     * Returns the maximum number of prepared statements cached
+     * per pooled connection, -1 to use the preferences value.
+     */
+    int getStatementCacheSize();
+
+    void setStatementCacheSize(int statementCacheSize);
+
     void setPathToTraceConfig(String path);
 
     String getPathToTraceConfig();
@@ -203,6 +203,8 @@ public class DefaultDatabaseConnection implements DatabaseConnection {
 
     private boolean namesToUpperCase = true;
 
+    private int statementCacheSize = -1;
+
     String pathToTraceConfig;
 
     String[] dataTypesArray;
@@ -221,6 +223,16 @@ public class DefaultDatabaseConnection implements DatabaseConnection {
         this.namesToUpperCase = namesToUpperCase;
     }
 
+    @Override
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    @Override
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
     /**
      * Creates a new empty <code>DatabaseConnection</code> object.
      */
@@ -624,6 +636,7 @@ public class DefaultDatabaseConnection implements DatabaseConnection {
         copy.setContainerPasswordStored(isContainerPasswordStored());
         copy.setVerifyServerCertCheck(isVerifyServerCertCheck());
         copy.setUseNewAPI(useNewAPI());
+        copy.setStatementCacheSize(getStatementCacheSize());
         copy.setMajorServerVersion(getMajorServerVersion());
         copy.setMinorServerVersion(getMinorServerVersion());
         return copy;
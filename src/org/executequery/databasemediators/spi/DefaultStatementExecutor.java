@@ -1907,6 +1907,21 @@ public class DefaultStatementExecutor implements StatementExecutor, Serializable
         return (PreparedStatement) stmnt;
     }
 
+    /**
+     * Returns a new statement for the batch execution
+     * of the SQL text added to it.
+     */
+    public Statement getBatchStatement() throws SQLException {
+        if (!prepared()) {
+
+            return null;
+        }
+
+        stmnt = conn.createStatement();
+
+        return stmnt;
+    }
+
     public CallableStatement getCallableStatement(String query) throws SQLException {
         if (!prepared()) {
 
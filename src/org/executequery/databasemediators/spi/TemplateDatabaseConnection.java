@@ -172,6 +172,7 @@ public class TemplateDatabaseConnection implements DatabaseConnection {
     private transient PasswordEncoderDecoder encoderDecoder;
     private int majorServerVersion;
     private boolean namesToUpperCase = true;
+    private int statementCacheSize = -1;
 
   @Override
   public boolean isNamesToUpperCase() {
@@ -183,6 +184,16 @@ public class TemplateDatabaseConnection implements DatabaseConnection {
     this.namesToUpperCase = namesToUpperCase;
   }
 
+  @Override
+  public int getStatementCacheSize() {
+    return statementCacheSize;
+  }
+
+  @Override
+  public void setStatementCacheSize(int statementCacheSize) {
+    this.statementCacheSize = statementCacheSize;
+  }
+
   @Override
   public void setPathToTraceConfig(String pathToTraceConfig) {
     this.pathToTraceConfig = pathToTraceConfig;
@@ -718,6 +729,7 @@ public class TemplateDatabaseConnection implements DatabaseConnection {
       copy.setContainerPassword(getContainerPassword());
       copy.setContainerPasswordStored(isContainerPasswordStored());
       copy.setVerifyServerCertCheck(isVerifyServerCertCheck());
+      copy.setStatementCacheSize(getStatementCacheSize());
       copy.setUseNewAPI(useNewAPI());
       copy.setMajorServerVersion(getMajorServerVersion());
       copy.setMinorServerVersion(getMinorServerVersion());
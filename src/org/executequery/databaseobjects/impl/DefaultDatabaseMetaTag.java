@@ -194,7 +194,7 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
             if (Thread.currentThread() instanceof InterruptibleThread)
                 thread = (InterruptibleThread) Thread.currentThread();
 
-            ResultSet rs = querySender.getResultSet(query).getResultSet();
+            ResultSet rs = getResultSetForAllObjects(querySender, query, 1, objects);
 
             ComparerDBPanel comparerDBPanel = getComparerDBPanel(
                     thread, "LoadFullInfoForObjects", objects.size());
@@ -256,7 +256,7 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
             if (Thread.currentThread() instanceof InterruptibleThread)
                 thread = (InterruptibleThread) Thread.currentThread();
 
-            ResultSet rs = querySender.getResultSet(query).getResultSet();
+            ResultSet rs = getResultSetForAllObjects(querySender, query, 1, objects);
 
             ComparerDBPanel comparerDBPanel = getComparerDBPanel(
                     thread, "LoadColumnsForAllTables", objects.size());
@@ -357,7 +357,7 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
         try {
 
 
-            ResultSet rs = querySender.getResultSet(query).getResultSet();
+            ResultSet rs = getResultSetForAllObjects(querySender, query, 3, objects);
 
 
             int i = 0;
@@ -402,6 +402,36 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
     }
 
 
+    /**
+     * Returns the rows of the query loading the specified objects at once,
+     * restored from the metadata snapshot when it is enabled and the objects
+     * of this type have change markers.
+     *
+     * @param keyColumn the index of the column holding the object name
+     */
+    private ResultSet getResultSetForAllObjects(
+            DefaultStatementExecutor querySender, String query, int keyColumn, List<NamedObject> objects) throws SQLException {
+
+        String markerQuery = MetadataSnapshot.isEnabled()
+                ? MetadataSnapshot.markerQuery(getSubType(), getHost().getDatabaseConnection())
+                : null;
+
+        if (markerQuery != null) {
+
+            try {
+
+                return new MetadataSnapshot(getHost().getDatabaseConnection(), query, keyColumn, markerQuery)
+                        .load(querySender, objects);
+
+            } catch (SQLException e) {
+
+                Log.debug("Error loading metadata snapshot for " + metaDataKey + ": " + e.getMessage());
+            }
+        }
+
+        return querySender.getResultSet(query).getResultSet();
+    }
+
     private ComparerDBPanel getComparerDBPanel(InterruptibleThread thread, String labelKey, int objectsSize) {
 
         ComparerDBPanel comparerDBPanel = null;
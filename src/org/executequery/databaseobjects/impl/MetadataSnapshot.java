@@ -0,0 +1,809 @@
+/*
+ * MetadataSnapshot.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.databaseobjects.impl;
+
+import org.executequery.ApplicationContext;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.databasemediators.spi.DefaultStatementExecutor;
+import org.executequery.databaseobjects.NamedObject;
+import org.executequery.log.Log;
+import org.executequery.sql.SqlStatementResult;
+import org.underworldlabs.util.SystemProperties;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.sql.Date;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk snapshot of the rows of a bulk metadata query of a connection.
+ * <p>
+ * The rows are grouped by the database object they describe. Firebird has
+ * no schema version, so each object is stored with a change marker read
+ * from its own system table rows: the ids, flags and format versions of
+ * the object and the hashes of its source and description, along with
+ * those of its columns, parameters or index segments. On load only the
+ * markers are queried, and only the rows of the objects changed since
+ * the snapshot are fetched.
+ * <p>
+ * The objects of the types without a marker query, like sequences whose
+ * values change without any DDL, are always loaded from the server.
+ * <p>
+ * Snapshots are kept in the <code>metadata</code> directory of the user
+ * settings as one gzipped binary file per connection and query.
+ */
+class MetadataSnapshot {
+
+    private static final int MAGIC = 0x52454d53;
+
+    private static final int VERSION = 3;
+
+    /**
+     * above this changed object count the whole query is reloaded
+     */
+    private static final int MAX_DELTA_OBJECTS = 500;
+
+    private static final long HASH_MODULUS = 1000000007L;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte SHORT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte TIMESTAMP = 8;
+    private static final byte DATE = 9;
+    private static final byte TIME = 10;
+    private static final byte BYTES = 11;
+    private static final byte BOOLEAN = 12;
+
+    private final DatabaseConnection databaseConnection;
+
+    private final String query;
+
+    private final int keyColumn;
+
+    private final String markerQuery;
+
+    /**
+     * Creates a snapshot of the specified query rows.
+     *
+     * @param keyColumn   the index of the column holding the name
+     *                    of the object the row belongs to
+     * @param markerQuery the query of the object change markers,
+     *                    see {@link #markerQuery(int, DatabaseConnection)}
+     */
+    MetadataSnapshot(DatabaseConnection databaseConnection, String query, int keyColumn, String markerQuery) {
+
+        this.databaseConnection = databaseConnection;
+        this.query = query;
+        this.keyColumn = keyColumn;
+        this.markerQuery = markerQuery;
+    }
+
+    static boolean isEnabled() {
+
+        return SystemProperties.getBooleanProperty("user", "connection.metadata.snapshot");
+    }
+
+    /**
+     * Returns the query of the change markers of the objects of the specified
+     * type. The query returns the object name followed by the marker values,
+     * read from the system table rows of the object only.
+     *
+     * @param type the object type, one of the {@link NamedObject} types
+     * @return the query or null if the objects of the type have no marker
+     */
+    static String markerQuery(int type, DatabaseConnection databaseConnection) {
+
+        boolean firebird3 = databaseConnection.getMajorServerVersion() >= 3;
+        switch (type) {
+
+            case NamedObject.TABLE:
+            case NamedObject.GLOBAL_TEMPORARY:
+            case NamedObject.VIEW:
+            case NamedObject.SYSTEM_TABLE:
+            case NamedObject.SYSTEM_VIEW:
+                return "SELECT R.RDB$RELATION_NAME, R.RDB$RELATION_ID, R.RDB$FORMAT, R.RDB$RELATION_TYPE, "
+                        + hash("R.RDB$VIEW_SOURCE") + ", " + hash("R.RDB$DESCRIPTION") + ", " + hash("R.RDB$EXTERNAL_FILE") + ", "
+                        + "(SELECT SUM(" + hash("F.RDB$FIELD_NAME || ':' || COALESCE(F.RDB$FIELD_POSITION, 0) || ':' "
+                        + "|| COALESCE(F.RDB$NULL_FLAG, 0) || ':' || F.RDB$FIELD_SOURCE || ':' || COALESCE(F.RDB$COLLATION_ID, 0)")
+                        + " + 3 * " + hash("F.RDB$DESCRIPTION") + " + 7 * " + hash("F.RDB$DEFAULT_SOURCE") + ") "
+                        + "FROM RDB$RELATION_FIELDS F WHERE F.RDB$RELATION_NAME = R.RDB$RELATION_NAME), "
+                        + "(SELECT SUM(" + hash("C.RDB$CONSTRAINT_NAME || ':' || C.RDB$CONSTRAINT_TYPE || ':' "
+                        + "|| COALESCE(C.RDB$INDEX_NAME, '')") + ") "
+                        + "FROM RDB$RELATION_CONSTRAINTS C WHERE C.RDB$RELATION_NAME = R.RDB$RELATION_NAME), "
+                        + "(SELECT SUM(" + hash("I.RDB$INDEX_NAME || ':' || COALESCE(I.RDB$INDEX_INACTIVE, 0) || ':' "
+                        + "|| COALESCE(I.RDB$UNIQUE_FLAG, 0) || ':' || COALESCE(I.RDB$INDEX_TYPE, 0)") + ") "
+                        + "FROM RDB$INDICES I WHERE I.RDB$RELATION_NAME = R.RDB$RELATION_NAME), "
+                        + "(SELECT SUM(" + hash("T.RDB$TRIGGER_NAME || ':' || COALESCE(T.RDB$TRIGGER_INACTIVE, 0)") + ") "
+                        + "FROM RDB$TRIGGERS T WHERE T.RDB$RELATION_NAME = R.RDB$RELATION_NAME) "
+                        + "FROM RDB$RELATIONS R";
+
+            case NamedObject.PROCEDURE:
+                return "SELECT P.RDB$PROCEDURE_NAME, P.RDB$PROCEDURE_ID, "
+                        + hash("P.RDB$PROCEDURE_SOURCE") + ", " + hash("P.RDB$DESCRIPTION") + ", "
+                        + "(SELECT SUM(" + hash("A.RDB$PARAMETER_NAME || ':' || A.RDB$PARAMETER_TYPE || ':' "
+                        + "|| A.RDB$PARAMETER_NUMBER || ':' || COALESCE(A.RDB$FIELD_SOURCE, '')")
+                        + " + 3 * " + hash("A.RDB$DESCRIPTION") + ") "
+                        + "FROM RDB$PROCEDURE_PARAMETERS A WHERE A.RDB$PROCEDURE_NAME = P.RDB$PROCEDURE_NAME) "
+                        + "FROM RDB$PROCEDURES P";
+
+            case NamedObject.FUNCTION:
+                if (!firebird3) {
+
+                    return null;
+                }
+                return "SELECT F.RDB$FUNCTION_NAME, F.RDB$FUNCTION_ID, "
+                        + hash("F.RDB$FUNCTION_SOURCE") + ", " + hash("F.RDB$DESCRIPTION") + ", "
+                        + hash("F.RDB$MODULE_NAME") + ", " + hash("F.RDB$ENTRYPOINT") + ", "
+                        + "(SELECT SUM(" + hash("A.RDB$ARGUMENT_POSITION || ':' || COALESCE(A.RDB$ARGUMENT_NAME, '') || ':' "
+                        + "|| COALESCE(A.RDB$FIELD_SOURCE, '') || ':' || COALESCE(A.RDB$MECHANISM, 0)")
+                        + " + 3 * " + hash("A.RDB$DESCRIPTION") + ") "
+                        + "FROM RDB$FUNCTION_ARGUMENTS A WHERE A.RDB$FUNCTION_NAME = F.RDB$FUNCTION_NAME) "
+                        + "FROM RDB$FUNCTIONS F";
+
+            case NamedObject.UDF:
+                return "SELECT F.RDB$FUNCTION_NAME, F.RDB$RETURN_ARGUMENT, "
+                        + hash("F.RDB$DESCRIPTION") + ", " + hash("F.RDB$MODULE_NAME") + ", " + hash("F.RDB$ENTRYPOINT") + ", "
+                        + "(SELECT SUM(" + hash("A.RDB$ARGUMENT_POSITION || ':' || COALESCE(A.RDB$MECHANISM, 0) || ':' "
+                        + "|| COALESCE(A.RDB$FIELD_TYPE, 0) || ':' || COALESCE(A.RDB$FIELD_SUB_TYPE, 0) || ':' "
+                        + "|| COALESCE(A.RDB$FIELD_LENGTH, 0) || ':' || COALESCE(A.RDB$FIELD_SCALE, 0)") + ") "
+                        + "FROM RDB$FUNCTION_ARGUMENTS A WHERE A.RDB$FUNCTION_NAME = F.RDB$FUNCTION_NAME) "
+                        + "FROM RDB$FUNCTIONS F";
+
+            case NamedObject.PACKAGE:
+            case NamedObject.SYSTEM_PACKAGE:
+                if (!firebird3) {
+
+                    return null;
+                }
+                return "SELECT RDB$PACKAGE_NAME, RDB$VALID_BODY_FLAG, " + hash("RDB$PACKAGE_HEADER_SOURCE") + ", "
+                        + hash("RDB$PACKAGE_BODY_SOURCE") + ", " + hash("RDB$DESCRIPTION") + " FROM RDB$PACKAGES";
+
+            case NamedObject.TRIGGER:
+            case NamedObject.DDL_TRIGGER:
+            case NamedObject.DATABASE_TRIGGER:
+            case NamedObject.SYSTEM_TRIGGER:
+                return "SELECT RDB$TRIGGER_NAME, RDB$TRIGGER_TYPE, RDB$TRIGGER_SEQUENCE, RDB$TRIGGER_INACTIVE, "
+                        + hash("RDB$RELATION_NAME") + ", " + hash("RDB$TRIGGER_SOURCE") + ", " + hash("RDB$DESCRIPTION")
+                        + " FROM RDB$TRIGGERS";
+
+            case NamedObject.DOMAIN:
+            case NamedObject.SYSTEM_DOMAIN:
+                return "SELECT RDB$FIELD_NAME, RDB$FIELD_TYPE, RDB$FIELD_SUB_TYPE, RDB$FIELD_LENGTH, RDB$FIELD_PRECISION, "
+                        + "RDB$FIELD_SCALE, RDB$CHARACTER_LENGTH, RDB$CHARACTER_SET_ID, RDB$COLLATION_ID, RDB$NULL_FLAG, "
+                        + "RDB$DIMENSIONS, " + hash("RDB$DEFAULT_SOURCE") + ", " + hash("RDB$VALIDATION_SOURCE") + ", "
+                        + hash("RDB$COMPUTED_SOURCE") + ", " + hash("RDB$DESCRIPTION") + " FROM RDB$FIELDS";
+
+            case NamedObject.EXCEPTION:
+                return "SELECT RDB$EXCEPTION_NAME, RDB$EXCEPTION_NUMBER, " + hash("RDB$MESSAGE") + ", "
+                        + hash("RDB$DESCRIPTION") + " FROM RDB$EXCEPTIONS";
+
+            case NamedObject.INDEX:
+            case NamedObject.SYSTEM_INDEX:
+                return "SELECT I.RDB$INDEX_NAME, I.RDB$INDEX_ID, I.RDB$UNIQUE_FLAG, I.RDB$INDEX_INACTIVE, I.RDB$INDEX_TYPE, "
+                        + "I.RDB$SEGMENT_COUNT, " + hash("I.RDB$RELATION_NAME") + ", " + hash("I.RDB$FOREIGN_KEY") + ", "
+                        + hash("I.RDB$EXPRESSION_SOURCE") + ", " + hash("I.RDB$DESCRIPTION") + ", "
+                        + hash("CAST(I.RDB$STATISTICS AS VARCHAR(32))") + ", "
+                        + "(SELECT SUM(" + hash("S.RDB$FIELD_NAME || ':' || S.RDB$FIELD_POSITION") + ") "
+                        + "FROM RDB$INDEX_SEGMENTS S WHERE S.RDB$INDEX_NAME = I.RDB$INDEX_NAME) "
+                        + "FROM RDB$INDICES I";
+
+            case NamedObject.ROLE:
+            case NamedObject.SYSTEM_ROLE:
+                return "SELECT RDB$ROLE_NAME, " + hash("RDB$OWNER_NAME") + ", " + hash("RDB$DESCRIPTION") + " FROM RDB$ROLES";
+
+            default:
+                return null;
+        }
+
+    }
+
+    private static String hash(String value) {
+
+        return "COALESCE(MOD(HASH(" + value + "), " + HASH_MODULUS + "), 0)";
+    }
+
+    /**
+     * Returns the query rows of the specified objects in the order of the
+     * objects, reloading from the server the rows of the changed objects only.
+     */
+    ResultSet load(DefaultStatementExecutor executor, List<NamedObject> objects) throws SQLException {
+
+        // the markers are read first, so a change made during the load
+        // is seen by the next one
+        Map<String, Long> markers = fetchMarkers(executor);
+        if (markers == null) {
+
+            // the snapshot can not be validated
+            return fetch(executor, query, null).toResultSet(objects);
+        }
+
+        File file = snapshotFile();
+        Rows snapshot = read(file);
+        if (snapshot == null) {
+
+            snapshot = fetch(executor, query, null);
+            snapshot.markers.putAll(markers);
+            write(file, snapshot);
+
+            return snapshot.toResultSet(objects);
+        }
+
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : markers.entrySet()) {
+
+            if (!entry.getValue().equals(snapshot.markers.get(entry.getKey()))) {
+
+                changed.add(entry.getKey());
+            }
+        }
+
+        // the dropped and the renamed objects have no marker now
+        boolean removed = snapshot.markers.keySet().retainAll(markers.keySet());
+        snapshot.groups.keySet().retainAll(markers.keySet());
+
+        if (changed.size() > MAX_DELTA_OBJECTS) {
+
+            snapshot = fetch(executor, query, null);
+
+        } else if (!changed.isEmpty()) {
+
+            Rows delta = fetch(executor, deltaQuery(snapshot.columnLabels.length, changed.size()), changed);
+            for (String key : changed) {
+
+                List<Object[]> rows = delta.groups.get(key);
+                if (rows != null) {
+
+                    snapshot.groups.put(key, rows);
+
+                } else {
+
+                    snapshot.groups.remove(key);
+                }
+            }
+        }
+
+        if (removed || !changed.isEmpty()) {
+
+            snapshot.markers.putAll(markers);
+            write(file, snapshot);
+        }
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Metadata snapshot for connection " + databaseConnection.getName() + " - objects: "
+                    + markers.size() + ", reloaded: " + changed.size());
+        }
+
+        return snapshot.toResultSet(objects);
+    }
+
+    /**
+     * Returns the object change markers keyed by the object name.
+     *
+     * @return the markers or null if they could not be read
+     */
+    private Map<String, Long> fetchMarkers(DefaultStatementExecutor executor) {
+
+        try {
+
+            ResultSet rs = execute(executor, markerQuery, null);
+            int columnCount = rs.getMetaData().getColumnCount();
+
+            Map<String, Long> markers = new HashMap<>();
+            while (rs.next()) {
+
+                String name = rs.getString(1);
+                if (name == null) {
+
+                    continue;
+                }
+
+                long marker = 0;
+                for (int i = 2; i <= columnCount; i++) {
+
+                    marker = marker * 31 + rs.getLong(i);
+                }
+                markers.merge(name.trim(), marker, (previous, next) -> previous * 31 + next);
+            }
+
+            return markers;
+
+        } catch (SQLException e) {
+
+            Log.debug("Unable to validate the metadata snapshot: " + e.getMessage());
+            return null;
+
+        } finally {
+
+            executor.releaseResources();
+        }
+
+    }
+
+    private String deltaQuery(int columnCount, int keyCount) {
+
+        StringBuilder sb = new StringBuilder("SELECT * FROM ").append(derivedTable(columnCount))
+                .append(" WHERE TRIM(C").append(keyColumn).append(") IN (");
+        for (int i = 0; i < keyCount; i++) {
+
+            sb.append(i > 0 ? ", ?" : "?");
+        }
+
+        return sb.append(")").toString();
+    }
+
+    private String derivedTable(int columnCount) {
+
+        StringBuilder sb = new StringBuilder("(").append(query).append(") SNAPSHOT_ROWS (");
+        for (int i = 1; i <= columnCount; i++) {
+
+            sb.append(i > 1 ? ", C" : "C").append(i);
+        }
+
+        return sb.append(")").toString();
+    }
+
+    private Rows fetch(DefaultStatementExecutor executor, String sql, List<String> parameters) throws SQLException {
+
+        try {
+
+            ResultSet rs = execute(executor, sql, parameters);
+            ResultSetMetaData metaData = rs.getMetaData();
+
+            int columnCount = metaData.getColumnCount();
+            String[] columnLabels = new String[columnCount];
+            int[] columnTypes = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+
+                columnLabels[i] = metaData.getColumnLabel(i + 1);
+                columnTypes[i] = metaData.getColumnType(i + 1);
+            }
+
+            Rows rows = new Rows(columnLabels);
+            while (rs.next()) {
+
+                Object[] row = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+
+                    row[i] = readValue(rs, i + 1, columnTypes[i]);
+                }
+                rows.add(row, keyColumn);
+            }
+
+            return rows;
+
+        } finally {
+
+            executor.releaseResources();
+        }
+
+    }
+
+    private ResultSet execute(DefaultStatementExecutor executor, String sql, List<String> parameters) throws SQLException {
+
+        SqlStatementResult result;
+        if (parameters != null) {
+
+            PreparedStatement statement = executor.getPreparedStatement(sql);
+            for (int i = 0; i < parameters.size(); i++) {
+
+                statement.setString(i + 1, parameters.get(i));
+            }
+            result = executor.getResultSet(-1, statement);
+
+        } else {
+
+            result = executor.getResultSet(sql);
+        }
+        if (result.getSqlException() != null) {
+
+            throw result.getSqlException();
+        }
+
+        ResultSet rs = result.getResultSet();
+        if (rs == null) {
+
+            throw new SQLException(result.getMessage() != null ? result.getMessage() : "No result set returned");
+        }
+
+        return rs;
+    }
+
+    private static Object readValue(ResultSet rs, int column, int type) throws SQLException {
+
+        switch (type) {
+
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return rs.getBytes(column);
+
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return rs.getString(column);
+
+            default:
+                return rs.getObject(column);
+        }
+
+    }
+
+    private File snapshotFile() {
+
+        String name = Integer.toHexString(query.hashCode()) + "-" + query.length() + ".snapshot";
+        return new File(ApplicationContext.getInstance().getUserSettingsHome()
+                + "metadata" + File.separator + databaseConnection.getId(), name);
+    }
+
+    private Rows read(File file) {
+
+        if (!file.exists()) {
+
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !query.equals(readString(in))) {
+
+                return null;
+            }
+
+            String[] columnLabels = new String[in.readInt()];
+            for (int i = 0; i < columnLabels.length; i++) {
+
+                columnLabels[i] = in.readUTF();
+            }
+
+            Rows rows = new Rows(columnLabels);
+            int markerCount = in.readInt();
+            for (int i = 0; i < markerCount; i++) {
+
+                String key = in.readUTF();
+                rows.markers.put(key, in.readLong());
+            }
+
+            int groupCount = in.readInt();
+            for (int i = 0; i < groupCount; i++) {
+
+                String key = in.readUTF();
+
+                int rowCount = in.readInt();
+                List<Object[]> group = new ArrayList<>(rowCount);
+                for (int j = 0; j < rowCount; j++) {
+
+                    Object[] row = new Object[columnLabels.length];
+                    for (int k = 0; k < row.length; k++) {
+
+                        row[k] = readValue(in);
+                    }
+                    group.add(row);
+                }
+                rows.groups.put(key, group);
+            }
+
+            return rows;
+
+        } catch (IOException | RuntimeException e) {
+
+            Log.debug("Discarding unreadable metadata snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+
+    }
+
+    private void write(File file, Rows rows) {
+
+        File directory = file.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+
+            Log.debug("Unable to create metadata snapshot directory " + directory);
+            return;
+        }
+
+        // concurrent loads of the connection may write the snapshot at the same time
+        File temp = null;
+        try {
+
+            temp = File.createTempFile(file.getName(), ".tmp", directory);
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(temp))))) {
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, query);
+
+                out.writeInt(rows.columnLabels.length);
+                for (String label : rows.columnLabels) {
+
+                    out.writeUTF(label);
+                }
+
+                // the markers of the objects without rows are kept too
+                out.writeInt(rows.markers.size());
+                for (Map.Entry<String, Long> entry : rows.markers.entrySet()) {
+
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+
+                out.writeInt(rows.groups.size());
+                for (Map.Entry<String, List<Object[]>> entry : rows.groups.entrySet()) {
+
+                    out.writeUTF(entry.getKey());
+
+                    out.writeInt(entry.getValue().size());
+                    for (Object[] row : entry.getValue()) {
+
+                        for (Object value : row) {
+
+                            writeValue(out, value);
+                        }
+                    }
+                }
+            }
+
+            try {
+
+                Files.move(temp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (AtomicMoveNotSupportedException e) {
+
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException e) {
+
+            Log.debug("Unable to write metadata snapshot " + file + ": " + e.getMessage());
+            if (temp != null) {
+
+                temp.delete();
+            }
+        }
+
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+
+        if (value == null) {
+
+            out.writeByte(NULL);
+
+        } else if (value instanceof String) {
+
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+
+        } else if (value instanceof Integer) {
+
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+
+        } else if (value instanceof Short) {
+
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+
+        } else if (value instanceof Long) {
+
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+
+        } else if (value instanceof Double) {
+
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+
+        } else if (value instanceof Float) {
+
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+
+        } else if (value instanceof BigDecimal) {
+
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(decimal.scale());
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+
+        } else if (value instanceof Timestamp) {
+
+            Timestamp timestamp = (Timestamp) value;
+            out.writeByte(TIMESTAMP);
+            out.writeLong(timestamp.getTime());
+            out.writeInt(timestamp.getNanos());
+
+        } else if (value instanceof Date) {
+
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+
+        } else if (value instanceof Time) {
+
+            out.writeByte(TIME);
+            out.writeLong(((Time) value).getTime());
+
+        } else if (value instanceof byte[]) {
+
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+
+        } else if (value instanceof Boolean) {
+
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+
+        } else {
+
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+
+        byte tag = in.readByte();
+        switch (tag) {
+
+            case NULL:
+                return null;
+
+            case STRING:
+                return readString(in);
+
+            case INTEGER:
+                return in.readInt();
+
+            case SHORT:
+                return in.readShort();
+
+            case LONG:
+                return in.readLong();
+
+            case DOUBLE:
+                return in.readDouble();
+
+            case FLOAT:
+                return in.readFloat();
+
+            case BIG_DECIMAL:
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+
+            case DATE:
+                return new Date(in.readLong());
+
+            case TIME:
+                return new Time(in.readLong());
+
+            case BYTES:
+                return readBytes(in);
+
+            case BOOLEAN:
+                return in.readBoolean();
+
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Query rows grouped by the object name.
+     */
+    private static final class Rows {
+
+        private final String[] columnLabels;
+
+        private final Map<String, List<Object[]>> groups = new HashMap<>();
+
+        private final Map<String, Long> markers = new HashMap<>();
+
+        Rows(String[] columnLabels) {
+
+            this.columnLabels = columnLabels;
+        }
+
+        void add(Object[] row, int keyColumn) {
+
+            Object key = row[keyColumn - 1];
+            if (key == null) {
+
+                return;
+            }
+
+            String name = key.toString().trim();
+            List<Object[]> group = groups.get(name);
+            if (group == null) {
+
+                group = new ArrayList<>();
+                groups.put(name, group);
+            }
+            group.add(row);
+        }
+
+        ResultSet toResultSet(List<NamedObject> objects) {
+
+            List<Object[]> rows = new ArrayList<>();
+            for (NamedObject object : objects) {
+
+                List<Object[]> group = groups.get(object.getName().trim());
+                if (group != null) {
+
+                    rows.addAll(group);
+                }
+            }
+
+            return new SnapshotResultSet(columnLabels, rows);
+        }
+
+    }
+
+}
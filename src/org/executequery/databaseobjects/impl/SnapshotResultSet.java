@@ -0,0 +1,1362 @@
+/*
+ * SnapshotResultSet.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.databaseobjects.impl;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, forward-only result set over the rows of a metadata query
+ * held in memory - the rows restored from a {@link MetadataSnapshot}.
+ * <p>
+ * Only the value getters used by the metadata loaders are supported.
+ */
+class SnapshotResultSet implements ResultSet {
+
+    private final String[] columnLabels;
+
+    private final List<Object[]> rows;
+
+    private int cursor = -1;
+
+    private boolean wasNull;
+
+    private boolean closed;
+
+    SnapshotResultSet(String[] columnLabels, List<Object[]> rows) {
+
+        this.columnLabels = columnLabels;
+        this.rows = rows;
+    }
+
+    private Object value(int columnIndex) throws SQLException {
+
+        checkOpen();
+        if (cursor < 0 || cursor >= rows.size()) {
+
+            throw new SQLException("The cursor is not on a row");
+        }
+
+        if (columnIndex < 1 || columnIndex > columnLabels.length) {
+
+            throw new SQLException("Invalid column index " + columnIndex);
+        }
+
+        Object value = rows.get(cursor)[columnIndex - 1];
+        wasNull = value == null;
+
+        return value;
+    }
+
+    private Number number(int columnIndex) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value == null || value instanceof Number) {
+
+            return (Number) value;
+        }
+
+        if (value instanceof Boolean) {
+
+            return (Boolean) value ? 1 : 0;
+        }
+
+        try {
+
+            return new BigDecimal(value.toString().trim());
+
+        } catch (NumberFormatException e) {
+
+            throw new SQLException("Can not convert " + value + " to a number", e);
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+
+        if (closed) {
+
+            throw new SQLException("The result set is closed");
+        }
+    }
+
+    private SQLException unsupported() {
+
+        return new SQLFeatureNotSupportedException("Not supported by the metadata snapshot result set");
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+
+        checkOpen();
+        if (cursor < rows.size()) {
+
+            cursor++;
+        }
+
+        return cursor < rows.size();
+    }
+
+    @Override
+    public void close() {
+
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+
+        return closed;
+    }
+
+    @Override
+    public boolean wasNull() {
+
+        return wasNull;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+
+        for (int i = 0; i < columnLabels.length; i++) {
+
+            if (columnLabels[i].equalsIgnoreCase(columnLabel)) {
+
+                return i + 1;
+            }
+        }
+
+        throw new SQLException("Column " + columnLabel + " not found");
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+
+        return value(columnIndex);
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value == null || type.isInstance(value)) {
+
+            return type.cast(value);
+        }
+
+        if (value instanceof Timestamp && type == LocalDateTime.class) {
+
+            return type.cast(((Timestamp) value).toLocalDateTime());
+        }
+
+        if (value instanceof Date && type == LocalDate.class) {
+
+            return type.cast(((Date) value).toLocalDate());
+        }
+
+        if (value instanceof Time && type == LocalTime.class) {
+
+            return type.cast(((Time) value).toLocalTime());
+        }
+
+        if (type == String.class) {
+
+            return type.cast(getString(columnIndex));
+        }
+
+        throw new SQLException("Can not convert " + value.getClass().getName() + " to " + type.getName());
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+
+        return getObject(findColumn(columnLabel), type);
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value instanceof byte[]) {
+
+            return new String((byte[]) value, StandardCharsets.UTF_8);
+        }
+
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value instanceof Boolean) {
+
+            return (Boolean) value;
+        }
+
+        if (value instanceof Number) {
+
+            return ((Number) value).intValue() != 0;
+        }
+
+        if (value != null) {
+
+            String string = value.toString().trim();
+            return string.equalsIgnoreCase("true") || string.equals("1");
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+
+        Number value = number(columnIndex);
+        return value != null ? value.byteValue() : 0;
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException {
+
+        return getByte(findColumn(columnLabel));
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+
+        Number value = number(columnIndex);
+        return value != null ? value.shortValue() : 0;
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException {
+
+        return getShort(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+
+        Number value = number(columnIndex);
+        return value != null ? value.intValue() : 0;
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+
+        Number value = number(columnIndex);
+        return value != null ? value.longValue() : 0;
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+
+        Number value = number(columnIndex);
+        return value != null ? value.floatValue() : 0;
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException {
+
+        return getFloat(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+
+        Number value = number(columnIndex);
+        return value != null ? value.doubleValue() : 0;
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+
+        Number value = number(columnIndex);
+        if (value == null || value instanceof BigDecimal) {
+
+            return (BigDecimal) value;
+        }
+
+        return new BigDecimal(value.toString());
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+
+        BigDecimal value = getBigDecimal(columnIndex);
+        return value != null ? value.setScale(scale, RoundingMode.HALF_UP) : null;
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+
+        return getBigDecimal(findColumn(columnLabel), scale);
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value instanceof String) {
+
+            return ((String) value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        return (byte[]) value;
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+
+        return getBytes(findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value instanceof Timestamp) {
+
+            return new Date(((Timestamp) value).getTime());
+        }
+
+        return (Date) value;
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+
+        return getDate(findColumn(columnLabel));
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value instanceof Timestamp) {
+
+            return new Time(((Timestamp) value).getTime());
+        }
+
+        return (Time) value;
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException {
+
+        return getTime(findColumn(columnLabel));
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+
+        Object value = value(columnIndex);
+        if (value instanceof Date) {
+
+            return new Timestamp(((Date) value).getTime());
+        }
+
+        return (Timestamp) value;
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    @Override
+    public Statement getStatement() {
+
+        return null;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+    }
+
+    @Override
+    public int getRow() {
+
+        return cursor >= 0 && cursor < rows.size() ? cursor + 1 : 0;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+
+        return cursor < 0 && !rows.isEmpty();
+    }
+
+    @Override
+    public boolean isAfterLast() {
+
+        return cursor >= rows.size() && !rows.isEmpty();
+    }
+
+    @Override
+    public boolean isFirst() {
+
+        return cursor == 0 && !rows.isEmpty();
+    }
+
+    @Override
+    public boolean isLast() {
+
+        return cursor == rows.size() - 1;
+    }
+
+    @Override
+    public int getType() {
+
+        return TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getConcurrency() {
+
+        return CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getHoldability() {
+
+        return CLOSE_CURSORS_AT_COMMIT;
+    }
+
+    @Override
+    public int getFetchDirection() {
+
+        return FETCH_FORWARD;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) {
+    }
+
+    @Override
+    public int getFetchSize() {
+
+        return rows.size();
+    }
+
+    @Override
+    public void setFetchSize(int rows) {
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+
+        if (iface.isInstance(this)) {
+
+            return iface.cast(this);
+        }
+
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean absolute(int rows) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x, int length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar calendar) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar calendar) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar calendar) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar calendar) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar calendar) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar calendar) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public java.net.URL getURL(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public java.net.URL getURL(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader x, long length) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader x) throws SQLException {
+
+        throw unsupported();
+    }
+}
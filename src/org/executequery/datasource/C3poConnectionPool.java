@@ -175,6 +175,22 @@ public class C3poConnectionPool extends AbstractConnectionPool {
         return size;
     }
 
+    public ConnectionPoolMetrics getMetrics() {
+
+        int idle = 0;
+        try {
+
+            idle = pooledDataSource.getNumIdleConnectionsDefaultUser();
+
+        } catch (SQLException e) {
+
+            rethrowAsDataSourceException(e);
+        }
+
+        // c3p0 keeps its own statistics - only the pool state is reported
+        return new ConnectionPoolMetrics(activeConnections.size(), idle, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
     public boolean isTransactionSupported() {
 
         return false;
@@ -364,6 +364,20 @@ public final class ConnectionManager {
         return 0;
     }
 
+    /**
+     * Returns the pool usage statistics for the specified connection.
+     *
+     * @param dc - the connection to be polled
+     * @return the pool statistics or null if the connection is not open
+     */
+    public static ConnectionPoolMetrics getConnectionPoolMetrics(DatabaseConnection dc) {
+        ConnectionPool pool = connectionPools.get(dc);
+        if (pool != null) {
+            return pool.getMetrics();
+        }
+        return null;
+    }
+
     public static boolean hasConnections() {
 
         return getActiveConnectionPoolCount() > 0;
@@ -66,6 +66,8 @@ interface ConnectionPool {
 
     void setInitialConnections(int initialConnections);
 
+    ConnectionPoolMetrics getMetrics();
+
 }
 
 
@@ -27,38 +27,109 @@ import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.util.SystemProperties;
 
 import javax.sql.DataSource;
+import javax.swing.SwingUtilities;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Connection pool handing out connections from a concurrent idle queue.
+ * <p>
+ * Checkout does not lock the pool - an idle connection is polled from the
+ * queue or a new one is created while the pool is below its maximum size,
+ * otherwise the caller waits for a returned connection up to the
+ * <code>connection.checkout.timeout</code> preference. The event dispatch
+ * thread waits no longer than a second so a full pool never freezes the UI.
+ * <p>
+ * A background maintenance task validates the idle connections, keeps the
+ * pool warm up to its minimum size and rebuilds a dropped SSH tunnel every
+ * <code>connection.maintenance.interval</code> seconds. The connections
+ * above the minimum size are closed once idle for a whole interval, so a
+ * returned connection keeps its cached statements for the next checkout.
+ *
  * @author Takis Diakoumis
  */
 public class ConnectionPoolImpl extends AbstractConnectionPool implements PooledConnectionListener {
 
-    private int maximumConnections = MAX_POOL_SIZE;
+    /**
+     * the longest single wait for the idle queue - the free pool capacity is
+     * rechecked in between as closed connections are not put back to the queue
+     */
+    private static final long WAIT_SLICE = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * the longest checkout wait on the event dispatch thread
+     */
+    private static final long EDT_CHECKOUT_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ScheduledExecutorService MAINTENANCE = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
 
-    private int minimumConnections = MIN_POOL_SIZE;
+            Thread thread = new Thread(runnable, "ConnectionPoolMaintenance");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private volatile int maximumConnections = MAX_POOL_SIZE;
+
+    private volatile int minimumConnections = MIN_POOL_SIZE;
 
     private int initialConnections = INITIAL_POOL_SIZE;
 
-    private final List<PooledConnection> openConnections = Collections.synchronizedList(new ArrayList<PooledConnection>());
+    private final Set<PooledConnection> openConnections = Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+
+    private final Set<PooledConnection> activeConnections = Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+
+    private final BlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+
+    /**
+     * the open connection count including the connections being created
+     */
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    private final Object sharedConnectionLock = new Object();
+
+    private final long poolCreated = System.nanoTime();
+
+    private final LongAdder checkouts = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
 
-    private final List<PooledConnection> activeConnections = Collections.synchronizedList(new ArrayList<PooledConnection>());
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final LongAdder createdCount = new LongAdder();
+
+    private final LongAdder evictedCount = new LongAdder();
 
     private final DatabaseConnection databaseConnection;
 
-    private int defaultTxIsolation = -1;
+    private volatile int defaultTxIsolation = -1;
 
-    private boolean supportsTransactions;
+    private volatile boolean supportsTransactions;
 
     private DataSource dataSource;
 
     private SshTunnel sshTunnel;
 
+    private volatile boolean closed;
+
+    private final ScheduledFuture<?> maintenanceTask;
+
+    private final long maintenanceIntervalNanos;
+
     public ConnectionPoolImpl(DatabaseConnection databaseConnection) {
 
         this.databaseConnection = databaseConnection;
@@ -68,6 +139,24 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
             Log.debug("Creating new pool for connection " + databaseConnection.getName());
         }
 
+        int interval = SystemProperties.getIntProperty("user", "connection.maintenance.interval");
+        maintenanceIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(0, interval));
+        if (interval > 0) {
+
+            maintenanceTask = MAINTENANCE.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    maintain();
+                }
+            }, interval, interval, TimeUnit.SECONDS);
+
+        } else {
+
+            maintenanceTask = null;
+        }
+
     }
 
     public DatabaseConnection getDatabaseConnection() {
@@ -84,94 +173,263 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
         }
 
         activeConnections.remove(pooledConnection);
-        reduceCapacity(minimumConnections);
+        if (pooledConnection.isAvailable() && openConnections.contains(pooledConnection)) {
+
+            // the real connection is kept open on return - reuse it
+            idleConnections.offerFirst(pooledConnection);
+
+        } else {
+
+            release(pooledConnection);
+        }
+
     }
 
     public void close(Connection connection) {
 
         if (connection != null) {
 
-            activeConnections.remove(connection);
-
             PooledConnection pooledConnection = (PooledConnection) connection;
-            pooledConnection.destroy();
+            activeConnections.remove(pooledConnection);
+            release(pooledConnection);
 
-            openConnections.remove(pooledConnection);
+            pooledConnection.destroy();
         }
 
         ensureCapacity(minimumConnections);
     }
 
-    public synchronized void close() {
+    public void close() {
+
+        closed = true;
+        if (maintenanceTask != null) {
+
+            maintenanceTask.cancel(false);
+        }
 
         if (Log.isDebugEnabled()) {
 
-            Log.debug("Closing connection pool for connection " + databaseConnection.getName());
+            Log.debug("Closing connection pool for connection " + databaseConnection.getName() + " - " + getMetrics());
         }
 
-        for (Connection connection : openConnections) {
+        List<PooledConnection> connections = new ArrayList<>(openConnections);
+        openConnections.clear();
+        activeConnections.clear();
+        idleConnections.clear();
+        openCount.set(0);
+
+        for (PooledConnection pooledConnection : connections) {
 
-            PooledConnection pooledConnection = (PooledConnection) connection;
             pooledConnection.destroy();
         }
 
         destroySshTunnel();
-        activeConnections.clear();
-        openConnections.clear();
     }
 
-    public synchronized Connection getConnection() {
+    public Connection getConnection() {
 
-        int size = openConnections.size();
+        long start = System.nanoTime();
         if (Log.isTraceEnabled()) {
 
             Log.trace("Retrieving new connection from the pool with current size: [ "
-                    + size + " ] from maximum pool capacity [ " + maximumConnections + " ]");
+                    + openCount.get() + " ] from maximum pool capacity [ " + maximumConnections + " ]");
         }
 
-        if (databaseConnection.isSshTunnel() && sshTunnel == null) {
+        if (databaseConnection.isSshTunnel()) {
 
-            createSshTunnel();
+            ensureSshTunnel();
         }
 
-        if (size < minimumConnections) {
+        if (openCount.get() < minimumConnections) {
 
             ensureCapacity(minimumConnections);
         }
 
-        PooledConnection connection = getNextOpenAvailable();
+        boolean usePool = SystemProperties.getBooleanProperty("user", "connection.usepool");
+        if (!usePool) {
 
-        if (connection != null) {
+            // connections are shared while no idle one is left
+            synchronized (sharedConnectionLock) {
 
-            try {
-                if (connection.isClosed()) {
+                PooledConnection connection = pollIdle();
+                if (connection != null) {
 
-                    close(connection);
-                    return getConnection();
+                    return checkedOut(connection, start);
                 }
-            } catch (SQLException e) {
-            }
 
-            connection.setInUse(true);
-            activeConnections.add(connection);
-
-        } else if (size < maximumConnections) {
-            boolean usePool = SystemProperties.getBooleanProperty("user", "connection.usepool");
-            if (!usePool) {
-                if (activeConnections.size() > 0)
-                    return activeConnections.get(0);
-                else {
-                    createConnection();
-                    return getConnection();
+                for (PooledConnection activeConnection : activeConnections) {
+
+                    return activeConnection;
                 }
+
+                return checkout(start);
+            }
+        }
+
+        return checkout(start);
+    }
+
+    /**
+     * Returns the pool usage statistics.
+     */
+    public ConnectionPoolMetrics getMetrics() {
+
+        long statementHits = 0;
+        long statementMisses = 0;
+        long statementEvictions = 0;
+        for (PooledConnection connection : openConnections) {
+
+            PreparedStatementCache statementCache = connection.getStatementCache();
+            statementHits += statementCache.getHits();
+            statementMisses += statementCache.getMisses();
+            statementEvictions += statementCache.getEvictions();
+        }
+
+        return new ConnectionPoolMetrics(activeConnections.size(), idleConnections.size(),
+                checkouts.sum(), timeouts.sum(), totalWaitNanos.sum(), maxWaitNanos.get(),
+                createdCount.sum(), evictedCount.sum(), System.nanoTime() - poolCreated,
+                statementHits, statementMisses, statementEvictions);
+    }
+
+    /**
+     * Runs the pool maintenance - rebuilds a dropped SSH tunnel,
+     * evicts the idle connections failing validation, closes the
+     * connections above the minimum pool size idle since the last run
+     * and creates the connections missing to the minimum pool size.
+     */
+    private void maintain() {
+
+        if (closed) {
+
+            return;
+        }
+
+        try {
+
+            if (databaseConnection.isSshTunnel() && isSshTunnelDropped()) {
+
+                rebuildSshTunnel();
+            }
+
+            validateIdleConnections();
+
+            if (!closed) {
+
+                reduceCapacity(minimumConnections, maintenanceIntervalNanos);
+                ensureCapacity(minimumConnections);
+            }
+
+        } catch (RuntimeException e) {
+
+            Log.debug("Connection pool maintenance failed for connection "
+                    + databaseConnection.getName() + ": " + e.getMessage());
+        }
+
+    }
+
+    private void validateIdleConnections() {
+
+        int timeout = Math.max(1, SystemProperties.getIntProperty("user", "connection.connect.timeout"));
+
+        // each idle connection is taken out of the queue while it is checked
+        // and put back at the head so the next one is polled from the tail
+
+        for (int i = idleConnections.size(); i > 0 && !closed; i--) {
+
+            PooledConnection connection = idleConnections.pollLast();
+            if (connection == null) {
+
+                break;
+            }
+
+            if (connection.isAvailable() && connection.ping(timeout)) {
+
+                idleConnections.offerFirst(connection);
+
             } else {
-                createConnection();
-                return getConnection();
+
+                if (Log.isDebugEnabled()) {
+
+                    Log.debug("Evicting stale connection " + connection.getId() + " from the pool");
+                }
+
+                evictedCount.increment();
+                discard(connection);
             }
 
-        } else {
+        }
+
+    }
+
+    private PooledConnection checkout(long start) {
+
+        long timeout = TimeUnit.SECONDS.toNanos(
+                Math.max(0, SystemProperties.getIntProperty("user", "connection.checkout.timeout")));
+        if (SwingUtilities.isEventDispatchThread()) {
+
+            timeout = Math.min(timeout, EDT_CHECKOUT_TIMEOUT);
+        }
+        long deadline = start + timeout;
+
+        while (true) {
+
+            PooledConnection connection = pollIdle();
+            if (connection == null && reserve(maximumConnections)) {
+
+                connection = createReserved();
+            }
+
+            if (connection == null) {
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+
+                    timeouts.increment();
+                    throw new DataSourceException("Maximum open connection count exceeded");
+                }
+
+                try {
+
+                    connection = idleConnections.pollFirst(Math.min(remaining, WAIT_SLICE), TimeUnit.NANOSECONDS);
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                    throw new DataSourceException(e);
+                }
+
+                if (connection != null && !connection.isAvailable()) {
+
+                    discard(connection);
+                    connection = null;
+                }
+
+            }
+
+            if (connection != null) {
+
+                return checkedOut(connection, start);
+            }
 
-            throw new DataSourceException("Maximum open connection count exceeded");
+        }
+
+    }
+
+    private PooledConnection checkedOut(PooledConnection connection, long start) {
+
+        connection.setInUse(true);
+        activeConnections.add(connection);
+
+        long wait = System.nanoTime() - start;
+        checkouts.increment();
+        totalWaitNanos.add(wait);
+        while (true) {
+
+            long max = maxWaitNanos.get();
+            if (wait <= max || maxWaitNanos.compareAndSet(max, wait)) {
+
+                break;
+            }
         }
 
         if (Log.isDebugEnabled()) {
@@ -182,12 +440,117 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
         return connection;
     }
 
-    private void destroySshTunnel() {
+    /**
+     * Polls the idle queue discarding the connections closed meanwhile.
+     */
+    private PooledConnection pollIdle() {
+
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+
+            if (connection.isAvailable()) {
+
+                return connection;
+            }
+
+            discard(connection);
+        }
+
+        return null;
+    }
+
+    private void discard(PooledConnection connection) {
+
+        release(connection);
+        connection.destroy();
+    }
+
+    /**
+     * Removes the connection from the pool freeing its slot.
+     */
+    private void release(PooledConnection connection) {
+
+        idleConnections.remove(connection);
+        if (openConnections.remove(connection)) {
+
+            openCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reserves a slot for a new connection while the pool is below the specified size.
+     */
+    private boolean reserve(int capacity) {
+
+        while (true) {
+
+            int count = openCount.get();
+            if (count >= capacity) {
+
+                return false;
+            }
+
+            if (openCount.compareAndSet(count, count + 1)) {
+
+                return true;
+            }
+        }
+
+    }
+
+    private PooledConnection createReserved() {
+
+        try {
+
+            return createConnection();
+
+        } catch (RuntimeException e) {
+
+            openCount.decrementAndGet();
+            throw e;
+        }
+
+    }
+
+    private synchronized void destroySshTunnel() {
 
         if (sshTunnel != null) {
 
             sshTunnel.disconnect(databaseConnection);
             sshTunnel = null;
+
+            // the data source is bound to the local port of the tunnel
+            dataSource = null;
+        }
+    }
+
+    private synchronized boolean isSshTunnelDropped() {
+
+        return sshTunnel != null && !sshTunnel.isConnected();
+    }
+
+    private void rebuildSshTunnel() {
+
+        Log.info("SSH tunnel for connection " + databaseConnection.getName() + " dropped - reconnecting");
+
+        destroySshTunnel();
+
+        // the idle connections were opened through the dropped tunnel
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+
+            evictedCount.increment();
+            discard(connection);
+        }
+
+        ensureSshTunnel();
+    }
+
+    private synchronized void ensureSshTunnel() {
+
+        if (sshTunnel == null) {
+
+            createSshTunnel();
         }
     }
 
@@ -204,61 +567,76 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
             Log.debug("Ensuring pool capacity " + capacity);
         }
 
-        while (openConnections.size() < capacity) {
+        while (reserve(Math.min(capacity, maximumConnections))) {
 
-            createConnection();
+            idleConnections.offerLast(createReserved());
         }
 
     }
 
-    private void reduceCapacity(int capacity) {
+    /**
+     * Closes the idle connections above the specified pool size
+     * not used for the specified time in nanos.
+     */
+    private void reduceCapacity(int capacity, long idleTime) {
 
         if (Log.isDebugEnabled()) {
 
             Log.debug("Reducing pool capacity " + capacity);
         }
 
-        while (openConnections.size() > capacity) {
+        // returned connections are put at the head of the queue,
+        // so the tail holds the connection idle for the longest time
 
-            PooledConnection connection = getNextOpenAvailable();
-            if (connection != null) {
+        while (openCount.get() > capacity) {
 
-                close(connection);
+            PooledConnection connection = idleConnections.pollLast();
+            if (connection == null) {
 
-            } else {
+                break;
+            }
+
+            if (connection.getIdleTime() < idleTime) {
 
+                idleConnections.offerLast(connection);
                 break;
             }
 
+            discard(connection);
         }
 
     }
 
-    private PooledConnection createConnection() {
+    private synchronized DataSource initialiseDataSource() {
 
-        PooledConnection connection = null;
+        if (dataSource == null) {
 
-        try {
+            DatabaseConnection _databaseConnection = databaseConnection;
+            if (databaseConnection.isSshTunnel()) {
 
-            if (dataSource == null) {
+                if (sshTunnel == null) {
 
-                DatabaseConnection _databaseConnection = databaseConnection;
-                if (databaseConnection.isSshTunnel()) {
+                    createSshTunnel();
+                }
 
-                    if (sshTunnel == null) {
+                _databaseConnection = databaseConnection.copy();
+                _databaseConnection.setHost("localhost");
+                _databaseConnection.setPort(String.valueOf(sshTunnel.getTunnelPort()));
+            }
 
-                        createSshTunnel();
-                    }
+            dataSource = new SimpleDataSource(_databaseConnection);
+        }
 
-                    _databaseConnection = databaseConnection.copy();
-                    _databaseConnection.setHost("localhost");
-                    _databaseConnection.setPort(String.valueOf(sshTunnel.getTunnelPort()));
-                }
+        return dataSource;
+    }
 
-                dataSource = new SimpleDataSource(_databaseConnection);
-            }
+    private PooledConnection createConnection() {
+
+        PooledConnection connection = null;
+
+        try {
 
-            Connection realConnection = dataSource.getConnection();
+            Connection realConnection = initialiseDataSource().getConnection();
             if (realConnection == null) {
 
                 destroySshTunnel();
@@ -286,10 +664,12 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
                 }
             }
 
-            connection = new PooledConnection(realConnection, databaseConnection,true,true);
+            // the real connection is kept open on return with its cached statements
+            connection = new PooledConnection(realConnection, databaseConnection, false, true);
             connection.addPooledConnectionListener(this);
 
             openConnections.add(connection);
+            createdCount.increment();
 
             if (Log.isDebugEnabled()) {
 
@@ -319,21 +699,7 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
 
     }
 
-    private PooledConnection getNextOpenAvailable() {
-
-        for (PooledConnection pooledConnection : openConnections) {
-
-            if (pooledConnection.isAvailable()) {
-
-                return pooledConnection;
-            }
-
-        }
-
-        return null;
-    }
-
-    public DataSource getDataSource() {
+    public synchronized DataSource getDataSource() {
 
         return dataSource;
     }
@@ -360,7 +726,7 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
 
     public int getSize() {
 
-        return openConnections.size();
+        return openCount.get();
     }
 
     public boolean isTransactionSupported() {
@@ -382,7 +748,7 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
         return supportsTransactions;
     }
 
-    public void setDataSource(DataSource dataSource) {
+    public synchronized void setDataSource(DataSource dataSource) {
 
         this.dataSource = dataSource;
     }
@@ -446,15 +812,11 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
 
         try {
 
-            synchronized (openConnections) {
+            for (Connection connection : openConnections) {
 
-                for (Connection connection : openConnections) {
-
-                    if (!connection.isClosed()) {
-
-                        connection.setTransactionIsolation(isolationLevelToApply);
-                    }
+                if (!connection.isClosed()) {
 
+                    connection.setTransactionIsolation(isolationLevelToApply);
                 }
 
             }
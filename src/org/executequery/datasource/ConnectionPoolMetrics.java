@@ -0,0 +1,169 @@
+/*
+ * ConnectionPoolMetrics.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time snapshot of the connection pool usage statistics.
+ */
+public final class ConnectionPoolMetrics {
+
+    private final int activeCount;
+
+    private final int idleCount;
+
+    private final long checkouts;
+
+    private final long timeouts;
+
+    private final long totalWaitNanos;
+
+    private final long maxWaitNanos;
+
+    private final long createdCount;
+
+    private final long evictedCount;
+
+    private final long uptimeNanos;
+
+    private final long statementHits;
+
+    private final long statementMisses;
+
+    private final long statementEvictions;
+
+    ConnectionPoolMetrics(int activeCount, int idleCount, long checkouts, long timeouts,
+                          long totalWaitNanos, long maxWaitNanos, long createdCount, long evictedCount, long uptimeNanos,
+                          long statementHits, long statementMisses, long statementEvictions) {
+
+        this.activeCount = activeCount;
+        this.idleCount = idleCount;
+        this.checkouts = checkouts;
+        this.timeouts = timeouts;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.createdCount = createdCount;
+        this.evictedCount = evictedCount;
+        this.uptimeNanos = uptimeNanos;
+        this.statementHits = statementHits;
+        this.statementMisses = statementMisses;
+        this.statementEvictions = statementEvictions;
+    }
+
+    /**
+     * Returns the number of connections currently checked out.
+     */
+    public int getActiveCount() {
+
+        return activeCount;
+    }
+
+    /**
+     * Returns the number of open connections waiting in the pool.
+     */
+    public int getIdleCount() {
+
+        return idleCount;
+    }
+
+    public long getCheckouts() {
+
+        return checkouts;
+    }
+
+    /**
+     * Returns the number of checkouts failed on the wait timeout.
+     */
+    public long getTimeouts() {
+
+        return timeouts;
+    }
+
+    /**
+     * Returns the average checkout wait time in millis.
+     */
+    public double getAverageWaitTime() {
+
+        return checkouts > 0 ? (double) totalWaitNanos / checkouts / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    /**
+     * Returns the longest checkout wait time in millis.
+     */
+    public long getMaxWaitTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+    }
+
+    public long getCreatedCount() {
+
+        return createdCount;
+    }
+
+    /**
+     * Returns the number of idle connections dropped by the pool maintenance.
+     */
+    public long getEvictedCount() {
+
+        return evictedCount;
+    }
+
+    /**
+     * Returns the number of connections created per minute since the pool was opened.
+     */
+    public double getCreationRate() {
+
+        long minute = TimeUnit.MINUTES.toNanos(1);
+        return (double) createdCount * minute / Math.max(uptimeNanos, minute);
+    }
+
+    /**
+     * Returns the number of statements reused from the statement caches
+     * of the open connections.
+     */
+    public long getStatementHits() {
+
+        return statementHits;
+    }
+
+    public long getStatementMisses() {
+
+        return statementMisses;
+    }
+
+    public long getStatementEvictions() {
+
+        return statementEvictions;
+    }
+
+    @Override
+    public String toString() {
+
+        return String.format("active: %d, idle: %d, checkouts: %d, timeouts: %d, " +
+                        "wait avg/max: %.2f/%d ms, created: %d (%.2f per min), evicted: %d, " +
+                        "statement cache hits/misses/evictions: %d/%d/%d",
+                activeCount, idleCount, checkouts, timeouts,
+                getAverageWaitTime(), getMaxWaitTime(), createdCount, getCreationRate(), evictedCount,
+                statementHits, statementMisses, statementEvictions);
+    }
+
+}
@@ -37,7 +37,15 @@ import java.util.Properties;
  */
 public class JschSshTunnel implements SshTunnel {
 
-    private Session session;
+    /**
+     * keep-alive interval in millis - a dropped session is disconnected
+     * after the server misses SERVER_ALIVE_COUNT_MAX keep-alive messages
+     */
+    private static final int SERVER_ALIVE_INTERVAL = 15000;
+
+    private static final int SERVER_ALIVE_COUNT_MAX = 3;
+
+    private volatile Session session;
     private int tunnelPort;
 
     @Override
@@ -73,6 +81,13 @@ public class JschSshTunnel implements SshTunnel {
 
     }
 
+    @Override
+    public boolean isConnected() {
+
+        Session current = session;
+        return current != null && current.isConnected();
+    }
+
     public int getTunnelPort() {
 
         return tunnelPort;
@@ -94,6 +109,8 @@ public class JschSshTunnel implements SshTunnel {
 
             session.setConfig(config);
             session.setPassword(databaseConnection.getUnencryptedSshPassword());
+            session.setServerAliveInterval(SERVER_ALIVE_INTERVAL);
+            session.setServerAliveCountMax(SERVER_ALIVE_COUNT_MAX);
 
             session.connect();
 
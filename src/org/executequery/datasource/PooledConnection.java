@@ -25,6 +25,7 @@ import org.executequery.GUIUtilities;
 import org.executequery.databasemediators.ConnectionMediator;
 import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.localization.Bundles;
+import org.executequery.log.Log;
 import org.underworldlabs.util.DynamicLibraryLoader;
 import org.underworldlabs.util.SystemProperties;
 
@@ -84,6 +85,16 @@ public class PooledConnection implements Connection {
     private PooledStatement lastStatement;
     private final boolean timerCheckConnection;
 
+    /**
+     * the prepared statements kept open for reuse
+     */
+    private final PreparedStatementCache statementCache;
+
+    /**
+     * the time the connection was last returned to the pool
+     */
+    private volatile long returnedAt = System.nanoTime();
+
 
     /**
      * Creates a new PooledConnection object with the
@@ -118,6 +129,12 @@ public class PooledConnection implements Connection {
         this.realConnection = realConnection;
         this.closeOnReturn = closeOnReturn;
 
+        int statementCacheSize = databaseConnection != null ? databaseConnection.getStatementCacheSize() : -1;
+        if (statementCacheSize < 0) {
+            statementCacheSize = SystemProperties.getIntProperty("user", "connection.statement.cache.size");
+        }
+        statementCache = new PreparedStatementCache(statementCacheSize);
+
         if (this.timerCheckConnection) {
 
             timer = new Timer("check '" + databaseConnection.getName() + "' connection Timer");
@@ -180,6 +197,40 @@ public class PooledConnection implements Connection {
         }
     }
 
+    /**
+     * Checks the real connection with a server round trip without
+     * reporting the failure to the user.
+     *
+     * @param timeout the time in seconds to wait for the response
+     * @return true if the server responded
+     */
+    public boolean ping(int timeout) {
+
+        Connection connection = realConnection;
+        if (connection == null) {
+
+            return false;
+        }
+
+        try {
+
+            return connection.isValid(timeout);
+
+        } catch (SQLException e) {
+
+            Log.debug("Connection " + id + " validation failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the time in nanos since the connection was last returned.
+     */
+    public long getIdleTime() {
+
+        return System.nanoTime() - returnedAt;
+    }
+
     public void setInUse(boolean inUse) {
 
         if (inUse) {
@@ -199,6 +250,7 @@ public class PooledConnection implements Connection {
 
         try {
 
+            closeOnReturn = true;
             close();
 
         } catch (SQLException e) {
@@ -211,12 +263,14 @@ public class PooledConnection implements Connection {
     /**
      * Closes the underlying connection, and close
      * any Statements that were not explicitly closed.
+     * <p>
+     * The connection kept open on return is only reset for the
+     * next checkout, so its cached statements are reused.
      */
     public void close() throws SQLException {
 
         inUse = false;
-        if(timerCheckConnection)
-            timer.cancel();
+        returnedAt = System.nanoTime();
 
         if (realConnection != null) {
 
@@ -225,26 +279,55 @@ public class PooledConnection implements Connection {
             //Log.info("Closing connection - " + id);
             //}
 
-            if (closeOnReturn) {
+            if (closeOnReturn || !resetForReuse()) {
+
+                if (timerCheckConnection)
+                    timer.cancel();
 
+                if (Log.isDebugEnabled()) {
+                    Log.debug("Statement cache of connection " + id + " - " + statementCache);
+                }
+                statementCache.clear();
                 realConnection.close();
                 realConnection = null;
+            }
 
-            } else {
+            fireConnectionClosed();
+
+        } else if (timerCheckConnection) {
+            timer.cancel();
+        }
+    }
 
-                // reset the original auto-commit mode
-               /* try {
+    /**
+     * Ends the checkout of the connection kept open on return - rolls back
+     * the transaction left open and restores the original auto-commit mode.
+     *
+     * @return false if the connection can not be reused
+     */
+    private boolean resetForReuse() {
 
-                    realConnection.setAutoCommit(originalAutoCommit);
+        // a statement left open still holds the connection
+        if (!mutex.tryAcquire()) {
+            return false;
+        }
+        mutex.release();
 
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }*/
+        try {
 
+            if (!realConnection.getAutoCommit()) {
+                realConnection.rollback();
+            }
+            if (realConnection.getAutoCommit() != originalAutoCommit) {
+                realConnection.setAutoCommit(originalAutoCommit);
             }
+            realConnection.clearWarnings();
+            return !realConnection.isClosed();
 
-            fireConnectionClosed();
+        } catch (SQLException e) {
 
+            Log.debug("Connection " + id + " can not be reused: " + e.getMessage());
+            return false;
         }
     }
 
@@ -339,6 +422,9 @@ public class PooledConnection implements Connection {
     }
 
     public PreparedStatement prepareStatement(String sql) throws SQLException {
+        if (statementCache.isCacheable(sql)) {
+            return prepareCachedStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        }
         checkOpen();
         PreparedStatement statement = null;
         lock(true);
@@ -358,6 +444,9 @@ public class PooledConnection implements Connection {
                                               int resultSetType,
                                               int resultSetConcurrency)
             throws SQLException {
+        if (statementCache.isCacheable(sql)) {
+            return prepareCachedStatement(sql, resultSetType, resultSetConcurrency);
+        }
         checkOpen();
         PreparedStatement statement = null;
         lock(true);
@@ -373,6 +462,43 @@ public class PooledConnection implements Connection {
         }
     }
 
+    private PreparedStatement prepareCachedStatement(String sql,
+                                                     int resultSetType,
+                                                     int resultSetConcurrency)
+            throws SQLException {
+        checkOpen();
+        PreparedStatement statement = null;
+        PreparedStatementCache.Key key = new PreparedStatementCache.Key(sql, resultSetType, resultSetConcurrency);
+        lock(true);
+        try {
+            statement = statementCache.take(key);
+            if (statement == null)
+                statement = realConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            lastStatement = new PooledStatement(this, statement);
+            lastStatement.setCacheKey(key);
+            return lastStatement;
+        } catch (SQLException e) {
+            if (statement == null)
+                lock(false);
+            handleException(e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the statement closed by the caller to the cache.
+     */
+    void releaseCachedStatement(PreparedStatementCache.Key key, PreparedStatement statement) throws SQLException {
+        statementCache.release(key, statement);
+    }
+
+    /**
+     * Returns the prepared statement cache with its hit/miss/eviction counters.
+     */
+    public PreparedStatementCache getStatementCache() {
+        return statementCache;
+    }
+
     public CallableStatement prepareCall(String sql) throws SQLException {
         checkOpen();
         CallableStatement statement = null;
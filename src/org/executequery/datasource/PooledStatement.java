@@ -24,6 +24,11 @@ public class PooledStatement implements CallableStatement {
 
     private boolean closed;
 
+    /**
+     * the statement cache key, null if the statement is not cached
+     */
+    private PreparedStatementCache.Key cacheKey;
+
     public PooledStatement(PooledConnection con, Statement statement) {
         this.connection = con;
         this.statement = statement;
@@ -406,9 +411,12 @@ public class PooledStatement implements CallableStatement {
     public void close() throws SQLException {
         try {
             if (!closed) {
-                if (statement != null)
-                    if (!statement.isClosed())
+                if (statement != null) {
+                    if (cacheKey != null)
+                        connection.releaseCachedStatement(cacheKey, preparedStatement);
+                    else if (!statement.isClosed())
                         statement.close();
+                }
                 connection.lock(false);
                 closed = true;
             } else {
@@ -2161,6 +2169,10 @@ public class PooledStatement implements CallableStatement {
         return closed;
     }
 
+    void setCacheKey(PreparedStatementCache.Key cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
     public void setIndividual(boolean individual) {
         this.individual = individual;
     }
@@ -0,0 +1,341 @@
+/*
+ * PreparedStatementCache.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import org.executequery.log.Log;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LRU cache of the real prepared statements of a single connection
+ * keyed by the SQL text and the result set type and concurrency.
+ * <p>
+ * A cached statement is taken out of the cache while in use and
+ * put back on close, so it is never shared between two callers.
+ * Only queries against the system tables are cached - keeping
+ * user table statements prepared would lock these tables for DDL.
+ */
+public class PreparedStatementCache {
+
+    private static final String[] SYSTEM_TABLE_PREFIXES = {"RDB$", "MON$", "SEC$"};
+
+    private static final Pattern TOKEN = Pattern.compile("'[^']*'|\"[^\"]*\"|[A-Z_][A-Z0-9_$]*|[0-9.]+|\\S");
+
+    private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "OUTER", "CROSS", "NATURAL", "ON", "USING",
+            "GROUP", "HAVING", "ORDER", "UNION", "PLAN", "ROWS", "FETCH", "OFFSET", "FOR", "WINDOW"));
+
+    private final int maxSize;
+
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    public PreparedStatementCache(int maxSize) {
+
+        this.maxSize = maxSize;
+        statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns whether the specified statement may be cached.
+     */
+    public boolean isCacheable(String sql) {
+
+        if (maxSize <= 0 || sql == null) {
+
+            return false;
+        }
+
+        String query = sql.trim().toUpperCase();
+        if (!query.startsWith("SELECT") && !query.startsWith("WITH")) {
+
+            return false;
+        }
+
+        // every table read has to be a system table - a system column
+        // like RDB$DB_KEY of a user table does not make the query cacheable
+        boolean systemTable = false;
+        boolean expectTable = false;
+        boolean inTableList = false;
+        boolean aliasAllowed = false;
+
+        Matcher tokens = TOKEN.matcher(query);
+        while (tokens.find()) {
+
+            String token = tokens.group();
+            if (expectTable) {
+
+                expectTable = false;
+                if (!isIdentifier(token)) {
+
+                    // a derived table or an argument of EXTRACT, SUBSTRING, TRIM
+                    inTableList = false;
+                    continue;
+                }
+
+                if (!isSystemTable(token)) {
+
+                    return false;
+                }
+
+                systemTable = true;
+                inTableList = true;
+                aliasAllowed = true;
+                continue;
+            }
+
+            if (token.equals("FROM") || token.equals("JOIN")) {
+
+                expectTable = true;
+                continue;
+            }
+
+            if (inTableList) {
+
+                if (token.equals(",")) {
+
+                    expectTable = true;
+                    continue;
+                }
+
+                if (aliasAllowed && token.equals("AS")) {
+
+                    continue;
+                }
+
+                if (aliasAllowed && isIdentifier(token) && !CLAUSE_KEYWORDS.contains(token)) {
+
+                    aliasAllowed = false;
+                    continue;
+                }
+
+                inTableList = false;
+            }
+        }
+
+        return systemTable;
+    }
+
+    private static boolean isIdentifier(String token) {
+
+        char first = token.charAt(0);
+        return first == '"' || Character.isLetter(first) || first == '_';
+    }
+
+    private static boolean isSystemTable(String name) {
+
+        String table = name.startsWith("\"") ? name.substring(1) : name;
+        for (String prefix : SYSTEM_TABLE_PREFIXES) {
+
+            if (table.startsWith(prefix)) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Takes the statement for the specified key out of the cache.
+     *
+     * @return the cached statement or null on a cache miss
+     */
+    public synchronized PreparedStatement take(Key key) {
+
+        PreparedStatement statement = statements.remove(key);
+        if (statement != null) {
+
+            try {
+
+                if (!statement.isClosed()) {
+
+                    hits++;
+                    return statement;
+                }
+
+            } catch (SQLException e) {
+
+                Log.debug("Error checking cached statement state: " + e.getMessage());
+            }
+        }
+
+        misses++;
+        return null;
+    }
+
+    /**
+     * Resets and puts the statement back to the cache evicting the least
+     * recently used one when full. The statement is closed if it could
+     * not be cached.
+     */
+    public synchronized void release(Key key, PreparedStatement statement) throws SQLException {
+
+        try {
+
+            if (statement.isClosed()) {
+
+                return;
+            }
+
+            ResultSet resultSet = statement.getResultSet();
+            if (resultSet != null && !resultSet.isClosed()) {
+
+                resultSet.close();
+            }
+            statement.clearParameters();
+            statement.clearWarnings();
+            statement.setMaxRows(0);
+            statement.setQueryTimeout(0);
+
+        } catch (SQLException e) {
+
+            statement.close();
+            return;
+        }
+
+        PreparedStatement previous = statements.put(key, statement);
+        if (previous != null && previous != statement) {
+
+            closeQuietly(previous);
+        }
+
+        Iterator<PreparedStatement> iterator = statements.values().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+
+            closeQuietly(iterator.next());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Closes and removes all cached statements.
+     */
+    public synchronized void clear() {
+
+        for (PreparedStatement statement : statements.values()) {
+
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    public synchronized int size() {
+
+        return statements.size();
+    }
+
+    public int getMaxSize() {
+
+        return maxSize;
+    }
+
+    public synchronized long getHits() {
+
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+
+        return "statements: " + statements.size() + "/" + maxSize
+                + ", hits: " + hits + ", misses: " + misses + ", evictions: " + evictions;
+    }
+
+    private void closeQuietly(PreparedStatement statement) {
+
+        try {
+
+            statement.close();
+
+        } catch (SQLException e) {
+
+            Log.debug("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cache key - the SQL text and result set type and concurrency.
+     */
+    public static final class Key {
+
+        private final String sql;
+
+        private final int resultSetType;
+
+        private final int resultSetConcurrency;
+
+        public Key(String sql, int resultSetType, int resultSetConcurrency) {
+
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+
+                return false;
+            }
+
+            Key key = (Key) o;
+            return resultSetType == key.resultSetType
+                    && resultSetConcurrency == key.resultSetConcurrency
+                    && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(sql, resultSetType, resultSetConcurrency);
+        }
+
+    }
+
+}
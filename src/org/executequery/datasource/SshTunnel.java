@@ -35,6 +35,8 @@ public interface SshTunnel {
 
     void disconnect(DatabaseConnection databaseConnection);
 
+    boolean isConnected();
+
 }
 
 
@@ -50,15 +50,17 @@ import org.underworldlabs.swing.ProgressBar;
 import org.underworldlabs.swing.ProgressBarFactory;
 import org.underworldlabs.swing.plaf.UIUtils;
 import org.underworldlabs.swing.util.SwingWorker;
+import org.underworldlabs.util.EncodingDetector;
 import org.underworldlabs.util.FileUtils;
 import org.underworldlabs.util.MiscUtils;
+import org.underworldlabs.util.SystemProperties;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.Charset;
 import java.sql.SQLException;
 
 /**
@@ -74,6 +76,7 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
     public static final String TITLE = Bundles.get(ExecuteSqlScriptPanel.class, "title");
     public static final String FRAME_ICON = "ExecuteSqlScript16.png";
     public static final int MAX_LENGTH_TEXT_PANE = 1000000;
+    private static final int ENCODING_DETECTION_LIMIT = 256 * 1024;
 
     private JComboBox connectionsCombo;
 
@@ -91,6 +94,8 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
 
     private JCheckBox logOutputCheckBox;
 
+    private JCheckBox parallelCheckBox;
+
     private JCheckBox useConnection;
 
     private JButton saveButton;
@@ -107,7 +112,10 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
 
     private boolean resetButtons;
 
-    private String script = null;
+    /**
+     * Script file too big for the editor, executed straight from the disk
+     */
+    private File scriptFile;
 
     public ExecuteSqlScriptPanel() {
 
@@ -156,6 +164,9 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
         logOutputCheckBox = new JCheckBox(bundleString("logOutput"));
         logOutputCheckBox.setSelected(true);
 
+        parallelCheckBox = new JCheckBox(bundleString("ExecuteInParallel"));
+        parallelCheckBox.setSelected(false);
+
         useConnection = new JCheckBox(bundleString("UseConnection"));
         useConnection.addItemListener(new ItemListener() {
 
@@ -226,6 +237,11 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
         mainPanel.add(saveButton, gbc);
         gbc.gridy++;
         gbc.gridx = 0;
+        gbc.insets.left = 10;
+        gbc.gridwidth = GridBagConstraints.REMAINDER;
+        mainPanel.add(parallelCheckBox, gbc);
+        gbc.gridy++;
+        gbc.gridx = 0;
         gbc.weighty = 1.0;
         gbc.weightx = 1.0;
         gbc.insets.top = 5;
@@ -293,12 +309,34 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
         File file = new File(fileNameField.getText());
 
         try {
-            sqlText.setSQLText(FileUtils.loadFile(file.getPath()));
+            loadScript(file);
         } catch (IOException e) {
             GUIUtilities.displayErrorMessage(bundleString("error.load-file"));
         }
     }
 
+    private void loadScript(File file) throws IOException {
+
+        if (file.length() < MAX_LENGTH_TEXT_PANE) {
+
+            scriptFile = null;
+            sqlText.setSQLText(FileUtils.loadFile(file.getPath()));
+
+        } else {
+
+            scriptFile = file;
+            sqlText.setSQLText("'File is very big.It can not opened in editor'");
+        }
+    }
+
+    private Reader openScript(File file) throws IOException {
+
+        // the script may be too big to scan, its start is enough to tell the encoding
+        String charset = new EncodingDetector().detectCharset(file, ENCODING_DETECTION_LIMIT);
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                charset != null ? Charset.forName(charset) : Charset.defaultCharset()));
+    }
+
     public boolean logOutput() {
 
         return logOutputCheckBox.isSelected();
@@ -321,10 +359,7 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
 
         File file = fileChooser.getSelectedFile();
         fileNameField.setText(file.getAbsolutePath());
-        script = FileUtils.loadFile(file.getPath());
-        if(script.length()<MAX_LENGTH_TEXT_PANE)
-            sqlText.setSQLText(script);
-        else sqlText.setSQLText("'File is very big.It can not opened in editor'");
+        loadScript(file);
     }
 
     private boolean fieldsValid() {
@@ -555,13 +590,21 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
                 if (selectedHost != null)
                     connection = selectedHost.getDatabaseConnection();
             }
-            if (script == null || script.length() < MAX_LENGTH_TEXT_PANE)
-                script = sqlText.getSQLText();
+            sqlScriptRunner.setParallelThreads(parallelCheckBox.isSelected() ?
+                    SystemProperties.getIntProperty("user", "editor.script.parallel.threads") : 0);
+
+            Reader script = scriptFile != null ?
+                    openScript(scriptFile) : new StringReader(sqlText.getSQLText());
             sqlStatementResult = sqlScriptRunner.execute(
                     connection,
                     script,
                     (ActionOnError) actionOnErrorCombo.getSelectedItem());
 
+        } catch (IOException e) {
+
+            sqlStatementResult = new SqlStatementResult();
+            sqlStatementResult.setOtherException(e);
+
         } finally {
 
             if (sqlStatementResult != null && sqlStatementResult.isException()) {
@@ -29,6 +29,7 @@ import org.executequery.databasemediators.DatabaseDriver;
 import org.executequery.databaseobjects.ConnectionTester;
 import org.executequery.databaseobjects.DatabaseHost;
 import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.ConnectionPoolMetrics;
 import org.executequery.datasource.DefaultDriverLoader;
 import org.executequery.event.*;
 import org.executequery.gui.DefaultNumberTextField;
@@ -1227,11 +1228,18 @@ public class ConnectionPanel extends AbstractConnectionPanel
 
             int count = ConnectionManager.getOpenConnectionCount(databaseConnection);
 
-            statusLabel.setText(bundleString("status.Connected"));
+            statusLabel.setText(bundleString("status.Connected") + " [ " + count
+                    + (count == 1 ? " " + bundleString("status.Connected.connection")
+                    : bundleString("status.Connected.connections")));
+
+            // the pool and statement cache usage
+            ConnectionPoolMetrics metrics = ConnectionManager.getConnectionPoolMetrics(databaseConnection);
+            statusLabel.setToolTipText(metrics != null ? metrics.toString() : bundleString("statusLabel.tool-tip"));
 
         } else {
 
             statusLabel.setText(bundleString("status.NotConnected"));
+            statusLabel.setToolTipText(bundleString("statusLabel.tool-tip"));
         }
 
         paintStatusLabel();
@@ -90,6 +90,8 @@ public class TableDataTab extends JPanel
     private GridBagConstraints rowCountPanelConstraints;
     private GridBagConstraints canEditTableNoteConstraints;
     private DisabledField rowCountField;
+    private JLabel prefetchStatusLabel;
+    private javax.swing.Timer prefetchStatusTimer;
     private JPanel rowCountPanel;
     private List<TableDataChange> tableDataChanges;
     private List<Integer> deleterRowIndexes;
@@ -655,11 +657,32 @@ public class TableDataTab extends JPanel
     private void fetchMoreData() {
         if (!tableModel.isResultSetClose()) {
             tableModel.fetchMoreData();
-            if (displayRowCount)
+            if (displayRowCount) {
                 rowCountField.setText(String.valueOf(tableModel.getRowCount()));
+                updatePrefetchStatus();
+            }
         }
     }
 
+    private void updatePrefetchStatus() {
+
+        if (tableModel.isLoading()) {
+
+            prefetchStatusLabel.setText(bundleString("PrefetchLoading"));
+            return;
+        }
+
+        long fetchTime = tableModel.getLastFetchTime();
+        if (fetchTime < 0) {
+
+            prefetchStatusLabel.setText("");
+            return;
+        }
+
+        prefetchStatusLabel.setText(bundleString("PrefetchStatus",
+                tableModel.getPrefetchDepth(), fetchTime));
+    }
+
     public static DefaultTableModel buildTableModel(ResultSet rs) throws SQLException {
         ResultSetMetaData metaData = rs.getMetaData();
         Vector<String> columnNames = new Vector<String>();
@@ -684,6 +707,7 @@ public class TableDataTab extends JPanel
             try {
                 tableModel = new ResultSetTableModel(SystemProperties.getIntProperty("user", "browser.max.records"), true);
                 tableModel.setHoldMetaData(false);
+                tableModel.setPrefetchEnabled(true);
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -1232,6 +1256,25 @@ public class TableDataTab extends JPanel
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.insets.right = 0;
         rowCountPanel.add(rowCountField, gbc);
+
+        prefetchStatusLabel = new JLabel();
+        gbc.gridx = 3;
+        gbc.weightx = 0;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.insets.left = 10;
+        rowCountPanel.add(prefetchStatusLabel, gbc);
+
+        prefetchStatusTimer = new javax.swing.Timer(500, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (tableModel != null && rowCountPanel.isShowing()) {
+                    // the prefetched blocks may be added after the fetch has returned
+                    rowCountField.setText(String.valueOf(tableModel.getRowCount()));
+                    updatePrefetchStatus();
+                }
+            }
+        });
+        prefetchStatusTimer.start();
     }
 
 
@@ -1402,12 +1445,19 @@ public class TableDataTab extends JPanel
 
     public void cleanup() {
         EventMediator.deregisterListener(this);
+        if (prefetchStatusTimer != null) {
+            prefetchStatusTimer.stop();
+        }
     }
 
     private String bundleString(String key) {
         return Bundles.get(TableDataTab.class, key);
     }
 
+    private String bundleString(String key, Object... args) {
+        return Bundles.get(TableDataTab.class, key, args);
+    }
+
 
     class InterruptibleProcessPanel extends JPanel implements ActionListener {
 
@@ -13,6 +13,7 @@ import org.executequery.gui.browser.managment.tracemanager.*;
 import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
 import org.executequery.gui.browser.managment.tracemanager.net.SessionInfo;
 import org.executequery.localization.Bundles;
+import org.executequery.log.Log;
 import org.executequery.repository.DatabaseConnectionRepository;
 import org.executequery.repository.DatabaseDriverRepository;
 import org.executequery.repository.RepositoryCache;
@@ -31,6 +32,8 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.Driver;
@@ -63,6 +66,9 @@ public class TraceManagerPanel extends JPanel implements TabView {
     private JTextField fileDatabaseField;
     private JTextField fileConfField;
     private JTextField openFileLogField;
+    private JProgressBar importProgressBar;
+    private JButton cancelImportButton;
+    private volatile TraceFileImporter fileImporter;
     private JTextField userField;
     private JPasswordField passwordField;
     private JCheckBox logToFileBox;
@@ -77,7 +83,6 @@ public class TraceManagerPanel extends JPanel implements TabView {
     private JComboBox charsetCombo;
     private JTabbedPane tabPane;
     private JButton hideShowTabPaneButton;
-    private Message message;
     private List<SessionInfo> sessions;
     private SessionManagerPanel sessionManagerPanel;
     private BuildConfigurationPanel confPanel;
@@ -87,7 +92,18 @@ public class TraceManagerPanel extends JPanel implements TabView {
     public static String bundleString(String key) {
         return Bundles.get(TraceManagerPanel.class, key);
     }
+
+    public static String bundleString(String key, Object... args) {
+        return Bundles.get(TraceManagerPanel.class, key, args);
+    }
     private JCheckBox parseBox;
+    /**
+     * the parse box state for the reading threads
+     */
+    private volatile boolean parseEvents = true;
+    private JLabel eventsStatusLabel;
+    private long unparsedCount;
+    private long droppedCount;
 
     public TraceManagerPanel() {
         init();
@@ -118,24 +134,38 @@ public class TraceManagerPanel extends JPanel implements TabView {
     }
 
     private void readFromBufferedReader(BufferedReader reader, boolean fromFile) {
-        String s = "";
-        boolean finded = false;
-        String line;
-        while (true) {
-            try {
-                if ((line = reader.readLine()) == null)
-                    break;
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-            String str = line.replace("\\r", "");
-            if (str.toLowerCase().startsWith("trace session id")) {
-                if (finded) {
-                    parseMessage(s, message, fromFile);
-                }
-                message = Message.LOG_MESSAGE;
-                s = str;
-                String temp = str.replace("Trace session ID ", "");
+
+        TraceEventPipeline pipeline = new TraceEventPipeline(createListener(fromFile), () -> parseEvents || fromFile, !fromFile);
+
+        try {
+            pipeline.read(reader);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void readFromFile(File file, Charset charset) throws IOException {
+
+        fileImporter = new TraceFileImporter(file.toPath(), charset, createListener(true));
+        SwingUtilities.invokeLater(() -> {
+            importProgressBar.setValue(0);
+            importProgressBar.setVisible(true);
+            cancelImportButton.setVisible(true);
+        });
+        try {
+            fileImporter.read();
+        } finally {
+            fileImporter = null;
+        }
+    }
+
+    private TraceEventPipeline.Listener createListener(boolean fromFile) {
+
+        return new TraceEventPipeline.Listener() {
+
+            @Override
+            public void sessionLine(String line) {
+                String temp = line.replace("Trace session ID ", "");
                 if (temp.contains("started")) {
                     temp = temp.replace("started", "");
                     temp = temp.replace(" ", "");
@@ -147,30 +177,38 @@ public class TraceManagerPanel extends JPanel implements TabView {
                     if (sessionId == currentSessionId && !fromFile)
                         stopSession();
                 }
-                finded = true;
-            } else if (str.matches(".?\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d+.*")) {
-                if (finded) {
-                    parseMessage(s, message, fromFile);
+            }
+
+            @Override
+            public void eventsParsed(List<LogMessage> messages, List<SessionInfo> sessionInfos, int unparsed, int dropped) {
+                if (!fromFile) {
+                    SwingUtilities.invokeLater(() -> addEvents(messages, sessionInfos, unparsed, dropped, false));
+                    return;
                 }
-                message = Message.LOG_MESSAGE;
-                finded = true;
-                s = str + "\n";
-            } else if (str.matches("^Session ID:.*")) {
-                if (finded) {
-                    parseMessage(s, message, fromFile);
+                // the file is read faster than the events are added,
+                // so the reader waits for each batch to be taken
+                try {
+                    SwingUtilities.invokeAndWait(() -> {
+                        addEvents(messages, sessionInfos, unparsed, dropped, true);
+                        TraceFileImporter importer = fileImporter;
+                        if (importer != null && importProgressBar != null)
+                            importProgressBar.setValue(importer.getProgress());
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (InvocationTargetException e) {
+                    Log.error("Error adding trace events", e.getCause());
                 }
-                message = Message.SESSION_INFO;
-                finded = true;
-                s = str + "\n";
-            } else {
-                s += str + "\n";
             }
-        }
-        parseMessage(s, message, fromFile);
+
+        };
     }
 
     @Override
     public boolean tabViewClosing() {
+        TraceFileImporter importer = fileImporter;
+        if (importer != null)
+            importer.cancel();
         if (startStopSessionButton.getText().contentEquals(bundleString("Stop")))
             try {
                 traceManager.stopTraceSession(traceManager.getSessionID(sessionField.getText()));
@@ -204,7 +242,6 @@ public class TraceManagerPanel extends JPanel implements TabView {
     }
 
     private void init() {
-        message = Message.LOG_MESSAGE;
         sessions = new ArrayList<>();
         initTraceManager(null);
         sessionField = new JTextField();
@@ -215,6 +252,19 @@ public class TraceManagerPanel extends JPanel implements TabView {
         columnsCheckPanel.selectAllAction();
         loggerPanel = new TablePanel(columnsCheckPanel);
         analisePanel = new AnalisePanel(loggerPanel.getTableRows());
+        // the events stored by the previous session
+        idLogMessage = loggerPanel.getTableRows().size();
+        if (idLogMessage > 0) {
+            SwingWorker sw = new SwingWorker("buildAnalise") {
+                @Override
+                public Object construct() {
+                    analisePanel.setMessages(loggerPanel.getTableRows());
+                    analisePanel.rebuildRows();
+                    return null;
+                }
+            };
+            sw.start();
+        }
         fileLogButton = new JButton("...");
         fileDatabaseButton = new JButton("...");
         fileConfButton = new JButton("...");
@@ -223,10 +273,26 @@ public class TraceManagerPanel extends JPanel implements TabView {
         fileDatabaseField = new JTextField();
         fileConfField = new JTextField();
         openFileLogField = new JTextField();
+        importProgressBar = new JProgressBar(0, 100);
+        importProgressBar.setStringPainted(true);
+        importProgressBar.setVisible(false);
+        cancelImportButton = new JButton(Bundles.getCommon("cancel.button"));
+        cancelImportButton.setVisible(false);
+        cancelImportButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                TraceFileImporter importer = fileImporter;
+                if (importer != null)
+                    importer.cancel();
+            }
+        });
         userField = new JTextField();
         passwordField = new JPasswordField();
         parseBox = new JCheckBox(bundleString("parseTraceToGrid"));
         parseBox.setSelected(true);
+        parseBox.addItemListener(e -> parseEvents = parseBox.isSelected());
+        eventsStatusLabel = new JLabel();
+        eventsStatusLabel.setVisible(false);
         logToFileBox = new JCheckBox(bundleString("LogToFile"));
         logToFileBox.addActionListener(new ActionListener() {
             @Override
@@ -363,6 +429,11 @@ public class TraceManagerPanel extends JPanel implements TabView {
                             idLogMessage = 0;
                             BufferedReader reader = null;
                             try {
+                                Charset charset = Charset.forName(UserProperties.getInstance().getStringProperty("system.file.encoding"));
+                                if (TraceFileImporter.isSupported(charset)) {
+                                    readFromFile(fileChooser.getSelectedFile(), charset);
+                                    return null;
+                                }
                                 reader = new BufferedReader(
                                         new InputStreamReader(
                                                 Files.newInputStream(Paths.get(openFileLogField.getText())), UserProperties.getInstance().getStringProperty("system.file.encoding")));
@@ -383,6 +454,8 @@ public class TraceManagerPanel extends JPanel implements TabView {
                         @Override
                         public void finished() {
                             GUIUtilities.showNormalCursor();
+                            importProgressBar.setVisible(false);
+                            cancelImportButton.setVisible(false);
                             tabPane.setEnabled(true);
                             loggerPanel.setEnableElements(true);
                             SwingWorker sw = new SwingWorker("buildAnalise") {
@@ -532,6 +605,9 @@ public class TraceManagerPanel extends JPanel implements TabView {
         topPanel.add(label, gbh.setLabelDefault().get());
         gbh.nextCol();
         gbh.addLabelFieldPair(topPanel, openFileLog, openFileLogField, null, false, false);
+        topPanel.add(importProgressBar, gbh.nextCol().setLabelDefault().get());
+        topPanel.add(cancelImportButton, gbh.nextCol().setLabelDefault().get());
+        topPanel.add(eventsStatusLabel, gbh.nextCol().setLabelDefault().get());
 
         topPanel.add(tabPane, gbh.nextRowFirstCol().fillBoth().spanX().setMaxWeightY().get());
 
@@ -575,24 +651,31 @@ public class TraceManagerPanel extends JPanel implements TabView {
 
     }
 
-    private void parseMessage(String msg, Message message, boolean fromFile) {
-        if (message == Message.LOG_MESSAGE && (parseBox.isSelected() || fromFile)) {
-            LogMessage logMessage = new LogMessage(msg);
+    private void addEvents(List<LogMessage> messages, List<SessionInfo> sessionInfos, int unparsed, int dropped, boolean fromFile) {
+        if (loggerPanel == null)
+            return;
+        if (unparsed > 0 || dropped > 0) {
+            unparsedCount += unparsed;
+            droppedCount += dropped;
+            updateEventsStatus();
+        }
+        for (LogMessage logMessage : messages) {
             idLogMessage++;
             logMessage.setId(idLogMessage);
-            loggerPanel.addRow(logMessage);
-            if (!fromFile)
-                analisePanel.addMessage(logMessage, !fromFile);
-        } else {
-            if (fromFile)
-                return;
-            if (sessionManagerPanel.isRefreshFlag()) {
-                sessions.clear();
-                sessionManagerPanel.setRefreshFlag(false);
+        }
+        loggerPanel.addRows(messages);
+        if (!fromFile) {
+            int index = loggerPanel.getTableRows().size() - messages.size();
+            for (LogMessage logMessage : messages)
+                analisePanel.addMessage(logMessage, index++, true);
+            if (!sessionInfos.isEmpty()) {
+                if (sessionManagerPanel.isRefreshFlag()) {
+                    sessions.clear();
+                    sessionManagerPanel.setRefreshFlag(false);
+                }
+                sessions.addAll(sessionInfos);
+                sessionManagerPanel.setSessions(sessions);
             }
-            SessionInfo sessionInfo = new SessionInfo(msg);
-            sessions.add(sessionInfo);
-            sessionManagerPanel.setSessions(sessions);
         }
         if (!parseBox.isSelected() && !fromFile) {
             if (loggerPanel.countRows() < 1)
@@ -603,7 +686,15 @@ public class TraceManagerPanel extends JPanel implements TabView {
         }
     }
 
+    private void updateEventsStatus() {
+        eventsStatusLabel.setText(bundleString("EventsStatus", unparsedCount, droppedCount));
+        eventsStatusLabel.setVisible(unparsedCount > 0 || droppedCount > 0);
+    }
+
     public void clearAll() {
+        unparsedCount = 0;
+        droppedCount = 0;
+        SwingUtilities.invokeLater(this::updateEventsStatus);
         loggerPanel.clearAll();
         analisePanel.setMessages(loggerPanel.getTableRows());
         analisePanel.rebuildRows();
@@ -661,11 +752,6 @@ public class TraceManagerPanel extends JPanel implements TabView {
         outputStream = null;
     }
 
-    enum Message {
-        LOG_MESSAGE,
-        SESSION_INFO
-    }
-
     class TraceOutputStream extends PipedOutputStream {
         @Override
         public void write(int b) throws IOException {
@@ -5,6 +5,7 @@ import org.executequery.gui.BaseDialog;
 import org.executequery.gui.LoggingOutputPanel;
 import org.executequery.gui.browser.managment.tracemanager.net.AnaliseRow;
 import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
+import org.executequery.gui.browser.managment.tracemanager.net.StatementFingerprint;
 import org.executequery.gui.editor.SimpleDataItemViewerPanel;
 import org.executequery.gui.resultset.SimpleRecordDataItem;
 import org.executequery.gui.text.SimpleSqlTextPanel;
@@ -22,14 +23,21 @@ import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.*;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.executequery.gui.browser.managment.tracemanager.net.AnaliseRow.*;
 
 public class AnalisePanel extends JPanel {
     List<AnaliseRow> rows;
+    // indexes of the rows by the aggregation key
+    Map<String, Integer> rowIndexes = new HashMap<>();
+    // indexes of the first rows by the first N characters of their statement
+    Map<String, Integer> prefixIndexes = new HashMap<>();
 
     List<String> headers;
     List<LogMessage> messages;
@@ -52,17 +60,14 @@ public class AnalisePanel extends JPanel {
 
     JCheckBox roundCheckBox;
     JCheckBox filterCheckBox;
+    JCheckBox fingerprintCheckBox;
     NumberTextField numberSymbolsField;
     JCheckBox showMoreParamsBox;
     JToolBar moreParamsPanels;
 
     int beginParamIndex = 2;
 
-    String[] types = {"TRACE_INIT", "TRACE_FINI", "CREATE_DATABASE", "ATTACH_DATABASE", "DROP_DATABASE", "DETACH_DATABASE", "START_TRANSACTION",
-            "COMMIT_RETAINING", "COMMIT_TRANSACTION", "ROLLBACK_RETAINING", "ROLLBACK_TRANSACTION", "EXECUTE_STATEMENT_START", "EXECUTE_STATEMENT_FINISH",
-            "START_SERVICE", "PREPARE_STATEMENT", "FREE_STATEMENT", "CLOSE_CURSOR", "SET_CONTEXT", "PRIVILEGES_CHANGE", "EXECUTE_PROCEDURE_START",
-            "EXECUTE_FUNCTION_START", "EXECUTE_PROCEDURE_FINISH", "EXECUTE_FUNCTION_FINISH", "EXECUTE_TRIGGER_START", "EXECUTE_TRIGGER_FINISH", "COMPILE_BLR",
-            "EXECUTE_BLR", "EXECUTE_DYN", "ATTACH_SERVICE", "DETACH_SERVICE", "QUERY_SERVICE", "SWEEP_START", "SWEEP_FINISH", "SWEEP_FAILED", "SWEEP_PROGRESS"};
+    String[] types = LogConstants.EVENT_TYPES.clone();
 
     EQDateTimePicker startTimePicker;
     EQDateTimePicker endTimePicker;
@@ -164,14 +169,16 @@ public class AnalisePanel extends JPanel {
         }
     }
 
-    public void addMessage(LogMessage logMessage, boolean realTime) {
+    /**
+     * @param index the index of the message in the analysed list
+     */
+    public void addMessage(LogMessage logMessage, int index, boolean realTime) {
         if (rows == null)
             rows = new ArrayList<>();
-        checkLogMessage(logMessage, realTime);
+        checkLogMessage(logMessage, index, realTime);
     }
 
-    void checkLogMessage(LogMessage msg, boolean realTime) {
-        boolean added = false;
+    void checkLogMessage(LogMessage msg, int messageIndex, boolean realTime) {
         if (msg.getTimestamp() == null)
             return;
         if (!typesPanel.getSelectedValues().contains(msg.getTypeEvent()))
@@ -184,34 +191,65 @@ public class AnalisePanel extends JPanel {
             if (compareIndex > 0)
                 return;
         }
-        for (AnaliseRow row : rows) {
-            if (msg.getStatementText() != null && row.getLogMessage().getStatementText() != null && row.getLogMessage().getStatementText().contentEquals(msg.getStatementText()) && msg.getTypeEvent().contentEquals(row.getLogMessage().getTypeEvent())) {
-                row.addMessage(msg);
-                added = true;
-                break;
-            }
-            if (msg.getProcedureName() != null && row.getLogMessage().getProcedureName() != null && row.getLogMessage().getProcedureName().contentEquals(msg.getProcedureName()) && msg.getTypeEvent().contentEquals(row.getLogMessage().getTypeEvent())) {
-                row.addMessage(msg);
-                added = true;
-                break;
-            }
-
-            if (msg.getStatementText() != null && row.getLogMessage().getStatementText() != null && filterCheckBox.isSelected() && msg.getStatementText().length() > numberSymbolsField.getValue() && row.getLogMessage().getStatementText().length() > numberSymbolsField.getValue())
-                if (row.getLogMessage().getStatementText().startsWith(msg.getStatementText().substring(0, numberSymbolsField.getValue()))) {
-                    row.addMessage(msg);
-                    added = true;
-                    break;
-                }
-
+        String key = rowKey(msg, messageIndex);
+        if (key == null)
+            return;
+        Integer index = rowIndexes.get(key);
+        String prefix = statementPrefix(msg);
+        if (prefix != null) {
+            // a row of the same first N characters of any event type,
+            // the first matching row is taken
+            Integer prefixIndex = prefixIndexes.get(prefix);
+            if (prefixIndex != null && (index == null || prefixIndex < index))
+                index = prefixIndex;
         }
-        if (!added && (msg.getStatementText() != null || msg.getProcedureName() != null)) {
+        if (index != null) {
+            rows.get(index).addMessage(msg, messageIndex);
+            if (realTime)
+                model.fireTableRowsUpdated(index, index);
+        } else {
             AnaliseRow row = new AnaliseRow();
-            row.addMessage(msg);
+            row.addMessage(msg, messageIndex);
             rows.add(row);
+            rowIndexes.put(key, rows.size() - 1);
+            if (prefix != null)
+                prefixIndexes.putIfAbsent(prefix, rows.size() - 1);
+            if (realTime)
+                model.fireTableRowsInserted(rows.size() - 1, rows.size() - 1);
         }
-        if (realTime)
-            model.fireTableDataChanged();
     }
+
+    /**
+     * Returns the key of the row the message is aggregated in
+     * or null if the message has neither a statement nor a procedure.
+     */
+    private String rowKey(LogMessage msg, int messageIndex) {
+        String statement = msg.getStatementText();
+        if (statement != null) {
+            if (fingerprintCheckBox.isSelected())
+                statement = messages instanceof TraceLogStore
+                        ? ((TraceLogStore) messages).getFingerprint(messageIndex)
+                        : StatementFingerprint.of(statement);
+            return "S" + msg.getTypeEvent() + "\n" + statement;
+        }
+        if (msg.getProcedureName() != null)
+            return "P" + msg.getTypeEvent() + "\n" + msg.getProcedureName();
+        return null;
+    }
+
+    /**
+     * Returns the first N characters of the statement text, or null if the
+     * statements are not compared by their first characters or the text is
+     * not longer than N.
+     */
+    private String statementPrefix(LogMessage msg) {
+        String statement = msg.getStatementText();
+        int length = numberSymbolsField.getValue();
+        if (!filterCheckBox.isSelected() || statement == null || statement.length() <= length)
+            return null;
+        return statement.substring(0, length);
+    }
+
     AnaliseRow avgRow;
 
     void init() {
@@ -248,6 +286,15 @@ public class AnalisePanel extends JPanel {
                 runRebuildRowsInThread();
             }
         });
+        fingerprintCheckBox = new JCheckBox(bundleString("ignoreLiterals"));
+        fingerprintCheckBox.setToolTipText(bundleString("ignoreLiteralsToolTip"));
+        fingerprintCheckBox.setSelected(true);
+        fingerprintCheckBox.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(ItemEvent e) {
+                runRebuildRowsInThread();
+            }
+        });
         numberSymbolsField = new NumberTextField();
         numberSymbolsField.setValue(100);
         numberSymbolsField.setEnabled(false);
@@ -353,7 +400,10 @@ public class AnalisePanel extends JPanel {
                     if (row >= 0 && col >= 0) {
                         SimpleRecordDataItem rdi = new SimpleRecordDataItem("Value", 0, "");
                         row = table.getRowSorter().convertRowIndexToModel(row);
-                        rdi.setValue(rows.get(row).getLogMessages());
+                        StringBuilder bodies = new StringBuilder();
+                        for (int index : rows.get(row).getMessageIndexes())
+                            bodies.append(messages.get(index).getBody()).append("\n");
+                        rdi.setValue(bodies.toString());
                         BaseDialog dialog = new BaseDialog(Bundles.get("ResultSetTablePopupMenu.RecordDataItemViewer"), true);
                         dialog.addDisplayComponentWithEmptyBorder(
                                 new SimpleDataItemViewerPanel(dialog, rdi));
@@ -432,6 +482,7 @@ public class AnalisePanel extends JPanel {
         moreParamsPanels.add(startTimePicker, gbh.nextCol().setLabelDefault().get());
         moreParamsPanels.add(new JLabel(" - "), gbh.nextCol().setLabelDefault().get());
         moreParamsPanels.add(endTimePicker, gbh.nextCol().setLabelDefault().get());
+        moreParamsPanels.add(fingerprintCheckBox, gbh.nextCol().setLabelDefault().get());
         moreParamsPanels.add(filterCheckBox, gbh.nextCol().setLabelDefault().get());
         moreParamsPanels.add(new JLabel("N:"), gbh.nextCol().setLabelDefault().get());
         moreParamsPanels.add(numberSymbolsField, gbh.nextCol().setLabelDefault().get());
@@ -453,9 +504,16 @@ public class AnalisePanel extends JPanel {
         if (rows == null)
             rows = new ArrayList<>();
         rows.clear();
+        rowIndexes.clear();
+        prefixIndexes.clear();
         model.fireTableDataChanged();
-        for (LogMessage msg : messages) {
-            checkLogMessage(msg, false);
+        if (messages instanceof TraceLogStore) {
+            ((TraceLogStore) messages).scan(typesPanel.getSelectedValues(),
+                    timestampOf(startTimePicker), timestampOf(endTimePicker),
+                    (index, msg) -> checkLogMessage(msg, index, false));
+        } else {
+            for (int i = 0; i < messages.size(); i++)
+                checkLogMessage(messages.get(i), i, false);
         }
         if (rows.size() > 0) {
             AnaliseRow maxRow = new AnaliseRow();
@@ -493,6 +551,10 @@ public class AnalisePanel extends JPanel {
         table.setEnabled(true);
     }
 
+    private static Timestamp timestampOf(EQDateTimePicker picker) {
+        return picker.isNull() ? null : Timestamp.valueOf(picker.getDateTime());
+    }
+
     private String bundleString(String key) {
         return Bundles.get(AnalisePanel.class, key);
     }
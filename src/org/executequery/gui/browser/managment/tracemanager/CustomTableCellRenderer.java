@@ -140,7 +140,7 @@ public class CustomTableCellRenderer extends JLabel implements TableCellRenderer
                     : table.getBackground();
             if (message.isFailed())
                 background = Color.RED;
-            if (message.isHighlight())
+            if (model.isHighlighted(model_row))
                 background = Color.YELLOW;
             if (background == null || background instanceof javax.swing.plaf.UIResource) {
                 Color alternateColor = uiDefaults.getColor( "Table.alternateRowColor");
@@ -2,29 +2,50 @@ package org.executequery.gui.browser.managment.tracemanager;
 
 
 import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
+import org.executequery.log.Log;
 import org.underworldlabs.swing.DynamicComboBoxModel;
 import org.underworldlabs.swing.ListSelectionPanel;
+import org.underworldlabs.swing.util.SwingWorker;
 
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
+import java.io.IOException;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 
 public class ResultSetDataModel extends AbstractTableModel {
 
     private List<String> columnNames = new ArrayList<>();
     private List<String> visibleColumnNames = new ArrayList<>();
-    private List<LogMessage> rows = new ArrayList<>();
-    private List<LogMessage> visibleRows = new ArrayList<>();
+    private List<LogMessage> rows = createRows();
+    // indexes of the visible rows, null if all the rows are visible
+    private int[] visibleIndexes;
+    private int visibleCount;
+    private final BitSet highlighted = new BitSet();
+    private final List<LogMessage> visibleRows = new AbstractList<LogMessage>() {
+        @Override
+        public LogMessage get(int index) {
+            return rows.get(visibleIndexes != null ? visibleIndexes[index] : index);
+        }
+
+        @Override
+        public int size() {
+            return visibleCount;
+        }
+    };
     private final JComboBox filterTypeBox;
     private final JComboBox filterColumnBox;
     private final JTextField filterTextField;
 
     private final JCheckBox matchCaseBox;
     private ListSelectionPanel listSelectionPanel;
+    private MessageFilter filter;
+    // incremented by every rebuild, the result of an older filter scan is dropped
+    private volatile int generation;
+    private boolean scanning;
+    // number of the rows checked against the filter
+    private int checkedCount;
 
 
     public ResultSetDataModel(ListSelectionPanel listSelectionPanel, JComboBox filterTypeBox, JComboBox filterColumnBox, JTextField filterTextField, JCheckBox matchCaseBox) {
@@ -41,41 +62,132 @@ public class ResultSetDataModel extends AbstractTableModel {
 
         visibleColumnNames = new ArrayList<>();
         visibleColumnNames.addAll(listSelectionPanel.getSelectedValues());
-        visibleRows = new ArrayList<>();
         DynamicComboBoxModel model = (DynamicComboBoxModel) filterColumnBox.getModel();
         Object selectedItem = filterColumnBox.getSelectedItem();
         model.setElements(visibleColumnNames);
         if (visibleColumnNames.contains(selectedItem))
             filterColumnBox.setSelectedItem(selectedItem);
-        for (int i = 0; i < rows.size(); i++) {
-            checkFilterMessage(rows.get(i));
+        highlighted.clear();
+        visibleCount = 0;
+        generation++;
+        scanning = false;
+        filter = new MessageFilter((String) filterColumnBox.getSelectedItem(), filterTextField.getText(),
+                matchCaseBox.isSelected(), filterTypeBox.getSelectedItem() == Filter.FilterType.FILTER);
+        visibleIndexes = filter.filterOnly && !filter.text.isEmpty() ? new int[1024] : null;
+        // the rows are read only if there is something to check
+        if (filter.column == null || filter.text.isEmpty()) {
+            if (filter.column != null)
+                visibleCount = rows.size();
+            checkedCount = rows.size();
+        } else if (rows instanceof TraceLogStore)
+            scanInBackground((TraceLogStore) rows);
+        else {
+            for (int i = 0; i < rows.size(); i++) {
+                checkFilterMessage(i, rows.get(i));
+            }
+            checkedCount = rows.size();
         }
         fireTableStructureChanged();
     }
 
-    private void checkFilterMessage(LogMessage message) {
-        String filter = filterTextField.getText();
-        if (filterColumnBox.getSelectedItem() != null) {
-            String field = String.valueOf(message.getFieldOfName((String) filterColumnBox.getSelectedItem()));
-            if (!matchCaseBox.isSelected()) {
-                field = field.toLowerCase();
-                filter = filter.toLowerCase();
+    /**
+     * Checks the stored events against the filter off the event dispatch
+     * thread. The rows added meanwhile are checked once the scan is done.
+     */
+    private void scanInBackground(TraceLogStore store) {
+
+        final int scanGeneration = generation;
+        final MessageFilter scanFilter = filter;
+        final int limit = rows.size();
+        final int[][] matchedIndexes = {new int[1024]};
+        final int[] matchedCount = {0};
+        scanning = true;
+        if (!scanFilter.filterOnly)
+            visibleCount = limit;
+
+        SwingWorker worker = new SwingWorker("traceFilterScan") {
+            @Override
+            public Object construct() {
+                try {
+                    store.scan(scanFilter.types(), null, null, new TraceLogStore.Visitor() {
+                        @Override
+                        public void visit(int index, LogMessage message) {
+                            if (index >= limit || scanGeneration != generation || !scanFilter.matches(message))
+                                return;
+                            if (matchedCount[0] == matchedIndexes[0].length)
+                                matchedIndexes[0] = Arrays.copyOf(matchedIndexes[0], matchedCount[0] * 2);
+                            matchedIndexes[0][matchedCount[0]++] = index;
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    Log.error("Unable to filter the trace events: " + e.getMessage());
+                }
+                return null;
             }
-            if (filterTypeBox.getSelectedItem() == Filter.FilterType.FILTER) {
-                if (field.contains(filter))
-                    visibleRows.add(message);
-                message.setHighlight(false);
+
+            @Override
+            public void finished() {
+                if (scanGeneration != generation)
+                    return;
+                scanning = false;
+                if (scanFilter.filterOnly) {
+                    visibleIndexes = matchedIndexes[0];
+                    visibleCount = matchedCount[0];
+                } else {
+                    // all the rows are visible, the visible row is the event index
+                    for (int i = 0; i < matchedCount[0]; i++)
+                        highlighted.set(matchedIndexes[0][i]);
+                }
+                checkedCount = limit;
+                checkAddedRows();
+                fireTableDataChanged();
+            }
+        };
+        worker.start();
+    }
+
+    private void checkAddedRows() {
+        for (int i = checkedCount; i < rows.size(); i++)
+            checkFilterMessage(i, rows.get(i));
+        checkedCount = rows.size();
+    }
+
+    private void checkFilterMessage(int index, LogMessage message) {
+        if (filter.column != null) {
+            boolean matches = !filter.text.isEmpty() && filter.matches(message);
+            if (filter.filterOnly) {
+                if (matches || filter.text.isEmpty())
+                    addVisible(index);
             } else {
-                visibleRows.add(message);
-                message.setHighlight(field.contains(filter) && !filter.isEmpty());
+                addVisible(index);
+                if (matches)
+                    highlighted.set(visibleCount - 1);
             }
         }
     }
 
+    private void addVisible(int index) {
+        if (visibleIndexes != null) {
+            if (visibleCount == visibleIndexes.length)
+                visibleIndexes = Arrays.copyOf(visibleIndexes, visibleCount * 2);
+            visibleIndexes[visibleCount] = index;
+        }
+        visibleCount++;
+    }
+
+    private static List<LogMessage> createRows() {
+        try {
+            return TraceLogStore.open();
+        } catch (IOException e) {
+            Log.error("Unable to open the trace store, the events are kept in memory: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
 
     @Override
     public int getRowCount() {
-        return visibleRows.size();
+        return visibleCount;
     }
 
     @Override
@@ -117,10 +229,27 @@ public class ResultSetDataModel extends AbstractTableModel {
 
     public void addRow(LogMessage message) {
         rows.add(message);
-        checkFilterMessage(message);
+        if (!scanning)
+            checkAddedRows();
         fireTableDataChanged();
     }
 
+    public void addRows(List<LogMessage> messages) {
+        if (messages.isEmpty())
+            return;
+        rows.addAll(messages);
+        if (!scanning)
+            checkAddedRows();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Returns whether the visible row matches the highlight filter.
+     */
+    public boolean isHighlighted(int row) {
+        return highlighted.get(row);
+    }
+
     public List<String> getColumnNames() {
         return columnNames;
     }
@@ -143,6 +272,16 @@ public class ResultSetDataModel extends AbstractTableModel {
         rebuildModel();
     }
 
+    public void close() {
+        if (rows instanceof TraceLogStore) {
+            try {
+                ((TraceLogStore) rows).close();
+            } catch (IOException e) {
+                Log.error("Unable to close the trace store: " + e.getMessage());
+            }
+        }
+    }
+
     public void setColumnNames(List<String> columnNames) {
         this.columnNames = columnNames;
     }
@@ -159,15 +298,51 @@ public class ResultSetDataModel extends AbstractTableModel {
         return rows;
     }
 
-    public void setRows(List<LogMessage> rows) {
-        this.rows = rows;
-    }
-
     public List<LogMessage> getVisibleRows() {
         return visibleRows;
     }
 
-    public void setVisibleRows(List<LogMessage> visibleRows) {
-        this.visibleRows = visibleRows;
+    /**
+     * The filter settings taken when the model is rebuilt,
+     * so the filter scan does not read the components.
+     */
+    private static final class MessageFilter {
+
+        private final String column;
+        private final String text;
+        private final boolean matchCase;
+        private final boolean filterOnly;
+
+        MessageFilter(String column, String text, boolean matchCase, boolean filterOnly) {
+            this.column = column;
+            this.text = matchCase ? text : text.toLowerCase();
+            this.matchCase = matchCase;
+            this.filterOnly = filterOnly;
+        }
+
+        boolean matches(LogMessage message) {
+            return contains(String.valueOf(message.getFieldOfName(column)));
+        }
+
+        private boolean contains(String field) {
+            return (matchCase ? field : field.toLowerCase()).contains(text);
+        }
+
+        /**
+         * Returns the event types the filter can match, so the store skips
+         * the blocks of the other types, or null if any event can match.
+         */
+        Collection<String> types() {
+            if (!LogConstants.EVENT_TYPE_COLUMN.equals(column))
+                return null;
+            List<String> types = new ArrayList<>();
+            for (String type : LogConstants.EVENT_TYPES) {
+                if (contains(type))
+                    types.add(type);
+            }
+            // the types not listed may match as well
+            types.add(null);
+            return types;
+        }
     }
 }
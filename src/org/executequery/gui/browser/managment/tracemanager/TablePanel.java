@@ -361,11 +361,17 @@ public class TablePanel extends JPanel {
         dataModel.addRow(message);
     }
 
+    public void addRows(List<LogMessage> messages) {
+
+        dataModel.addRows(messages);
+    }
+
     public void clearAll() {
         dataModel.clearAll();
     }
 
     public void cleanup() {
+        dataModel.close();
         txtFieldRawSql.cleanup();
         txtFieldRawSql = null;
     }
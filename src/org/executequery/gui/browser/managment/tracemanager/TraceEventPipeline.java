@@ -0,0 +1,496 @@
+package org.executequery.gui.browser.managment.tracemanager;
+
+import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
+import org.executequery.gui.browser.managment.tracemanager.net.SessionInfo;
+import org.executequery.log.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Staged reader of the trace service output.
+ * <p>
+ * The reader thread only splits the lines into events and queues them,
+ * the events are parsed by a pool of worker threads and handed over to
+ * the listener in batches and in the order they were read.
+ * <p>
+ * The number of the events queued and not yet delivered is bounded. When
+ * the limit is reached the reader waits for the parsers - reading a live
+ * session it waits for a short time only and then drops the event, so the
+ * server side trace buffer is still drained.
+ */
+public class TraceEventPipeline {
+
+    public interface Listener {
+
+        /**
+         * Called on the reader thread for each trace session start and stop line.
+         */
+        void sessionLine(String line);
+
+        /**
+         * Called on the publisher thread with the next batch of events.
+         *
+         * @param messages the parsed log messages
+         * @param sessions the parsed session info events
+         * @param unparsed the number of events skipped without parsing or failed to parse
+         * @param dropped  the number of events dropped since the previous batch
+         *                 as the parsers fell behind
+         */
+        void eventsParsed(List<LogMessage> messages, List<SessionInfo> sessions, int unparsed, int dropped);
+    }
+
+    private static final Pattern EVENT_START = Pattern.compile(".?\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d+");
+
+    private static final String TRACE_SESSION_START = "trace session id";
+
+    private static final String SESSION_INFO_START = "Session ID:";
+
+    private static final int MAX_IN_FLIGHT = 8192;
+
+    static final int BATCH_SIZE = 500;
+
+    private static final long FLUSH_INTERVAL = 200;
+
+    private static final long OFFER_TIMEOUT = 50;
+
+    static final int LOG_MESSAGE = 0;
+
+    static final int SESSION_INFO = 1;
+
+    private static final int UNPARSED = 2;
+
+    private final Listener listener;
+
+    private final BooleanSupplier parseMessages;
+
+    private final boolean live;
+
+    private final int threads;
+
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+
+    private final Map<Long, Event> completed = new ConcurrentHashMap<>();
+
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+    private final AtomicLong parsed = new AtomicLong();
+
+    private final AtomicLong parseErrors = new AtomicLong();
+
+    private long framed;
+
+    private volatile long dropped;
+
+    /**
+     * The events dropped and not reported to the listener yet
+     */
+    private final AtomicInteger droppedUnpublished = new AtomicInteger();
+
+    private long backpressureWaits;
+
+    private volatile long sequence;
+
+    private volatile boolean readFinished;
+
+    /**
+     * @param listener      the parsed events receiver
+     * @param parseMessages whether to parse the log messages or just count them,
+     *                      asked for each message as it may be switched while reading
+     * @param live          whether the events are read from a running trace session
+     */
+    public TraceEventPipeline(Listener listener, BooleanSupplier parseMessages, boolean live) {
+
+        this.listener = listener;
+        this.parseMessages = parseMessages;
+        this.live = live;
+        this.threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Reads the events up to the end of the stream and
+     * returns when all of them are delivered to the listener.
+     */
+    public void read(BufferedReader reader) throws IOException {
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+
+            workers.add(start(new Parser(), "TraceParser-" + (i + 1)));
+        }
+        Thread publisher = start(new Publisher(), "TracePublisher");
+
+        try {
+
+            frame(reader);
+
+        } finally {
+
+            readFinished = true;
+            for (int i = 0; i < threads; i++) {
+
+                queue.add(new Event(-1, null, UNPARSED));
+            }
+
+            try {
+
+                for (Thread worker : workers) {
+
+                    worker.join();
+                }
+                signal();
+                publisher.join();
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+
+            if (dropped > 0) {
+
+                Log.warning("Trace events dropped as the parsers fell behind: " + dropped);
+            }
+            Log.debug("Trace events pipeline: " + getStatistics());
+        }
+    }
+
+    public long getFramedCount() {
+
+        return framed;
+    }
+
+    public long getParsedCount() {
+
+        return parsed.get();
+    }
+
+    public long getDroppedCount() {
+
+        return dropped;
+    }
+
+    /**
+     * Returns the number of times the reader had to wait for the parsers.
+     */
+    public long getBackpressureWaits() {
+
+        return backpressureWaits;
+    }
+
+    public String getStatistics() {
+
+        return "framed: " + framed + ", parsed: " + parsed.get() + ", parse errors: " + parseErrors.get()
+                + ", dropped: " + dropped + ", backpressure waits: " + backpressureWaits
+                + ", parser threads: " + threads;
+    }
+
+    /**
+     * Receiver of the events split out of the trace text.
+     */
+    interface EventSink {
+
+        void sessionLine(String line);
+
+        void event(StringBuilder text, int kind);
+    }
+
+    /**
+     * Splits the trace text into the events. The event buffer passed
+     * to the sink is reused and must not be kept.
+     */
+    static void frame(BufferedReader reader, EventSink sink) throws IOException {
+
+        StringBuilder event = new StringBuilder();
+        Matcher eventStart = EVENT_START.matcher("");
+        int kind = -1;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+
+            if (line.contains("\\r")) {
+
+                line = line.replace("\\r", "");
+            }
+
+            if (line.regionMatches(true, 0, TRACE_SESSION_START, 0, TRACE_SESSION_START.length())) {
+
+                submit(sink, event, kind);
+                sink.sessionLine(line);
+                kind = LOG_MESSAGE;
+                event.append(line);
+
+            } else if (eventStart.reset(line).lookingAt()) {
+
+                submit(sink, event, kind);
+                kind = LOG_MESSAGE;
+                event.append(line).append('\n');
+
+            } else if (line.startsWith(SESSION_INFO_START)) {
+
+                submit(sink, event, kind);
+                kind = SESSION_INFO;
+                event.append(line).append('\n');
+
+            } else {
+
+                event.append(line).append('\n');
+            }
+        }
+
+        submit(sink, event, kind);
+    }
+
+    private static void submit(EventSink sink, StringBuilder event, int kind) {
+
+        if (kind != -1) {
+
+            sink.event(event, kind);
+        }
+        event.setLength(0);
+    }
+
+    private void frame(BufferedReader reader) throws IOException {
+
+        frame(reader, new EventSink() {
+
+            @Override
+            public void sessionLine(String line) {
+
+                listener.sessionLine(line);
+            }
+
+            @Override
+            public void event(StringBuilder text, int kind) {
+
+                submit(text, kind);
+            }
+        });
+    }
+
+    /**
+     * Queues the framed event.
+     */
+    private void submit(StringBuilder event, int kind) {
+
+        if (kind == LOG_MESSAGE && !parseMessages.getAsBoolean()) {
+
+            kind = UNPARSED;
+        }
+
+        String text = kind == UNPARSED ? null : event.toString();
+        framed++;
+
+        try {
+
+            if (!inFlight.tryAcquire()) {
+
+                backpressureWaits++;
+                if (live && kind != SESSION_INFO) {
+
+                    if (!inFlight.tryAcquire(OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+
+                        drop();
+                        return;
+                    }
+
+                } else {
+
+                    inFlight.acquire();
+                }
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            drop();
+            return;
+        }
+
+        queue.add(new Event(sequence, text, kind));
+        sequence++;
+    }
+
+    private void drop() {
+
+        dropped++;
+        droppedUnpublished.incrementAndGet();
+    }
+
+    private Thread start(Runnable runnable, String name) {
+
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void signal() {
+
+        synchronized (completed) {
+
+            completed.notifyAll();
+        }
+    }
+
+    private static final class Event {
+
+        private final long sequence;
+
+        private final String text;
+
+        private final int kind;
+
+        private Object value;
+
+        Event(long sequence, String text, int kind) {
+
+            this.sequence = sequence;
+            this.text = text;
+            this.kind = kind;
+        }
+
+    }
+
+    private class Parser implements Runnable {
+
+        public void run() {
+
+            while (true) {
+
+                Event event;
+                try {
+
+                    event = queue.take();
+
+                } catch (InterruptedException e) {
+
+                    return;
+                }
+
+                if (event.sequence < 0) {
+
+                    return;
+                }
+
+                try {
+
+                    if (event.kind == LOG_MESSAGE) {
+
+                        event.value = new LogMessage(event.text);
+
+                    } else if (event.kind == SESSION_INFO) {
+
+                        event.value = new SessionInfo(event.text);
+                    }
+                    parsed.incrementAndGet();
+
+                } catch (RuntimeException e) {
+
+                    parseErrors.incrementAndGet();
+                    Log.debug("Error parsing trace event: " + e.getMessage());
+                }
+
+                completed.put(event.sequence, event);
+                signal();
+            }
+        }
+
+    }
+
+    private class Publisher implements Runnable {
+
+        private List<LogMessage> messages = new ArrayList<>();
+
+        private List<SessionInfo> sessions = new ArrayList<>();
+
+        private int unparsed;
+
+        public void run() {
+
+            long next = 0;
+            long lastFlush = System.currentTimeMillis();
+
+            while (true) {
+
+                Event event = completed.remove(next);
+                if (event != null) {
+
+                    next++;
+                    inFlight.release();
+
+                    if (event.kind == UNPARSED || event.value == null) {
+
+                        unparsed++;
+
+                    } else if (event.value instanceof LogMessage) {
+
+                        messages.add((LogMessage) event.value);
+
+                    } else if (event.value instanceof SessionInfo) {
+
+                        sessions.add((SessionInfo) event.value);
+                    }
+
+                    if (messages.size() + sessions.size() + unparsed >= BATCH_SIZE) {
+
+                        flush();
+                        lastFlush = System.currentTimeMillis();
+                    }
+                    continue;
+                }
+
+                if (readFinished && next == sequence) {
+
+                    flush();
+                    return;
+                }
+
+                if (System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL) {
+
+                    flush();
+                    lastFlush = System.currentTimeMillis();
+                }
+
+                try {
+
+                    synchronized (completed) {
+
+                        if (!completed.containsKey(next)) {
+
+                            completed.wait(FLUSH_INTERVAL);
+                        }
+                    }
+
+                } catch (InterruptedException e) {
+
+                    return;
+                }
+            }
+        }
+
+        private void flush() {
+
+            int dropped = droppedUnpublished.getAndSet(0);
+            if (messages.isEmpty() && sessions.isEmpty() && unparsed == 0 && dropped == 0) {
+
+                return;
+            }
+
+            listener.eventsParsed(messages, sessions, unparsed, dropped);
+            messages = new ArrayList<>();
+            sessions = new ArrayList<>();
+            unparsed = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,537 @@
+package org.executequery.gui.browser.managment.tracemanager;
+
+import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
+import org.executequery.gui.browser.managment.tracemanager.net.SessionInfo;
+import org.executequery.log.Log;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel reader of a saved trace file.
+ * <p>
+ * The file is split into chunks at the event start lines, so every chunk
+ * holds whole events. The chunks are parsed on a thread each and handed
+ * over to the listener in the file order - the order the trace service
+ * wrote the events in.
+ * <p>
+ * At most one chunk more than the parser threads is read ahead, and each
+ * chunk passes its events on in batches through a short queue as they are
+ * parsed, so the memory used depends neither on the file size nor on the
+ * chunk size. The chunks are read with positional reads into small buffers
+ * rather than mapped, as a mapping is only released by the garbage collector.
+ */
+public class TraceFileImporter {
+
+    private static final int CHUNK_SIZE = 4 << 20;
+
+    private static final int SCAN_WINDOW = 64 << 10;
+
+    private static final int READ_BUFFER_SIZE = 64 << 10;
+
+    /**
+     * The parsed batches a chunk may hold before its parser waits for them to be delivered
+     */
+    private static final int QUEUED_BATCHES = 4;
+
+    private static final byte[] TRACE_SESSION_START = "trace session id".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] SESSION_INFO_START = "Session ID:".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String ASCII_SAMPLE = "\n0123456789-:.T trace session id TRACE SESSION ID Session ID:";
+
+    private static final int HEADER_LENGTH = Math.max(TRACE_SESSION_START.length, "0000-00-00T00".length());
+
+    private final Path file;
+
+    private final Charset charset;
+
+    private final TraceEventPipeline.Listener listener;
+
+    private final int threads;
+
+    private final AtomicLong parseErrors = new AtomicLong();
+
+    private volatile long fileSize;
+
+    private volatile long delivered;
+
+    private volatile boolean cancelled;
+
+    public TraceFileImporter(Path file, Charset charset, TraceEventPipeline.Listener listener) {
+
+        this.file = file;
+        this.charset = charset;
+        this.listener = listener;
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns whether the event start lines can be found in the file
+     * bytes directly, that is the charset encodes them as ASCII does.
+     */
+    public static boolean isSupported(Charset charset) {
+
+        return charset.canEncode() && Arrays.equals(
+                ASCII_SAMPLE.getBytes(charset), ASCII_SAMPLE.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Reads the file and returns when all of its events are delivered
+     * to the listener or the import is cancelled.
+     */
+    public void read() throws IOException {
+
+        long start = System.currentTimeMillis();
+
+        // every chunk read ahead has its own thread, so the chunk being
+        // delivered is parsed even when the others wait with full queues
+        int chunks = threads + 1;
+        ExecutorService pool = Executors.newFixedThreadPool(chunks);
+        ArrayDeque<Chunk> parsing = new ArrayDeque<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            fileSize = channel.size();
+            ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW + HEADER_LENGTH);
+            long position = 0;
+
+            while (!cancelled && (position < fileSize || !parsing.isEmpty())) {
+
+                while (position < fileSize && parsing.size() < chunks) {
+
+                    long end = nextChunkEnd(channel, position, window);
+                    Chunk chunk = new Chunk(end);
+                    chunk.future = pool.submit(new ChunkParser(channel, position, chunk));
+                    parsing.add(chunk);
+                    position = end;
+                }
+
+                deliver(parsing.poll());
+            }
+
+        } finally {
+
+            for (Chunk chunk : parsing) {
+
+                chunk.future.cancel(true);
+            }
+            pool.shutdownNow();
+        }
+
+        Log.debug("Trace file " + file + " read in " + (System.currentTimeMillis() - start) + " ms"
+                + (cancelled ? " (cancelled)" : "") + ", parse errors: " + parseErrors.get()
+                + ", parser threads: " + chunks);
+    }
+
+    public void cancel() {
+
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+
+        return cancelled;
+    }
+
+    /**
+     * Returns the part of the file delivered to the listener, in percent.
+     */
+    public int getProgress() {
+
+        long size = fileSize;
+        return size > 0 ? (int) (delivered * 100 / size) : 0;
+    }
+
+    /**
+     * Delivers the batches of the chunk as they are parsed.
+     */
+    private void deliver(Chunk chunk) throws IOException {
+
+        while (!cancelled) {
+
+            Batch batch;
+            try {
+
+                batch = chunk.batches.poll(100, TimeUnit.MILLISECONDS);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                return;
+            }
+
+            if (batch == null) {
+
+                continue;
+            }
+
+            if (batch == Batch.END) {
+
+                checkParsed(chunk.future);
+                delivered = chunk.end;
+                return;
+            }
+
+            for (String line : batch.sessionLines) {
+
+                listener.sessionLine(line);
+            }
+
+            if (!batch.messages.isEmpty() || !batch.sessions.isEmpty() || batch.unparsed > 0) {
+
+                listener.eventsParsed(batch.messages, batch.sessions, batch.unparsed, 0);
+            }
+        }
+    }
+
+    private void checkParsed(Future<?> future) throws IOException {
+
+        try {
+
+            future.get();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            cancelled = true;
+
+        } catch (CancellationException e) {
+
+            cancelled = true;
+
+        } catch (ExecutionException e) {
+
+            Throwable cause = e.getCause();
+            if (cause instanceof CancellationException) {
+
+                return;
+            }
+            if (cause instanceof IOException) {
+
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the position of the first event start line after the chunk
+     * size from the given chunk start, or the file end if there is none.
+     */
+    private long nextChunkEnd(FileChannel channel, long start, ByteBuffer window) throws IOException {
+
+        long position = start + CHUNK_SIZE;
+        while (position < fileSize) {
+
+            if (position - start > Integer.MAX_VALUE - SCAN_WINDOW) {
+
+                throw new IOException("Trace event at " + start + " is too large to read");
+            }
+
+            // the window is read a header longer than scanned, so the
+            // event start line after the last line feed is complete
+            window.clear();
+            int length = readFully(channel, window, position);
+            int scanned = (int) Math.min(SCAN_WINDOW, fileSize - position);
+
+            // the line feed before the event start line is looked for
+            for (int i = 0; i < scanned; i++) {
+
+                if (window.get(i) == '\n' && isEventStart(window, i + 1, length)) {
+
+                    return position + i + 1;
+                }
+            }
+            position += scanned;
+        }
+        return fileSize;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+        int length = 0;
+        while (buffer.hasRemaining()) {
+
+            int read = channel.read(buffer, position + length);
+            if (read < 0) {
+
+                break;
+            }
+            length += read;
+        }
+        buffer.flip();
+        return length;
+    }
+
+    private static boolean isEventStart(ByteBuffer window, int index, int length) {
+
+        ByteBuffer line = window.duplicate();
+        line.limit(length);
+
+        return isTimestamp(line, index)
+                || startsWith(line, index, TRACE_SESSION_START, true)
+                || startsWith(line, index, SESSION_INFO_START, false);
+    }
+
+    /**
+     * Checks for the <code>yyyy-mm-ddThh</code> event header start.
+     */
+    private static boolean isTimestamp(ByteBuffer buffer, int index) {
+
+        String pattern = "0000-00-00T00";
+        if (index + pattern.length() > buffer.limit()) {
+
+            return false;
+        }
+
+        for (int i = 0; i < pattern.length(); i++) {
+
+            byte b = buffer.get(index + i);
+            char expected = pattern.charAt(i);
+            if (expected == '0' ? b < '0' || b > '9' : b != expected) {
+
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int index, byte[] prefix, boolean ignoreCase) {
+
+        if (index + prefix.length > buffer.limit()) {
+
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+
+            int b = buffer.get(index + i);
+            if (ignoreCase && b >= 'A' && b <= 'Z') {
+
+                b += 'a' - 'A';
+            }
+            if (b != prefix[i]) {
+
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Chunk {
+
+        private final long end;
+
+        private final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+
+        private Future<?> future;
+
+        Chunk(long end) {
+
+            this.end = end;
+        }
+
+    }
+
+    private static final class Batch {
+
+        /**
+         * The last batch of a chunk, put when the parser has finished
+         */
+        static final Batch END = new Batch();
+
+        private final List<LogMessage> messages = new ArrayList<>();
+
+        private final List<SessionInfo> sessions = new ArrayList<>();
+
+        private final List<String> sessionLines = new ArrayList<>();
+
+        private int unparsed;
+
+        boolean isFull() {
+
+            return messages.size() + sessions.size() + unparsed >= TraceEventPipeline.BATCH_SIZE;
+        }
+
+        boolean isEmpty() {
+
+            return messages.isEmpty() && sessions.isEmpty() && sessionLines.isEmpty() && unparsed == 0;
+        }
+
+    }
+
+    private class ChunkParser implements Callable<Void> {
+
+        private final FileChannel channel;
+
+        private final long start;
+
+        private final Chunk chunk;
+
+        private Batch batch = new Batch();
+
+        ChunkParser(FileChannel channel, long start, Chunk chunk) {
+
+            this.channel = channel;
+            this.start = start;
+            this.chunk = chunk;
+        }
+
+        public Void call() throws Exception {
+
+            try {
+
+                InputStream input = new ChannelInputStream(channel, start, chunk.end);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input, charset), READ_BUFFER_SIZE);
+                TraceEventPipeline.frame(reader, new TraceEventPipeline.EventSink() {
+
+                    @Override
+                    public void sessionLine(String line) {
+
+                        batch.sessionLines.add(line);
+                    }
+
+                    @Override
+                    public void event(StringBuilder text, int kind) {
+
+                        if (cancelled) {
+
+                            throw new CancellationException();
+                        }
+
+                        try {
+
+                            if (kind == TraceEventPipeline.LOG_MESSAGE) {
+
+                                batch.messages.add(new LogMessage(text.toString()));
+
+                            } else if (kind == TraceEventPipeline.SESSION_INFO) {
+
+                                batch.sessions.add(new SessionInfo(text.toString()));
+                            }
+
+                        } catch (RuntimeException e) {
+
+                            batch.unparsed++;
+                            parseErrors.incrementAndGet();
+                            Log.debug("Error parsing trace event: " + e.getMessage());
+                        }
+
+                        if (batch.isFull()) {
+
+                            put(batch);
+                            batch = new Batch();
+                        }
+                    }
+                });
+
+                if (!batch.isEmpty()) {
+
+                    put(batch);
+                }
+
+            } finally {
+
+                put(Batch.END);
+            }
+
+            return null;
+        }
+
+        private void put(Batch batch) {
+
+            try {
+
+                chunk.batches.put(batch);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            }
+        }
+
+    }
+
+    /**
+     * Reads a part of the file with positional reads, which
+     * the parsers of the other parts may do at the same time.
+     */
+    private static final class ChannelInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        private long position;
+
+        private final long end;
+
+        ChannelInputStream(FileChannel channel, long start, long end) {
+
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+            buffer.limit(0);
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            return fill() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+
+            if (!fill()) {
+
+                return -1;
+            }
+
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        private boolean fill() throws IOException {
+
+            if (buffer.hasRemaining()) {
+
+                return true;
+            }
+
+            if (position >= end) {
+
+                return false;
+            }
+
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            buffer.flip();
+
+            if (read <= 0) {
+
+                return false;
+            }
+            position += read;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,673 @@
+package org.executequery.gui.browser.managment.tracemanager;
+
+import org.executequery.ApplicationContext;
+import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
+import org.executequery.gui.browser.managment.tracemanager.net.StatementFingerprint;
+import org.executequery.log.Log;
+
+import java.io.*;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Append-only on-disk store of the trace events.
+ * <p>
+ * The events are written in deflated blocks of up to 64 records. Each block
+ * header holds the time range and the event types mask of the block, so the
+ * scans skip the blocks which can not match. Blocks are read back on demand
+ * and a few recently used ones are kept decoded in memory.
+ * <p>
+ * Only the block index and the statement fingerprint of every event are
+ * held in memory. They are saved to an index file on close and rebuilt from
+ * the data file when the index is missing or out of date, so the events
+ * captured before a restart are available again.
+ */
+public class TraceLogStore extends AbstractList<LogMessage> implements Closeable {
+
+    public interface Visitor {
+
+        void visit(int index, LogMessage message);
+    }
+
+    private static final String DATA_FILE = "events.dat";
+
+    private static final String INDEX_FILE = "events.idx";
+
+    private static final String LOCK_FILE = "events.lock";
+
+    private static final int MAGIC = 0x52545243;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final int BLOCK_HEADER_SIZE = 32;
+
+    private static final int BLOCK_SIZE = 64;
+
+    private static final int CACHED_BLOCKS = 32;
+
+    /**
+     * type mask bit of the events not listed in {@link LogConstants#EVENT_TYPES}
+     */
+    private static final long OTHER_TYPES = 1L << 63;
+
+    private static final Map<String, Long> TYPE_BITS = new HashMap<>();
+
+    static {
+
+        for (int i = 0; i < LogConstants.EVENT_TYPES.length; i++) {
+
+            TYPE_BITS.put(LogConstants.EVENT_TYPES[i], 1L << i);
+        }
+    }
+
+    private final File directory;
+
+    private final boolean temporary;
+
+    private final RandomAccessFile lockFile;
+
+    private final FileLock lock;
+
+    private RandomAccessFile data;
+
+    private int blockCount;
+
+    private long[] blockOffsets = new long[256];
+
+    private int[] blockStarts = new int[256];
+
+    private long[] blockMinTimes = new long[256];
+
+    private long[] blockMaxTimes = new long[256];
+
+    private long[] blockTypes = new long[256];
+
+    /**
+     * number of the events written to the blocks
+     */
+    private int stored;
+
+    /**
+     * events not yet written as a full block
+     */
+    private final List<LogMessage> tail = new ArrayList<>();
+
+    private int[] fingerprints = new int[1024];
+
+    private final List<String> fingerprintTexts = new ArrayList<>();
+
+    private final Map<String, Integer> fingerprintIds = new HashMap<>();
+
+    private final Map<Integer, LogMessage[]> cache = new LinkedHashMap<Integer, LogMessage[]>(CACHED_BLOCKS, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, LogMessage[]> eldest) {
+
+            return size() > CACHED_BLOCKS;
+        }
+    };
+
+    private boolean writeFailed;
+
+    private TraceLogStore(File directory, boolean temporary, RandomAccessFile lockFile, FileLock lock) {
+
+        this.directory = directory;
+        this.temporary = temporary;
+        this.lockFile = lockFile;
+        this.lock = lock;
+    }
+
+    /**
+     * Opens the store in the <code>trace</code> directory of the user settings.
+     * If the store is already used by another trace manager a temporary store
+     * is created instead, it is deleted on close.
+     */
+    public static TraceLogStore open() throws IOException {
+
+        File directory = new File(ApplicationContext.getInstance().getUserSettingsHome() + "trace");
+        TraceLogStore store = open(directory, false);
+        if (store == null) {
+
+            store = open(Files.createTempDirectory("trace").toFile(), true);
+        }
+
+        return store;
+    }
+
+    private static TraceLogStore open(File directory, boolean temporary) throws IOException {
+
+        if (!directory.exists() && !directory.mkdirs()) {
+
+            throw new IOException("Unable to create trace store directory " + directory);
+        }
+
+        RandomAccessFile lockFile = new RandomAccessFile(new File(directory, LOCK_FILE), "rw");
+        FileLock lock;
+        try {
+
+            lock = lockFile.getChannel().tryLock();
+
+        } catch (OverlappingFileLockException e) {
+
+            lock = null;
+        }
+
+        if (lock == null) {
+
+            lockFile.close();
+            return null;
+        }
+
+        TraceLogStore store = new TraceLogStore(directory, temporary, lockFile, lock);
+        try {
+
+            store.load();
+
+        } catch (IOException e) {
+
+            store.close();
+            throw e;
+        }
+
+        return store;
+    }
+
+    @Override
+    public synchronized LogMessage get(int index) {
+
+        if (index < 0 || index >= size()) {
+
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+
+        if (index >= stored) {
+
+            return tail.get(index - stored);
+        }
+
+        int block = blockOf(index);
+        return page(block)[index - blockStarts[block]];
+    }
+
+    @Override
+    public synchronized int size() {
+
+        return stored + tail.size();
+    }
+
+    @Override
+    public synchronized boolean add(LogMessage message) {
+
+        int index = size();
+        if (index == fingerprints.length) {
+
+            fingerprints = Arrays.copyOf(fingerprints, index * 2);
+        }
+        fingerprints[index] = fingerprintId(message);
+
+        tail.add(message);
+        if (tail.size() >= BLOCK_SIZE && !writeFailed) {
+
+            try {
+
+                writeBlock();
+
+            } catch (IOException e) {
+
+                // keep the events in memory to not lose the capture
+                writeFailed = true;
+                Log.error("Unable to write trace store " + directory + ": " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+
+        try {
+
+            data.setLength(HEADER_SIZE);
+
+        } catch (IOException e) {
+
+            Log.error("Unable to clear trace store " + directory + ": " + e.getMessage());
+        }
+
+        blockCount = 0;
+        stored = 0;
+        tail.clear();
+        cache.clear();
+        fingerprintTexts.clear();
+        fingerprintIds.clear();
+        fingerprints = new int[1024];
+        writeFailed = false;
+        modCount++;
+    }
+
+    /**
+     * Returns the fingerprint of the statement of the event.
+     *
+     * @return the fingerprint or null if the event has no statement
+     * @see StatementFingerprint
+     */
+    public synchronized String getFingerprint(int index) {
+
+        int id = fingerprints[index];
+        return id >= 0 ? fingerprintTexts.get(id) : null;
+    }
+
+    /**
+     * Visits in order the events of the blocks which may hold events of the
+     * specified types within the time range, skipping the other blocks.
+     * The visited events still have to be checked against the conditions.
+     *
+     * The blocks not cached are read without being cached, so a scan does
+     * not evict the blocks of the rows being viewed.
+     *
+     * @param types the event types or null for any type, a null element
+     *              stands for the types not listed in {@link LogConstants#EVENT_TYPES}
+     * @param from  the range start or null
+     * @param to    the range end or null
+     */
+    public void scan(Collection<?> types, Timestamp from, Timestamp to, Visitor visitor) {
+
+        long mask = types != null ? typeMask(types) : -1;
+        long start = from != null ? from.getTime() : Long.MIN_VALUE;
+        long end = to != null ? to.getTime() : Long.MAX_VALUE;
+
+        boolean last = false;
+        for (int block = 0; !last; block++) {
+
+            LogMessage[] messages;
+            int first;
+            synchronized (this) {
+
+                if (block >= blockCount) {
+
+                    messages = tail.toArray(new LogMessage[0]);
+                    first = stored;
+                    last = true;
+
+                } else if ((blockTypes[block] & mask) == 0
+                        || blockMaxTimes[block] < start || blockMinTimes[block] > end) {
+
+                    continue;
+
+                } else {
+
+                    messages = cache.get(block);
+                    if (messages == null) {
+
+                        messages = read(block);
+                    }
+                    first = blockStarts[block];
+                }
+            }
+
+            for (int i = 0; i < messages.length; i++) {
+
+                visitor.visit(first + i, messages[i]);
+            }
+        }
+    }
+
+    public synchronized void close() throws IOException {
+
+        try {
+
+            if (data != null) {
+
+                if (!tail.isEmpty() && !writeFailed) {
+
+                    writeBlock();
+                }
+
+                if (!temporary && !writeFailed) {
+
+                    writeIndex();
+                }
+                data.close();
+            }
+
+        } finally {
+
+            lock.release();
+            lockFile.close();
+            if (temporary) {
+
+                new File(directory, DATA_FILE).delete();
+                new File(directory, LOCK_FILE).delete();
+                directory.delete();
+            }
+        }
+    }
+
+    private void load() throws IOException {
+
+        data = new RandomAccessFile(new File(directory, DATA_FILE), "rw");
+        if (data.length() >= HEADER_SIZE) {
+
+            data.seek(0);
+            if (data.readInt() == MAGIC && data.readInt() == VERSION) {
+
+                if (!readIndex()) {
+
+                    rebuildIndex();
+                }
+                return;
+            }
+            Log.info("Discarding trace store of unknown format " + directory);
+        }
+
+        data.setLength(0);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+    }
+
+    private boolean readIndex() {
+
+        File file = new File(directory, INDEX_FILE);
+        if (!file.exists()) {
+
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != data.length()) {
+
+                return false;
+            }
+
+            int blocks = in.readInt();
+            for (int i = 0; i < blocks; i++) {
+
+                addBlock(in.readLong(), in.readInt(), in.readLong(), in.readLong(), in.readLong());
+            }
+
+            int texts = in.readInt();
+            for (int i = 0; i < texts; i++) {
+
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                String text = new String(bytes, StandardCharsets.UTF_8);
+                fingerprintIds.put(text, fingerprintTexts.size());
+                fingerprintTexts.add(text);
+            }
+
+            stored = in.readInt();
+            fingerprints = new int[Math.max(1024, stored * 2)];
+            for (int i = 0; i < stored; i++) {
+
+                fingerprints[i] = in.readInt();
+            }
+
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+
+            Log.debug("Discarding unreadable trace store index " + file + ": " + e.getMessage());
+            blockCount = 0;
+            stored = 0;
+            fingerprintTexts.clear();
+            fingerprintIds.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Reads all the blocks of the data file, truncating
+     * the incomplete last block left by an abnormal exit.
+     */
+    private void rebuildIndex() throws IOException {
+
+        long length = data.length();
+        long position = HEADER_SIZE;
+        while (position + BLOCK_HEADER_SIZE <= length) {
+
+            data.seek(position);
+            int count = data.readInt();
+            long minTime = data.readLong();
+            long maxTime = data.readLong();
+            long types = data.readLong();
+            int size = data.readInt();
+            if (count <= 0 || size < 0 || position + BLOCK_HEADER_SIZE + size > length) {
+
+                break;
+            }
+
+            byte[] bytes = new byte[size];
+            data.readFully(bytes);
+            LogMessage[] messages;
+            try {
+
+                messages = decode(bytes, count);
+
+            } catch (IOException e) {
+
+                break;
+            }
+
+            int start = stored;
+            for (LogMessage message : messages) {
+
+                if (stored == fingerprints.length) {
+
+                    fingerprints = Arrays.copyOf(fingerprints, stored * 2);
+                }
+                fingerprints[stored++] = fingerprintId(message);
+            }
+            addBlock(position, start, minTime, maxTime, types);
+            position += BLOCK_HEADER_SIZE + size;
+        }
+
+        if (position < length) {
+
+            Log.info("Truncating incomplete trace store " + directory + " at " + position);
+            data.setLength(position);
+        }
+        Log.debug("Trace store index rebuilt: " + stored + " events in " + blockCount + " blocks");
+    }
+
+    private void writeIndex() throws IOException {
+
+        File file = new File(directory, INDEX_FILE);
+        File temp = new File(directory, INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(data.length());
+
+            out.writeInt(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+
+                out.writeLong(blockOffsets[i]);
+                out.writeInt(blockStarts[i]);
+                out.writeLong(blockMinTimes[i]);
+                out.writeLong(blockMaxTimes[i]);
+                out.writeLong(blockTypes[i]);
+            }
+
+            out.writeInt(fingerprintTexts.size());
+            for (String text : fingerprintTexts) {
+
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(stored);
+            for (int i = 0; i < stored; i++) {
+
+                out.writeInt(fingerprints[i]);
+            }
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeBlock() throws IOException {
+
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        long types = 0;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 8192))) {
+
+            for (LogMessage message : tail) {
+
+                message.write(out);
+                if (message.getTimestamp() != null) {
+
+                    long time = message.getTimestamp().getTime();
+                    minTime = Math.min(minTime, time);
+                    maxTime = Math.max(maxTime, time);
+                }
+                types |= typeBit(message.getTypeEvent());
+            }
+
+        } finally {
+
+            deflater.end();
+        }
+
+        long offset = data.length();
+        ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_HEADER_SIZE + bytes.size());
+        DataOutputStream out = new DataOutputStream(block);
+        out.writeInt(tail.size());
+        out.writeLong(minTime);
+        out.writeLong(maxTime);
+        out.writeLong(types);
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+
+        data.seek(offset);
+        data.write(block.toByteArray());
+
+        addBlock(offset, stored, minTime, maxTime, types);
+        cache.put(blockCount - 1, tail.toArray(new LogMessage[0]));
+        stored += tail.size();
+        tail.clear();
+    }
+
+    private void addBlock(long offset, int start, long minTime, long maxTime, long types) {
+
+        if (blockCount == blockOffsets.length) {
+
+            int capacity = blockCount * 2;
+            blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+            blockStarts = Arrays.copyOf(blockStarts, capacity);
+            blockMinTimes = Arrays.copyOf(blockMinTimes, capacity);
+            blockMaxTimes = Arrays.copyOf(blockMaxTimes, capacity);
+            blockTypes = Arrays.copyOf(blockTypes, capacity);
+        }
+
+        blockOffsets[blockCount] = offset;
+        blockStarts[blockCount] = start;
+        blockMinTimes[blockCount] = minTime;
+        blockMaxTimes[blockCount] = maxTime;
+        blockTypes[blockCount] = types;
+        blockCount++;
+    }
+
+    private int blockOf(int index) {
+
+        int block = Arrays.binarySearch(blockStarts, 0, blockCount, index);
+        return block >= 0 ? block : -block - 2;
+    }
+
+    private LogMessage[] page(int block) {
+
+        LogMessage[] messages = cache.get(block);
+        if (messages == null) {
+
+            messages = read(block);
+            cache.put(block, messages);
+        }
+
+        return messages;
+    }
+
+    private LogMessage[] read(int block) {
+
+        try {
+
+            data.seek(blockOffsets[block]);
+            int count = data.readInt();
+            data.skipBytes(24);
+            byte[] bytes = new byte[data.readInt()];
+            data.readFully(bytes);
+            return decode(bytes, count);
+
+        } catch (IOException e) {
+
+            throw new IllegalStateException("Unable to read trace store " + directory, e);
+        }
+    }
+
+    private static LogMessage[] decode(byte[] bytes, int count) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(bytes)), 8192))) {
+
+            LogMessage[] messages = new LogMessage[count];
+            for (int i = 0; i < count; i++) {
+
+                messages[i] = LogMessage.read(in);
+            }
+            return messages;
+        }
+    }
+
+    private int fingerprintId(LogMessage message) {
+
+        if (message.getStatementText() == null) {
+
+            return -1;
+        }
+
+        String fingerprint = StatementFingerprint.of(message.getStatementText());
+        Integer id = fingerprintIds.get(fingerprint);
+        if (id == null) {
+
+            id = fingerprintTexts.size();
+            fingerprintTexts.add(fingerprint);
+            fingerprintIds.put(fingerprint, id);
+        }
+
+        return id;
+    }
+
+    private static long typeBit(String type) {
+
+        Long bit = type != null ? TYPE_BITS.get(type) : null;
+        return bit != null ? bit : OTHER_TYPES;
+    }
+
+    private static long typeMask(Collection<?> types) {
+
+        long mask = 0;
+        for (Object type : types) {
+
+            mask |= typeBit(type != null ? type.toString() : null);
+        }
+
+        return mask;
+    }
+
+}
@@ -4,12 +4,12 @@ import org.executequery.localization.Bundles;
 import org.executequery.log.Log;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class AnaliseRow {
     LogMessage logMessage;
-    StringBuilder logMessages;
     public final static int TIME = 0;
     public final static int READ = TIME + 1;
     public final static int FETCH = READ + 1;
@@ -40,23 +40,27 @@ public class AnaliseRow {
             "TOTAL", "AVG", "MAX", "STD_DEV"
     };
 
-    List<LogMessage>[] rows;
-    List<LogMessage> allRows;
+    // indexes of the aggregated messages in the analysed list
+    int[] messageIndexes = new int[16];
+    int messageCount;
     AnaliseValue[] average = new AnaliseValue[TYPES.length];
     AnaliseValue[] total = new AnaliseValue[TYPES.length];
     AnaliseValue[] max = new AnaliseValue[TYPES.length];
     AnaliseValue[] std_dev = new AnaliseValue[TYPES.length];
     long[] count = new long[TYPES.length];
+    // running mean and sum of squared deviations of the values
+    double[] mean = new double[TYPES.length];
+    double[] squares = new double[TYPES.length];
 
-    List<String> plans;
+    Set<String> plans;
     String planText;
 
     public LogMessage getLogMessage() {
         return logMessage;
     }
 
-    public String getLogMessages() {
-        return logMessages.toString();
+    public int[] getMessageIndexes() {
+        return Arrays.copyOf(messageIndexes, messageCount);
     }
 
     public void setLogMessage(LogMessage logMessage) {
@@ -64,17 +68,13 @@ public class AnaliseRow {
     }
 
     public AnaliseRow() {
-        allRows = new ArrayList<>();
-        logMessages = new StringBuilder();
-        rows = new List[TYPES.length];
         for (int i = 0; i < TYPES.length; i++) {
-            rows[i] = new ArrayList<>();
             total[i] = new AnaliseValue(0, i);
             max[i] = new AnaliseValue(0, i);
             average[i] = new AnaliseValue(0, i);
             std_dev[i] = new AnaliseValue(0, i);
         }
-        plans = new ArrayList<>();
+        plans = new LinkedHashSet<>();
     }
 
     public AnaliseValue[] getAverage() {
@@ -89,23 +89,19 @@ public class AnaliseRow {
         return max;
     }
 
-    public List<LogMessage>[] getRows() {
-        return rows;
-    }
-
     public long[] getCount() {
         return count;
     }
 
     public long getCountAllRows() {
-        return allRows.size();
+        return messageCount;
     }
 
     public AnaliseValue[] getStd_dev() {
         return std_dev;
     }
 
-    void addMessage(LogMessage msg, int type) {
+    void addValue(LogMessage msg, int type) {
         Long currentValue = getValueFromType(msg, type);
         if (currentValue == null) {
             currentValue = 0L;
@@ -113,12 +109,14 @@ public class AnaliseRow {
         }
         if (logMessage == null)
             logMessage = msg;
-        rows[type].add(msg);
         count[type]++;
         total[type].longValue += currentValue;
         if (currentValue > max[type].longValue)
             max[type].longValue = currentValue;
-
+        double delta = currentValue - mean[type];
+        mean[type] += delta / count[type];
+        squares[type] += delta * (currentValue - mean[type]);
+        calculateValues(type);
     }
 
     public void calculateValues() {
@@ -130,41 +128,22 @@ public class AnaliseRow {
     void calculateValues(int type) {
         if (count[type] > 0) {
             average[type].longValue = total[type].longValue / count[type];
-
-            long dispersion = 0;
-            if (count[type] > 1) {
-                for (LogMessage row : rows[type]) {
-                    Long value = getValueFromType(row, type);
-                    if (value == null)
-                        value = 0L;
-                    dispersion += (value - average[type].longValue) * (value - average[type].longValue);
-                }
-                dispersion = dispersion / count[type] - 1;
-                std_dev[type].longValue = (long) Math.sqrt(dispersion);
-            }
+            if (count[type] > 1)
+                std_dev[type].longValue = (long) Math.sqrt(squares[type] / (count[type] - 1));
         }
     }
 
-    public void addMessage(LogMessage msg) {
-        allRows.add(msg);
-        logMessages.append(msg.getBody()).append("\n");
-        if (msg.getPlanText() != null) {
-            if (plans.isEmpty())
-                plans.add(msg.getPlanText());
-            else {
-                boolean finded = false;
-                for (String plan : plans) {
-                    if (plan.contentEquals(msg.getPlanText())) {
-                        finded = true;
-                        break;
-                    }
-                }
-                if (!finded)
-                    plans.add(msg.getPlanText());
-            }
-        }
+    /**
+     * @param index the index of the message in the analysed list
+     */
+    public void addMessage(LogMessage msg, int index) {
+        if (messageCount == messageIndexes.length)
+            messageIndexes = Arrays.copyOf(messageIndexes, messageCount * 2);
+        messageIndexes[messageCount++] = index;
+        if (msg.getPlanText() != null && plans.add(msg.getPlanText()))
+            planText = null;
         for (int i = TIME; i < TYPES.length; i++) {
-            addMessage(msg, i);
+            addValue(msg, i);
         }
     }
 
@@ -11,6 +11,10 @@ import org.underworldlabs.traceparser.RedTraceLexer;
 import org.underworldlabs.traceparser.RedTraceParser;
 import org.underworldlabs.util.MiscUtils;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -88,6 +92,8 @@ public class LogMessage {
 
     private void init(String body) {
         this.setBody(body);
+        if (TraceEventScanner.scan(body, this))
+            return;
         RedTraceParser parser = buildParser(body);
         try {
             ParseTree tree = parser.parse();
@@ -1233,6 +1239,147 @@ public class LogMessage {
 
     }
 
+    /**
+     * Writes the message in the trace store record format.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(id);
+        out.writeLong(timestamp != null ? timestamp.getTime() : Long.MIN_VALUE);
+        if (timestamp != null)
+            out.writeInt(timestamp.getNanos());
+        out.writeByte(typeEventTrace != null ? typeEventTrace.ordinal() : -1);
+        out.writeBoolean(failed);
+        out.writeLong(totalCacheMemory);
+        out.writeLong(ramCacheMemory);
+        out.writeLong(diskCacheMemory);
+
+        Long[] counters = {
+                timeExecution, countReads, countWrites,
+                countFetches, countMarks, fetchedRecords
+        };
+        out.writeByte((int) presence(counters));
+        for (Long counter : counters)
+            if (counter != null)
+                out.writeLong(counter);
+
+        String[] strings = {
+                idProcess, idThread, typeEvent, body,
+                sessionID, sessionName, database, serviceID,
+                userName, protocolConnection, clientAddress, typeQueryService,
+                optionsStartService, idConnection, role, charset,
+                clientProcess, idClientProcess, idTransaction, levelIsolation,
+                modeOfBlock, modeOfAccess, idStatement, statementText,
+                paramText, planText, tableCounters, declareContextVariablesText,
+                executor, grantor, privilege, privilegeObject,
+                privilegeUsername, privilegeAttachment, privilegeTransaction, procedureName,
+                returnValue, failedText, triggerInfo, sentData,
+                receivedData, errorMessage, oldestInteresting, oldestActive,
+                oldestSnapshot, nextTransaction
+        };
+        out.writeLong(presence(strings));
+        for (String string : strings)
+            if (string != null) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+    }
+
+    /**
+     * Reads the message written by {@link #write(DataOutputStream)}.
+     */
+    public static LogMessage read(DataInputStream in) throws IOException {
+        LogMessage message = new LogMessage();
+        message.id = in.readInt();
+        long time = in.readLong();
+        if (time != Long.MIN_VALUE) {
+            message.timestamp = new Timestamp(time);
+            message.timestamp.setNanos(in.readInt());
+        }
+        int type = in.readByte();
+        message.typeEventTrace = type >= 0 ? TypeEventTrace.values()[type] : null;
+        message.failed = in.readBoolean();
+        message.totalCacheMemory = in.readLong();
+        message.ramCacheMemory = in.readLong();
+        message.diskCacheMemory = in.readLong();
+
+        Long[] counters = new Long[6];
+        int counterPresence = in.readByte();
+        for (int i = 0; i < counters.length; i++)
+            if ((counterPresence & (1 << i)) != 0)
+                counters[i] = in.readLong();
+        message.timeExecution = counters[0];
+        message.countReads = counters[1];
+        message.countWrites = counters[2];
+        message.countFetches = counters[3];
+        message.countMarks = counters[4];
+        message.fetchedRecords = counters[5];
+
+        String[] strings = new String[46];
+        long stringPresence = in.readLong();
+        for (int i = 0; i < strings.length; i++)
+            if ((stringPresence & (1L << i)) != 0) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        message.idProcess = strings[0];
+        message.idThread = strings[1];
+        message.typeEvent = strings[2];
+        message.body = strings[3];
+        message.sessionID = strings[4];
+        message.sessionName = strings[5];
+        message.database = strings[6];
+        message.serviceID = strings[7];
+        message.userName = strings[8];
+        message.protocolConnection = strings[9];
+        message.clientAddress = strings[10];
+        message.typeQueryService = strings[11];
+        message.optionsStartService = strings[12];
+        message.idConnection = strings[13];
+        message.role = strings[14];
+        message.charset = strings[15];
+        message.clientProcess = strings[16];
+        message.idClientProcess = strings[17];
+        message.idTransaction = strings[18];
+        message.levelIsolation = strings[19];
+        message.modeOfBlock = strings[20];
+        message.modeOfAccess = strings[21];
+        message.idStatement = strings[22];
+        message.statementText = strings[23];
+        message.paramText = strings[24];
+        message.planText = strings[25];
+        message.tableCounters = strings[26];
+        message.declareContextVariablesText = strings[27];
+        message.executor = strings[28];
+        message.grantor = strings[29];
+        message.privilege = strings[30];
+        message.privilegeObject = strings[31];
+        message.privilegeUsername = strings[32];
+        message.privilegeAttachment = strings[33];
+        message.privilegeTransaction = strings[34];
+        message.procedureName = strings[35];
+        message.returnValue = strings[36];
+        message.failedText = strings[37];
+        message.triggerInfo = strings[38];
+        message.sentData = strings[39];
+        message.receivedData = strings[40];
+        message.errorMessage = strings[41];
+        message.oldestInteresting = strings[42];
+        message.oldestActive = strings[43];
+        message.oldestSnapshot = strings[44];
+        message.nextTransaction = strings[45];
+        return message;
+    }
+
+    private static long presence(Object[] values) {
+        long presence = 0;
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != null)
+                presence |= 1L << i;
+        return presence;
+    }
+
     @Override
     public String toString() {
         return "LogMessage{" +
@@ -0,0 +1,126 @@
+package org.executequery.gui.browser.managment.tracemanager.net;
+
+/**
+ * Normalised statement text used to group the statements which differ
+ * only in literal values, letter case, comments and formatting.
+ * <p>
+ * String and numeric literals are replaced with <code>?</code>, lists of
+ * literals and parameters are folded into a single <code>?</code>, comments
+ * are removed, whitespace is collapsed and unquoted words are upper cased.
+ */
+public final class StatementFingerprint {
+
+    private StatementFingerprint() {
+    }
+
+    public static String of(String statement) {
+        int length = statement.length();
+        StringBuilder sb = new StringBuilder(Math.min(length, 4096));
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = statement.charAt(i);
+            char next = i + 1 < length ? statement.charAt(i + 1) : 0;
+
+            if (Character.isWhitespace(c)) {
+                space = true;
+
+            } else if (c == '-' && next == '-') {
+                int end = statement.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                space = true;
+
+            } else if (c == '/' && next == '*') {
+                int end = statement.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+                space = true;
+
+            } else if (c == '\'') {
+                int j = i + 1;
+                while (j < length) {
+                    if (statement.charAt(j) == '\'') {
+                        if (j + 1 < length && statement.charAt(j + 1) == '\'')
+                            j++;
+                        else
+                            break;
+                    }
+                    j++;
+                }
+                i = j;
+                appendLiteral(sb, space);
+                space = false;
+
+            } else if (c == '"') {
+                int end = statement.indexOf('"', i + 1);
+                end = end < 0 ? length - 1 : end;
+                appendSpace(sb, space, c);
+                sb.append(statement, i, end + 1);
+                i = end;
+                space = false;
+
+            } else if (Character.isDigit(c) || (c == '.' && Character.isDigit(next))) {
+                int j = i + 1;
+                while (j < length) {
+                    char d = statement.charAt(j);
+                    if ((d == 'e' || d == 'E') && j + 1 < length
+                            && (Character.isDigit(statement.charAt(j + 1)) || statement.charAt(j + 1) == '-' || statement.charAt(j + 1) == '+'))
+                        j += 2;
+                    else if (Character.isLetterOrDigit(d) || d == '.')
+                        j++;
+                    else
+                        break;
+                }
+                i = j - 1;
+                appendLiteral(sb, space);
+                space = false;
+
+            } else if (c == '?') {
+                appendLiteral(sb, space);
+                space = false;
+
+            } else if (isWordPart(c)) {
+                appendSpace(sb, space, c);
+                int j = i;
+                while (j < length && isWordPart(statement.charAt(j)))
+                    sb.append(Character.toUpperCase(statement.charAt(j++)));
+                i = j - 1;
+                space = false;
+
+            } else {
+                sb.append(c);
+                space = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends the literal placeholder, folding it into the
+     * preceding one if they are list items.
+     */
+    private static void appendLiteral(StringBuilder sb, boolean space) {
+        int last = sb.length() - 1;
+        if (last > 0 && sb.charAt(last) == ',' && sb.charAt(last - 1) == '?') {
+            sb.setLength(last);
+            return;
+        }
+        appendSpace(sb, space, '?');
+        sb.append('?');
+    }
+
+    /**
+     * Keeps the whitespace only where it separates two words.
+     */
+    private static void appendSpace(StringBuilder sb, boolean space, char c) {
+        if (space && sb.length() > 0 && isToken(sb.charAt(sb.length() - 1)) && isToken(c))
+            sb.append(' ');
+    }
+
+    private static boolean isToken(char c) {
+        return isWordPart(c) || c == '?' || c == '"';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+}
@@ -0,0 +1,320 @@
+package org.executequery.gui.browser.managment.tracemanager.net;
+
+import java.sql.Timestamp;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single pass scanner of the statement execute and prepare events, which
+ * make up the most of a trace. Fills the message the same way the trace
+ * grammar does and gives up on anything unexpected, leaving the event to
+ * the grammar.
+ */
+final class TraceEventScanner {
+
+    private static final Pattern HEADER = Pattern.compile(
+            "(\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d+) ?\\((\\w+):(\\w+)\\)( FAILED| UNAUTHORIZED)? "
+                    + "(EXECUTE_STATEMENT_START|EXECUTE_STATEMENT_FINISH|PREPARE_STATEMENT)");
+
+    private static final Pattern CONNECTION = Pattern.compile(
+            "(.+?) ?\\((ATT_\\w+), ([^:,]+):([^,]+), ([^,]+), ?(?:<internal>|([^:]+):(.+?)) ?\\)");
+
+    private static final Pattern TRANSACTION = Pattern.compile(
+            "\\((TRA_\\w+), (.+) \\| (WAIT(?: \\w+)?|NOWAIT) \\| (READ_ONLY|READ_WRITE)\\)");
+
+    private static final Pattern STATEMENT = Pattern.compile("Statement (\\w+):");
+
+    private static final Pattern PARAM = Pattern.compile("param\\d+ = .*");
+
+    private static final Pattern RECORDS_FETCHED = Pattern.compile("(\\d+) records fetched( without sorting)?");
+
+    private static final Pattern MEMORY = Pattern.compile(
+            "sorting memory usage: total: (\\d+) bytes, cached: (\\d+) bytes, on disk: (\\d+) bytes");
+
+    private static final Pattern GLOBAL_COUNTERS = Pattern.compile(
+            "(\\d+) ms(?:, (\\d+) read\\(s\\))?(?:, (\\d+) write\\(s\\))?(?:, (\\d+) fetch\\(es\\))?(?:, (\\d+) mark\\(s\\))?");
+
+    private static final String PREPARE_STATEMENT = "PREPARE_STATEMENT";
+
+    private final String body;
+
+    private int lineStart;
+
+    private int lineEnd = -1;
+
+    private TraceEventScanner(String body) {
+        this.body = body;
+    }
+
+    /**
+     * Fills the message from the event text.
+     *
+     * @return false if the event is not recognised, the message is left untouched then
+     */
+    static boolean scan(String body, LogMessage message) {
+        try {
+            return new TraceEventScanner(body).scan(message);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private boolean scan(LogMessage message) {
+        String line = nextLine();
+        if (line == null || line.isEmpty() || !Character.isDigit(line.charAt(0)))
+            return false;
+        Matcher header = HEADER.matcher(line);
+        if (!header.matches())
+            return false;
+        String typeEvent = header.group(5);
+
+        line = nextLine();
+        if (line == null)
+            return false;
+        Matcher connection = CONNECTION.matcher(line.trim());
+        if (!connection.matches())
+            return false;
+
+        line = nextLine();
+        if (line == null)
+            return false;
+        String clientProcess = null;
+        String idClientProcess = null;
+        if (!line.trim().startsWith("(TRA_")) {
+            String process = line.trim();
+            int separator = process.lastIndexOf(':');
+            if (separator <= 0 || separator == process.length() - 1)
+                return false;
+            clientProcess = process.substring(0, separator);
+            idClientProcess = process.substring(separator + 1);
+            line = nextLine();
+            if (line == null)
+                return false;
+        }
+        Matcher transaction = TRANSACTION.matcher(line.trim());
+        if (!transaction.matches())
+            return false;
+
+        line = nextNonBlankLine();
+        if (line == null)
+            return false;
+        String idStatement = null;
+        Matcher statement = STATEMENT.matcher(line.trim());
+        if (statement.matches()) {
+            idStatement = statement.group(1);
+            line = nextLine();
+        } else if (PREPARE_STATEMENT.equals(typeEvent))
+            return false;
+        if (line == null || !isRepeated(line.trim(), '-'))
+            return false;
+
+        // the query is everything up to the line feed before the carets line
+        int queryStart = skipBlanks(lineEnd + 1);
+        int carets = body.indexOf("\n^", queryStart - 1);
+        if (carets < queryStart)
+            return false;
+        String query = body.substring(queryStart, carets);
+        if (query.indexOf('^') >= 0 || query.contains("param0 = ")
+                || query.contains("records fetched") || query.contains("sorting memory usage: total: "))
+            return false;
+        lineEnd = carets;
+        line = nextLine();
+        if (!isRepeated(line, '^'))
+            return false;
+
+        line = nextNonBlankLine();
+        String planText = null;
+        if (line != null && isPlanStart(line.trim())) {
+            int start = skipBlanks(lineStart);
+            int end;
+            do {
+                end = lineEnd;
+                line = nextLine();
+            } while (line != null && isPlanLine(line.trim()));
+            planText = body.substring(start, Math.min(end + 1, body.length()));
+            if (line != null && line.trim().isEmpty())
+                line = nextNonBlankLine();
+        }
+
+        String paramText = null;
+        if (line != null && PARAM.matcher(line).matches()) {
+            int start = lineStart;
+            int end;
+            do {
+                // the grammar takes the quoted values only, the rest is left to it
+                if (quotes(line) % 2 != 0 || !line.endsWith("\""))
+                    return false;
+                end = lineEnd;
+                line = nextLine();
+            } while (line != null && PARAM.matcher(line).matches());
+            // the text ends with the line feed of the last value, as in the grammar
+            paramText = body.substring(start, Math.min(end + 1, body.length()));
+            if (line != null && line.trim().isEmpty())
+                line = nextNonBlankLine();
+        }
+
+        Long fetchedRecords = null;
+        if (line != null) {
+            Matcher records = RECORDS_FETCHED.matcher(line.trim());
+            if (records.matches()) {
+                fetchedRecords = Long.parseLong(records.group(1));
+                line = nextNonBlankLine();
+            }
+        }
+
+        Matcher memory = null;
+        if (line != null) {
+            memory = MEMORY.matcher(line.trim());
+            if (memory.matches())
+                line = nextNonBlankLine();
+            else
+                memory = null;
+        }
+
+        Matcher counters = null;
+        if (line != null) {
+            counters = GLOBAL_COUNTERS.matcher(line.trim());
+            if (counters.matches())
+                line = nextNonBlankLine();
+            else
+                counters = null;
+        }
+
+        String tableCounters = null;
+        if (line != null && line.trim().startsWith("Table")) {
+            int start = skipBlanks(lineStart);
+            line = nextLine();
+            if (line == null || !isRepeated(line.trim(), '*'))
+                return false;
+            int end = lineEnd;
+            while ((line = nextLine()) != null && !line.trim().isEmpty())
+                end = lineEnd;
+            tableCounters = body.substring(start, Math.min(end + 1, body.length()));
+            if (line != null)
+                line = nextNonBlankLine();
+        }
+
+        if (line != null)
+            return false;
+
+        message.setTypeEvent(typeEvent);
+        message.setTypeEventTrace(PREPARE_STATEMENT.equals(typeEvent)
+                ? LogMessage.TypeEventTrace.STATEMENT_PREPARE_EVENT
+                : LogMessage.TypeEventTrace.STATEMENT_EVENT);
+
+        message.setTimestamp(Timestamp.valueOf(header.group(1).replace("T", " ")));
+        message.setIdProcess(header.group(2));
+        message.setIdThread(header.group(3));
+        message.setFailed(header.group(4) != null);
+        message.setFailedText(header.group(4));
+
+        message.setDatabase(connection.group(1));
+        message.setIdConnection(connection.group(2).replace("ATT_", ""));
+        message.setUserName(connection.group(3));
+        message.setRole(connection.group(4));
+        message.setCharset(connection.group(5));
+        message.setProtocolConnection(connection.group(6));
+        message.setClientAddress(connection.group(7));
+
+        if (clientProcess != null) {
+            message.setClientProcess(clientProcess);
+            message.setIdClientProcess(idClientProcess);
+        }
+
+        message.setIdTransaction(transaction.group(1).replace("TRA_", ""));
+        message.setLevelIsolation(transaction.group(2));
+        message.setModeOfBlock(transaction.group(3));
+        message.setModeOfAccess(transaction.group(4));
+
+        if (idStatement != null)
+            message.setIdStatement(idStatement);
+
+        message.setStatementText(query);
+        message.setPlanText(planText);
+        message.setParamText(paramText);
+        message.setTableCounters(tableCounters);
+        if (fetchedRecords != null)
+            message.setFetchedRecords(fetchedRecords);
+        if (memory != null) {
+            message.setTotalCacheMemory(Long.parseLong(memory.group(1)));
+            message.setRamCacheMemory(Long.parseLong(memory.group(2)));
+            message.setDiskCacheMemory(Long.parseLong(memory.group(3)));
+        }
+        if (counters != null) {
+            message.setTimeExecution(toLong(counters.group(1)));
+            message.setCountReads(toLong(counters.group(2)));
+            message.setCountWrites(toLong(counters.group(3)));
+            message.setCountFetches(toLong(counters.group(4)));
+            message.setCountMarks(toLong(counters.group(5)));
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the next line of the event.
+     *
+     * @return the line without the line feed or null at the end of the event
+     */
+    private String nextLine() {
+        if (lineEnd >= body.length())
+            return null;
+        lineStart = lineEnd + 1;
+        if (lineStart >= body.length()) {
+            lineEnd = body.length();
+            return null;
+        }
+        lineEnd = body.indexOf('\n', lineStart);
+        if (lineEnd < 0)
+            lineEnd = body.length();
+        int end = lineEnd > lineStart && body.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+        return body.substring(lineStart, end);
+    }
+
+    /**
+     * Returns the index of the first character at or after the index
+     * that is not a space or a tab, where the grammar rules start.
+     */
+    private int skipBlanks(int index) {
+        while (index < body.length() && (body.charAt(index) == ' ' || body.charAt(index) == '\t'))
+            index++;
+        return index;
+    }
+
+    private String nextNonBlankLine() {
+        String line;
+        do {
+            line = nextLine();
+        } while (line != null && line.trim().isEmpty());
+        return line;
+    }
+
+    private static boolean isPlanStart(String line) {
+        return line.startsWith("Select Expression") || line.startsWith("PLAN") || line.startsWith("-- line");
+    }
+
+    private static boolean isPlanLine(String line) {
+        return line.startsWith("->") || isPlanStart(line);
+    }
+
+    private static boolean isRepeated(String line, char c) {
+        if (line == null || line.isEmpty())
+            return false;
+        for (int i = 0; i < line.length(); i++)
+            if (line.charAt(i) != c)
+                return false;
+        return true;
+    }
+
+    private static int quotes(String line) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++)
+            if (line.charAt(i) == '"')
+                count++;
+        return count;
+    }
+
+    private static Long toLong(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+}
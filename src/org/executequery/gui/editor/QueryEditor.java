@@ -605,7 +605,7 @@ public class QueryEditor extends DefaultTabView
             revalidate();
 
         } else
-            new QueryEditorResultsExporter(new ResultSetTableModel(resultSet, -1, false), getDisplayName());
+            new QueryEditorResultsExporter(resultSet, null, getDisplayName());
 
         return rowCount;
     }
@@ -622,7 +622,7 @@ public class QueryEditor extends DefaultTabView
             revalidate();
 
         } else
-            new QueryEditorResultsExporter(new ResultSetTableModel(resultSet, -1, false), getDisplayName());
+            new QueryEditorResultsExporter(resultSet, null, getDisplayName());
     }
 
     /**
@@ -636,7 +636,7 @@ public class QueryEditor extends DefaultTabView
         if (!executeToFileCheckBox.isSelected())
             resultsPanel.setResultSet(resultSet, true, getMaxRecords(), query);
         else
-            new QueryEditorResultsExporter(new ResultSetTableModel(resultSet, -1, false), getDisplayName());
+            new QueryEditorResultsExporter(resultSet, query, getDisplayName());
     }
 
     public void destroyTable() {
@@ -289,7 +289,7 @@ public class QueryEditorDelegate implements QueryDelegate {
         queryEditor.setLeftStatusText(text);
     }
 
-    public void statementExecuted(String statement) {
+    public void statementExecuted(String statement, long duration) {
 
         String _query = statement.toUpperCase();
 
@@ -302,7 +302,7 @@ public class QueryEditorDelegate implements QueryDelegate {
 
         }
 
-        addSqlCommandToHistory(statement);
+        addSqlCommandToHistory(statement, duration);
     }
 
     /**
@@ -336,12 +336,12 @@ public class QueryEditorDelegate implements QueryDelegate {
         return "";
     }
 
-    private void addSqlCommandToHistory(final String query) {
+    private void addSqlCommandToHistory(final String query, final long duration) {
 
         ThreadUtils.startWorker(new Runnable() {
             public void run() {
 
-                sqlCommandHistoryRepository().addSqlCommand(query, queryEditor.getSelectedConnection().getId());
+                sqlCommandHistoryRepository().addSqlCommand(query, queryEditor.getSelectedConnection().getId(), duration);
             }
         });
 
@@ -31,9 +31,17 @@ import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.importexport.DefaultExcelWorkbookBuilder;
 import org.executequery.gui.importexport.ExcelWorkbookBuilder;
 import org.executequery.gui.importexport.ImportExportDataProcess;
+import org.executequery.gui.importexport.StreamingExcelWorkbookBuilder;
+import org.executequery.gui.importexport.TableDumpColumn;
+import org.executequery.gui.importexport.TableDumpWriter;
 import org.executequery.gui.resultset.AbstractLobRecordDataItem;
+import org.executequery.gui.resultset.AbstractRecordDataItem;
+import org.executequery.gui.resultset.ClobRecordDataItem;
 import org.executequery.gui.resultset.RecordDataItem;
+import org.executequery.gui.resultset.RecordDataItemFactory;
+import org.executequery.gui.resultset.ResultSetColumnHeader;
 import org.executequery.gui.resultset.ResultSetTableModel;
+import org.executequery.gui.table.CreateTableSQLSyntax;
 import org.executequery.localization.Bundles;
 import org.executequery.log.Log;
 import org.underworldlabs.swing.AbstractBaseDialog;
@@ -43,20 +51,13 @@ import org.underworldlabs.util.FileUtils;
 import org.underworldlabs.util.MiscUtils;
 import org.underworldlabs.util.SQLUtils;
 import org.underworldlabs.util.SystemProperties;
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableModel;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.awt.*;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -64,6 +65,9 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.List;
@@ -76,6 +80,11 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
     public static final String TITLE = bundleString("title");
 
+    /**
+     * The number of the rows fetched at once from the exported result set cursor
+     */
+    private static final int EXPORT_FETCH_SIZE = 10000;
+
     // --- all panels ---
 
     private JCheckBox addColumnHeadersCheck;
@@ -108,6 +117,7 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
     // ---
 
     private TableModel exportTableModel;
+    private ResultSetRows exportResultSetRows;
     private final boolean isContainsBlob;
     private final String tableNameForExport;
     private final List<DatabaseColumn> databaseColumns;
@@ -130,11 +140,36 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
         arrange();
     }
 
+    /**
+     * Creates the exporter writing the rows straight from the result set cursor.
+     * <p>
+     * The rows are read from the cursor while they are written to the file,
+     * so none of them is loaded into the results table. The result set is
+     * closed when the export finishes or the dialog is closed, its statement
+     * is left to the executor it came from.
+     *
+     * @param resultSet          the executed result set
+     * @param query              the executed query of the result set or null
+     * @param tableNameForExport the table name for the SQL export
+     */
+    public QueryEditorResultsExporter(ResultSet resultSet, String query, String tableNameForExport) throws SQLException {
+
+        super(GUIUtilities.getParentFrame(), TITLE, true);
+
+        this.exportResultSetRows = new ResultSetRows(resultSet, query);
+        this.tableNameForExport = tableNameForExport;
+        this.databaseColumns = null;
+        this.isContainsBlob = isContainsBlob();
+
+        init();
+        arrange();
+    }
+
     private void init() {
 
         components = new HashMap<>();
 
-        String[] types = {"CSV", "XLSX", "XML", "SQL"};
+        String[] types = {"CSV", "XLSX", "XML", "SQL", "RXD"};
         typeCombo = WidgetFactory.createComboBox("typeCombo", types);
         typeCombo.addActionListener(e -> updateDialog());
         components.put(typeCombo.getName(), typeCombo);
@@ -278,6 +313,13 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
             showXmlPanel(isVisible());
         else if (type == ImportExportDataProcess.SQL)
             showSqlPanel(isVisible());
+        else if (type == ImportExportDataProcess.DUMP)
+            showDumpPanel(isVisible());
+
+        // the dump keeps the LOB contents in its rows
+        saveBlobsIndividuallyCheck.setEnabled(type != ImportExportDataProcess.DUMP);
+        blobPathField.setEnabled(type != ImportExportDataProcess.DUMP);
+        browseFolderButton.setEnabled(type != ImportExportDataProcess.DUMP);
     }
 
     private void showDelimiterPanel(boolean changeValues) {
@@ -356,9 +398,35 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
             exportTableNameField.setText(tableNameForExport);
         }
 
+        if (exportResultSetRows != null)
+            openQueryEditorCheck.setSelected(false);
+
+        addColumnHeadersCheck.setEnabled(false);
+        addQuotesCheck.setEnabled(false);
+        openQueryEditorCheck.setEnabled(exportResultSetRows == null);
+
+        delimiterLabel.setVisible(false);
+        columnDelimiterCombo.setVisible(false);
+        replaceEndlCheck.setVisible(false);
+        replaceEndlField.setVisible(false);
+        replaceNullCheck.setVisible(false);
+        replaceNullField.setVisible(false);
+        exportTableNameLabel.setVisible(true);
+        exportTableNameField.setVisible(true);
+    }
+
+    private void showDumpPanel(boolean changeValues) {
+
+        if (changeValues) {
+            addColumnHeadersCheck.setSelected(false);
+            addQuotesCheck.setSelected(false);
+            openQueryEditorCheck.setSelected(false);
+            exportTableNameField.setText(tableNameForExport);
+        }
+
         addColumnHeadersCheck.setEnabled(false);
         addQuotesCheck.setEnabled(false);
-        openQueryEditorCheck.setEnabled(true);
+        openQueryEditorCheck.setEnabled(false);
 
         delimiterLabel.setVisible(false);
         columnDelimiterCombo.setVisible(false);
@@ -398,6 +466,9 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                 case (ImportExportDataProcess.SQL):
                     suffix = ".sql";
                     break;
+                case (ImportExportDataProcess.DUMP):
+                    suffix = ".rxd";
+                    break;
                 default:
                     suffix = ".csv";
             }
@@ -418,13 +489,14 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
         String exportFilePath = filePathField.getText();
         String exportBlobPath = blobPathField.getText();
+        boolean exportBlobs = isContainsBlob && getExportFileType() != ImportExportDataProcess.DUMP;
 
         if (MiscUtils.isNull(exportFilePath)) {
             GUIUtilities.displayErrorMessage(bundleString("YouMustSpecifyAFileToExportTo"));
             return;
         }
 
-        if (isContainsBlob && MiscUtils.isNull(exportBlobPath)) {
+        if (exportBlobs && MiscUtils.isNull(exportBlobPath)) {
             GUIUtilities.displayErrorMessage(bundleString("YouMustSpecifyAFileToExportTo"));
             return;
         }
@@ -443,7 +515,10 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
             }
         }
 
-        if (!saveBlobsIndividuallyCheck.isSelected()) {
+        if (!exportBlobs) {
+            // no LOB files are written
+
+        } else if (!saveBlobsIndividuallyCheck.isSelected()) {
 
             if (FileUtils.fileExists(exportBlobPath)) {
 
@@ -491,6 +566,10 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                     case ImportExportDataProcess.SQL:
                         success = exportSQL();
                         break;
+
+                    case ImportExportDataProcess.DUMP:
+                        success = exportDump();
+                        break;
                 }
 
                 return null;
@@ -510,22 +589,20 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
     private boolean exportCSV() {
 
-        try {
+        ExportRows rows = getExportRows();
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filePathField.getText(), false)))) {
 
             String columnDelimiter = Objects.requireNonNull(columnDelimiterCombo.getSelectedItem()).toString();
             String endlReplacement = replaceEndlCheck.isSelected() ? replaceEndlField.getText().trim() : null;
             String nullReplacement = replaceNullCheck.isSelected() ? replaceNullField.getText().trim() : "";
 
-            int rowCount = exportTableModel.getRowCount();
-            int columnCount = exportTableModel.getColumnCount();
-
+            int columnCount = rows.getColumnCount();
             StringBuilder resultText = new StringBuilder();
-            PrintWriter writer = new PrintWriter(new FileWriter(filePathField.getText(), false), true);
 
             if (addColumnHeadersCheck.isSelected()) {
 
                 for (int i = 0; i < columnCount; i++) {
-                    resultText.append(exportTableModel.getColumnName(i));
+                    resultText.append(rows.getColumnName(i));
                     if (i != columnCount - 1)
                         resultText.append(columnDelimiter);
                 }
@@ -534,110 +611,139 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                 resultText.setLength(0);
             }
 
-            ResultsProgressDialog progressDialog = getProgressDialog(rowCount);
-            for (int row = 0; row < rowCount; row++) {
+            ResultsProgressDialog progressDialog = getProgressDialog(rows.getRowCount());
+            try {
 
-                for (int col = 0; col < columnCount; col++) {
+                while (rows.next()) {
 
-                    String stringValue = null;
-                    RecordDataItem value = (RecordDataItem) exportTableModel.getValueAt(row, col);
+                    for (int col = 0; col < columnCount; col++) {
 
-                    if (!value.isValueNull()) {
-                        stringValue = getFormattedValue(value, endlReplacement, nullReplacement);
+                        String stringValue = null;
+                        RecordDataItem value = (RecordDataItem) rows.getValueAt(col);
 
-                        if (addQuotesCheck.isSelected() && !stringValue.isEmpty())
-                            if (isCharType(value))
-                                stringValue = "\"" + stringValue + "\"";
+                        if (!value.isValueNull()) {
+                            stringValue = getFormattedValue(value, endlReplacement, nullReplacement);
 
-                        if (isBlobType(value))
-                            stringValue = writeBlobToFile((AbstractLobRecordDataItem) value, col, row);
+                            if (addQuotesCheck.isSelected() && !stringValue.isEmpty())
+                                if (isCharType(value))
+                                    stringValue = "\"" + stringValue + "\"";
+
+                            if (isBlobType(value))
+                                stringValue = writeBlobToFile((AbstractLobRecordDataItem) value, rows.getColumnName(col), rows.getRow());
+                        }
+
+                        resultText.append(stringValue != null ? stringValue : nullReplacement);
+                        if (col != columnCount - 1)
+                            resultText.append(columnDelimiter);
                     }
 
-                    resultText.append(stringValue != null ? stringValue : nullReplacement);
-                    if (col != columnCount - 1)
-                        resultText.append(columnDelimiter);
-                }
+                    writer.println(resultText);
+                    resultText.setLength(0);
 
-                writer.println(resultText);
-                resultText.setLength(0);
+                    progressDialog.increment();
+                }
 
-                progressDialog.increment();
+            } finally {
+                progressDialog.dispose();
             }
 
-            progressDialog.dispose();
-            writer.close();
+            if (writer.checkError())
+                throw new IOException(filePathField.getText());
 
             return true;
 
-        } catch (IOException e) {
+        } catch (IOException | SQLException e) {
             return displayErrorMessage(e);
         }
     }
 
     private boolean exportXLSX() {
 
+        // the streaming workbook continues the rows over the sheet limit on a new sheet
+        int rowWindow = SystemProperties.getIntProperty("user", "export.excel.row.window");
+        ExcelWorkbookBuilder builder = rowWindow > 0 ?
+                new StreamingExcelWorkbookBuilder(rowWindow) :
+                new DefaultExcelWorkbookBuilder();
+
+        ExportRows rows = getExportRows();
         try {
 
             String nullReplacement = replaceNullCheck.isSelected() ? replaceNullField.getText().trim() : "";
-            int columnCount = exportTableModel.getColumnCount();
-            int rowCount = exportTableModel.getRowCount();
+            int columnCount = rows.getColumnCount();
+            int rowCount = rows.getRowCount();
+            int maxRowCount = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
 
-            if (rowCount > SpreadsheetVersion.EXCEL2007.getLastRowIndex()) {
-                GUIUtilities.displayWarningMessage(String.format(bundleString("maxRowMessage"), SpreadsheetVersion.EXCEL2007.getLastRowIndex()));
-                rowCount = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+            if (rowWindow <= 0 && rowCount > maxRowCount) {
+                GUIUtilities.displayWarningMessage(String.format(bundleString("maxRowMessage"), maxRowCount));
+                rowCount = maxRowCount;
             }
 
-            ExcelWorkbookBuilder builder = new DefaultExcelWorkbookBuilder();
             builder.createSheet("Result Set Export");
 
             if (addColumnHeadersCheck.isSelected()) {
 
                 List<String> headers = new ArrayList<>();
                 for (int i = 0; i < columnCount; i++)
-                    headers.add(exportTableModel.getColumnName(i));
+                    headers.add(rows.getColumnName(i));
 
                 builder.addRowHeader(headers);
             }
 
             ResultsProgressDialog progressDialog = getProgressDialog(rowCount);
-            for (int row = 0; row < rowCount; row++) {
+            try {
 
-                List<String> values = new ArrayList<>();
-                for (int col = 0; col < columnCount; col++) {
+                while (rows.next()) {
 
-                    String stringValue = null;
-                    RecordDataItem value = (RecordDataItem) exportTableModel.getValueAt(row, col);
+                    if (rowWindow <= 0 && rows.getRow() == maxRowCount) {
 
-                    if (!value.isValueNull()) {
-                        if (isCharType(value))
-                            stringValue = getFormattedValue(value, null, nullReplacement);
-                        else if (isBlobType(value))
-                            stringValue = writeBlobToFile((AbstractLobRecordDataItem) value, col, row);
+                        // the count of the cursor rows is known only now
+                        if (rowCount < 0)
+                            GUIUtilities.displayWarningMessage(String.format(bundleString("maxRowMessage"), maxRowCount));
+                        break;
                     }
 
-                    values.add(stringValue != null ? stringValue : nullReplacement);
+                    List<String> values = new ArrayList<>();
+                    for (int col = 0; col < columnCount; col++) {
+
+                        String stringValue = null;
+                        RecordDataItem value = (RecordDataItem) rows.getValueAt(col);
+
+                        if (!value.isValueNull()) {
+                            if (isCharType(value))
+                                stringValue = getFormattedValue(value, null, nullReplacement);
+                            else if (isBlobType(value))
+                                stringValue = writeBlobToFile((AbstractLobRecordDataItem) value, rows.getColumnName(col), rows.getRow());
+                        }
+
+                        values.add(stringValue != null ? stringValue : nullReplacement);
+                    }
+
+                    builder.addRow(values);
+                    progressDialog.increment();
                 }
 
-                builder.addRow(values);
-                progressDialog.increment();
-            }
+                try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(filePathField.getText(), false))) {
+                    builder.writeTo(outputStream);
+                }
 
-            OutputStream outputStream = new FileOutputStream(filePathField.getText(), false);
-            builder.writeTo(outputStream);
-            outputStream.close();
+            } finally {
+                progressDialog.dispose();
+            }
 
-            progressDialog.dispose();
             return true;
 
-        } catch (IOException e) {
+        } catch (IOException | SQLException e) {
             return displayErrorMessage(e);
+
+        } finally {
+            builder.dispose();
         }
     }
 
     private boolean exportXML() {
 
         try {
-            new XmlWriter().write(filePathField.getText());
+            new XmlWriter().write(filePathField.getText(), getExportRows());
             return true;
 
         } catch (Exception e) {
@@ -647,44 +753,139 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
     private boolean exportSQL() {
 
-        try {
+        // the script of the cursor rows is not kept to be opened in the editor
+        boolean openQueryEditor = openQueryEditorCheck.isSelected() && exportResultSetRows == null;
+        StringBuilder generatedSqlScript = openQueryEditor ? new StringBuilder() : null;
 
-            String generatedSqlScript = getGenerateSqlScript();
-            PrintWriter writer = new PrintWriter(new FileWriter(filePathField.getText(), false), true);
-            writer.println(generatedSqlScript);
-            writer.close();
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filePathField.getText(), false)))) {
 
-            if (openQueryEditorCheck.isSelected()) {
-                GUIUtilities.addCentralPane(
-                        QueryEditor.TITLE, QueryEditor.FRAME_ICON,
-                        new QueryEditor(generatedSqlScript), null, true
-                );
+            if (generatedSqlScript != null) {
+                writeSqlScript(generatedSqlScript, getExportRows());
+                writer.println(generatedSqlScript);
+
+            } else {
+                writeSqlScript(writer, getExportRows());
+                writer.println();
+            }
+
+            if (writer.checkError())
+                throw new IOException(filePathField.getText());
+
+        } catch (IOException | SQLException e) {
+            return displayErrorMessage(e);
+        }
+
+        if (openQueryEditor) {
+            GUIUtilities.addCentralPane(
+                    QueryEditor.TITLE, QueryEditor.FRAME_ICON,
+                    new QueryEditor(generatedSqlScript.toString()), null, true
+            );
+        }
+
+        return true;
+    }
+
+    private boolean exportDump() {
+
+        ExportRows rows = getExportRows();
+        int columnCount = rows.getColumnCount();
+
+        // the table columns are described by the table metadata, the query columns by the result set
+        boolean tableColumns = databaseColumns != null && databaseColumns.size() == columnCount;
+
+        List<Integer> exportedColumns = new ArrayList<>();
+        List<TableDumpColumn> dumpColumns = new ArrayList<>();
+        for (int col = 0; col < columnCount; col++) {
+
+            if (tableColumns) {
+
+                if (databaseColumns.get(col).isGenerated())
+                    continue;
+                dumpColumns.add(TableDumpColumn.of(databaseColumns.get(col)));
+
+            } else
+                dumpColumns.add(new TableDumpColumn(rows.getColumnName(col), rows.getColumnType(col), rows.getColumnTypeName(col), 0, 0, true));
+
+            exportedColumns.add(col);
+        }
+
+        String tableName = !exportTableNameField.getText().isEmpty() ?
+                exportTableNameField.getText() :
+                tableNameForExport;
+
+        try (TableDumpWriter writer = new TableDumpWriter(new FileOutputStream(filePathField.getText(), false), tableName, dumpColumns)) {
+
+            Object[] values = new Object[exportedColumns.size()];
+            ResultsProgressDialog progressDialog = getProgressDialog(rows.getRowCount());
+            try {
+
+                while (rows.next()) {
+
+                    for (int i = 0; i < values.length; i++)
+                        values[i] = getDumpValue(rows.getValueAt(exportedColumns.get(i)));
+
+                    writer.addRow(values);
+                    progressDialog.increment();
+                }
+
+            } finally {
+                progressDialog.dispose();
             }
 
             return true;
 
-        } catch (IOException e) {
+        } catch (IOException | SQLException e) {
             return displayErrorMessage(e);
         }
     }
 
+    /**
+     * Returns the value of the cell as it is read from the database, the LOB contents for the LOBs.
+     */
+    private static Object getDumpValue(Object value) {
+
+        if (value instanceof RecordDataItem) {
+
+            RecordDataItem recordDataItem = (RecordDataItem) value;
+            if (recordDataItem.isValueNull())
+                return null;
+
+            if (isBlobType(recordDataItem))
+                return ((AbstractLobRecordDataItem) recordDataItem).getData();
+
+            return ((AbstractRecordDataItem) recordDataItem).getValue();
+        }
+
+        return value;
+    }
+
     // ---
 
+    /**
+     * Returns the rows exported - the result set cursor
+     * or the rows of the table model.
+     */
+    private ExportRows getExportRows() {
+
+        if (exportResultSetRows != null)
+            return exportResultSetRows;
+
+        return exportTableModel != null ? new TableModelRows(exportTableModel) : null;
+    }
+
     private boolean isContainsBlob() {
 
-        if (exportTableModel == null)
+        ExportRows rows = getExportRows();
+        if (rows == null)
             return false;
 
-        for (int col = 0; col < exportTableModel.getColumnCount(); col++) {
-            Object value = exportTableModel.getValueAt(0, col);
-            if (isBlobType(value))
+        for (int col = 0; col < rows.getColumnCount(); col++)
+            if (rows.isLob(col))
                 return true;
-        }
 
         return false;
     }
-
-    private boolean isBlobType(Object value) {
+    private static boolean isBlobType(Object value) {
         return value instanceof AbstractLobRecordDataItem;
     }
 
@@ -717,6 +918,8 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                 return ImportExportDataProcess.XML;
             case 3:
                 return ImportExportDataProcess.SQL;
+            case 4:
+                return ImportExportDataProcess.DUMP;
             default:
                 return ImportExportDataProcess.DELIMITED;
         }
@@ -750,7 +953,7 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
         return progressDialog;
     }
 
-    private String writeBlobToFile(AbstractLobRecordDataItem lobValue, int col, int row) throws IOException {
+    private String writeBlobToFile(AbstractLobRecordDataItem lobValue, String columnName, int row) throws IOException {
 
         String stringValue = "NULL";
 
@@ -762,7 +965,7 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                 String lobType = lobValue.getLobRecordItemName();
                 lobType = lobType.contains("/") ? lobType.split("/")[1] : "txt";
 
-                stringValue = exportTableModel.getColumnName(col) + "_" + row + "." + lobType;
+                stringValue = columnName + "_" + row + "." + lobType;
 
                 File outputFile = new File(blobPathField.getText().trim(), stringValue);
                 try (FileOutputStream outputStream = new FileOutputStream(outputFile)) {
@@ -784,58 +987,58 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
         return stringValue;
     }
 
-    private String getGenerateSqlScript() {
+    private void writeSqlScript(Appendable result, ExportRows rows) throws IOException, SQLException {
 
-        StringBuilder result = new StringBuilder();
-
-        int rowCount = exportTableModel.getRowCount();
-        int columnCount = exportTableModel.getColumnCount();
+        int columnCount = rows.getColumnCount();
 
         String tableName = !exportTableNameField.getText().isEmpty() ?
                 exportTableNameField.getText() :
                 tableNameForExport;
 
-        try {
+        // the column types of the cursor rows are taken from the first row
+        boolean hasNext = rows.next();
 
-            // --- add simple 'create table' statement ---
+        // --- add simple 'create table' statement ---
 
-            String createTableTemplate = "/* Uncomment this block if the table doesn't exist\n\n" +
-                    (databaseColumns != null && !databaseColumns.isEmpty() ?
-                            ((AbstractDatabaseObject) databaseColumns.get(0).getParent()).getCreateSQLText() :
-                            SQLUtils.generateCreateTable(tableName, exportTableModel)) +
-                    "*/\n";
+        String createTableTemplate = "/* Uncomment this block if the table doesn't exist\n\n" +
+                (databaseColumns != null && !databaseColumns.isEmpty() ?
+                        ((AbstractDatabaseObject) databaseColumns.get(0).getParent()).getCreateSQLText() :
+                        SQLUtils.generateCreateTable(tableName, new ExportColumnsModel(rows))) +
+                "*/\n";
 
-            result.append(createTableTemplate);
+        result.append(createTableTemplate);
 
-            // --- setup *.lob file ---
+        // --- setup *.lob file ---
 
-            if (!saveBlobsIndividuallyCheck.isSelected())
-                result.append("\nSET BLOBFILE '").append(blobPathField.getText().trim()).append("';\n");
+        if (!saveBlobsIndividuallyCheck.isSelected())
+            result.append("\nSET BLOBFILE '").append(blobPathField.getText().trim()).append("';\n");
 
-            // --- create 'insert into' template ---
+        // --- create 'insert into' template ---
 
-            StringBuilder insertTemplate = new StringBuilder();
-            insertTemplate.append("\nINSERT INTO ").append(MiscUtils.getFormattedObject(tableName, null)).append("(");
+        StringBuilder insertTemplate = new StringBuilder();
+        insertTemplate.append("\nINSERT INTO ").append(MiscUtils.getFormattedObject(tableName, null)).append("(");
 
-            for (int col = 0; col < columnCount; col++) {
+        for (int col = 0; col < columnCount; col++) {
 
-                if (databaseColumns != null && databaseColumns.get(col).isGenerated())
-                    continue;
+            if (databaseColumns != null && databaseColumns.get(col).isGenerated())
+                continue;
 
-                insertTemplate.append("\n\t")
-                        .append(MiscUtils.getFormattedObject(exportTableModel.getColumnName(col), null))
-                        .append(",");
-            }
+            insertTemplate.append("\n\t")
+                    .append(MiscUtils.getFormattedObject(rows.getColumnName(col), null))
+                    .append(",");
+        }
 
-            insertTemplate.deleteCharAt(insertTemplate.lastIndexOf(","));
-            insertTemplate.append("\n) VALUES (%s\n);\n");
+        insertTemplate.deleteCharAt(insertTemplate.lastIndexOf(","));
+        insertTemplate.append("\n) VALUES (%s\n);\n");
 
-            // --- add values to script ---
+        // --- add values to script ---
 
-            StringBuilder values = new StringBuilder();
+        StringBuilder values = new StringBuilder();
 
-            ResultsProgressDialog progressDialog = getProgressDialog(rowCount);
-            for (int row = 0; row < rowCount; row++) {
+        ResultsProgressDialog progressDialog = getProgressDialog(rows.getRowCount());
+        try {
+
+            for (; hasNext; hasNext = rows.next()) {
                 for (int col = 0; col < columnCount; col++) {
 
                     if (databaseColumns != null && databaseColumns.get(col).isGenerated())
@@ -843,14 +1046,15 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
                     values.append("\n\t");
 
-                    Object value = exportTableModel.getValueAt(row, col);
+                    Object value = rows.getValueAt(col);
                     String stringValue = getFormattedValue(value, null, "");
 
                     if (isBlobType(value)) {
+                        String lobValue = writeBlobToFile((AbstractLobRecordDataItem) value, rows.getColumnName(col), rows.getRow());
                         if (saveBlobsIndividuallyCheck.isSelected())
-                            values.append("?'").append(writeBlobToFile((AbstractLobRecordDataItem) value, col, row)).append("'");
+                            values.append("?'").append(lobValue).append("'");
                         else
-                            values.append(writeBlobToFile((AbstractLobRecordDataItem) value, col, row));
+                            values.append(lobValue);
 
                     } else if (!stringValue.isEmpty()) {
 
@@ -865,9 +1069,9 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
                         } else {
 
-                            if (exportTableModel.getColumnClass(col) == String.class)
+                            if (rows.getColumnClass(col) == String.class)
                                 values.append("'").append(stringValue).append("'");
-                            else if (exportTableModel.getColumnClass(col) == Timestamp.class)
+                            else if (rows.getColumnClass(col) == Timestamp.class)
                                 values.append("'").append(stringValue.replace('T', ' ')).append("'");
                             else
                                 values.append(stringValue);
@@ -883,13 +1087,10 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
                 progressDialog.increment();
             }
-            progressDialog.dispose();
 
-        } catch (Exception e) {
-            displayErrorMessage(e);
+        } finally {
+            progressDialog.dispose();
         }
-
-        return result.toString();
     }
 
     private boolean displayErrorMessage(Throwable e) {
@@ -900,111 +1101,465 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
     @Override
     public void dispose() {
         exportTableModel = null;
+        if (exportResultSetRows != null)
+            exportResultSetRows.close();
         new ParametersSaver().save();
         super.dispose();
     }
 
     private class XmlWriter {
 
-        void write(String outputPath) throws ParserConfigurationException, TransformerException, IOException {
+        private static final String INDENT = "    ";
+
+        private static final String CDATA_END = "]]>";
 
-            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        void write(String outputPath, ExportRows rows) throws IOException, XMLStreamException, SQLException {
 
             String nullReplacement = replaceNullCheck.isSelected() ? replaceNullField.getText().trim() : "";
-            int rowCount = exportTableModel.getRowCount();
-            int columnCount = exportTableModel.getColumnCount();
+            int columnCount = rows.getColumnCount();
 
-            Element rootElement = getCreateElement(document, "result-set");
-            document.appendChild(rootElement);
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputPath, false))) {
 
-            if (exportTableModel instanceof ResultSetTableModel) {
-                Element queryElement = getCreateElement(document, "query");
-                queryElement.appendChild(document.createTextNode("\n" + ((ResultSetTableModel) exportTableModel).getQuery() + "\n"));
-                rootElement.appendChild(queryElement);
-            }
+                XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writeIndent(writer, 0);
+                writer.writeStartElement("result-set");
 
-            List<String> exportData = new ArrayList<>();
-            Element dataElement = getCreateElement(document, "data");
+                String query = rows.getQuery();
+                if (query != null) {
+                    writeIndent(writer, 1);
+                    writer.writeStartElement("query");
+                    writeCData(writer, "\n" + query + "\n");
+                    writer.writeEndElement();
+                }
 
-            for (int row = 0; row < rowCount; row++) {
+                writeIndent(writer, 1);
+                writer.writeStartElement("data");
 
-                Element rowElement = getCreateElement(document, "row");
-                dataElement.appendChild(rowElement);
+                ResultsProgressDialog progressDialog = getProgressDialog(rows.getRowCount());
+                try {
 
-                Attr attribute = document.createAttribute("number");
-                attribute.setValue(String.valueOf(row + 1));
-                rowElement.setAttributeNode(attribute);
+                    while (rows.next()) {
 
-                dataElement.appendChild(rowElement);
+                        writeIndent(writer, 2);
+                        writer.writeStartElement("row");
+                        writer.writeAttribute("number", String.valueOf(rows.getRow() + 1));
 
-                for (int col = 0; col < columnCount; col++) {
+                        for (int col = 0; col < columnCount; col++) {
 
-                    Element valueElement = getCreateElement(document, exportTableModel.getColumnName(col));
-                    if (exportTableModel instanceof ResultSetTableModel) {
+                            writeIndent(writer, 3);
+                            writer.writeStartElement(rows.getColumnName(col));
 
-                        RecordDataItem value = (RecordDataItem) exportTableModel.getValueAt(row, col);
-                        if (!value.isValueNull()) {
+                            Object value = rows.getValueAt(col);
+                            if (value instanceof RecordDataItem) {
 
-                            valueElement.appendChild(isBlobType(value) ?
-                                    document.createTextNode(writeBlobToFile((AbstractLobRecordDataItem) value, col, row)) :
-                                    document.createTextNode(value.toString())
-                            );
+                                RecordDataItem recordDataItem = (RecordDataItem) value;
+                                if (recordDataItem.isValueNull())
+                                    writer.writeCharacters(nullReplacement);
+                                else if (isBlobType(value))
+                                    writer.writeCharacters(writeBlobToFile((AbstractLobRecordDataItem) value, rows.getColumnName(col), rows.getRow()));
+                                else if (isCharType(value))
+                                    writeCData(writer, value.toString());
+                                else
+                                    writer.writeCharacters(value.toString());
 
-                            String name = value.getName();
-                            if (isCharType(value) && !exportData.contains(name))
-                                exportData.add(name);
+                            } else
+                                writer.writeCharacters(value != null ? value.toString() : nullReplacement);
 
-                        } else
-                            valueElement.appendChild(document.createTextNode(nullReplacement));
+                            writer.writeEndElement();
+                        }
 
-                    } else {
+                        writeIndent(writer, 2);
+                        writer.writeEndElement();
 
-                        Object value = exportTableModel.getValueAt(row, col);
-                        valueElement.appendChild(value != null ?
-                                document.createTextNode(value.toString()) :
-                                document.createTextNode(nullReplacement)
-                        );
+                        progressDialog.increment();
                     }
 
-                    rowElement.appendChild(valueElement);
+                } finally {
+                    progressDialog.dispose();
                 }
+
+                writeIndent(writer, 1);
+                writer.writeEndElement();
+                writeIndent(writer, 0);
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.close();
             }
-            rootElement.appendChild(dataElement);
+        }
 
-            StringBuilder query = new StringBuilder("query");
-            exportData.forEach(val -> query.append(" ").append(val));
+        private void writeIndent(XMLStreamWriter writer, int level) throws XMLStreamException {
 
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-            transformer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, query.toString());
-            transformer.transform(new DOMSource(document), new StreamResult(new File(outputPath)));
+            writer.writeCharacters("\n");
+            for (int i = 0; i < level; i++)
+                writer.writeCharacters(INDENT);
         }
 
-        private Element getCreateElement(Document document, String name) {
-            return document.createElement(name);
+        /**
+         * Writes the text as CDATA sections split on the section end marker.
+         */
+        private void writeCData(XMLStreamWriter writer, String text) throws XMLStreamException {
+
+            int start = 0;
+            for (int end = text.indexOf(CDATA_END); end != -1; end = text.indexOf(CDATA_END, start)) {
+                writer.writeCData(text.substring(start, end + 2));
+                start = end + 2;
+            }
+            writer.writeCData(text.substring(start));
         }
 
     } // class XmlWriter
 
+    /**
+     * The rows exported, read one by one.
+     */
+    private interface ExportRows {
+
+        int getColumnCount();
+
+        String getColumnName(int col);
+
+        Class<?> getColumnClass(int col);
+
+        /**
+         * Returns the JDBC type of the column values.
+         */
+        int getColumnType(int col);
+
+        String getColumnTypeName(int col);
+
+        /**
+         * Returns the number of the rows or -1 if it is not known until the last row is read.
+         */
+        int getRowCount();
+
+        /**
+         * Returns the index of the current row, starting from 0.
+         */
+        int getRow();
+
+        /**
+         * Moves to the next row.
+         *
+         * @return false if there are no more rows
+         */
+        boolean next() throws SQLException;
+
+        Object getValueAt(int col);
+
+        boolean isLob(int col);
+
+        /**
+         * Returns the query the rows are selected with or null if it is not known.
+         */
+        String getQuery();
+
+    } // interface ExportRows
+
+    private static class TableModelRows implements ExportRows {
+
+        private final TableModel tableModel;
+
+        private int row = -1;
+
+        TableModelRows(TableModel tableModel) {
+            this.tableModel = tableModel;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return tableModel.getColumnCount();
+        }
+
+        @Override
+        public String getColumnName(int col) {
+            return tableModel.getColumnName(col);
+        }
+
+        @Override
+        public Class<?> getColumnClass(int col) {
+            return tableModel.getColumnClass(col);
+        }
+
+        @Override
+        public int getColumnType(int col) {
+
+            Object value = tableModel.getRowCount() > 0 ? tableModel.getValueAt(0, col) : null;
+            return value instanceof RecordDataItem ? ((RecordDataItem) value).getDataType() : Types.VARCHAR;
+        }
+
+        @Override
+        public String getColumnTypeName(int col) {
+
+            Object value = tableModel.getRowCount() > 0 ? tableModel.getValueAt(0, col) : null;
+            return value instanceof AbstractRecordDataItem ? ((AbstractRecordDataItem) value).getDataTypeName() : "VARCHAR";
+        }
+
+        @Override
+        public int getRowCount() {
+            return tableModel.getRowCount();
+        }
+
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public boolean next() {
+            return ++row < tableModel.getRowCount();
+        }
+
+        @Override
+        public Object getValueAt(int col) {
+            return tableModel.getValueAt(row, col);
+        }
+
+        @Override
+        public boolean isLob(int col) {
+            return tableModel.getRowCount() > 0 && tableModel.getValueAt(0, col) instanceof AbstractLobRecordDataItem;
+        }
+
+        @Override
+        public String getQuery() {
+            return tableModel instanceof ResultSetTableModel ? ((ResultSetTableModel) tableModel).getQuery() : null;
+        }
+
+    } // class TableModelRows
+
+    /**
+     * The rows read straight from the result set cursor,
+     * only the values of the current row are kept.
+     */
+    private static class ResultSetRows implements ExportRows {
+
+        private final ResultSet resultSet;
+        private final String query;
+        private final List<ResultSetColumnHeader> columnHeaders;
+        private final RecordDataItemFactory recordDataItemFactory;
+        private final RecordDataItem[] values;
+
+        private int row = -1;
+
+        ResultSetRows(ResultSet resultSet, String query) throws SQLException {
+
+            this.resultSet = resultSet;
+            this.query = query;
+            this.recordDataItemFactory = new RecordDataItemFactory();
+
+            try {
+
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int columnCount = metaData.getColumnCount();
+
+                columnHeaders = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    columnHeaders.add(new ResultSetColumnHeader(i - 1,
+                            metaData.getColumnLabel(i),
+                            metaData.getColumnName(i),
+                            metaData.getColumnType(i),
+                            metaData.getColumnTypeName(i),
+                            metaData.getColumnDisplaySize(i)));
+                }
+                values = new RecordDataItem[columnCount];
+
+            } catch (SQLException e) {
+                close();
+                throw e;
+            }
+
+            // the rows are read in large blocks, the fetch size is a hint only
+            try {
+                resultSet.setFetchSize(EXPORT_FETCH_SIZE);
+
+            } catch (SQLException e) {
+                Log.debug("Export fetch size is not accepted: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnHeaders.size();
+        }
+
+        @Override
+        public String getColumnName(int col) {
+            return columnHeaders.get(col).getLabel();
+        }
+
+        @Override
+        public Class<?> getColumnClass(int col) {
+
+            RecordDataItem value = values[col];
+            if (value == null || value.isDisplayValueNull())
+                return String.class;
+
+            return ResultSetTableModel.getColumnClassForType(value.getDataType());
+        }
+
+        @Override
+        public int getColumnType(int col) {
+            return columnHeaders.get(col).getDataType();
+        }
+
+        @Override
+        public String getColumnTypeName(int col) {
+            return columnHeaders.get(col).getDataTypeName();
+        }
+
+        @Override
+        public int getRowCount() {
+            return -1;
+        }
+
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+
+            if (!resultSet.next())
+                return false;
+
+            row++;
+            for (int col = 0; col < values.length; col++) {
+
+                ResultSetColumnHeader header = columnHeaders.get(col);
+                Object cellValue = ResultSetTableModel.readValue(resultSet, col + 1, header);
+                boolean wasNull = resultSet.wasNull();
+
+                RecordDataItem value = recordDataItemFactory.create(header);
+                value.setValue(cellValue);
+                if (value instanceof ClobRecordDataItem)
+                    ((ClobRecordDataItem) value).setCharset(CreateTableSQLSyntax.NONE);
+                if (wasNull)
+                    value.setNull();
+
+                values[col] = value;
+            }
+
+            return true;
+        }
+
+        @Override
+        public Object getValueAt(int col) {
+            return values[col];
+        }
+
+        @Override
+        public boolean isLob(int col) {
+            return recordDataItemFactory.create(columnHeaders.get(col)) instanceof AbstractLobRecordDataItem;
+        }
+
+        @Override
+        public String getQuery() {
+            return query;
+        }
+
+        void close() {
+
+            try {
+
+                // the statement belongs to the executor of the editor
+                resultSet.close();
+
+            } catch (SQLException e) {
+                Log.debug("Error closing the exported result set", e);
+            }
+        }
+
+    } // class ResultSetRows
+
+    /**
+     * The columns of the exported rows for the generated table definition.
+     */
+    private static class ExportColumnsModel extends AbstractTableModel {
+
+        private final ExportRows rows;
+
+        ExportColumnsModel(ExportRows rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int getRowCount() {
+            return 0;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return rows.getColumnCount();
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return rows.getColumnName(column);
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return rows.getColumnClass(column);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return null;
+        }
+
+    } // class ExportColumnsModel
+
     private static class ResultsProgressDialog extends JDialog {
 
+        private static final long RATE_UPDATE_INTERVAL = 500;
+
         private final JProgressBar progressBar;
+        private final JLabel rateLabel;
+        private final long startTime;
+
+        private long lastUpdateTime;
+        private int exportedCount;
 
+        /**
+         * @param recordCount the number of the rows exported or -1 if it is not known
+         */
         public ResultsProgressDialog(int recordCount) {
 
             super(GUIUtilities.getParentFrame(), bundleString("ExportingQueryResults"), false);
-            progressBar = new JProgressBar(JProgressBar.HORIZONTAL, 0, recordCount);
+            progressBar = new JProgressBar(JProgressBar.HORIZONTAL, 0, Math.max(recordCount, 0));
+            progressBar.setIndeterminate(recordCount < 0);
+            rateLabel = new JLabel(rateText(0, 0));
+
+            JPanel panel = new JPanel(new BorderLayout(5, 5));
+            panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+            panel.add(new JLabel(bundleString("ExportingResultSet")), BorderLayout.NORTH);
+            panel.add(progressBar, BorderLayout.CENTER);
+            panel.add(rateLabel, BorderLayout.SOUTH);
+            panel.setPreferredSize(new Dimension(360, panel.getPreferredSize().height));
+            add(panel);
 
-            add(new JLabel(bundleString("ExportingResultSet")));
-            add(progressBar);
+            startTime = lastUpdateTime = System.currentTimeMillis();
 
             setResizable(false);
             setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         }
 
         public void increment() {
-            progressBar.setValue(progressBar.getValue() + 1);
+
+            progressBar.setValue(++exportedCount);
+
+            long time = System.currentTimeMillis();
+            if (time - lastUpdateTime >= RATE_UPDATE_INTERVAL) {
+
+                lastUpdateTime = time;
+                String text = rateText(exportedCount, exportedCount * 1000L / (time - startTime));
+                SwingUtilities.invokeLater(() -> rateLabel.setText(text));
+            }
+        }
+
+        private static String rateText(long count, long rowsPerSecond) {
+            return String.format(bundleString("ExportedRowsRate"), count, rowsPerSecond);
         }
 
         @Override
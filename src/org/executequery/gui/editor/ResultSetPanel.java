@@ -150,17 +150,22 @@ public class ResultSetPanel extends JPanel {
         }
     }
 
+    /**
+     * Returns the rows with a value containing the pattern. The rows are
+     * copied from the view rows, so the columnar storage does not keep
+     * the matched rows for the lifetime of the result set.
+     */
     public List<List<RecordDataItem>> filter(String pattern) {
 
         List<List<RecordDataItem>> filteredRows = new ArrayList<List<RecordDataItem>>();
         for (int i = 0, n = model.getRowCount(); i < n; i++) {
 
-            List<RecordDataItem> row = model.getRowDataForRow(i);
+            List<RecordDataItem> row = model.getRowDataForView(i);
             for (RecordDataItem recordDataItem : row) {
 
                 if (recordDataItem.valueContains(pattern)) {
 
-                    filteredRows.add(row);
+                    filteredRows.add(new ArrayList<RecordDataItem>(row));
                     break;
                 }
 
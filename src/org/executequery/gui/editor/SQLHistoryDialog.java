@@ -20,7 +20,6 @@
 
 package org.executequery.gui.editor;
 
-import org.executequery.Constants;
 import org.executequery.GUIUtilities;
 import org.executequery.gui.DefaultList;
 import org.executequery.gui.DefaultPanelButton;
@@ -28,6 +27,7 @@ import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.text.SQLTextArea;
 import org.executequery.localization.Bundles;
 import org.executequery.repository.RepositoryCache;
+import org.executequery.repository.SqlCommandHistoryEntry;
 import org.executequery.repository.SqlCommandHistoryRepository;
 import org.underworldlabs.swing.AbstractBaseDialog;
 import org.underworldlabs.swing.FlatSplitPane;
@@ -41,9 +41,12 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The History Dialog displays the executed SQL statement history
@@ -54,7 +57,8 @@ import java.util.regex.Pattern;
  * and clicking the SELECT button.<br>
  * The selected statement is displayed within the Query Editor that
  * initiated the frame.<br>
- * Selecting the CANCEL button closes the dialog.
+ * Selecting the CANCEL button closes the dialog.<br>
+ * Each statement is listed with the time and the duration of its last execution.
  *
  * @author Takis Diakoumis
  */
@@ -74,6 +78,11 @@ public class SQLHistoryDialog extends AbstractBaseDialog
 
     private SQLTextArea textPane;
 
+    /**
+     * the last executions of the statements keyed by the statement
+     */
+    private final Map<String, SqlCommandHistoryEntry> entries = new HashMap<>();
+
     /**
      * Creates a new object with history data
      * to be set within the specified editor.
@@ -90,6 +99,11 @@ public class SQLHistoryDialog extends AbstractBaseDialog
             this.data = data;
             this.queryEditor = queryEditor;
 
+            for (SqlCommandHistoryEntry entry : sqlCommandHistoryRepository().getSqlCommandHistoryEntries(connectionId())) {
+
+                entries.put(entry.getQuery(), entry);
+            }
+
             initHistoryList(data);
 
             init();
@@ -221,6 +235,7 @@ public class SQLHistoryDialog extends AbstractBaseDialog
     private void initHistoryList(Vector<String> data) {
 
         historyList = new DefaultList(data);
+        historyList.setCellRenderer(new HistoryCellRenderer());
     }
 
     private JSplitPane createSplitPane() {
@@ -302,7 +317,8 @@ public class SQLHistoryDialog extends AbstractBaseDialog
 
         } else if (command.equals("Clear")) {
 
-            sqlCommandHistoryRepository().clearSqlCommandHistory(queryEditor.getSelectedConnection().getId());
+            sqlCommandHistoryRepository().clearSqlCommandHistory(connectionId());
+            entries.clear();
             setHistoryData(new Vector<String>(0));
 
         } else {
@@ -319,17 +335,21 @@ public class SQLHistoryDialog extends AbstractBaseDialog
     }
 
     private void search(String text, int start) {
-        Pattern pattern = Pattern.compile("\\b" + text,
-                Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(Constants.EMPTY);
 
-        for (int i = start, k = data.size(); i < k; i++) {
+        List<Integer> found = sqlCommandHistoryRepository().findSqlCommands(text, connectionId());
+        if (!found.isEmpty()) {
 
-            matcher.reset(data.get(i));
+            int index = found.get(0);
+            for (int i : found) {
+                if (i >= start && i < data.size()) {
+                    index = i;
+                    break;
+                }
+            }
 
-            if (matcher.find()) {
-                historyList.setSelectedIndex(i);
-                scrollToSelection(i);
+            if (index < data.size()) {
+                historyList.setSelectedIndex(index);
+                scrollToSelection(index);
                 return;
             }
         }
@@ -337,6 +357,13 @@ public class SQLHistoryDialog extends AbstractBaseDialog
         GUIUtilities.displayInformationMessage("Search string not found");
     }
 
+    private String connectionId() {
+
+        return queryEditor.getSelectedConnection() != null ?
+                queryEditor.getSelectedConnection().getId() :
+                QueryEditorHistory.NULL_CONNECTION;
+    }
+
     private void scrollToSelection(int i) {
 
         historyList.ensureIndexIsVisible(i);
@@ -466,12 +493,33 @@ public class SQLHistoryDialog extends AbstractBaseDialog
         }
     }
 
-}
+    /**
+     * Renders the statement with the time and the duration of its last execution.
+     */
+    private class HistoryCellRenderer extends DefaultListCellRenderer {
 
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
+        @Override
+        public Component getListCellRendererComponent(
+                JList list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
 
+            StringBuilder sb = new StringBuilder();
+            SqlCommandHistoryEntry entry = entries.get(value);
+            if (entry != null && entry.getExecuted() > 0) {
 
+                sb.append("[").append(dateFormat.format(new Date(entry.getExecuted())));
+                if (entry.getDuration() >= 0) {
 
+                    sb.append(", ").append(entry.getDuration()).append(" ms");
+                }
+                sb.append("]  ");
+            }
+            sb.append(value);
 
+            return super.getListCellRendererComponent(list, sb.toString(), index, isSelected, cellHasFocus);
+        }
 
+    }
 
+}
@@ -247,7 +247,7 @@ public class ErdExecuteSQL extends ErdPrintableDialog
     public void setStatusMessage(String text) {
     }
 
-    public void statementExecuted(String text) {
+    public void statementExecuted(String text, long duration) {
     }
 
     public void executing() {
@@ -3,10 +3,19 @@ package org.executequery.gui.importFromFile;
 import org.executequery.GUIUtilities;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.localization.Bundles;
+import org.executequery.log.Log;
+import org.underworldlabs.swing.DefaultProgressDialog;
 
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.LinkedList;
 import java.util.List;
@@ -23,6 +32,14 @@ abstract class AbstractImportHelper implements ImportHelper {
 
     protected String delimiter = ";;;";
 
+    private MappedLobFile lobFile;
+
+    private String insertQuery;
+
+    private ImportJournal journal;
+
+    private ImportJournal.Checkpoint resumePoint;
+
     protected AbstractImportHelper(ImportDataFromFilePanel parent, String pathToFile, String pathToLob, int previewRowCount, boolean isFirstRowHeaders) {
         this.headers = new LinkedList<>();
         this.parent = parent;
@@ -55,6 +72,130 @@ abstract class AbstractImportHelper implements ImportHelper {
         }
     }
 
+    /**
+     * Resolves the parameter type and the value conversion
+     * of every mapped column once for the whole import.
+     *
+     * @param sourceFields  the mapped source column names
+     * @param valuesIndexes the mapping table rows which are mapped
+     */
+    protected final ImportColumn[] createColumns(
+            String[] sourceFields,
+            boolean[] valuesIndexes,
+            PreparedStatement insertStatement,
+            JTable mappingTable) throws SQLException {
+
+        ParameterMetaData metaData = insertStatement.getParameterMetaData();
+        ImportColumn[] columns = new ImportColumn[sourceFields.length];
+
+        int fieldIndex = 0;
+        for (int mappedIndex = 0; mappedIndex < valuesIndexes.length; mappedIndex++) {
+            if (valuesIndexes[mappedIndex]) {
+
+                String columnTypeName = metaData.getParameterTypeName(fieldIndex + 1);
+                String columnProperty = mappingTable.getValueAt(mappedIndex, 3).toString();
+
+                columns[fieldIndex] = new ImportColumn(
+                        fieldIndex + 1,
+                        parent.getSourceColumnIndex(sourceFields[fieldIndex]),
+                        metaData.getParameterType(fieldIndex + 1),
+                        parent.isTimeType(columnTypeName) ? DateTimeFormatter.ofPattern(columnProperty) : null,
+                        parent.isBlobType(columnTypeName) && columnProperty.equals("true"),
+                        parent.isIntegerType(columnTypeName)
+                );
+                fieldIndex++;
+            }
+        }
+
+        return columns;
+    }
+
+    /**
+     * Inserts the source rows through the import pipeline.
+     */
+    protected final void runImport(
+            ImportColumn[] columns,
+            ImportPipeline.RowSource source,
+            PreparedStatement insertStatement,
+            DefaultStatementExecutor executor,
+            int firstRow,
+            int lastRow,
+            int batchStep,
+            DefaultProgressDialog progressDialog) throws Exception {
+
+        // a source which can not be positioned is read from the start
+        long startLine = 0;
+        if (resumePoint != null) {
+            if (resumePoint.position >= 0)
+                startLine = resumePoint.line;
+            else
+                firstRow = (int) Math.max(firstRow, resumePoint.line);
+        }
+
+        ImportPipeline pipeline = new ImportPipeline(
+                this, columns, executor, insertStatement, insertQuery, parent.getWriterThreads(), batchStep);
+
+        long insertedCount = pipeline.run(source, startLine, firstRow, lastRow, journal, progressDialog);
+        Log.info("Import finished, " + insertedCount + " records was added");
+    }
+
+    /**
+     * Returns the source position to resume the import from,
+     * the source should be opened at, or -1 to read it from the start.
+     */
+    protected final long getResumePosition() {
+        return resumePoint != null ? resumePoint.position : -1;
+    }
+
+    /**
+     * Returns the insert query of the running import.
+     */
+    protected final String getInsertQuery() {
+        return insertQuery;
+    }
+
+    /**
+     * Returns whether the import may be resumed from the journal
+     * written next to the source file.
+     */
+    protected boolean isJournaled() {
+        return pathToFile != null;
+    }
+
+    /**
+     * Converts the source value to the insert statement parameter,
+     * called on the converter threads of the import pipeline.
+     *
+     * @return the parameter value or null for the NULL value
+     */
+    protected Object convert(ImportColumn column, Object value) throws Exception {
+
+        if (value == null || value.toString().isEmpty())
+            return null;
+
+        if (column.dateTimeFormatter != null)
+            return LocalDateTime.parse(value.toString(), column.dateTimeFormatter);
+
+        if (column.lobFromFile) {
+
+            if (MappedLobFile.isReference(value.toString()))
+                return getLobFile().read(value.toString());
+            return Files.newInputStream(new File(value.toString()).toPath());
+        }
+
+        return value;
+    }
+
+    private synchronized MappedLobFile getLobFile() throws IOException {
+
+        if (lobFile == null) {
+            if (pathToLob == null)
+                throw new IOException(bundleString("LobFileNotSetMessage"));
+            lobFile = new MappedLobFile(pathToLob);
+        }
+        return lobFile;
+    }
+
     protected final String bundleString(String key) {
         return Bundles.get(ImportDataFromFilePanel.class, key);
     }
@@ -63,10 +204,18 @@ abstract class AbstractImportHelper implements ImportHelper {
     public final void importData(
             StringBuilder sourceColumnList,
             boolean[] valuesIndexes,
+            String insertQuery,
             PreparedStatement insertStatement,
-            DefaultStatementExecutor executor) {
+            DefaultStatementExecutor executor,
+            boolean resume) {
 
+        this.insertQuery = insertQuery;
+        boolean finished = false;
         try {
+
+            if (!openJournal(executor, resume))
+                return;
+
             startImport(
                     sourceColumnList,
                     valuesIndexes,
@@ -78,6 +227,16 @@ abstract class AbstractImportHelper implements ImportHelper {
                     parent.getMappingTable(),
                     parent.getProgressDialog()
             );
+            finished = !parent.getProgressDialog().isCancel();
+
+        } catch (ImportPipeline.ImportRowException e) {
+            String message = e.getCause() instanceof DateTimeParseException ?
+                    bundleString("DateTimeFormatErrorMessage") :
+                    bundleString("ImportDataErrorMessage");
+            message += "\n" + String.format(bundleString(journal != null ?
+                    "ImportRowResumeMessage" :
+                    "ImportRowErrorMessage"), e.getRow(), e.getNextRow());
+            GUIUtilities.displayExceptionErrorDialog(message + "\n" + e.getCause().getMessage(), e.getCause());
 
         } catch (DateTimeParseException e) {
             GUIUtilities.displayExceptionErrorDialog(bundleString("DateTimeFormatErrorMessage") + "\n" + e.getMessage(), e);
@@ -87,6 +246,73 @@ abstract class AbstractImportHelper implements ImportHelper {
 
         } finally {
             executor.releaseResources();
+            closeLobFile();
+            closeJournal(finished);
+        }
+    }
+
+    /**
+     * Opens the journal of the import, reading the checkpoint to resume from.
+     *
+     * @return false if the import can not be resumed
+     */
+    private boolean openJournal(DefaultStatementExecutor executor, boolean resume) throws IOException {
+
+        resumePoint = null;
+        if (!isJournaled())
+            return true;
+
+        String target = executor.getDatabaseConnection().getName() + ";" + insertQuery + ";" + delimiter
+                + ";" + parent.getSheetNumber() + ";" + isFirstRowHeaders;
+
+        if (resume) {
+            resumePoint = ImportJournal.read(pathToFile, target);
+            if (resumePoint == null) {
+                GUIUtilities.displayWarningMessage(bundleString("ResumeJournalMismatchMessage"));
+                return false;
+            }
+            Log.info("Import is resumed from the source row " + resumePoint.line);
+        }
+
+        try {
+            journal = ImportJournal.create(pathToFile, target, resumePoint);
+
+        } catch (IOException e) {
+            Log.warning("The import journal can not be written, the import will not be resumable: " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the journal of the finished import or
+     * keeps it to resume the failed or cancelled one.
+     */
+    private void closeJournal(boolean finished) {
+
+        if (journal == null)
+            return;
+
+        try {
+            if (finished)
+                journal.delete();
+            else
+                journal.close();
+
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+        }
+        journal = null;
+    }
+
+    private void closeLobFile() {
+
+        if (lobFile != null) {
+            try {
+                lobFile.close();
+            } catch (IOException e) {
+                e.printStackTrace(System.out);
+            }
+            lobFile = null;
         }
     }
 
@@ -105,4 +331,27 @@ abstract class AbstractImportHelper implements ImportHelper {
         return delimiter;
     }
 
+    /**
+     * The mapped column of the imported data.
+     */
+    protected static final class ImportColumn {
+
+        final int parameterIndex;
+        final int sourceIndex;
+        final int sqlType;
+        final DateTimeFormatter dateTimeFormatter;
+        final boolean lobFromFile;
+        final boolean integerType;
+
+        ImportColumn(int parameterIndex, int sourceIndex, int sqlType, DateTimeFormatter dateTimeFormatter, boolean lobFromFile, boolean integerType) {
+            this.parameterIndex = parameterIndex;
+            this.sourceIndex = sourceIndex;
+            this.sqlType = sqlType;
+            this.dateTimeFormatter = dateTimeFormatter;
+            this.lobFromFile = lobFromFile;
+            this.integerType = integerType;
+        }
+
+    } // ImportColumn class
+
 }
@@ -0,0 +1,344 @@
+package org.executequery.gui.importFromFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of the delimited text records.
+ * <p>
+ * The fields are kept as bounds in the read buffer and a string is
+ * created only for a field asked for. Quoted fields may contain the
+ * delimiter, line breaks and doubled quotes; a quote not followed by
+ * the delimiter or the record end is taken as a part of the value.
+ * <p>
+ * If the charset of the data is given, the byte position of the next
+ * record is counted, to open the file at this position later.
+ */
+final class CSVRecordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char QUOTE = '"';
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final Reader reader;
+
+    private final char[] delimiter;
+
+    private char[] buffer = new char[BUFFER_SIZE];
+
+    private int length;
+
+    private boolean endOfStream;
+
+    /**
+     * The start of the record being read
+     */
+    private int base;
+
+    /**
+     * The start of the last record read, the field bounds are relative to it
+     */
+    private int recordStart;
+
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private boolean[] escaped = new boolean[16];
+
+    private int fieldCount;
+
+    private final Charset charset;
+
+    private final CharsetEncoder encoder;
+
+    /**
+     * The byte length of the data moved out of the buffer
+     */
+    private long discardedBytes;
+
+    /**
+     * Whether the data had malformed bytes, replaced on decoding
+     * so the byte position can not be counted any more
+     */
+    private boolean positionLost;
+
+    /**
+     * @param charset  the charset the data is decoded with,
+     *                 or null if the position is not counted
+     * @param position the byte position the reader starts at
+     */
+    CSVRecordReader(Reader reader, String delimiter, Charset charset, long position) {
+        this.reader = reader;
+        this.delimiter = delimiter.toCharArray();
+        this.charset = charset;
+        this.encoder = charset != null && !StandardCharsets.UTF_8.equals(charset) ? charset.newEncoder() : null;
+        this.discardedBytes = position;
+    }
+
+    /**
+     * Reads the next record, skipping the empty lines.
+     *
+     * @return false at the end of the data
+     */
+    boolean next() throws IOException {
+
+        while (readRecord()) {
+            if (fieldCount > 1 || ends[0] > starts[0] || escaped[0])
+                return true;
+        }
+        return false;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the field value or null if the record has no such field.
+     */
+    String getString(int field) {
+
+        if (field < 0 || field >= fieldCount)
+            return null;
+
+        int start = recordStart + starts[field];
+        int end = recordStart + ends[field];
+        if (!escaped[field])
+            return new String(buffer, start, end - start);
+
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = buffer[i];
+            sb.append(c);
+            if (c == QUOTE && i + 1 < end && buffer[i + 1] == QUOTE)
+                i++;
+        }
+        return sb.toString();
+    }
+
+    boolean isEmpty(int field) {
+        return field < 0 || field >= fieldCount || starts[field] == ends[field];
+    }
+
+    /**
+     * Returns the byte position of the next record or -1 if it is not counted.
+     */
+    long getPosition() {
+
+        if (charset == null || positionLost)
+            return -1;
+
+        long length = byteLength(0, base);
+        return positionLost ? -1 : discardedBytes + length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readRecord() throws IOException {
+
+        fieldCount = 0;
+        if (peek(0) < 0)
+            return false;
+
+        int offset = 0;
+        while (true) {
+
+            boolean quoted = peek(offset) == QUOTE;
+            int start;
+            int end;
+
+            if (quoted) {
+
+                boolean hasEscapes = false;
+                start = ++offset;
+                while (true) {
+
+                    int c = peek(offset);
+                    if (c < 0) {
+                        end = offset;
+                        break;
+                    }
+
+                    if (c == QUOTE) {
+
+                        int next = peek(offset + 1);
+                        if (next == QUOTE) {
+                            hasEscapes = true;
+                            offset += 2;
+                            continue;
+                        }
+
+                        if (next < 0 || next == '\n' || next == '\r' || isDelimiter(offset + 1)) {
+                            end = offset++;
+                            break;
+                        }
+                    }
+                    offset++;
+                }
+                // an empty quoted value is marked as escaped to tell it from the empty line
+                addField(start, end, hasEscapes || start == end);
+
+            } else {
+
+                start = offset;
+                while (true) {
+
+                    int c = peek(offset);
+                    if (c < 0 || c == '\n' || c == '\r' || (c == delimiter[0] && isDelimiter(offset)))
+                        break;
+                    offset++;
+                }
+                end = offset;
+                addField(start, end, false);
+            }
+
+            if (isDelimiter(offset)) {
+                offset += delimiter.length;
+                continue;
+            }
+
+            int c = peek(offset);
+            if (c == '\r' && peek(offset + 1) == '\n')
+                offset += 2;
+            else if (c >= 0)
+                offset++;
+
+            recordStart = base;
+            base += offset;
+            return true;
+        }
+    }
+
+    private void addField(int start, int end, boolean hasEscapes) {
+
+        if (fieldCount == starts.length) {
+            int size = fieldCount * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            escaped = Arrays.copyOf(escaped, size);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    private boolean isDelimiter(int offset) throws IOException {
+
+        for (int i = 0; i < delimiter.length; i++)
+            if (peek(offset + i) != delimiter[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the char at the given offset from the record start or -1 at the end of the data.
+     */
+    private int peek(int offset) throws IOException {
+
+        while (base + offset >= length) {
+            if (!fill())
+                return -1;
+        }
+        return buffer[base + offset];
+    }
+
+    /**
+     * Reads more data, moving the record being read to the buffer start.
+     */
+    private boolean fill() throws IOException {
+
+        if (endOfStream)
+            return false;
+
+        if (base > 0) {
+            if (charset != null && !positionLost)
+                discardedBytes += byteLength(0, base);
+            System.arraycopy(buffer, base, buffer, 0, length - base);
+            length -= base;
+            base = 0;
+        }
+        if (length == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        int count = reader.read(buffer, length, buffer.length - length);
+        if (count < 0) {
+            endOfStream = true;
+            return false;
+        }
+        length += count;
+        return true;
+    }
+
+    /**
+     * Returns the encoded length of the buffer chars, the bounds are
+     * the record bounds and do not split the surrogate pairs.
+     */
+    private long byteLength(int from, int to) {
+
+        if (encoder == null) {
+
+            long count = 0;
+            for (int i = from; i < to; i++) {
+                char c = buffer[i];
+                if (c == REPLACEMENT)
+                    positionLost = true;
+                else if (c < 0x80)
+                    count++;
+                else if (c < 0x800)
+                    count += 2;
+                else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(buffer[i + 1])) {
+                    count += 4;
+                    i++;
+                } else
+                    count += 3;
+            }
+            return count;
+        }
+
+        if (encoder.maxBytesPerChar() == 1) {
+            for (int i = from; i < to && !positionLost; i++)
+                positionLost = buffer[i] == REPLACEMENT;
+            return to - from;
+        }
+
+        long count = 0;
+        CharBuffer chars = CharBuffer.wrap(buffer, from, to - from);
+        ByteBuffer bytes = ByteBuffer.allocate(8192);
+
+        encoder.reset();
+        while (true) {
+
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isError()) {
+                positionLost = true;
+                return 0;
+            }
+
+            count += bytes.position();
+            bytes.clear();
+            if (result.isUnderflow())
+                break;
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            count += bytes.position();
+            bytes.clear();
+        }
+        return count + bytes.position();
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.executequery.gui.importFromFile;
+
+import biz.redsoft.IFBBatch;
+import biz.redsoft.IFBBatchCompletionState;
+import biz.redsoft.IFBDatabaseConnection;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.gui.importexport.TableDumpColumn;
+import org.executequery.gui.importexport.TableDumpReader;
+import org.executequery.log.Log;
+import org.underworldlabs.swing.DefaultProgressDialog;
+import org.underworldlabs.util.DynamicLibraryLoader;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Loader of the table dump rows through the Firebird 4 batch API.
+ * <p>
+ * The rows are sent as one batch message per commit step and the
+ * batch transaction is committed after each of them. The values of
+ * the dump are typed already, so they are set as they are read.
+ */
+final class DumpBatchLoader {
+
+    private final DatabaseConnection databaseConnection;
+    private final String insertQuery;
+
+    DumpBatchLoader(DatabaseConnection databaseConnection, String insertQuery) {
+        this.databaseConnection = databaseConnection;
+        this.insertQuery = insertQuery;
+    }
+
+    /**
+     * Returns whether the connection supports the batch API.
+     */
+    static boolean isAvailable(DatabaseConnection databaseConnection) {
+        return databaseConnection != null
+                && databaseConnection.getDriverMajorVersion() >= 4
+                && databaseConnection.useNewAPI()
+                && databaseConnection.getMajorServerVersion() >= 4;
+    }
+
+    /**
+     * Loads the dump rows from <code>firstRow</code> to <code>lastRow</code>.
+     *
+     * @param sourceIndexes the dump columns of the insert parameters
+     * @return the number of the rows inserted or -1 if the batch API is not supported by the driver
+     * @throws ImportPipeline.ImportRowException with the first failed row
+     */
+    long load(
+            TableDumpReader reader,
+            int[] sourceIndexes,
+            int firstRow,
+            int lastRow,
+            int batchStep,
+            DefaultProgressDialog progressDialog) throws Exception {
+
+        Connection connection = ConnectionManager.getTemporaryConnection(databaseConnection);
+        try {
+
+            Connection fbConnection = connection.unwrap(Connection.class);
+            if (!fbConnection.getClass().getName().contains("FBConnection"))
+                return -1;
+
+            IFBDatabaseConnection database;
+            try {
+                database = (IFBDatabaseConnection) DynamicLibraryLoader.loadingObjectFromClassLoader(
+                        databaseConnection.getDriverMajorVersion(), fbConnection, "FBDatabaseConnectionImpl4");
+
+            } catch (ClassNotFoundException e) {
+                Log.debug("Batch API is not available for the dump import", e);
+                return -1;
+            }
+
+            database.setConnection(fbConnection);
+            IFBBatch batch = database.createBatch(insertQuery);
+
+            if (firstRow > 0 && !reader.skipRows(firstRow))
+                return 0;
+
+            long insertedCount = 0;
+            long blockFirstRow = reader.getRow() + 1;
+            int blockSize = 0;
+            while (!progressDialog.isCancel() && reader.getRow() < lastRow && reader.next()) {
+
+                addRow(batch, reader, sourceIndexes);
+                if (++blockSize == batchStep) {
+                    insertedCount += execute(batch, blockFirstRow, blockSize);
+                    blockFirstRow = reader.getRow() + 1;
+                    blockSize = 0;
+                }
+            }
+
+            if (blockSize > 0)
+                insertedCount += execute(batch, blockFirstRow, blockSize);
+
+            Log.info("Dump import: " + insertedCount + " rows inserted through the batch API");
+            return insertedCount;
+
+        } finally {
+            // the batch transaction of the failed block ends with the connection
+            ConnectionManager.close(databaseConnection, connection);
+        }
+    }
+
+    private static void addRow(IFBBatch batch, TableDumpReader reader, int[] sourceIndexes) throws SQLException {
+
+        for (int i = 0; i < sourceIndexes.length; i++) {
+
+            TableDumpColumn column = reader.getColumns().get(sourceIndexes[i]);
+            Object value = reader.getValue(sourceIndexes[i]);
+
+            if (value != null && column.isLob())
+                batch.addBlob(i + 1, (byte[]) value);
+            else
+                batch.setObject(i + 1, value);
+        }
+        batch.addBatch();
+    }
+
+    /**
+     * Executes the added rows and commits them if none of them has failed.
+     */
+    private static int execute(IFBBatch batch, long firstRow, int size) throws Exception {
+
+        IFBBatchCompletionState state = batch.execute();
+
+        int[] states = state.getAllStates();
+        for (int i = 0; i < states.length; i++)
+            if (states[i] == Statement.EXECUTE_FAILED)
+                throw new ImportPipeline.ImportRowException(firstRow + i, firstRow, new SQLException(state.printAllStates()));
+
+        batch.commit();
+        batch.startTransaction();
+        return size;
+    }
+
+}
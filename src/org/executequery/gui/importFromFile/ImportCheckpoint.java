@@ -0,0 +1,106 @@
+package org.executequery.gui.importFromFile;
+
+import org.executequery.log.Log;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The committed blocks of an import.
+ * <p>
+ * The blocks are committed in the read order, so all the rows read
+ * before the first row not committed are committed and the import may
+ * be continued from this row. Each time this row advances it is written
+ * to the import journal, if any.
+ */
+final class ImportCheckpoint {
+
+    private final long firstRow;
+
+    private long[] firstLines = new long[64];
+
+    private long[] lastLines = new long[64];
+
+    private long[] endPositions = new long[64];
+
+    private int blockCount;
+
+    private int committedCount;
+
+    private ImportJournal journal;
+
+    /**
+     * @param journal the journal of the committed rows or null
+     */
+    ImportCheckpoint(long firstRow, ImportJournal journal) {
+        this.firstRow = firstRow;
+        this.journal = journal;
+    }
+
+    /**
+     * Adds the block read, the blocks are added in the read order.
+     *
+     * @param endPosition the source position after the last row of the block
+     */
+    synchronized void add(int block, long firstLine, long lastLine, long endPosition) {
+
+        if (block >= lastLines.length) {
+            firstLines = Arrays.copyOf(firstLines, Math.max(block + 1, lastLines.length * 2));
+            lastLines = Arrays.copyOf(lastLines, firstLines.length);
+            endPositions = Arrays.copyOf(endPositions, firstLines.length);
+        }
+        firstLines[block] = firstLine;
+        lastLines[block] = lastLine;
+        endPositions[block] = endPosition;
+        blockCount = Math.max(blockCount, block + 1);
+    }
+
+    /**
+     * Marks the block committed, the blocks are committed in the read order.
+     */
+    synchronized void commit(int block) {
+
+        if (block != committedCount) {
+            // the rows after the checkpoint are committed, resuming would insert them twice
+            Log.error("Import block " + block + " is committed out of order, the import journal is not written further");
+            closeJournal();
+            return;
+        }
+        committedCount++;
+
+        if (journal != null) {
+            try {
+                journal.write(lastLines[block] + 1, endPositions[block]);
+
+            } catch (IOException e) {
+                Log.error("Error writing the import journal, it is not written further", e);
+                journal = null;
+            }
+        }
+    }
+
+    private void closeJournal() {
+
+        if (journal == null)
+            return;
+
+        try {
+            journal.delete();
+        } catch (IOException e) {
+            Log.error("Error deleting the import journal", e);
+        }
+        journal = null;
+    }
+
+    /**
+     * Returns the first source row not committed.
+     */
+    synchronized long getNextRow() {
+
+        if (committedCount < blockCount)
+            return firstLines[committedCount];
+
+        return committedCount > 0 ? lastLines[committedCount - 1] + 1 : firstRow;
+    }
+
+}
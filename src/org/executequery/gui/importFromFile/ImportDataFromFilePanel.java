@@ -83,6 +83,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
     private JSpinner firstImportedRowSelector;
     private JSpinner lastImportedRowSelector;
     private JSpinner commitStepSelector;
+    private JSpinner writerThreadsSelector;
 
     private DefaultTableModel filePreviewTableModel;
     private JTable filePreviewTable;
@@ -97,6 +98,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
     private JButton browseLobFileButton;
     private JButton readFileButton;
     private JButton startImportButton;
+    private JButton resumeImportButton;
 
     private DefaultProgressDialog progressDialog;
 
@@ -160,6 +162,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         firstImportedRowSelector = WidgetFactory.createSpinner("firstImportedRowSelector", 0, 0, Integer.MAX_VALUE, 1);
         lastImportedRowSelector = WidgetFactory.createSpinner("lastImportedRowSelector", 999999999, 0, Integer.MAX_VALUE, 1);
         commitStepSelector = WidgetFactory.createSpinner("commitStepSelector", 100, 100, 1000000, 100);
+        writerThreadsSelector = WidgetFactory.createSpinner("writerThreadsSelector", 1, 1, 16, 1);
 
         sheetNumberSpinner = WidgetFactory.createSpinner("sheetNumberSpinner", 1, 1, 1, 1);
         sheetNumberSpinner.addChangeListener(e -> previewSourceFile(false));
@@ -221,7 +224,12 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         readFileButton.addActionListener(e -> previewSourceFile(true));
 
         startImportButton = WidgetFactory.createButton("startImportButton", bundleString("StartImportButtonText"));
-        startImportButton.addActionListener(e -> importData());
+        startImportButton.addActionListener(e -> importData(false));
+
+        resumeImportButton = WidgetFactory.createButton("resumeImportButton", bundleString("ResumeImportButtonText"));
+        resumeImportButton.setToolTipText(bundleString("ResumeImportToolTip"));
+        resumeImportButton.addActionListener(e -> importData(true));
+        resumeImportButton.setEnabled(false);
 
         // --- panels ---
 
@@ -313,6 +321,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
 
         gridBagHelper = new GridBagHelper().fillBoth().anchorNorthWest();
         startImportPanel.add(importFromConnectionCheck, gridBagHelper.nextRowFirstCol().setMaxWeightX().get());
+        startImportPanel.add(resumeImportButton, gridBagHelper.nextCol().anchorNorthEast().setHeight(2).spanY().setMinWeightX().get());
         startImportPanel.add(startImportButton, gridBagHelper.nextCol().anchorNorthEast().setHeight(2).spanX().spanY().setMinWeightX().get());
         startImportPanel.add(eraseTableCheck, gridBagHelper.nextRowFirstCol().anchorNorthWest().setMaxWeightX().setWidth(1).setHeight(1).get());
 
@@ -350,7 +359,8 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         gridBagHelper = new GridBagHelper().fillHorizontally().setInsets(5, 5, 5, 5).anchorNorthWest();
         gridBagHelper.addLabelFieldPair(bottomPanel, bundleString("FirstNumericSelectorsLabel"), firstImportedRowSelector, null, false, false);
         gridBagHelper.addLabelFieldPair(bottomPanel, bundleString("LastNumericSelectorsLabel"), lastImportedRowSelector, null, false, false);
-        gridBagHelper.addLabelFieldPair(bottomPanel, bundleString("CommitSelectorLabel"), commitStepSelector, null, false, true);
+        gridBagHelper.addLabelFieldPair(bottomPanel, bundleString("CommitSelectorLabel"), commitStepSelector, null, false, false);
+        gridBagHelper.addLabelFieldPair(bottomPanel, bundleString("WriterThreadsLabel"), writerThreadsSelector, bundleString("WriterThreadsToolTip"), false, true);
 
         // --- panels settings ---
 
@@ -369,7 +379,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         fileChooser.setDialogTitle(bundleString("OpenFileDialogText"));
         fileChooser.setDialogType(JFileChooser.OPEN_DIALOG);
         fileChooser.setFileFilter(field.equals(fileNameField) ?
-                new FileNameExtensionFilter("Data Files", "csv", "xml", "xlsx") :
+                new FileNameExtensionFilter("Data Files", "csv", "xml", "xlsx", "rxd") :
                 new FileNameExtensionFilter("Lob Files", "lob")
         );
 
@@ -404,6 +414,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         if (!fileType.equalsIgnoreCase("csv")
                 && !fileType.equalsIgnoreCase("xlsx")
                 && !fileType.equalsIgnoreCase("xml")
+                && !fileType.equalsIgnoreCase("rxd")
         ) {
             if (displayWarnings)
                 GUIUtilities.displayWarningMessage(bundleString("FileTypeNotSupported"));
@@ -449,6 +460,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         csvPropsPanel.setVisible(fileType.equalsIgnoreCase("csv"));
         xlsxPropsPanel.setVisible(fileType.equalsIgnoreCase("xlsx"));
 
+        updateResumeButton();
         updateMappingTable();
     }
 
@@ -536,7 +548,11 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
 
     // --- import data methods ---
 
-    private void importData() {
+    /**
+     * @param resume whether the import is resumed from the journal of the
+     *               previous one, without erasing the table
+     */
+    private void importData(boolean resume) {
 
         if (targetNotSelected(true))
             return;
@@ -616,9 +632,9 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
             @Override
             public Object construct() {
 
-                if (eraseTableCheck.isSelected())
+                if (eraseTableCheck.isSelected() && !resume)
                     eraseTable(Objects.requireNonNull(targetTableCombo.getSelectedItem()).toString());
-                getImportHelper(fileType).importData(sourceColumnList, valuesIndexes, insertStatement, executor);
+                getImportHelper(fileType).importData(sourceColumnList, valuesIndexes, insertQuery.toString(), insertStatement, executor, resume);
 
                 return null;
             }
@@ -627,6 +643,7 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
             public void finished() {
                 if (progressDialog != null)
                     progressDialog.dispose();
+                updateResumeButton();
             }
         };
 
@@ -671,6 +688,14 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
                 );
                 break;
 
+            case ("rxd"):
+                importHelper = new ImportHelperDump(
+                        this,
+                        pathToFile,
+                        PREVIEW_ROWS_COUNT
+                );
+                break;
+
             case ("db"):
                 importHelper = new ImportHelperDB(
                         this,
@@ -754,8 +779,13 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         host.close();
     }
 
+    private void updateResumeButton() {
+        resumeImportButton.setEnabled(!importFromConnectionCheck.isSelected() && ImportJournal.exists(pathToFile));
+    }
+
     private void updateSourcePropertiesFields() {
 
+        updateResumeButton();
         importConnectionPanel.setVisible(importFromConnectionCheck.isSelected());
         importFilePanel.setVisible(!importFromConnectionCheck.isSelected());
 
@@ -814,6 +844,10 @@ public class ImportDataFromFilePanel extends DefaultTabViewActionPanel
         return (int) commitStepSelector.getValue();
     }
 
+    public int getWriterThreads() {
+        return (int) writerThreadsSelector.getValue();
+    }
+
     public int getSheetNumber() {
         return (int) sheetNumberSpinner.getValue();
     }
@@ -13,8 +13,10 @@ interface ImportHelper {
     void importData(
             StringBuilder sourceColumnList,
             boolean[] valuesIndexes,
+            String insertQuery,
             PreparedStatement insertStatement,
-            DefaultStatementExecutor executor
+            DefaultStatementExecutor executor,
+            boolean resume
     );
 
     void startImport(
@@ -1,25 +1,23 @@
 package org.executequery.gui.importFromFile;
 
-import org.executequery.GUIUtilities;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
-import org.executequery.log.Log;
 import org.underworldlabs.swing.DefaultProgressDialog;
-import org.underworldlabs.swing.plaf.UIUtils;
-import org.underworldlabs.util.MiscUtils;
 
 import javax.swing.*;
-import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.file.Paths;
-import java.sql.DriverManager;
+import java.nio.file.StandardOpenOption;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.Statement;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Scanner;
 
 class ImportHelperCSV extends AbstractImportHelper {
 
@@ -40,78 +38,49 @@ class ImportHelperCSV extends AbstractImportHelper {
             JTable mappingTable,
             DefaultProgressDialog progressDialog) throws Exception {
 
-        Statement sourceFileStatement = getCreateStatement();
-        if (sourceFileStatement == null)
-            return;
-
         String[] sourceFields = sourceColumnList.toString().split(",");
-        int executorIndex = 0;
-        int linesCount = 0;
-
-        String sourceSelectQuery = "SELECT " + sourceColumnList + " FROM " + MiscUtils.getFormattedObject(parent.getFileName(), executor.getDatabaseConnection());
-        ResultSet sourceFileData = sourceFileStatement.executeQuery(sourceSelectQuery);
-        while (sourceFileData.next()) {
-
-            if (progressDialog.isCancel() || linesCount > lastRow)
-                break;
-
-            if (linesCount < firstRow) {
-                linesCount++;
-                continue;
-            }
-
-            int fieldIndex = 0;
-            int mappedIndex = 0;
-            for (boolean valueIndex : valuesIndexes) {
-                if (valueIndex) {
+        ImportColumn[] columns = createColumns(sourceFields, valuesIndexes, insertStatement, mappingTable);
 
-                    int columnType = insertStatement.getParameterMetaData().getParameterType(fieldIndex + 1);
-                    String columnTypeName = insertStatement.getParameterMetaData().getParameterTypeName(fieldIndex + 1);
-                    String columnProperty = mappingTable.getValueAt(mappedIndex, 3).toString();
+        // the byte position is counted if the charset has no byte order mark,
+        // so the file may be decoded from any record start
+        Charset charset = Charset.defaultCharset();
+        boolean positioned = Arrays.equals("\r\n".getBytes(charset), new byte[]{'\r', '\n'});
 
-                    Object insertParameter = sourceFileData.getString(sourceFields[fieldIndex]);
-                    if (insertParameter == null || insertParameter.toString().isEmpty()) {
-                        insertStatement.setNull(fieldIndex + 1, columnType);
+        long position = positioned ? getResumePosition() : -1;
+        FileChannel channel = FileChannel.open(Paths.get(pathToFile), StandardOpenOption.READ);
+        if (position > 0)
+            channel.position(position);
 
-                    } else {
+        Reader fileReader = new InputStreamReader(Channels.newInputStream(channel), charset);
+        try (CSVRecordReader reader = new CSVRecordReader(fileReader, delimiter, positioned ? charset : null, Math.max(position, 0))) {
 
-                        if (parent.isTimeType(columnTypeName)) {
-                            insertParameter = LocalDateTime.parse(insertParameter.toString(), DateTimeFormatter.ofPattern(columnProperty));
+            if (isFirstRowHeaders && position < 0)
+                reader.next();
 
-                        } else if (parent.isBlobType(columnTypeName) && columnProperty.equals("true")) {
+            ImportPipeline.RowSource source = new ImportPipeline.RowSource() {
 
-                            if (insertParameter.toString().startsWith(":h")) {
+                @Override
+                public Object[] next() throws Exception {
 
-                                String parameter = insertParameter.toString();
-                                int startIndex = Integer.parseInt(parameter.substring(2).split("_")[0], 16);
-                                int endIndex = startIndex + Integer.parseInt(parameter.split("_")[1], 16);
+                    if (!reader.next())
+                        return null;
 
-                                insertParameter = Arrays.copyOfRange(Files.readAllBytes(Paths.get(pathToLob)), startIndex, endIndex);
-
-                            } else
-                                insertParameter = Files.newInputStream(new File(insertParameter.toString()).toPath());
-                        }
-
-                        insertStatement.setObject(fieldIndex + 1, insertParameter);
+                    Object[] values = new Object[columns.length];
+                    for (int i = 0; i < columns.length; i++) {
+                        int sourceIndex = columns[i].sourceIndex;
+                        values[i] = reader.isEmpty(sourceIndex) ? null : reader.getString(sourceIndex);
                     }
+                    return values;
+                }
 
-                    fieldIndex++;
+                @Override
+                public long getPosition() {
+                    return reader.getPosition();
                 }
-                mappedIndex++;
-            }
-            insertStatement.addBatch();
+            };
 
-            if (executorIndex % batchStep == 0 && executorIndex != 0) {
-                insertStatement.executeBatch();
-                executor.getConnection().commit();
-            }
-            linesCount++;
-            executorIndex++;
+            runImport(columns, source, insertStatement, executor, firstRow, lastRow, batchStep, progressDialog);
         }
-
-        insertStatement.executeBatch();
-        executor.getConnection().commit();
-        Log.info("Import finished, " + executorIndex + " records was added");
     }
 
     @Override
@@ -140,29 +109,4 @@ class ImportHelperCSV extends AbstractImportHelper {
         return readData;
     }
 
-    private Statement getCreateStatement() {
-
-        Statement statement = null;
-        try {
-
-            Properties properties = new Properties();
-            properties.setProperty("separator", delimiter);
-            if (!isFirstRowHeaders) {
-                properties.setProperty("suppressHeaders", "true");
-                properties.setProperty("defectiveHeaders", "true");
-            }
-
-            String connectionUrl = "jdbc:relique:csv:" + Paths.get(pathToFile).getParent().toString();
-            if (UIUtils.isWindows())
-                connectionUrl = connectionUrl.replace("\\", "/");
-
-            statement = DriverManager.getConnection(connectionUrl, properties).createStatement();
-
-        } catch (Exception e) {
-            GUIUtilities.displayExceptionErrorDialog(bundleString("ImportDataErrorMessage") + "\n" + e.getMessage(), e);
-        }
-
-        return statement;
-    }
-
 }
@@ -7,7 +7,6 @@ import org.executequery.databaseobjects.NamedObject;
 import org.executequery.databaseobjects.impl.DefaultDatabaseHost;
 import org.executequery.databaseobjects.impl.DefaultDatabaseTable;
 import org.executequery.gui.resultset.ResultSetColumnHeader;
-import org.executequery.log.Log;
 import org.executequery.sql.SqlStatementResult;
 import org.underworldlabs.swing.DefaultProgressDialog;
 import org.underworldlabs.util.MiscUtils;
@@ -46,9 +45,6 @@ public class ImportHelperDB extends AbstractImportHelper {
             DefaultProgressDialog progressDialog) throws Exception {
 
         String[] sourceFields = sourceColumnList.toString().split(",");
-        int executorIndex = 0;
-        int linesCount = 0;
-
         String sourceSelectQuery = "SELECT " + sourceColumnList + " FROM " + MiscUtils.getFormattedObject(sourceTableName, sourceConnection);
 
         DefaultStatementExecutor sourceExecutor = getExecutor(sourceConnection);
@@ -56,52 +52,40 @@ public class ImportHelperDB extends AbstractImportHelper {
         if (sourceFileData == null)
             return;
 
-        while (sourceFileData.next()) {
-
-            if (progressDialog.isCancel() || linesCount > lastRow)
-                break;
-
-            if (linesCount < firstRow) {
-                linesCount++;
-                continue;
-            }
-
-            int fieldIndex = 0;
-            for (boolean valueIndex : valuesIndexes) {
-                if (valueIndex) {
+        ImportColumn[] columns = createColumns(sourceFields, valuesIndexes, insertStatement, mappingTable);
+        ImportPipeline.RowSource source = () -> {
 
-                    int columnType = insertStatement.getParameterMetaData().getParameterType(fieldIndex + 1);
-                    String columnTypeName = insertStatement.getParameterMetaData().getParameterTypeName(fieldIndex + 1);
+            if (!sourceFileData.next())
+                return null;
 
-                    Object insertParameter = sourceFileData.getString(sourceFields[fieldIndex]);
-                    if (insertParameter == null || insertParameter.toString().isEmpty() || insertParameter.toString().equalsIgnoreCase("null")) {
-                        insertStatement.setNull(fieldIndex + 1, columnType);
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++)
+                values[i] = sourceFileData.getString(sourceFields[i]);
+            return values;
+        };
 
-                    } else {
+        try {
+            runImport(columns, source, insertStatement, executor, firstRow, lastRow, batchStep, progressDialog);
 
-                        if (parent.isIntegerType(columnTypeName))
-                            insertParameter = insertParameter.toString().split("\\.")[0].trim();
+        } finally {
+            sourceExecutor.releaseResources();
+        }
+    }
 
-                        insertStatement.setObject(fieldIndex + 1, insertParameter);
-                    }
+    /**
+     * The values are taken as they are, with the integer
+     * values truncated and the NULL text as NULL.
+     */
+    @Override
+    protected Object convert(ImportColumn column, Object value) {
 
-                    fieldIndex++;
-                }
-            }
-            insertStatement.addBatch();
+        if (value == null || value.toString().isEmpty() || value.toString().equalsIgnoreCase("null"))
+            return null;
 
-            if (executorIndex % batchStep == 0 && executorIndex != 0) {
-                insertStatement.executeBatch();
-                executor.getConnection().commit();
-            }
-            linesCount++;
-            executorIndex++;
-        }
+        if (column.integerType)
+            return value.toString().split("\\.")[0].trim();
 
-        insertStatement.executeBatch();
-        executor.getConnection().commit();
-        sourceExecutor.releaseResources();
-        Log.info("Import finished, " + executorIndex + " records was added");
+        return value;
     }
 
     @Override
@@ -0,0 +1,128 @@
+package org.executequery.gui.importFromFile;
+
+import org.executequery.databasemediators.spi.DefaultStatementExecutor;
+import org.executequery.gui.importexport.TableDumpColumn;
+import org.executequery.gui.importexport.TableDumpReader;
+import org.executequery.log.Log;
+import org.underworldlabs.swing.DefaultProgressDialog;
+
+import javax.swing.*;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.util.LinkedList;
+import java.util.List;
+
+public class ImportHelperDump extends AbstractImportHelper {
+
+    protected ImportHelperDump(ImportDataFromFilePanel parent, String pathToFile, int previewRowCount) {
+        super(parent, pathToFile, null, previewRowCount, true);
+    }
+
+    @Override
+    public void startImport(
+            StringBuilder sourceColumnList,
+            boolean[] valuesIndexes,
+            PreparedStatement insertStatement,
+            DefaultStatementExecutor executor,
+            int firstRow,
+            int lastRow,
+            int batchStep,
+            JTable mappingTable,
+            DefaultProgressDialog progressDialog) throws Exception {
+
+        String[] sourceFields = sourceColumnList.toString().split(",");
+        ImportColumn[] columns = createColumns(sourceFields, valuesIndexes, insertStatement, mappingTable);
+
+        try (TableDumpReader reader = openReader()) {
+
+            int[] sourceIndexes = new int[sourceFields.length];
+            for (int i = 0; i < sourceFields.length; i++)
+                sourceIndexes[i] = reader.getColumnIndex(sourceFields[i]);
+
+            if (DumpBatchLoader.isAvailable(executor.getDatabaseConnection())) {
+
+                DumpBatchLoader loader = new DumpBatchLoader(executor.getDatabaseConnection(), getInsertQuery());
+                if (loader.load(reader, sourceIndexes, firstRow, lastRow, batchStep, progressDialog) >= 0)
+                    return;
+
+                Log.info("Batch API is not supported by the driver, the dump is imported by the insert statements");
+            }
+
+            ImportPipeline.RowSource source = () -> {
+
+                if (!reader.next())
+                    return null;
+
+                Object[] values = new Object[columns.length];
+                for (int i = 0; i < columns.length; i++)
+                    values[i] = reader.getValue(sourceIndexes[i]);
+                return values;
+            };
+
+            runImport(columns, source, insertStatement, executor, firstRow, lastRow, batchStep, progressDialog);
+        }
+    }
+
+    /**
+     * The dump values are of the column types already, only the texts
+     * mapped to the dates or to the LOB files are converted.
+     */
+    @Override
+    protected Object convert(ImportColumn column, Object value) throws Exception {
+
+        if (value instanceof String && (column.dateTimeFormatter != null || column.lobFromFile))
+            return super.convert(column, value);
+
+        return value;
+    }
+
+    /**
+     * The dump is imported through the batch API, which commits
+     * the rows itself, so the import is not journaled.
+     */
+    @Override
+    protected boolean isJournaled() {
+        return false;
+    }
+
+    @Override
+    public List<String> getPreviewData() throws Exception {
+
+        List<String> readData = new LinkedList<>();
+        try (TableDumpReader reader = openReader()) {
+
+            List<String> headers = new LinkedList<>();
+            for (TableDumpColumn column : reader.getColumns())
+                headers.add(column.getName());
+            createHeaders(headers);
+
+            for (int rowIndex = 0; rowIndex < previewRowCount && reader.next(); rowIndex++)
+                readData.add(String.join(delimiter, getRowData(reader)));
+        }
+
+        return readData;
+    }
+
+    private List<String> getRowData(TableDumpReader reader) {
+
+        List<String> rowData = new LinkedList<>();
+        for (int column = 0; column < reader.getColumns().size(); column++) {
+
+            Object value = reader.getValue(column);
+            if (value == null)
+                rowData.add("");
+            else if (value instanceof byte[])
+                rowData.add("LOB [" + ((byte[]) value).length + "]");
+            else
+                rowData.add(value.toString());
+        }
+
+        return rowData;
+    }
+
+    private TableDumpReader openReader() throws IOException {
+        return new TableDumpReader(new FileInputStream(pathToFile));
+    }
+
+}
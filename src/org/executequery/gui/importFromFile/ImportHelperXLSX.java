@@ -1,22 +1,14 @@
 package org.executequery.gui.importFromFile;
 
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
-import org.executequery.log.Log;
 import org.underworldlabs.swing.DefaultProgressDialog;
 
 import javax.swing.*;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.sql.PreparedStatement;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
 
 public class ImportHelperXLSX extends AbstractImportHelper {
 
@@ -36,108 +28,79 @@ public class ImportHelperXLSX extends AbstractImportHelper {
             JTable mappingTable,
             DefaultProgressDialog progressDialog) throws Exception {
 
-        XSSFWorkbook workbook = new XSSFWorkbook(Files.newInputStream(Paths.get(pathToFile)));
-        XSSFSheet sheet = workbook.getSheetAt(parent.getSheetNumber() - 1);
+        String[] sourceColumns = sourceColumnList.toString().split(",");
+        ImportColumn[] columns = createColumns(sourceColumns, valuesIndexes, insertStatement, mappingTable);
 
-        int executorIndex = 0;
-        int linesCount = 0;
+        try (XLSXSheetReader reader = new XLSXSheetReader(pathToFile, parent.getSheetNumber())) {
 
-        for (int rowIndex = 0; rowIndex < sheet.getLastRowNum(); rowIndex++) {
+            int resumeRowIndex = (int) Math.max(getResumePosition(), 0);
+            reader.skipRows(resumeRowIndex);
 
-            if (progressDialog.isCancel() || linesCount > lastRow)
-                break;
+            ImportPipeline.RowSource source = new ImportPipeline.RowSource() {
 
-            if (linesCount < firstRow) {
-                linesCount++;
-                continue;
-            }
-
-            XSSFRow row = sheet.getRow(rowIndex);
-            if (row == null) {
-                linesCount++;
-                continue;
-            }
-
-            int fieldIndex = 0;
-            int mappedIndex = 0;
-            String[] sourceColumns = sourceColumnList.toString().split(",");
-
-            for (boolean valueIndex : valuesIndexes) {
-                if (valueIndex) {
-
-                    int columnType = insertStatement.getParameterMetaData().getParameterType(fieldIndex + 1);
-                    String columnTypeName = insertStatement.getParameterMetaData().getParameterTypeName(fieldIndex + 1);
-                    String columnProperty = mappingTable.getValueAt(mappedIndex, 3).toString();
-                    int sourceColumnIndex = parent.getSourceColumnIndex(sourceColumns[fieldIndex]);
-
-                    Object insertParameter = row.getCell(sourceColumnIndex);
-                    if (insertParameter == null || insertParameter.toString().isEmpty()) {
-                        insertStatement.setNull(fieldIndex + 1, columnType);
-
-                    } else {
+                private int rowIndex = resumeRowIndex;
+                private boolean hasRow;
+                private boolean endOfSheet;
 
-                        if (parent.isIntegerType(columnTypeName)) {
-                            insertParameter = insertParameter.toString().split("\\.")[0].trim();
+                @Override
+                public Object[] next() throws Exception {
 
-                        } else if (parent.isTimeType(columnTypeName)) {
-                            insertParameter = LocalDateTime.parse(insertParameter.toString(), DateTimeFormatter.ofPattern(columnProperty));
-
-                        } else if (parent.isBlobType(columnTypeName) && columnProperty.equals("true")) {
-
-                            if (insertParameter.toString().startsWith(":h")) {
-
-                                String parameter = insertParameter.toString();
-                                int startIndex = Integer.parseInt(parameter.substring(2).split("_")[0], 16);
-                                int endIndex = startIndex + Integer.parseInt(parameter.split("_")[1], 16);
+                    if (!hasRow && !endOfSheet) {
+                        hasRow = reader.next();
+                        endOfSheet = !hasRow;
+                    }
 
-                                insertParameter = Arrays.copyOfRange(Files.readAllBytes(Paths.get(pathToLob)), startIndex, endIndex);
+                    if (!hasRow)
+                        return null;
 
-                            } else
-                                insertParameter = Files.newInputStream(new File(insertParameter.toString()).toPath());
-                        }
+                    // the rows without cells are not present in the sheet
+                    if (rowIndex++ < reader.getRowIndex())
+                        return ImportPipeline.EMPTY_ROW;
 
-                        insertStatement.setObject(fieldIndex + 1, insertParameter);
-                    }
+                    hasRow = false;
+                    Object[] values = new Object[columns.length];
+                    for (int i = 0; i < columns.length; i++)
+                        values[i] = reader.getString(columns[i].sourceIndex);
+                    return values;
+                }
 
-                    fieldIndex++;
+                @Override
+                public long getPosition() {
+                    return rowIndex;
                 }
-                mappedIndex++;
-            }
-            insertStatement.addBatch();
+            };
 
-            if (executorIndex % batchStep == 0 && executorIndex != 0) {
-                insertStatement.executeBatch();
-                executor.getConnection().commit();
-            }
-            linesCount++;
-            executorIndex++;
+            runImport(columns, source, insertStatement, executor, firstRow, lastRow, batchStep, progressDialog);
         }
+    }
+
+    @Override
+    protected Object convert(ImportColumn column, Object value) throws Exception {
 
-        insertStatement.executeBatch();
-        executor.getConnection().commit();
-        Log.info("Import finished, " + executorIndex + " records was added");
+        if (column.integerType && value != null && !value.toString().isEmpty())
+            value = value.toString().split("\\.")[0].trim();
+
+        return super.convert(column, value);
     }
 
     @Override
     public List<String> getPreviewData() throws IOException {
 
-        XSSFWorkbook workbook = new XSSFWorkbook(Files.newInputStream(Paths.get(pathToFile)));
+        List<String> readData = new LinkedList<>();
+        try (XLSXSheetReader reader = new XLSXSheetReader(pathToFile, parent.getSheetNumber())) {
 
-        JSpinner sheetNumberSpinner = parent.getSheetNumberSpinner();
-        ((SpinnerNumberModel) sheetNumberSpinner.getModel()).setMaximum(workbook.getNumberOfSheets());
+            JSpinner sheetNumberSpinner = parent.getSheetNumberSpinner();
+            ((SpinnerNumberModel) sheetNumberSpinner.getModel()).setMaximum(reader.getSheetCount());
 
-        List<String> readData = new LinkedList<>();
-        XSSFSheet sheet = workbook.getSheetAt(parent.getSheetNumber() - 1);
+            int rowIndex = 0;
+            while (rowIndex < previewRowCount && reader.next()) {
 
-        for (int rowIndex = 0; rowIndex < previewRowCount && rowIndex < sheet.getLastRowNum(); rowIndex++) {
+                for (; rowIndex < previewRowCount && rowIndex < reader.getRowIndex(); rowIndex++)
+                    addPreviewRow(readData, rowIndex, "");
 
-            String stringRow = String.join(delimiter, getRowData(sheet.getRow(rowIndex)));
-            if (rowIndex == 0 && isFirstRowHeaders) {
-                createHeaders(Arrays.asList(stringRow.split(delimiter)));
-                continue;
+                if (rowIndex < previewRowCount)
+                    addPreviewRow(readData, rowIndex++, String.join(delimiter, getRowData(reader)));
             }
-
-            readData.add(stringRow);
         }
 
         if (!isFirstRowHeaders)
@@ -146,14 +109,20 @@ public class ImportHelperXLSX extends AbstractImportHelper {
         return readData;
     }
 
-    private List<String> getRowData(XSSFRow row) {
+    private void addPreviewRow(List<String> readData, int rowIndex, String stringRow) {
+
+        if (rowIndex == 0 && isFirstRowHeaders)
+            createHeaders(Arrays.asList(stringRow.split(delimiter)));
+        else
+            readData.add(stringRow);
+    }
+
+    private List<String> getRowData(XLSXSheetReader reader) {
 
         List<String> rowData = new LinkedList<>();
-        if (row != null) {
-            for (int colIndex = 0; colIndex < row.getLastCellNum(); colIndex++) {
-                XSSFCell sheetCell = row.getCell(colIndex);
-                rowData.add(sheetCell != null ? sheetCell.toString() : "");
-            }
+        for (int colIndex = 0; colIndex < reader.getCellCount(); colIndex++) {
+            String value = reader.getString(colIndex);
+            rowData.add(value != null ? value : "");
         }
 
         return rowData;
@@ -1,21 +1,12 @@
 package org.executequery.gui.importFromFile;
 
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
-import org.executequery.log.Log;
 import org.underworldlabs.swing.DefaultProgressDialog;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import javax.swing.*;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.sql.PreparedStatement;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.LinkedList;
+import java.util.List;
 
 public class ImportHelperXML extends AbstractImportHelper {
 
@@ -35,121 +26,78 @@ public class ImportHelperXML extends AbstractImportHelper {
             JTable mappingTable,
             DefaultProgressDialog progressDialog) throws Exception {
 
-        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(pathToFile));
-        document.getDocumentElement().normalize();
-
         String[] sourceFields = sourceColumnList.toString().split(",");
-        int executorIndex = 0;
-        int linesCount = 0;
-
-        NodeList rows = document.getElementsByTagName("row");
-        for (int rowIndex = 0; rowIndex < rows.getLength(); rowIndex++) {
-
-            Map<String, String> cellsValues = new HashMap<>();
-
-            NodeList cells = rows.item(rowIndex).getChildNodes();
-            for (int columnIndex = 0; columnIndex < cells.getLength(); columnIndex++) {
-                Node cell = cells.item(columnIndex);
-                if (!cell.getNodeName().startsWith("#text"))
-                    cellsValues.put(cell.getNodeName(), cell.getFirstChild().getNodeValue());
-            }
-
-            if (progressDialog.isCancel() || linesCount > lastRow)
-                break;
+        ImportColumn[] columns = createColumns(sourceFields, valuesIndexes, insertStatement, mappingTable);
 
-            if (linesCount < firstRow) {
-                linesCount++;
-                continue;
-            }
-
-            int fieldIndex = 0;
-            int mappedIndex = 0;
-            for (boolean valueIndex : valuesIndexes) {
-                if (valueIndex) {
-
-                    int columnType = insertStatement.getParameterMetaData().getParameterType(fieldIndex + 1);
-                    String columnTypeName = insertStatement.getParameterMetaData().getParameterTypeName(fieldIndex + 1);
-                    String columnProperty = mappingTable.getValueAt(mappedIndex, 3).toString();
+        try (XMLRowReader reader = new XMLRowReader(pathToFile)) {
 
-                    Object insertParameter = cellsValues.get(sourceFields[fieldIndex]);
-                    if (insertParameter == null || insertParameter.toString().isEmpty() || insertParameter.toString().equalsIgnoreCase("NULL")) {
-                        insertStatement.setNull(fieldIndex + 1, columnType);
+            int resumeRowIndex = (int) Math.max(getResumePosition(), 0);
+            reader.skipRows(resumeRowIndex);
 
-                    } else {
+            ImportPipeline.RowSource source = new ImportPipeline.RowSource() {
 
-                        if (parent.isTimeType(columnTypeName)) {
-                            insertParameter = LocalDateTime.parse(insertParameter.toString(), DateTimeFormatter.ofPattern(columnProperty));
+                private int rowIndex = resumeRowIndex;
 
-                        } else if (parent.isBlobType(columnTypeName) && columnProperty.equals("true")) {
+                @Override
+                public Object[] next() throws Exception {
 
-                            if (insertParameter.toString().startsWith(":h")) {
+                    if (!reader.next())
+                        return null;
 
-                                String parameter = insertParameter.toString();
-                                int startIndex = Integer.parseInt(parameter.substring(2).split("_")[0], 16);
-                                int endIndex = startIndex + Integer.parseInt(parameter.split("_")[1], 16);
+                    rowIndex++;
+                    Object[] values = new Object[columns.length];
+                    for (int i = 0; i < columns.length; i++)
+                        values[i] = reader.getValue(sourceFields[i]);
+                    return values;
+                }
 
-                                insertParameter = Arrays.copyOfRange(Files.readAllBytes(Paths.get(pathToLob)), startIndex, endIndex);
+                @Override
+                public long getPosition() {
+                    return rowIndex;
+                }
+            };
 
-                            } else {
-                                String path = insertParameter.toString().replace("\"", "").replace("'", "");
-                                insertParameter = Files.newInputStream(new File(path).toPath());
-                            }
-                        }
+            runImport(columns, source, insertStatement, executor, firstRow, lastRow, batchStep, progressDialog);
+        }
+    }
 
-                        insertStatement.setObject(fieldIndex + 1, insertParameter);
-                    }
+    @Override
+    protected Object convert(ImportColumn column, Object value) throws Exception {
 
-                    fieldIndex++;
-                }
-                mappedIndex++;
-            }
-            insertStatement.addBatch();
+        if (value != null && value.toString().equalsIgnoreCase("NULL"))
+            return null;
 
-            if (executorIndex % batchStep == 0 && executorIndex != 0) {
-                insertStatement.executeBatch();
-                executor.getConnection().commit();
-            }
-            linesCount++;
-            executorIndex++;
-        }
+        if (column.lobFromFile && value != null && !MappedLobFile.isReference(value.toString()))
+            value = value.toString().replace("\"", "").replace("'", "");
 
-        insertStatement.executeBatch();
-        executor.getConnection().commit();
-        Log.info("Import finished, " + executorIndex + " records was added");
+        return super.convert(column, value);
     }
 
     @Override
     public List<String> getPreviewData() throws Exception {
 
         List<String> readData = new LinkedList<>();
+        try (XMLRowReader reader = new XMLRowReader(pathToFile)) {
 
-        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(pathToFile));
-        document.getDocumentElement().normalize();
+            for (int rowIndex = 0; rowIndex < previewRowCount && reader.next(); rowIndex++) {
 
-        NodeList rows = document.getElementsByTagName("row");
-        for (int rowIndex = 0; rowIndex < rows.getLength(); rowIndex++) {
+                if (rowIndex == 0)
+                    createHeaders(getHeaders(reader));
 
-            NodeList cells = rows.item(rowIndex).getChildNodes();
-            if (rowIndex == 0)
-                createHeaders(getHeaders(cells));
-
-            readData.add(String.join(delimiter, getRowData(cells)));
+                readData.add(String.join(delimiter, getRowData(reader)));
+            }
         }
 
         return readData;
     }
 
-    private List<String> getRowData(NodeList cells) {
+    private List<String> getRowData(XMLRowReader reader) {
 
         List<String> rowData = new LinkedList<>();
 
-        for (int columnIndex = 0; columnIndex < cells.getLength(); columnIndex++) {
-
-            Node cell = cells.item(columnIndex);
-            if (cell.getNodeName().startsWith("#text"))
-                continue;
+        for (int field = 0; field < reader.getFieldCount(); field++) {
 
-            String value = cell.getFirstChild().getNodeValue();
+            String value = reader.getValue(field);
             if (value != null && !value.equalsIgnoreCase("NULL"))
                 rowData.add(value);
             else
@@ -159,16 +107,11 @@ public class ImportHelperXML extends AbstractImportHelper {
         return rowData;
     }
 
-    private List<String> getHeaders(NodeList cells) {
+    private List<String> getHeaders(XMLRowReader reader) {
 
         List<String> headers = new LinkedList<>();
-
-        for (int columnIndex = 0; columnIndex < cells.getLength(); columnIndex++) {
-
-            Node cell = cells.item(columnIndex);
-            if (!cell.getNodeName().startsWith("#text"))
-                headers.add(cell.getNodeName());
-        }
+        for (int field = 0; field < reader.getFieldCount(); field++)
+            headers.add(reader.getName(field));
 
         return headers;
     }
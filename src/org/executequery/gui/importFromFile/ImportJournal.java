@@ -0,0 +1,163 @@
+package org.executequery.gui.importFromFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * The journal of the committed source rows, written next to the source file.
+ * <p>
+ * Every time the committed rows advance, a checkpoint with the first source
+ * row not committed and its position in the source is appended, so a failed
+ * or cancelled import may be resumed from that row without reading the source
+ * again. The journal also keeps the source file size and modification time and
+ * the import target, a journal not matching them is not resumed.
+ */
+final class ImportJournal implements Closeable {
+
+    private static final String EXTENSION = ".journal";
+
+    private static final String HEADER = "# RedExpert import journal";
+    private static final String SIZE_KEY = "source.size=";
+    private static final String MODIFIED_KEY = "source.modified=";
+    private static final String TARGET_KEY = "target=";
+    private static final String CHECKPOINT_KEY = "checkpoint=";
+    private static final String CHECKPOINT_END = ";";
+
+    private final File file;
+
+    private final OutputStream output;
+
+    private ImportJournal(File file, OutputStream output) {
+        this.file = file;
+        this.output = output;
+    }
+
+    static File getFile(String pathToFile) {
+        return new File(pathToFile + EXTENSION);
+    }
+
+    static boolean exists(String pathToFile) {
+        return pathToFile != null && getFile(pathToFile).isFile();
+    }
+
+    /**
+     * Creates a new journal for the source file, replacing the previous one.
+     *
+     * @param target     the import target, the resumed import must have the same one
+     * @param checkpoint the checkpoint the import is resumed from or null
+     */
+    static ImportJournal create(String pathToFile, String target, Checkpoint checkpoint) throws IOException {
+
+        File source = new File(pathToFile);
+        File file = getFile(pathToFile);
+
+        ImportJournal journal = new ImportJournal(file, new FileOutputStream(file, false));
+        journal.writeLine(HEADER + "\n"
+                + SIZE_KEY + source.length() + "\n"
+                + MODIFIED_KEY + source.lastModified() + "\n"
+                + TARGET_KEY + toLine(target) + "\n");
+
+        if (checkpoint != null)
+            journal.write(checkpoint.line, checkpoint.position);
+
+        return journal;
+    }
+
+    /**
+     * Returns the last checkpoint of the journal of the source file.
+     *
+     * @return the checkpoint or null if the journal is not written for the
+     * source file as it is now and the given target, or has no checkpoints
+     */
+    static Checkpoint read(String pathToFile, String target) throws IOException {
+
+        if (!exists(pathToFile))
+            return null;
+
+        File source = new File(pathToFile);
+        List<String> lines = Files.readAllLines(getFile(pathToFile).toPath(), StandardCharsets.UTF_8);
+
+        if (lines.size() < 4
+                || !lines.get(0).equals(HEADER)
+                || !lines.get(1).equals(SIZE_KEY + source.length())
+                || !lines.get(2).equals(MODIFIED_KEY + source.lastModified())
+                || !lines.get(3).equals(TARGET_KEY + toLine(target)))
+            return null;
+
+        // the last line may be written partially, it ends with the terminator otherwise
+        for (int i = lines.size() - 1; i > 3; i--) {
+
+            String line = lines.get(i);
+            if (!line.startsWith(CHECKPOINT_KEY) || !line.endsWith(CHECKPOINT_END))
+                continue;
+
+            String[] values = line.substring(CHECKPOINT_KEY.length(), line.length() - CHECKPOINT_END.length()).split(",");
+            try {
+                return new Checkpoint(Long.parseLong(values[0]), Long.parseLong(values[1]));
+
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid import journal checkpoint: " + line, e);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Appends the checkpoint.
+     *
+     * @param line     the first source row not committed
+     * @param position the position of this row in the source or -1
+     */
+    synchronized void write(long line, long position) throws IOException {
+        writeLine(CHECKPOINT_KEY + line + "," + position + CHECKPOINT_END + "\n");
+    }
+
+    private void writeLine(String line) throws IOException {
+        output.write(line.getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    private static String toLine(String value) {
+        return value.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+
+    /**
+     * Closes and deletes the journal after the import has finished.
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /**
+     * The point the import may be resumed from.
+     */
+    static final class Checkpoint {
+
+        /**
+         * The first source row not committed
+         */
+        final long line;
+
+        /**
+         * The position of the row in the source, the byte offset
+         * for a text file or the row index, -1 if unknown
+         */
+        final long position;
+
+        Checkpoint(long line, long position) {
+            this.line = line;
+            this.position = position;
+        }
+
+    } // Checkpoint class
+
+}
@@ -0,0 +1,502 @@
+package org.executequery.gui.importFromFile;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.databasemediators.spi.DefaultStatementExecutor;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.log.Log;
+import org.underworldlabs.swing.DefaultProgressDialog;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipelined insert of the imported rows.
+ * <p>
+ * The calling thread reads the source rows and groups them into blocks of
+ * the commit step size. The blocks are converted to the parameter values
+ * by a pool of converter threads and inserted by the writer threads, each
+ * over its own connection, as one JDBC batch committed at once.
+ * <p>
+ * The blocks are executed in parallel but committed in the read order, so
+ * the errors are reported in the source row order, together with the first
+ * source row not committed - the import may be continued from that row.
+ * A block waiting too long for the previous one, which may be locked by
+ * its rows, is rolled back and executed again once the previous blocks
+ * are committed.
+ */
+final class ImportPipeline {
+
+    /**
+     * The source row without data, counted but not inserted
+     */
+    static final Object[] EMPTY_ROW = new Object[0];
+
+    interface RowSource {
+
+        /**
+         * Returns the source values of the mapped columns, {@link #EMPTY_ROW}
+         * for a row without data or null at the end of the source.
+         */
+        Object[] next() throws Exception;
+
+        /**
+         * Returns the position of the next row in the source, the import
+         * may be resumed from, or -1 if the source can not be positioned.
+         */
+        default long getPosition() {
+            return -1;
+        }
+    }
+
+    private static final int MAX_CONVERTERS = 4;
+
+    private static final long COMMIT_WAIT = 10000;
+
+    private static final Future<Block> END = CompletableFuture.completedFuture(null);
+
+    private final AbstractImportHelper helper;
+    private final AbstractImportHelper.ImportColumn[] columns;
+    private final DefaultStatementExecutor executor;
+    private final PreparedStatement insertStatement;
+    private final String insertQuery;
+    private final int writerCount;
+    private final int blockSize;
+
+    private final ConcurrentSkipListMap<Long, Throwable> errors = new ConcurrentSkipListMap<>();
+    private final AtomicLong insertedCount = new AtomicLong();
+    private final BitSet resolvedBlocks = new BitSet();
+
+    private ImportCheckpoint checkpoint;
+    private volatile int failedBlock = Integer.MAX_VALUE;
+
+    /**
+     * @param insertStatement the insert statement of the first writer,
+     *                        prepared over the executor connection
+     * @param insertQuery     the insert query for the other writers
+     * @param writerCount     the number of the writer threads
+     * @param blockSize       the number of rows inserted and committed at once
+     */
+    ImportPipeline(
+            AbstractImportHelper helper,
+            AbstractImportHelper.ImportColumn[] columns,
+            DefaultStatementExecutor executor,
+            PreparedStatement insertStatement,
+            String insertQuery,
+            int writerCount,
+            int blockSize) {
+
+        this.helper = helper;
+        this.columns = columns;
+        this.executor = executor;
+        this.insertStatement = insertStatement;
+        this.insertQuery = insertQuery;
+        this.writerCount = Math.max(1, writerCount);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Imports the source rows from <code>firstRow</code> to <code>lastRow</code>.
+     *
+     * @param startLine the source row the source is positioned at
+     * @param journal   the journal to write the committed rows to or null
+     * @return the number of the rows inserted
+     * @throws ImportRowException with the first failed row
+     */
+    long run(
+            RowSource source,
+            long startLine,
+            int firstRow,
+            int lastRow,
+            ImportJournal journal,
+            DefaultProgressDialog progressDialog) throws Exception {
+
+        checkpoint = new ImportCheckpoint(Math.max(firstRow, startLine), journal);
+
+        int converterCount = Math.max(1, Math.min(MAX_CONVERTERS, Runtime.getRuntime().availableProcessors() - writerCount));
+        ExecutorService converters = Executors.newFixedThreadPool(converterCount);
+        BlockingQueue<Future<Block>> pending = new ArrayBlockingQueue<>(writerCount * 2);
+
+        List<Writer> writers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        try {
+
+            writers.add(new Writer(executor.getConnection(), insertStatement, false));
+            while (writers.size() < writerCount)
+                writers.add(openWriter());
+
+            for (Writer writer : writers) {
+                Thread thread = new Thread(() -> writer.write(pending), "ImportWriter-" + (threads.size() + 1));
+                thread.start();
+                threads.add(thread);
+            }
+
+            read(source, startLine, firstRow, lastRow, progressDialog, converters, pending);
+
+        } finally {
+
+            for (int i = 0; i < threads.size(); i++)
+                pending.put(END);
+            for (Thread thread : threads)
+                thread.join();
+
+            converters.shutdownNow();
+            for (Writer writer : writers)
+                writer.close();
+        }
+
+        Log.info("Import pipeline: " + insertedCount.get() + " rows inserted by " + writerCount
+                + " writers and " + converterCount + " converters, first row not committed: " + checkpoint.getNextRow());
+
+        if (!errors.isEmpty()) {
+            Map.Entry<Long, Throwable> error = errors.firstEntry();
+            throw new ImportRowException(error.getKey(), checkpoint.getNextRow(), error.getValue());
+        }
+
+        return insertedCount.get();
+    }
+
+    ImportCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    private void read(
+            RowSource source,
+            long startLine,
+            int firstRow,
+            int lastRow,
+            DefaultProgressDialog progressDialog,
+            ExecutorService converters,
+            BlockingQueue<Future<Block>> pending) throws Exception {
+
+        long line = startLine;
+        int blockIndex = 0;
+        Block block = null;
+
+        // the stop conditions are checked before the row is read,
+        // so the source position is after the last row taken
+        Object[] values;
+        while (!isFailed() && !progressDialog.isCancel() && line <= lastRow && (values = source.next()) != null) {
+
+            if (line < firstRow || values == EMPTY_ROW) {
+                line++;
+                continue;
+            }
+
+            if (block == null)
+                block = new Block(blockIndex++, Math.min(blockSize, 1024));
+            block.add(values, line++);
+
+            if (block.size() == blockSize) {
+                submit(block, source, converters, pending);
+                block = null;
+            }
+        }
+
+        if (block != null && !isFailed())
+            submit(block, source, converters, pending);
+    }
+
+    private void submit(
+            Block block,
+            RowSource source,
+            ExecutorService converters,
+            BlockingQueue<Future<Block>> pending) throws InterruptedException {
+
+        checkpoint.add(block.index, block.lines[0], block.lines[block.size() - 1], source.getPosition());
+        pending.put(converters.submit(() -> convert(block)));
+    }
+
+    private Block convert(Block block) {
+
+        for (int row = 0; row < block.size(); row++) {
+
+            Object[] values = block.rows.get(row);
+            Object[] parameters = new Object[columns.length];
+            try {
+
+                for (int i = 0; i < columns.length; i++)
+                    parameters[i] = helper.convert(columns[i], values[i]);
+
+            } catch (Exception e) {
+                block.error = e;
+                block.errorLine = block.lines[row];
+                break;
+            }
+            block.rows.set(row, parameters);
+        }
+
+        return block;
+    }
+
+    private Writer openWriter() throws SQLException {
+
+        DatabaseConnection databaseConnection = executor.getDatabaseConnection();
+        Connection connection = ConnectionManager.getTemporaryConnection(databaseConnection);
+        connection.setAutoCommit(false);
+
+        PreparedStatement statement = connection.prepareStatement(insertQuery);
+        statement.setEscapeProcessing(true);
+
+        return new Writer(connection, statement, true);
+    }
+
+    private boolean isFailed() {
+        return failedBlock != Integer.MAX_VALUE;
+    }
+
+    private synchronized void fail(Block block, long line, Throwable error) {
+        failedBlock = Math.min(failedBlock, block.index);
+        errors.put(line, error);
+        resolve(block);
+    }
+
+    /**
+     * Marks the block committed or skipped.
+     */
+    private synchronized void resolve(Block block) {
+        resolvedBlocks.set(block.index);
+        notifyAll();
+    }
+
+    /**
+     * Returns whether a block before the given one has failed.
+     */
+    private boolean isPreviousFailed(Block block) {
+        return failedBlock < block.index;
+    }
+
+    /**
+     * Waits for the blocks before the given one to be resolved
+     * or for any of them to fail.
+     *
+     * @param timeout the time to wait in milliseconds, 0 to wait without a timeout
+     * @return false if the time has elapsed before
+     */
+    private synchronized boolean awaitPreviousBlocks(Block block, long timeout) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + timeout;
+        while (resolvedBlocks.nextClearBit(0) < block.index && !isPreviousFailed(block)) {
+
+            if (timeout == 0) {
+                wait();
+                continue;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+                return false;
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * The rows read in a row, imported at once.
+     */
+    private static final class Block {
+
+        private final int index;
+        private final List<Object[]> rows;
+        private long[] lines;
+
+        private Throwable error;
+        private long errorLine;
+
+        Block(int index, int capacity) {
+            this.index = index;
+            this.rows = new ArrayList<>(capacity);
+            this.lines = new long[capacity];
+        }
+
+        void add(Object[] values, long line) {
+            if (rows.size() == lines.length)
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            lines[rows.size()] = line;
+            rows.add(values);
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+    } // Block class
+
+    private final class Writer {
+
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final boolean ownConnection;
+
+        Writer(Connection connection, PreparedStatement statement, boolean ownConnection) {
+            this.connection = connection;
+            this.statement = statement;
+            this.ownConnection = ownConnection;
+        }
+
+        void write(BlockingQueue<Future<Block>> pending) {
+
+            try {
+
+                while (true) {
+
+                    Future<Block> future = pending.take();
+                    if (future == END)
+                        return;
+
+                    Block block;
+                    try {
+                        block = future.get();
+
+                    } catch (ExecutionException e) {
+                        synchronized (ImportPipeline.this) {
+                            errors.put(checkpoint.getNextRow(), e.getCause());
+                            failedBlock = -1;
+                        }
+                        continue;
+                    }
+
+                    if (isPreviousFailed(block)) {
+                        resolve(block);
+                        continue;
+                    }
+
+                    if (block.error != null)
+                        fail(block, block.errorLine, block.error);
+                    else
+                        write(block);
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void write(Block block) {
+
+            try {
+
+                execute(block);
+                if (!awaitPreviousBlocks(block, COMMIT_WAIT)) {
+
+                    // the previous blocks may wait for the rows locked by this one,
+                    // so they are released until the previous blocks are committed
+                    Log.debug("Import block " + block.index + " is rolled back to wait for the previous blocks");
+                    connection.rollback();
+                    awaitPreviousBlocks(block, 0);
+                    if (!isPreviousFailed(block))
+                        execute(block);
+                }
+
+                // the rows after a failed one are not committed,
+                // so the import may be continued from that row
+                if (isPreviousFailed(block)) {
+                    connection.rollback();
+                    resolve(block);
+                    return;
+                }
+
+                connection.commit();
+                checkpoint.commit(block.index);
+                insertedCount.addAndGet(block.size());
+                resolve(block);
+
+            } catch (Exception e) {
+
+                try {
+                    statement.clearBatch();
+                    connection.rollback();
+                } catch (SQLException rollbackException) {
+                    Log.error("Error rolling back the import block", rollbackException);
+                }
+                fail(block, getFailedLine(block, e), e);
+            }
+        }
+
+        private void execute(Block block) throws SQLException {
+
+            for (Object[] parameters : block.rows) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (parameters[i] == null)
+                        statement.setNull(columns[i].parameterIndex, columns[i].sqlType);
+                    else
+                        statement.setObject(columns[i].parameterIndex, parameters[i]);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        private long getFailedLine(Block block, Exception e) {
+
+            if (e instanceof BatchUpdateException) {
+
+                int[] updateCounts = ((BatchUpdateException) e).getUpdateCounts();
+                if (updateCounts != null) {
+
+                    if (updateCounts.length < block.size())
+                        return block.lines[updateCounts.length];
+
+                    for (int i = 0; i < updateCounts.length; i++)
+                        if (updateCounts[i] == Statement.EXECUTE_FAILED)
+                            return block.lines[i];
+                }
+            }
+            return block.lines[0];
+        }
+
+        void close() {
+
+            if (!ownConnection)
+                return;
+
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                Log.error("Error closing the import statement", e);
+            }
+            ConnectionManager.close(executor.getDatabaseConnection(), connection);
+        }
+
+    } // Writer class
+
+    /**
+     * The failed import with the source row which has failed.
+     */
+    static final class ImportRowException extends Exception {
+
+        private final long row;
+        private final long nextRow;
+
+        ImportRowException(long row, long nextRow, Throwable cause) {
+            super("Row " + row + ": " + cause.getMessage(), cause);
+            this.row = row;
+            this.nextRow = nextRow;
+        }
+
+        /**
+         * Returns the first failed source row.
+         */
+        long getRow() {
+            return row;
+        }
+
+        /**
+         * Returns the first source row not committed.
+         */
+        long getNextRow() {
+            return nextRow;
+        }
+
+    } // ImportRowException class
+
+}
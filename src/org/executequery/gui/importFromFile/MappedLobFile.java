@@ -0,0 +1,86 @@
+package org.executequery.gui.importFromFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The file of the LOB values exported together into one file.
+ * <p>
+ * The values are referenced as <code>:h&lt;offset&gt;_&lt;length&gt;</code>
+ * with the hex offset and length of the value in the file. The file is
+ * mapped into memory once, a file too large to be mapped is read at the
+ * value offsets.
+ */
+final class MappedLobFile implements Closeable {
+
+    private static final String REFERENCE_PREFIX = ":h";
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final MappedByteBuffer buffer;
+
+    MappedLobFile(String path) throws IOException {
+
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        size = channel.size();
+        buffer = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+    }
+
+    static boolean isReference(String value) {
+        return value.startsWith(REFERENCE_PREFIX);
+    }
+
+    /**
+     * Returns the bytes of the referenced value.
+     */
+    byte[] read(String reference) throws IOException {
+
+        int separator = reference.indexOf('_');
+        if (!isReference(reference) || separator < 0)
+            throw new IOException("Invalid LOB reference: " + reference);
+
+        long offset;
+        long length;
+        try {
+            offset = Long.parseLong(reference.substring(REFERENCE_PREFIX.length(), separator), 16);
+            length = Long.parseLong(reference.substring(separator + 1), 16);
+
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid LOB reference: " + reference, e);
+        }
+
+        if (offset < 0 || length < 0 || length > Integer.MAX_VALUE || offset + length > size)
+            throw new IOException("LOB reference " + reference + " is out of the file bounds");
+
+        byte[] bytes = new byte[(int) length];
+        if (buffer != null) {
+
+            ByteBuffer value = buffer.duplicate();
+            value.position((int) offset);
+            value.get(bytes);
+
+        } else {
+
+            ByteBuffer value = ByteBuffer.wrap(bytes);
+            while (value.hasRemaining()) {
+                if (channel.read(value, offset + value.position()) < 0)
+                    throw new IOException("Unexpected end of the LOB file");
+            }
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,379 @@
+package org.executequery.gui.importFromFile;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Streaming reader of the XLSX sheet rows.
+ * <p>
+ * The sheet XML is pulled from the package one row at a time, so the
+ * memory used does not depend on the sheet size - only the shared strings
+ * table of the workbook is kept. The cell values are the texts the
+ * workbook model gives for the cells: the numbers as doubles, the dates
+ * formatted as <code>dd-MMM-yyyy</code>, the formulas as their results.
+ */
+final class XLSXSheetReader implements Closeable {
+
+    private static final String DATE_PATTERN = "dd-MMM-yyyy";
+
+    private final OPCPackage opcPackage;
+
+    private final ReadOnlySharedStringsTable sharedStrings;
+
+    private final StylesTable styles;
+
+    private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+    private final boolean date1904;
+
+    private final int sheetCount;
+
+    private InputStream sheetStream;
+
+    private XMLStreamReader reader;
+
+    private SimpleDateFormat dateFormat;
+
+    private String[] cells = new String[16];
+
+    private int cellCount;
+
+    private int rowIndex = -1;
+
+    private int skippedRows;
+
+    private boolean endOfSheet;
+
+    /**
+     * @param sheetNumber the number of the sheet read, starting from 1
+     */
+    XLSXSheetReader(String pathToFile, int sheetNumber) throws IOException {
+
+        opcPackage = open(pathToFile);
+        try {
+
+            XSSFReader xssfReader = new XSSFReader(opcPackage);
+            sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+            styles = xssfReader.getStylesTable();
+            date1904 = isDate1904(xssfReader);
+
+            int count = 0;
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            while (sheets.hasNext()) {
+
+                InputStream stream = sheets.next();
+                if (++count == sheetNumber)
+                    sheetStream = stream;
+                else
+                    stream.close();
+            }
+            sheetCount = count;
+
+            if (sheetStream == null)
+                throw new IOException("The sheet " + sheetNumber + " is not found, the workbook has " + count + " sheets");
+
+            reader = createInputFactory().createXMLStreamReader(sheetStream);
+
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            close();
+            throw new IOException(e);
+
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    int getSheetCount() {
+        return sheetCount;
+    }
+
+    /**
+     * Skips the rows before the given one without reading their cells.
+     */
+    void skipRows(int rowIndex) {
+        skippedRows = rowIndex;
+    }
+
+    /**
+     * Reads the next row present in the sheet, the sheet has no rows
+     * without cells, so the row indexes may go with gaps.
+     *
+     * @return false at the end of the sheet
+     */
+    boolean next() throws IOException {
+
+        Arrays.fill(cells, 0, cellCount, null);
+        cellCount = 0;
+
+        try {
+
+            while (!endOfSheet && reader.hasNext()) {
+
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(reader.getLocalName())) {
+                    endOfSheet = true;
+                    break;
+                }
+
+                if (event != XMLStreamConstants.START_ELEMENT || !"row".equals(reader.getLocalName()))
+                    continue;
+
+                String reference = reader.getAttributeValue(null, "r");
+                rowIndex = reference != null ? Integer.parseInt(reference) - 1 : rowIndex + 1;
+
+                if (rowIndex < skippedRows)
+                    skipElement();
+                else {
+                    readRow();
+                    return true;
+                }
+            }
+
+        } catch (XMLStreamException | RuntimeException e) {
+            throw new IOException("Error reading the row " + (rowIndex + 1) + " of the sheet", e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the index of the row read, starting from 0.
+     */
+    int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * Returns the number of the cells up to the last one present in the row.
+     */
+    int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Returns the cell value or null if the row has no such cell.
+     */
+    String getString(int column) {
+        return column >= 0 && column < cellCount ? cells[column] : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        try {
+            if (reader != null)
+                reader.close();
+
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+
+        } finally {
+            if (sheetStream != null)
+                sheetStream.close();
+            opcPackage.revert();
+        }
+    }
+
+    private void readRow() throws XMLStreamException {
+
+        int column = -1;
+        while (reader.hasNext()) {
+
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName()))
+                return;
+
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(reader.getLocalName())) {
+
+                String reference = reader.getAttributeValue(null, "r");
+                column = reference != null ? getColumnIndex(reference) : column + 1;
+                setCell(column, readCell());
+            }
+        }
+    }
+
+    private String readCell() throws XMLStreamException {
+
+        String type = reader.getAttributeValue(null, "t");
+        String style = reader.getAttributeValue(null, "s");
+
+        String value = null;
+        StringBuilder inlineString = null;
+
+        while (reader.hasNext()) {
+
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "c".equals(reader.getLocalName()))
+                break;
+
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+
+            String name = reader.getLocalName();
+            if ("v".equals(name))
+                value = reader.getElementText();
+
+            else if ("t".equals(name)) {
+                // the text of an inline string or of its rich text runs
+                if (inlineString == null)
+                    inlineString = new StringBuilder();
+                inlineString.append(reader.getElementText());
+
+            } else if ("f".equals(name))
+                reader.getElementText();
+        }
+
+        if ("inlineStr".equals(type))
+            return inlineString != null ? inlineString.toString() : null;
+
+        if (value == null)
+            return null;
+
+        if (type == null || "n".equals(type))
+            return formatNumber(Double.parseDouble(value), style != null ? Integer.parseInt(style) : 0);
+
+        switch (type) {
+            case "s":
+                return sharedStrings.getItemAt(Integer.parseInt(value)).getString();
+            case "b":
+                return "1".equals(value) || "true".equalsIgnoreCase(value) ? "TRUE" : "FALSE";
+            default:
+                // a formula string, an error or an ISO date
+                return value;
+        }
+    }
+
+    private String formatNumber(double value, int style) {
+
+        if (isDateStyle(style) && DateUtil.isValidExcelDate(value)) {
+
+            if (dateFormat == null) {
+                dateFormat = new SimpleDateFormat(DATE_PATTERN, LocaleUtil.getUserLocale());
+                dateFormat.setTimeZone(LocaleUtil.getUserTimeZone());
+            }
+            return dateFormat.format(DateUtil.getJavaDate(value, date1904));
+        }
+
+        return Double.toString(value);
+    }
+
+    private boolean isDateStyle(int style) {
+
+        return dateStyles.computeIfAbsent(style, index -> {
+
+            if (styles == null || index >= styles.getNumCellStyles())
+                return false;
+
+            XSSFCellStyle cellStyle = styles.getStyleAt(index);
+            return cellStyle != null && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+        });
+    }
+
+    private void setCell(int column, String value) {
+
+        if (column >= cells.length)
+            cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+
+        cells[column] = value;
+        cellCount = Math.max(cellCount, column + 1);
+    }
+
+    private void skipElement() throws XMLStreamException {
+
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    /**
+     * Returns the column index of the cell reference like <code>AB12</code>.
+     */
+    private static int getColumnIndex(String reference) {
+
+        int column = 0;
+        for (int i = 0; i < reference.length(); i++) {
+
+            char c = reference.charAt(i);
+            if (c < 'A' || c > 'Z')
+                break;
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private static boolean isDate1904(XSSFReader xssfReader) throws IOException, OpenXML4JException, XMLStreamException {
+
+        try (InputStream stream = xssfReader.getWorkbookData()) {
+
+            XMLStreamReader workbookReader = createInputFactory().createXMLStreamReader(stream);
+            try {
+
+                while (workbookReader.hasNext()) {
+
+                    if (workbookReader.next() != XMLStreamConstants.START_ELEMENT)
+                        continue;
+
+                    String name = workbookReader.getLocalName();
+                    if ("workbookPr".equals(name)) {
+                        String value = workbookReader.getAttributeValue(null, "date1904");
+                        return "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                    if ("sheets".equals(name))
+                        return false;
+                }
+                return false;
+
+            } finally {
+                workbookReader.close();
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static OPCPackage open(String pathToFile) throws IOException {
+
+        try {
+            return OPCPackage.open(new File(pathToFile), PackageAccess.READ);
+
+        } catch (OpenXML4JException e) {
+            throw new IOException(e);
+        }
+    }
+
+}
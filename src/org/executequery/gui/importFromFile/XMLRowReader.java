@@ -0,0 +1,202 @@
+package org.executequery.gui.importFromFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of the <code>row</code> elements of an XML file.
+ * <p>
+ * The child elements of a row are its fields, named as the elements and
+ * valued with their text. The file is pulled one row at a time, so the
+ * memory used does not depend on the file size.
+ */
+final class XMLRowReader implements Closeable {
+
+    private static final String ROW_ELEMENT = "row";
+
+    private final InputStream stream;
+
+    private final XMLStreamReader reader;
+
+    private String[] names = new String[16];
+
+    private String[] values = new String[16];
+
+    private int fieldCount;
+
+    private final StringBuilder text = new StringBuilder();
+
+    XMLRowReader(String pathToFile) throws IOException {
+
+        stream = Files.newInputStream(Paths.get(pathToFile));
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            reader = factory.createXMLStreamReader(stream);
+
+        } catch (XMLStreamException | RuntimeException e) {
+            stream.close();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return false at the end of the file
+     */
+    boolean next() throws IOException {
+
+        Arrays.fill(values, 0, fieldCount, null);
+        fieldCount = 0;
+
+        try {
+
+            if (!nextRow())
+                return false;
+
+            while (reader.hasNext()) {
+
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT)
+                    return true;
+
+                if (event == XMLStreamConstants.START_ELEMENT)
+                    addField(reader.getLocalName(), readText());
+            }
+            return true;
+
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Skips the given number of the rows without reading their fields.
+     *
+     * @return false if the file has fewer rows
+     */
+    boolean skipRows(int count) throws IOException {
+
+        try {
+
+            for (int i = 0; i < count; i++) {
+                if (!nextRow())
+                    return false;
+                skipElement();
+            }
+            return true;
+
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    String getName(int field) {
+        return names[field];
+    }
+
+    String getValue(int field) {
+        return values[field];
+    }
+
+    /**
+     * Returns the value of the named field or null if the row has no such field.
+     */
+    String getValue(String name) {
+
+        for (int i = 0; i < fieldCount; i++)
+            if (names[i].equals(name))
+                return values[i];
+
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        try {
+            reader.close();
+
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Moves to the start of the next row element.
+     */
+    private boolean nextRow() throws XMLStreamException {
+
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && ROW_ELEMENT.equals(reader.getLocalName()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the text of the current element, without the text of the nested elements.
+     */
+    private String readText() throws XMLStreamException {
+
+        text.setLength(0);
+
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+
+            else if (depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA))
+                text.append(reader.getText());
+        }
+
+        return text.toString();
+    }
+
+    private void skipElement() throws XMLStreamException {
+
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private void addField(String name, String value) {
+
+        if (fieldCount == names.length) {
+            names = Arrays.copyOf(names, fieldCount * 2);
+            values = Arrays.copyOf(values, fieldCount * 2);
+        }
+        names[fieldCount] = name;
+        values[fieldCount] = value;
+        fieldCount++;
+    }
+
+}
@@ -232,22 +232,7 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
      */
     protected ResultSet getResultSet(String table, List<?> columns) throws DataSourceException, SQLException {
 
-        // check the columns and retrieve if null
-        if (columns == null) {
-            columns = getColumns(table);
-        }
-
-        // build the SQL statement
-        StringBuilder query = new StringBuilder("SELECT ");
-        query.append(columnNamesAsCommaSeparatedString(table, columns));
-        query.append(" FROM ");
-
-        String schema = parent.getSchemaName();
-        if (!MiscUtils.isNull(schema)) {
-            query.append(schema).append('.');
-        }
-
-        query.append(formatTableName(table));
+        String query = getSelectStatement(table, columns);
 
         if (stmnt != null) {
             try {
@@ -264,7 +249,40 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
 
         Log.info("Executing query for export: [ " + query + " ]");
 
-        return stmnt.executeQuery(query.toString());
+        return stmnt.executeQuery(query);
+    }
+
+    /**
+     * Returns the select of the specified columns from the table
+     * without a where clause. If the columns collection is null,
+     * all the database columns of the table are selected.
+     *
+     * @param table   - the database table name
+     * @param columns - the columns to select from the table
+     */
+    protected String getSelectStatement(String table, List<?> columns) throws DataSourceException, SQLException {
+
+        // check the columns and retrieve if null
+        if (columns == null) {
+            columns = getColumns(table);
+        }
+
+        return "SELECT " + columnNamesAsCommaSeparatedString(table, columns) + " FROM " + getTableNameForQuery(table);
+    }
+
+    /**
+     * Returns the table name formatted for a query, with the schema if any.
+     *
+     * @param table - the database table name
+     */
+    protected String getTableNameForQuery(String table) {
+
+        String schema = parent.getSchemaName();
+        if (!MiscUtils.isNull(schema)) {
+            return schema + "." + formatTableName(table);
+        }
+
+        return String.valueOf(formatTableName(table));
     }
 
     private String columnNamesAsCommaSeparatedString(String table, List<?> columns) throws DataSourceException, SQLException {
@@ -56,6 +56,11 @@ public class DefaultExcelWorkbookBuilder implements ExcelWorkbookBuilder {
         workbook.write(outputStream);
     }
 
+    public void dispose() {
+
+        // the workbook is kept in memory only
+    }
+
     public void createSheet(String sheetName) {
 
         currentSheet = workbook.createSheet(sheetName);
@@ -39,6 +39,11 @@ public interface ExcelWorkbookBuilder {
 
     void writeTo(OutputStream outputStream) throws IOException;
 
+    /**
+     * Releases the resources of the workbook not written.
+     */
+    void dispose();
+
 }
 
 
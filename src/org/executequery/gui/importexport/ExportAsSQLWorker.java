@@ -32,9 +32,12 @@ import org.executequery.util.ThreadWorker;
 import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.util.MiscUtils;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.sql.*;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -45,6 +48,8 @@ import java.util.regex.Pattern;
  */
 public class ExportAsSQLWorker extends BaseImportExportWorker {
 
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
     private ThreadWorker worker;
 
     public ExportAsSQLWorker(ImportExportWizard importExportWizard) {
@@ -101,6 +106,7 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
         int totalRecordCount = 0;
 
         PrintWriter writer = null;
+        ParallelTableExport parallelExport = new ParallelTableExport(model.getDatabaseHost().getDatabaseConnection());
 
         try {
 
@@ -119,8 +125,8 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
 
                 if (!model.isSingleFileMultiTableExport() || writer == null) {
 
-                    writer = new PrintWriter(
-                            new FileWriter(importExportFile.getFile(), false), true);
+                    writer = new PrintWriter(new BufferedWriter(
+                            new FileWriter(importExportFile.getFile(), false), WRITE_BUFFER_SIZE));
                 }
 
                 try {
@@ -179,41 +185,46 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
 
                         appendProgressText("Exporting data...");
 
-                        rs = resultSetForExport(importExportFile, columns);
-                        ResultSetMetaData rsmd = rs.getMetaData();
-
                         String insertStatement = insertStatementForTable(importExportFile, columns);
 
-                        while (rs.next()) {
+                        long exportedRecords = -1;
+                        if (parallelExport.isApplicable(dataRowCount)) {
+
+                            exportedRecords = parallelExport.export(
+                                    selectStatementForExport(importExportFile, columns),
+                                    tableNameForQuery(table),
+                                    table.getSchemaName(),
+                                    table.getName(),
+                                    () -> new SqlRowWriter(insertStatement),
+                                    writer,
+                                    Charset.defaultCharset(),
+                                    count -> setProgressStatus((int) count));
+                        }
 
-                            if (Thread.interrupted()) {
+                        if (exportedRecords >= 0) {
 
-                                setProgressStatus(dataRowCount);
-                                throw new InterruptedException();
-                            }
+                            totalRecordCount += exportedRecords;
 
-                            sb.append(insertStatement);
+                        } else {
 
-                            for (int i = 1, n = rsmd.getColumnCount(); i <= n; i++) {
+                            rs = resultSetForExport(importExportFile, columns);
+                            SqlRowWriter rowWriter = new SqlRowWriter(insertStatement);
 
-                                String value = formatNextValue(rs, i, rsmd.getColumnType(i));
-                                sb.append(value);
+                            while (rs.next()) {
 
-                                if (i < n) {
+                                if (Thread.interrupted()) {
 
-                                    sb.append(", ");
+                                    setProgressStatus(dataRowCount);
+                                    throw new InterruptedException();
                                 }
 
-                            }
-
-                            sb.append(");\n");
-                            writer.println(sb.toString());
-                            sb.setLength(0);
+                                rowWriter.write(rs, writer);
 
-                            recordCount++;
-                            totalRecordCount++;
+                                recordCount++;
+                                totalRecordCount++;
 
-                            setProgressStatus(recordCount);
+                                setProgressStatus(recordCount);
+                            }
                         }
 
                     }
@@ -300,6 +311,8 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
 
         } finally {
 
+            parallelExport.close();
+
             finish();
             releaseConnection();
             setTableCount(tableCount);
@@ -345,82 +358,133 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
 
     private static final String NULL_STRING = "NULL";
 
-    private String formatNextValue(ResultSet rs, int index, int columnType)
-            throws SQLException {
+    /**
+     * Formats the result set row as an insert statement. Every thread
+     * of a parallel export uses its own instance.
+     */
+    private class SqlRowWriter implements ParallelTableExport.RowWriter {
+
+        private final String insertStatement;
 
-        Object value = rs.getObject(index);
-        if (rs.wasNull() || value == null) {
+        private final StringBuilder sb = new StringBuilder();
 
-            return NULL_STRING;
+        private final Matcher newLineMatcher = Pattern.compile("\n").matcher(StringUtils.EMPTY);
+        private final Matcher carriageReturnMatcher = Pattern.compile("\r").matcher(StringUtils.EMPTY);
+        private final Matcher quoteMatcher = Pattern.compile("'").matcher(StringUtils.EMPTY);
+
+        private int[] columnTypes;
+
+        SqlRowWriter(String insertStatement) {
+            this.insertStatement = insertStatement;
         }
 
-        switch (columnType) {
+        @Override
+        public void write(ResultSet rs, Writer writer) throws SQLException, IOException {
+
+            if (columnTypes == null) {
 
-            case Types.LONGVARCHAR:
-            case Types.CHAR:
-            case Types.VARCHAR:
-                return "'" + formatString(value.toString()) + "'";
+                ResultSetMetaData rsmd = rs.getMetaData();
+                columnTypes = new int[rsmd.getColumnCount()];
+                for (int i = 0; i < columnTypes.length; i++) {
 
-            case Types.DATE:
-            case Types.TIME:
-            case Types.TIMESTAMP:
-                return "'" + value.toString() + "'";
+                    columnTypes[i] = rsmd.getColumnType(i + 1);
+                }
+            }
 
-            // TODO: not really sure how well this will work with blobs et al
+            sb.append(insertStatement);
 
-            case Types.LONGVARBINARY:
-            case Types.BINARY:
-            case Types.BLOB:
-            case Types.CLOB:
-                return Base64.encodeBytes(
-                        MiscUtils.inputStreamToBytes(rs.getBinaryStream(index)));
+            for (int i = 1, n = columnTypes.length; i <= n; i++) {
 
-            case Types.BOOLEAN:
-                boolean boolValue = ((Boolean) value).booleanValue();
+                String value = formatNextValue(rs, i, columnTypes[i - 1]);
+                sb.append(value);
 
-                return boolValue ? "true" : "false";
+                if (i < n) {
 
-            case Types.BIT:
-            case Types.TINYINT:
-            case Types.INT128:
-            case Types.BIGINT:
-            case Types.NUMERIC:
-            case Types.DECIMAL:
-            case Types.INTEGER:
-            case Types.SMALLINT:
-            case Types.FLOAT:
-            case Types.REAL:
-            case Types.DOUBLE:
-                return value.toString();
+                    sb.append(", ");
+                }
 
-            default:
-                return "'" + formatString(value.toString()) + "'";
+            }
 
+            sb.append(");\n");
+            sb.append(System.lineSeparator());
+            writer.append(sb);
+            sb.setLength(0);
         }
 
-    }
+        private String formatNextValue(ResultSet rs, int index, int columnType)
+                throws SQLException {
 
-    private static final String NEW_LINE_REPLACEMENT = "\\\\n";
-    private static final String CARRIAGE_RETURN_REPLACEMENT = "\\\\r";
-    private static final String QUOTE_REPLACEMENT = "''";
+            Object value = rs.getObject(index);
+            if (rs.wasNull() || value == null) {
+
+                return NULL_STRING;
+            }
+
+            switch (columnType) {
+
+                case Types.LONGVARCHAR:
+                case Types.CHAR:
+                case Types.VARCHAR:
+                    return "'" + formatString(value.toString()) + "'";
+
+                case Types.DATE:
+                case Types.TIME:
+                case Types.TIMESTAMP:
+                    return "'" + value.toString() + "'";
 
-    private Matcher newLineMatcher = Pattern.compile("\n").matcher(StringUtils.EMPTY);
-    private Matcher carriageReturnMatcher = Pattern.compile("\r").matcher(StringUtils.EMPTY);
-    private Matcher quoteMatcher = Pattern.compile("'").matcher(StringUtils.EMPTY);
+                // TODO: not really sure how well this will work with blobs et al
 
-    private String formatString(String value) {
+                case Types.LONGVARBINARY:
+                case Types.BINARY:
+                case Types.BLOB:
+                case Types.CLOB:
+                    return Base64.encodeBytes(
+                            MiscUtils.inputStreamToBytes(rs.getBinaryStream(index)));
 
-        if (value != null) {
+                case Types.BOOLEAN:
+                    boolean boolValue = ((Boolean) value).booleanValue();
 
-            String formattedValue = newLineMatcher.reset(value).replaceAll(NEW_LINE_REPLACEMENT);
-            formattedValue = carriageReturnMatcher.reset(formattedValue).replaceAll(CARRIAGE_RETURN_REPLACEMENT);
-            formattedValue = quoteMatcher.reset(formattedValue).replaceAll(QUOTE_REPLACEMENT);
+                    return boolValue ? "true" : "false";
+
+                case Types.BIT:
+                case Types.TINYINT:
+                case Types.INT128:
+                case Types.BIGINT:
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                case Types.INTEGER:
+                case Types.SMALLINT:
+                case Types.FLOAT:
+                case Types.REAL:
+                case Types.DOUBLE:
+                    return value.toString();
+
+                default:
+                    return "'" + formatString(value.toString()) + "'";
+
+            }
 
-            return formattedValue;
         }
 
-        return value;
-    }
+        private String formatString(String value) {
+
+            if (value != null) {
+
+                String formattedValue = newLineMatcher.reset(value).replaceAll(NEW_LINE_REPLACEMENT);
+                formattedValue = carriageReturnMatcher.reset(formattedValue).replaceAll(CARRIAGE_RETURN_REPLACEMENT);
+                formattedValue = quoteMatcher.reset(formattedValue).replaceAll(QUOTE_REPLACEMENT);
+
+                return formattedValue;
+            }
+
+            return value;
+        }
+
+    } // class SqlRowWriter
+
+    private static final String NEW_LINE_REPLACEMENT = "\\\\n";
+    private static final String CARRIAGE_RETURN_REPLACEMENT = "\\\\r";
+    private static final String QUOTE_REPLACEMENT = "''";
 
     private StringBuilder stringBuilder = new StringBuilder();
 
@@ -491,18 +555,23 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
         }
 
         sb.append(" FROM ");
-        if (table.getParentNameForStatement() != null) {
-
-            sb.append(table.getParentNameForStatement());
-            sb.append(".");
-        }
-        sb.append(table.getNameForQuery());
+        sb.append(tableNameForQuery(table));
 
         Log.info("Executing query for export: [ " + sb + " ]");
 
         return sb.toString();
     }
 
+    private String tableNameForQuery(DatabaseTable table) {
+
+        if (table.getParentNameForStatement() != null) {
+
+            return table.getParentNameForStatement() + "." + table.getNameForQuery();
+        }
+
+        return table.getNameForQuery();
+    }
+
     private boolean isCreateTableStatementsIncluded() {
 
         return ((ExportAsSQLDataModel) importExportDataModel()).includeCreateTableStatements();
@@ -30,7 +30,8 @@ import org.underworldlabs.swing.util.SwingWorker;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -119,19 +120,15 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
 //        PrintWriter writer = null;
 
         BufferedWriter writer = null;
+        ParallelTableExport parallelExport = new ParallelTableExport(getParent().getDatabaseConnection());
         try {
 
             // define the delimiter
             String delim = getParent().getDelimiter();
 
-            // whether to trim whitespace
-            boolean trimWhitespace = getParent().trimWhitespace();
-
             // include the column names
             boolean includeColumnNames = getParent().includeColumnNames();
 
-            boolean quoteCharacterValues = getParent().quoteCharacterValues();
-
             // row data output buffer
             StringBuilder rowData = new StringBuilder(5000);
 
@@ -147,14 +144,6 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
             int recordCount = 0;
             int totalRecords = 0;
 
-            DateFormat dateFormat = null;
-
-            boolean parseDateValues = parseDateValues();
-            if (parseDateValues) {
-
-                dateFormat = createDateFormatter();
-            }
-
             // ----------------------------------------
             // --- begin looping through the tables ---
             // ----------------------------------------
@@ -187,7 +176,7 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
 
                 // initialise the writer
                 Path path = Paths.get(exportFile.getAbsolutePath());
-                writer = Files.newBufferedWriter(path, Charset.forName("UTF-8"));
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
 
                 // print the column names if specified to do so
                 if (includeColumnNames) {
@@ -205,80 +194,54 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
 
                 appendProgressText("Exporting data...");
 
-                // retrieve the result set
-                rset = getResultSet(dto.getTableName(), columns);
-
-                // start the loop over results
-                while (rset.next()) {
-
-                    if (Thread.interrupted()) {
-                        rset.close();
-                        rset = null;
-                        writer.close();
-                        setProgressStatus(totalRecords);
-                        throw new InterruptedException();
-                    }
-
-                    setProgressStatus(recordCount);
-
-                    for (int j = 1; j <= columnCount; j++) {
-
-                        String value = rset.getString(j);
-                        ColumnData column = columns.get(j - 1);
-
-                        if (value == null || rset.wasNull()) {
-
-                            value = Constants.EMPTY;
-
-                        } else {
-
-                            if ((parseDateValues && dateFormat != null) &&
-                                    column.isDateDataType()) {
-
-                                value = dateFormat.format(rset.getDate(j));
-
-                            } else {
-
-                                if (trimWhitespace) {
+                long exportedRecords = -1;
+                if (parallelExport.isApplicable(totalRecords)) {
+
+                    exportedRecords = parallelExport.export(
+                            getSelectStatement(dto.getTableName(), columns),
+                            getTableNameForQuery(dto.getTableName()),
+                            getParent().getSchemaName(),
+                            dto.getTableName(),
+                            () -> new DelimitedRowWriter(columns),
+                            writer,
+                            StandardCharsets.UTF_8,
+                            count -> setProgressStatus((int) count));
+                }
 
-                                    value = value.trim();
-                                }
+                if (exportedRecords >= 0) {
 
-                                value = formatString(value);
-                            }
+                    totalRecordCount += exportedRecords;
 
-                        }
+                } else {
 
-                        boolean isCharType = column.isCharacterType();
-                        if (isCharType && quoteCharacterValues) {
+                    DelimitedRowWriter rowWriter = new DelimitedRowWriter(columns);
 
-                            rowData.append("\"");
-                        }
+                    // retrieve the result set
+                    rset = getResultSet(dto.getTableName(), columns);
 
-                        rowData.append(value);
+                    // start the loop over results
+                    while (rset.next()) {
 
-                        if (isCharType && quoteCharacterValues) {
-
-                            rowData.append("\"");
+                        if (Thread.interrupted()) {
+                            rset.close();
+                            rset = null;
+                            writer.close();
+                            setProgressStatus(totalRecords);
+                            throw new InterruptedException();
                         }
 
-                        if (j != columnCount) {
+                        setProgressStatus(recordCount);
 
-                            rowData.append(delim);
-                        }
+                        rowWriter.write(rset, writer);
 
+                        totalRecordCount++;
+                        recordCount++;
                     }
 
-                    writer.write(rowData.toString());
-                    writer.newLine();
-
-                    rowData.setLength(0);
-                    totalRecordCount++;
-                    recordCount++;
+                    rset.close();
+                    stmnt.close();
                 }
 
-                rset.close();
-                stmnt.close();
                 writer.close();
 
                 setProgressStatus(totalRecords);
@@ -325,6 +288,8 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
                 }
             }
 
+            parallelExport.close();
+
             finish();
             setTableCount(tableCount);
             setRecordCount(totalRecordCount + errorCount);
@@ -336,16 +301,97 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
     private static final String NEW_LINE_REPLACEMENT = "\\\\n";
     private static final String CARRIAGE_RETURN_REPLACEMENT = "\\\\r";
 
-    private Matcher newLineMatcher = Pattern.compile("\n").matcher(StringUtils.EMPTY);
-    private Matcher carriageReturnMatcher = Pattern.compile("\r").matcher(StringUtils.EMPTY);
+    /**
+     * Formats the result set row as a delimited line. Every thread
+     * of a parallel export uses its own instance.
+     */
+    private class DelimitedRowWriter implements ParallelTableExport.RowWriter {
 
-    private String formatString(String value) {
+        private final List<ColumnData> columns;
 
-        String formattedValue = newLineMatcher.reset(value).replaceAll(NEW_LINE_REPLACEMENT);
-        formattedValue = carriageReturnMatcher.reset(formattedValue).replaceAll(CARRIAGE_RETURN_REPLACEMENT);
+        private final String delim = getParent().getDelimiter();
 
-        return formattedValue;
-    }
+        private final boolean trimWhitespace = getParent().trimWhitespace();
+
+        private final boolean quoteCharacterValues = getParent().quoteCharacterValues();
+
+        private final DateFormat dateFormat = parseDateValues() ? createDateFormatter() : null;
+
+        private final StringBuilder rowData = new StringBuilder(5000);
+
+        private final Matcher newLineMatcher = Pattern.compile("\n").matcher(StringUtils.EMPTY);
+        private final Matcher carriageReturnMatcher = Pattern.compile("\r").matcher(StringUtils.EMPTY);
+
+        DelimitedRowWriter(List<ColumnData> columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(ResultSet rset, Writer writer) throws SQLException, IOException {
+
+            int columnCount = columns.size();
+            for (int j = 1; j <= columnCount; j++) {
+
+                String value = rset.getString(j);
+                ColumnData column = columns.get(j - 1);
+
+                if (value == null || rset.wasNull()) {
+
+                    value = Constants.EMPTY;
+
+                } else {
+
+                    if (dateFormat != null && column.isDateDataType()) {
+
+                        value = dateFormat.format(rset.getDate(j));
+
+                    } else {
+
+                        if (trimWhitespace) {
+
+                            value = value.trim();
+                        }
+
+                        value = formatString(value);
+                    }
+
+                }
+
+                boolean isCharType = column.isCharacterType();
+                if (isCharType && quoteCharacterValues) {
+
+                    rowData.append("\"");
+                }
+
+                rowData.append(value);
+
+                if (isCharType && quoteCharacterValues) {
+
+                    rowData.append("\"");
+                }
+
+                if (j != columnCount) {
+
+                    rowData.append(delim);
+                }
+
+            }
+
+            rowData.append(System.lineSeparator());
+            writer.append(rowData);
+
+            rowData.setLength(0);
+        }
+
+        private String formatString(String value) {
+
+            String formattedValue = newLineMatcher.reset(value).replaceAll(NEW_LINE_REPLACEMENT);
+            formattedValue = carriageReturnMatcher.reset(formattedValue).replaceAll(CARRIAGE_RETURN_REPLACEMENT);
+
+            return formattedValue;
+        }
+
+    } // class DelimitedRowWriter
 
     private void logException(Throwable e) {
         if (Log.isDebugEnabled()) {
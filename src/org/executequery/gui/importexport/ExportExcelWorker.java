@@ -24,6 +24,7 @@ import org.executequery.Constants;
 import org.executequery.log.Log;
 import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.swing.util.SwingWorker;
+import org.underworldlabs.util.SystemProperties;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -108,6 +109,7 @@ public class ExportExcelWorker extends AbstractImportExportWorker
         int totalRecordCount = 0;
 
         FileOutputStream outputStream = null;
+        ExcelWorkbookBuilder builder = null;
 
         try {
 
@@ -125,7 +127,7 @@ public class ExportExcelWorker extends AbstractImportExportWorker
             int recordCount = 0;
             int totalRecords = 0;
 
-            ExcelWorkbookBuilder builder = createExcelWorkbookBuilder();
+            builder = createExcelWorkbookBuilder();
 
             String[][] sheetNames = _parent.getSheetNameValues();
 
@@ -300,6 +302,10 @@ public class ExportExcelWorker extends AbstractImportExportWorker
                 }
             }
 
+            if (builder != null) {
+                builder.dispose();
+            }
+
             finish();
             setTableCount(tableCount);
             setRecordCount(totalRecordCount + errorCount);
@@ -316,7 +322,10 @@ public class ExportExcelWorker extends AbstractImportExportWorker
 
     private ExcelWorkbookBuilder createExcelWorkbookBuilder() {
 
-        return new DefaultExcelWorkbookBuilder();
+        int rowWindow = SystemProperties.getIntProperty("user", "export.excel.row.window");
+        return rowWindow > 0 ?
+                new StreamingExcelWorkbookBuilder(rowWindow) :
+                new DefaultExcelWorkbookBuilder();
     }
 
     private void logException(Throwable e) {
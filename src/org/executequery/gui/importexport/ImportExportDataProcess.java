@@ -55,6 +55,8 @@ public interface ImportExportDataProcess {
 
     int SQL = 15;
 
+    int DUMP = 16;
+
     /**
      * The import from XML process
      */
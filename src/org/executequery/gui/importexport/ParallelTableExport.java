@@ -0,0 +1,529 @@
+/*
+ * ParallelTableExport.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import biz.redsoft.ITPB;
+import biz.redsoft.ITPBConstants;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.log.Log;
+import org.underworldlabs.jdbc.DataSourceException;
+import org.underworldlabs.util.DynamicLibraryLoader;
+import org.underworldlabs.util.MiscUtils;
+import org.underworldlabs.util.SystemProperties;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Parallel export of the table rows split into the ranges of the integer
+ * primary key.
+ * <p>
+ * The ranges are selected concurrently over several connections. The
+ * transactions of the connections share the snapshot of the first one
+ * (Firebird 4 snapshot sharing), so all the tables exported by one instance
+ * are read as a single select in one transaction would read them. Every
+ * range is written to a temporary file, the files are appended to the
+ * output in the key order as soon as all the preceding ranges are written.
+ * <p>
+ * A table is not split when it has no single column integer primary key or
+ * when the snapshot can not be shared - it is exported by the caller then.
+ */
+final class ParallelTableExport implements Closeable {
+
+    /**
+     * The writer of the current result set row.
+     */
+    interface RowWriter {
+
+        void write(ResultSet resultSet, Writer writer) throws SQLException, IOException;
+
+    } // interface RowWriter
+
+    private static final int RANGES_PER_CONNECTION = 4;
+
+    private static final int FETCH_SIZE = 10000;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final long PROGRESS_INTERVAL = 250;
+
+    private static final String SNAPSHOT_NUMBER_QUERY =
+            "SELECT RDB$GET_CONTEXT('SYSTEM', 'SNAPSHOT_NUMBER') FROM RDB$DATABASE";
+
+    private final DatabaseConnection databaseConnection;
+
+    private final int connectionCount;
+
+    private final int minRowCount;
+
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+
+    private final List<Connection> openedConnections = new ArrayList<>();
+
+    private final Set<Statement> runningStatements = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService executor;
+
+    /**
+     * Whether the connections of the shared snapshot are opened or could not be opened
+     */
+    private Boolean snapshotShared;
+
+    ParallelTableExport(DatabaseConnection databaseConnection) {
+
+        this.databaseConnection = databaseConnection;
+        connectionCount = SystemProperties.getIntProperty("user", "export.parallel.connections");
+        minRowCount = SystemProperties.getIntProperty("user", "export.parallel.min.rows");
+    }
+
+    /**
+     * Returns whether the table with the given number of the rows is worth splitting.
+     */
+    boolean isApplicable(long rowCount) {
+        return connectionCount > 1 && rowCount >= minRowCount;
+    }
+
+    /**
+     * Exports the table rows split into the ranges of its primary key.
+     *
+     * @param selectStatement the select of the exported columns from the table, without a where clause
+     * @param tableForQuery   the table name as it is used in the select statement
+     * @param schemaName      the schema name of the table or null
+     * @param tableName       the table name
+     * @param rowWriters      the factory of the row writers, one writer is used by one thread
+     * @param output          the output the rows are appended to
+     * @param charset         the charset of the output
+     * @param progress        the receiver of the number of the rows exported so far
+     * @return the number of the rows exported or -1 if the table is not split
+     */
+    long export(String selectStatement, String tableForQuery, String schemaName, String tableName,
+                Callable<RowWriter> rowWriters, Writer output, Charset charset, LongConsumer progress)
+            throws SQLException, IOException, InterruptedException {
+
+        if (!openSnapshotConnections())
+            return -1;
+
+        Connection connection = connections.take();
+        String keyColumn;
+        long[] bounds;
+        try {
+
+            keyColumn = getIntegerKeyColumn(connection, schemaName, tableName);
+            if (keyColumn == null) {
+                Log.info("Table " + tableName + " has no single column integer primary key, it is exported with one connection");
+                return -1;
+            }
+
+            bounds = getRangeBounds(connection, keyColumn, tableForQuery);
+            if (bounds == null)
+                return 0;
+
+        } finally {
+            connections.add(connection);
+        }
+
+        String rangeStatement = selectStatement + " WHERE " + keyColumn + " BETWEEN ? AND ?";
+        Log.info("Exporting " + tableName + " in " + (bounds.length - 1) + " ranges of " + keyColumn
+                + " over " + openedConnections.size() + " connections: [ " + rangeStatement + " ]");
+
+        AtomicLong exportedRows = new AtomicLong();
+        List<Future<File>> ranges = new ArrayList<>();
+        try {
+
+            for (int i = 0; i < bounds.length - 1; i++) {
+
+                long from = bounds[i];
+                long to = bounds[i + 1] - 1;
+                ranges.add(executor.submit(() -> exportRange(rangeStatement, from, to, rowWriters, charset, exportedRows)));
+            }
+
+            // the ranges are appended in order while the next ones are still selected
+            char[] buffer = new char[BUFFER_SIZE / 4];
+            for (Future<File> range : ranges) {
+
+                File file = waitFor(range, exportedRows, progress);
+                try (Reader reader = new InputStreamReader(new FileInputStream(file), charset)) {
+
+                    int read;
+                    while ((read = reader.read(buffer)) != -1)
+                        output.write(buffer, 0, read);
+
+                } finally {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+
+            progress.accept(exportedRows.get());
+            return exportedRows.get();
+
+        } finally {
+            cancel(ranges);
+        }
+    }
+
+    @Override
+    public void close() {
+
+        if (executor != null)
+            executor.shutdownNow();
+
+        for (Statement statement : runningStatements)
+            cancelStatement(statement);
+
+        try {
+            if (executor != null && !executor.awaitTermination(10, TimeUnit.SECONDS))
+                Log.warning("Parallel export threads are still running after the export is closed");
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Connection connection : openedConnections) {
+
+            try {
+                connection.rollback();
+
+            } catch (SQLException e) {
+                Log.debug("Error finishing the parallel export transaction", e);
+            }
+            ConnectionManager.close(databaseConnection, connection);
+        }
+
+        openedConnections.clear();
+        connections.clear();
+        executor = null;
+    }
+
+    /**
+     * Opens the connections with the transactions sharing the snapshot,
+     * once for all the tables exported.
+     *
+     * @return false if the snapshot can not be shared
+     */
+    private boolean openSnapshotConnections() throws SQLException {
+
+        if (snapshotShared != null)
+            return snapshotShared;
+
+        snapshotShared = false;
+        try {
+
+            Connection first = openConnection(null);
+            Long snapshotNumber = getSnapshotNumber(first);
+            if (snapshotNumber == null) {
+                Log.info("The server does not share the transaction snapshots, the tables are exported with one connection");
+                close();
+                return false;
+            }
+
+            for (int i = 1; i < connectionCount; i++) {
+
+                Connection connection = openConnection(snapshotNumber);
+                if (!snapshotNumber.equals(getSnapshotNumber(connection))) {
+                    Log.info("The transaction snapshot " + snapshotNumber + " is not shared by the driver, the tables are exported with one connection");
+                    close();
+                    return false;
+                }
+            }
+
+        } catch (SQLException | DataSourceException e) {
+            close();
+            throw e;
+        }
+
+        executor = Executors.newFixedThreadPool(openedConnections.size());
+        snapshotShared = true;
+        return true;
+    }
+
+    /**
+     * Opens the connection with the read only snapshot transaction.
+     *
+     * @param snapshotNumber the snapshot number the transaction starts at or null for a new one
+     */
+    private Connection openConnection(Long snapshotNumber) throws SQLException {
+
+        Connection connection = ConnectionManager.getTemporaryConnection(databaseConnection);
+        openedConnections.add(connection);
+
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+
+        // the snapshot sharing is checked after the transaction is started
+        ITPB tpb = createTpb();
+        if (tpb != null) {
+
+            try {
+                tpb.addArgument(ITPBConstants.isc_tpb_read);
+                tpb.addArgument(ITPBConstants.isc_tpb_concurrency);
+                tpb.addArgument(ITPBConstants.isc_tpb_nowait);
+                if (snapshotNumber != null)
+                    tpb.addArgument(ITPBConstants.isc_tpb_at_snapshot_number, snapshotNumber.longValue());
+
+                ConnectionManager.setTPBtoConnection(databaseConnection, connection, tpb);
+
+            } catch (RuntimeException e) {
+                Log.debug("Transaction parameters are not accepted for the parallel export", e);
+            }
+        }
+
+        connections.add(connection);
+        return connection;
+    }
+
+    private ITPB createTpb() {
+
+        try {
+            ITPB tpb = (ITPB) DynamicLibraryLoader.loadingObjectFromClassLoaderWithCS(
+                    databaseConnection.getDriverMajorVersion(),
+                    ConnectionManager.getClassLoaderForDatabaseConnection(databaseConnection),
+                    "ITPBImpl");
+            tpb.initTPB();
+            return tpb;
+
+        } catch (Exception e) {
+            Log.debug("Transaction parameters are not available for the parallel export", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the snapshot number of the connection transaction or null if it is unknown.
+     */
+    private static Long getSnapshotNumber(Connection connection) {
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(SNAPSHOT_NUMBER_QUERY)) {
+
+            if (resultSet.next()) {
+                String value = resultSet.getString(1);
+                return value != null ? Long.valueOf(value.trim()) : null;
+            }
+            return null;
+
+        } catch (SQLException | NumberFormatException e) {
+            Log.debug("Transaction snapshot number is not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the escaped name of the single column integer primary key or null.
+     */
+    private String getIntegerKeyColumn(Connection connection, String schemaName, String tableName) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        String keyColumn = null;
+        try (ResultSet keys = metaData.getPrimaryKeys(null, schemaName, tableName)) {
+
+            while (keys.next()) {
+                if (keyColumn != null)
+                    return null;
+                keyColumn = keys.getString("COLUMN_NAME");
+            }
+        }
+
+        if (keyColumn == null)
+            return null;
+
+        try (ResultSet columns = metaData.getColumns(null, schemaName, tableName, keyColumn)) {
+
+            if (!columns.next())
+                return null;
+
+            switch (columns.getInt("DATA_TYPE")) {
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return MiscUtils.getFormattedObject(keyColumn.trim(), databaseConnection);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Splits the key values into the ranges.
+     *
+     * @return the first key of every range followed by the last key plus one
+     * or null if the table is empty
+     */
+    private long[] getRangeBounds(Connection connection, String keyColumn, String tableForQuery) throws SQLException {
+
+        long min;
+        long max;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + tableForQuery)) {
+
+            if (!resultSet.next())
+                return null;
+
+            min = resultSet.getLong(1);
+            if (resultSet.wasNull())
+                return null;
+            max = resultSet.getLong(2);
+        }
+
+        // the key span may exceed the long range
+        BigInteger first = BigInteger.valueOf(min);
+        BigInteger span = BigInteger.valueOf(max).subtract(first).add(BigInteger.ONE);
+        int rangeCount = (int) Math.min(openedConnections.size() * RANGES_PER_CONNECTION, span.min(BigInteger.valueOf(Integer.MAX_VALUE)).longValue());
+
+        long[] bounds = new long[rangeCount + 1];
+        for (int i = 0; i < rangeCount; i++)
+            bounds[i] = first.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(rangeCount))).longValue();
+
+        // the last key plus one, the long overflow is reverted by the range end calculation
+        bounds[rangeCount] = max + 1;
+        return bounds;
+    }
+
+    /**
+     * Selects the rows of the key range to a temporary file.
+     */
+    private File exportRange(String rangeStatement, long from, long to, Callable<RowWriter> rowWriters,
+                             Charset charset, AtomicLong exportedRows) throws Exception {
+
+        RowWriter rowWriter = rowWriters.call();
+        Connection connection = connections.take();
+
+        File file = null;
+        PreparedStatement statement = null;
+        try {
+
+            file = Files.createTempFile("export-range", ".tmp").toFile();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charset), BUFFER_SIZE)) {
+
+                statement = connection.prepareStatement(rangeStatement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(FETCH_SIZE);
+                statement.setLong(1, from);
+                statement.setLong(2, to);
+                runningStatements.add(statement);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+
+                    while (resultSet.next()) {
+
+                        if (Thread.currentThread().isInterrupted())
+                            throw new InterruptedException();
+
+                        rowWriter.write(resultSet, writer);
+                        exportedRows.incrementAndGet();
+                    }
+                }
+            }
+
+            return file;
+
+        } catch (Exception e) {
+            if (file != null)
+                Files.deleteIfExists(file.toPath());
+            throw e;
+
+        } finally {
+            if (statement != null) {
+                runningStatements.remove(statement);
+                statement.close();
+            }
+            connections.add(connection);
+        }
+    }
+
+    private static File waitFor(Future<File> range, AtomicLong exportedRows, LongConsumer progress)
+            throws SQLException, IOException, InterruptedException {
+
+        while (true) {
+
+            try {
+                return range.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+
+            } catch (TimeoutException e) {
+                progress.accept(exportedRows.get());
+
+            } catch (ExecutionException e) {
+
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException)
+                    throw (SQLException) cause;
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+                if (cause instanceof InterruptedException)
+                    throw (InterruptedException) cause;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * Stops the ranges not exported yet and removes their files.
+     */
+    private void cancel(List<Future<File>> ranges) {
+
+        boolean cancelled = false;
+        for (Future<File> range : ranges)
+            cancelled |= range.cancel(true);
+
+        if (!cancelled)
+            return;
+
+        for (Statement statement : runningStatements)
+            cancelStatement(statement);
+
+        for (Future<File> range : ranges) {
+
+            if (range.isCancelled())
+                continue;
+
+            try {
+                Files.deleteIfExists(range.get().toPath());
+
+            } catch (Exception e) {
+                // the range is failed or its file is appended already
+            }
+        }
+    }
+
+    private static void cancelStatement(Statement statement) {
+
+        try {
+            statement.cancel();
+
+        } catch (SQLException e) {
+            Log.debug("Error cancelling the parallel export statement", e);
+        }
+    }
+
+}
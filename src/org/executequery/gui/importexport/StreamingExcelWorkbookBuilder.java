@@ -0,0 +1,221 @@
+/*
+ * StreamingExcelWorkbookBuilder.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.executequery.log.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Workbook builder keeping only a window of the last rows in memory.
+ * <p>
+ * The rows out of the window are flushed to the compressed temporary
+ * files and copied into the workbook file when it is written. A sheet
+ * reaching the row limit of the format is continued on a new sheet with
+ * the same header.
+ */
+public class StreamingExcelWorkbookBuilder implements ExcelWorkbookBuilder {
+
+    private static final int MAX_ROW_INDEX = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private final int rowWindow;
+
+    private SXSSFWorkbook workbook;
+
+    private SXSSFSheet currentSheet;
+
+    private CellStyle defaultCellStyle;
+
+    private CellStyle headerCellStyle;
+
+    private String sheetName;
+
+    private int sheetCount;
+
+    private int currentRow;
+
+    private List<String> header;
+
+    /**
+     * @param rowWindow the number of the last rows kept in memory
+     */
+    public StreamingExcelWorkbookBuilder(int rowWindow) {
+
+        this.rowWindow = rowWindow;
+    }
+
+    public void reset() {
+
+        currentRow = 0;
+        currentSheet = null;
+        header = null;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+
+        if (workbook == null) {
+
+            createWorkbook();
+        }
+
+        try {
+
+            workbook.write(outputStream);
+
+        } finally {
+
+            // the next sheets go to a new workbook
+            dispose();
+        }
+    }
+
+    public void createSheet(String sheetName) {
+
+        if (workbook == null) {
+
+            createWorkbook();
+        }
+
+        this.sheetName = sheetName;
+        this.sheetCount = 1;
+        currentSheet = workbook.createSheet(uniqueSheetName(sheetName, null));
+    }
+
+    public void addRow(List<String> values) {
+
+        if (currentRow == MAX_ROW_INDEX) {
+
+            continueOnNewSheet();
+        }
+
+        fillRow(values, currentSheet.createRow(++currentRow), defaultCellStyle);
+    }
+
+    public void addRowHeader(List<String> values) {
+
+        if (currentRow > 0) {
+
+            currentRow++;
+        }
+
+        header = new ArrayList<>(values);
+        fillRow(values, currentSheet.createRow(currentRow), headerCellStyle);
+    }
+
+    public void dispose() {
+
+        if (workbook == null) {
+
+            return;
+        }
+
+        try {
+
+            workbook.dispose();
+            workbook.close();
+
+        } catch (IOException e) {
+
+            Log.warning("Error releasing the Excel export temporary files: " + e.getMessage());
+        }
+
+        workbook = null;
+        currentSheet = null;
+    }
+
+    private void createWorkbook() {
+
+        workbook = new SXSSFWorkbook(null, rowWindow, true, false);
+        defaultCellStyle = workbook.createCellStyle();
+
+        Font font = workbook.createFont();
+        font.setBold(true);
+
+        headerCellStyle = workbook.createCellStyle();
+        headerCellStyle.setFont(font);
+    }
+
+    private void continueOnNewSheet() {
+
+        sheetCount++;
+        currentSheet = workbook.createSheet(uniqueSheetName(sheetName, " (" + sheetCount + ")"));
+        currentRow = 0;
+
+        if (header != null) {
+
+            fillRow(header, currentSheet.createRow(currentRow), headerCellStyle);
+        }
+
+        Log.info("Excel export of " + sheetName + " is continued on the sheet " + currentSheet.getSheetName());
+    }
+
+    /**
+     * Returns the sheet name valid for the workbook and not used in it yet.
+     */
+    private String uniqueSheetName(String name, String suffix) {
+
+        String safeName = WorkbookUtil.createSafeSheetName(name);
+        String sheetName = withSuffix(safeName, suffix);
+
+        for (int i = 2; workbook.getSheetIndex(sheetName) != -1; i++) {
+
+            sheetName = withSuffix(safeName, (suffix != null ? suffix : "") + "~" + i);
+        }
+
+        return sheetName;
+    }
+
+    private static String withSuffix(String name, String suffix) {
+
+        if (suffix == null) {
+
+            return name;
+        }
+
+        int length = Math.min(name.length(), MAX_SHEET_NAME_LENGTH - suffix.length());
+        return name.substring(0, length) + suffix;
+    }
+
+    private void fillRow(List<String> values, SXSSFRow row, CellStyle style) {
+
+        for (int i = 0, n = values.size(); i < n; i++) {
+
+            SXSSFCell cell = row.createCell(i);
+            cell.setCellStyle(style);
+            cell.setCellValue(values.get(i));
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * TableDumpColumn.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import org.executequery.databaseobjects.DatabaseColumn;
+import org.executequery.databaseobjects.Types;
+
+/**
+ * The column of the binary table dump, as it is described in the dump header.
+ * <p>
+ * The values of the column are stored in the form of its storage kind,
+ * derived from the JDBC type of the column.
+ */
+public final class TableDumpColumn {
+
+    static final byte KIND_LONG = 1;
+    static final byte KIND_DOUBLE = 2;
+    static final byte KIND_DECIMAL = 3;
+    static final byte KIND_BOOLEAN = 4;
+    static final byte KIND_STRING = 5;
+    static final byte KIND_BYTES = 6;
+    static final byte KIND_DATE = 7;
+    static final byte KIND_TIME = 8;
+    static final byte KIND_TIMESTAMP = 9;
+
+    private final String name;
+    private final int sqlType;
+    private final String typeName;
+    private final int size;
+    private final int scale;
+    private final boolean nullable;
+    private final byte kind;
+
+    public TableDumpColumn(String name, int sqlType, String typeName, int size, int scale, boolean nullable) {
+        this.name = name;
+        this.sqlType = sqlType;
+        this.typeName = typeName != null ? typeName : "";
+        this.size = size;
+        this.scale = scale;
+        this.nullable = nullable;
+        this.kind = kindOf(sqlType);
+    }
+
+    /**
+     * Creates the dump column of the table column metadata.
+     */
+    public static TableDumpColumn of(DatabaseColumn column) {
+        return new TableDumpColumn(
+                column.getName(),
+                column.getTypeInt(),
+                column.getTypeName(),
+                column.getColumnSize(),
+                column.getColumnScale(),
+                !column.isRequired());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * Returns whether the values are the LOB contents.
+     */
+    public boolean isLob() {
+        return kind == KIND_BYTES;
+    }
+
+    byte getKind() {
+        return kind;
+    }
+
+    private static byte kindOf(int sqlType) {
+
+        switch (sqlType) {
+
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return KIND_LONG;
+
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return KIND_DOUBLE;
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INT128:
+                return KIND_DECIMAL;
+
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return KIND_BOOLEAN;
+
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.LONGVARCHAR:
+            case Types.BLOB:
+            case Types.CLOB:
+                return KIND_BYTES;
+
+            case Types.DATE:
+                return KIND_DATE;
+
+            case Types.TIME:
+                return KIND_TIME;
+
+            case Types.TIMESTAMP:
+                return KIND_TIMESTAMP;
+
+            default:
+                // the texts and the values of the types without a binary form
+                return KIND_STRING;
+        }
+    }
+
+}
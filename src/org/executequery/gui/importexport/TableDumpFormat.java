@@ -0,0 +1,102 @@
+/*
+ * TableDumpFormat.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The layout of the binary table dump.
+ * <pre>
+ * file   := header block* end
+ * header := MAGIC VERSION tableName columnCount column*
+ * column := name sqlType typeName size scale nullable
+ * block  := rowCount(&gt;0) compressed rawLength storedLength bytes
+ * end    := rowCount(0) totalRowCount
+ * </pre>
+ * The block bytes, deflated unless the compression does not pay off,
+ * hold the columns one after another. A column starts with its null
+ * flags followed by the values which are not null, stored plain, as the
+ * runs of the same value or as the indexes of a dictionary - whichever
+ * is the most compact for the block.
+ */
+final class TableDumpFormat {
+
+    static final byte[] MAGIC = {'R', 'X', 'D', 'U', 'M', 'P'};
+
+    static final int VERSION = 1;
+
+    static final String FILE_EXTENSION = "rxd";
+
+    static final int BLOCK_ROWS = 4096;
+
+    static final byte NO_NULLS = 0;
+    static final byte SOME_NULLS = 1;
+    static final byte ALL_NULLS = 2;
+
+    static final byte PLAIN = 0;
+    static final byte RUN_LENGTH = 1;
+    static final byte DICTIONARY = 2;
+
+    private TableDumpFormat() {
+    }
+
+    static void writeVarLong(DataOutput output, long value) throws IOException {
+
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput input) throws IOException {
+
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable length number in the dump");
+    }
+
+    static void writeSignedVarLong(DataOutput output, long value) throws IOException {
+        writeVarLong(output, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedVarLong(DataInput input) throws IOException {
+        long value = readVarLong(input);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int readLength(DataInput input) throws IOException {
+
+        long length = readVarLong(input);
+        if (length < 0 || length > Integer.MAX_VALUE)
+            throw new IOException("Malformed length in the dump: " + length);
+        return (int) length;
+    }
+
+}
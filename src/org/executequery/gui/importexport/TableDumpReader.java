@@ -0,0 +1,436 @@
+/*
+ * TableDumpReader.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import org.executequery.databaseobjects.Types;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.executequery.gui.importexport.TableDumpFormat.*;
+
+/**
+ * Reader of the binary table dump written by {@link TableDumpWriter}.
+ * <p>
+ * The dump is read one block at a time. The values are given as the
+ * objects of the column type - the numbers, the texts, the byte arrays
+ * of the LOB contents and the <code>java.time</code> dates and times.
+ */
+public class TableDumpReader implements Closeable {
+
+    private final DataInputStream input;
+
+    private final String tableName;
+
+    private final List<TableDumpColumn> columns;
+
+    private final Object[][] blockValues;
+
+    private final Inflater inflater = new Inflater();
+
+    private byte[] raw = new byte[1 << 16];
+
+    private byte[] stored = new byte[1 << 16];
+
+    private DataInputStream rawInput;
+
+    private int blockRowCount;
+
+    private int blockRow;
+
+    private long row = -1;
+
+    private boolean endOfDump;
+
+    /**
+     * Reads the dump header.
+     *
+     * @param inputStream the input, closed with the reader
+     */
+    public TableDumpReader(InputStream inputStream) throws IOException {
+
+        this.input = new DataInputStream(new BufferedInputStream(inputStream, 1 << 16));
+        try {
+
+            byte[] magic = new byte[MAGIC.length];
+            input.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IOException("The file is not a table dump");
+
+            int version = input.readUnsignedByte();
+            if (version != VERSION)
+                throw new IOException("The table dump version " + version + " is not supported");
+
+            tableName = input.readUTF();
+
+            int columnCount = readLength(input);
+            List<TableDumpColumn> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columns.add(new TableDumpColumn(
+                        input.readUTF(),
+                        input.readInt(),
+                        input.readUTF(),
+                        input.readInt(),
+                        input.readInt(),
+                        input.readBoolean()));
+            }
+            this.columns = Collections.unmodifiableList(columns);
+            this.blockValues = new Object[columnCount][];
+
+        } catch (EOFException e) {
+            close();
+            throw new IOException("The table dump header is truncated", e);
+
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the name of the dumped table, empty if it is not known.
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<TableDumpColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the index of the named column or -1 if there is no such column.
+     */
+    public int getColumnIndex(String name) {
+
+        for (int i = 0; i < columns.size(); i++)
+            if (columns.get(i).getName().equals(name))
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * Returns the index of the current row, starting from 0.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return false at the end of the dump
+     */
+    public boolean next() throws IOException {
+
+        if (++blockRow >= blockRowCount && !readBlock())
+            return false;
+
+        row++;
+        return true;
+    }
+
+    /**
+     * Skips the given number of the rows.
+     *
+     * @return false if the dump has fewer rows
+     */
+    public boolean skipRows(long count) throws IOException {
+
+        for (long i = 0; i < count; i++)
+            if (!next())
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Returns the value of the column in the current row or null for the NULL value.
+     */
+    public Object getValue(int column) {
+        return blockValues[column][blockRow];
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        input.close();
+    }
+
+    private boolean readBlock() throws IOException {
+
+        if (endOfDump)
+            return false;
+
+        try {
+
+            int rowCount = readLength(input);
+            if (rowCount == 0) {
+
+                long totalRowCount = readVarLong(input);
+                if (totalRowCount != row + 1)
+                    throw new IOException("The table dump has " + (row + 1) + " rows of " + totalRowCount);
+
+                endOfDump = true;
+                blockRowCount = 0;
+                return false;
+            }
+
+            boolean compressed = input.readBoolean();
+            int rawLength = readLength(input);
+            int storedLength = readLength(input);
+
+            if (stored.length < storedLength)
+                stored = new byte[storedLength];
+            input.readFully(stored, 0, storedLength);
+
+            byte[] block = stored;
+            if (compressed) {
+                if (raw.length < rawLength)
+                    raw = new byte[rawLength];
+                inflate(storedLength, rawLength);
+                block = raw;
+            }
+
+            rawInput = new DataInputStream(new ByteArrayInputStream(block, 0, rawLength));
+            for (int col = 0; col < columns.size(); col++)
+                blockValues[col] = readColumn(columns.get(col), rowCount);
+
+            blockRowCount = rowCount;
+            blockRow = 0;
+            return true;
+
+        } catch (EOFException e) {
+            throw new IOException("The table dump is truncated after the row " + (row + 1), e);
+        }
+    }
+
+    private void inflate(int storedLength, int rawLength) throws IOException {
+
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                length += inflated;
+            }
+
+            if (length != rawLength)
+                throw new IOException("The table dump block is corrupted after the row " + (row + 1));
+
+        } catch (DataFormatException e) {
+            throw new IOException("The table dump block is corrupted after the row " + (row + 1), e);
+        }
+    }
+
+    private Object[] readColumn(TableDumpColumn column, int count) throws IOException {
+
+        Object[] values = new Object[count];
+
+        byte nullFlag = rawInput.readByte();
+        if (nullFlag == ALL_NULLS)
+            return values;
+
+        byte[] nullBitmap = null;
+        int nonNullCount = count;
+        if (nullFlag == SOME_NULLS) {
+
+            nullBitmap = new byte[(count + 7) / 8];
+            rawInput.readFully(nullBitmap);
+            for (int i = 0; i < count; i++)
+                if (isNull(nullBitmap, i))
+                    nonNullCount--;
+        }
+
+        Object[] nonNullValues = readValues(column, nonNullCount);
+        if (nullBitmap == null)
+            return nonNullValues;
+
+        for (int i = 0, j = 0; i < count; i++)
+            if (!isNull(nullBitmap, i))
+                values[i] = nonNullValues[j++];
+
+        return values;
+    }
+
+    private static boolean isNull(byte[] nullBitmap, int row) {
+        return (nullBitmap[row >> 3] & (1 << (row & 7))) != 0;
+    }
+
+    private Object[] readValues(TableDumpColumn column, int count) throws IOException {
+
+        Object[] values = new Object[count];
+        byte kind = column.getKind();
+
+        byte encoding = rawInput.readByte();
+        switch (encoding) {
+
+            case RUN_LENGTH:
+                int runCount = readLength(rawInput);
+                for (int run = 0, i = 0; run < runCount; run++) {
+
+                    int length = readLength(rawInput);
+                    if (i + length > count)
+                        throw new IOException("Malformed run of the column " + column.getName());
+
+                    Object value = readValue(column, readStoredValue(kind));
+                    Arrays.fill(values, i, i + length, value);
+                    i += length;
+                }
+                break;
+
+            case DICTIONARY:
+                int dictionarySize = readLength(rawInput);
+                Object[] dictionary = new Object[dictionarySize];
+                for (int i = 0; i < dictionarySize; i++)
+                    dictionary[i] = readStoredValue(kind);
+
+                for (int i = 0; i < count; i++) {
+
+                    int index = readLength(rawInput);
+                    if (index >= dictionarySize)
+                        throw new IOException("Malformed dictionary index of the column " + column.getName());
+
+                    values[i] = readValue(column, dictionary[index]);
+                }
+                break;
+
+            case PLAIN:
+                boolean deltas = kind == TableDumpColumn.KIND_LONG || kind == TableDumpColumn.KIND_DATE || kind == TableDumpColumn.KIND_TIME;
+                long previous = 0;
+                for (int i = 0; i < count; i++) {
+
+                    Object value;
+                    if (deltas) {
+                        previous += readSignedVarLong(rawInput);
+                        value = previous;
+
+                    } else
+                        value = readStoredValue(kind);
+
+                    values[i] = readValue(column, value);
+                }
+                break;
+
+            default:
+                throw new IOException("Unknown encoding " + encoding + " of the column " + column.getName());
+        }
+
+        return values;
+    }
+
+    private Object readStoredValue(byte kind) throws IOException {
+
+        switch (kind) {
+
+            case TableDumpColumn.KIND_LONG:
+            case TableDumpColumn.KIND_DATE:
+            case TableDumpColumn.KIND_TIME:
+                return readSignedVarLong(rawInput);
+
+            case TableDumpColumn.KIND_DOUBLE:
+                return Double.longBitsToDouble(rawInput.readLong());
+
+            case TableDumpColumn.KIND_DECIMAL:
+                int scale = (int) readSignedVarLong(rawInput);
+                return new BigDecimal(new BigInteger(readBytes()), scale);
+
+            case TableDumpColumn.KIND_BOOLEAN:
+                return rawInput.readBoolean();
+
+            case TableDumpColumn.KIND_STRING:
+                return new String(readBytes(), StandardCharsets.UTF_8);
+
+            case TableDumpColumn.KIND_BYTES:
+                return readBytes();
+
+            case TableDumpColumn.KIND_TIMESTAMP:
+                long epochSecond = readSignedVarLong(rawInput);
+                int nano = (int) readVarLong(rawInput);
+                return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+
+            default:
+                throw new IOException("Unknown column kind " + kind);
+        }
+    }
+
+    private byte[] readBytes() throws IOException {
+
+        byte[] bytes = new byte[readLength(rawInput)];
+        rawInput.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Converts the stored value to the object of the column type.
+     */
+    private static Object readValue(TableDumpColumn column, Object value) {
+
+        switch (column.getKind()) {
+
+            case TableDumpColumn.KIND_LONG:
+                long longValue = (Long) value;
+                return column.getSqlType() == Types.BIGINT ? (Object) longValue : (Object) (int) longValue;
+
+            case TableDumpColumn.KIND_DOUBLE:
+                double doubleValue = (Double) value;
+                return column.getSqlType() == Types.REAL ? (Object) (float) doubleValue : (Object) doubleValue;
+
+            case TableDumpColumn.KIND_DATE:
+                return LocalDate.ofEpochDay((Long) value);
+
+            case TableDumpColumn.KIND_TIME:
+                return LocalTime.ofNanoOfDay((Long) value);
+
+            case TableDumpColumn.KIND_STRING:
+                // the zoned values not in the ISO form are given as the texts
+                try {
+                    if (column.getSqlType() == Types.TIME_WITH_TIMEZONE)
+                        return OffsetTime.parse((String) value);
+                    if (column.getSqlType() == Types.TIMESTAMP_WITH_TIMEZONE)
+                        return OffsetDateTime.parse((String) value);
+
+                } catch (DateTimeException e) {
+                    return value;
+                }
+                return value;
+
+            default:
+                return value;
+        }
+    }
+
+}
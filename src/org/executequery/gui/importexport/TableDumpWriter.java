@@ -0,0 +1,471 @@
+/*
+ * TableDumpWriter.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.Deflater;
+
+import static org.executequery.gui.importexport.TableDumpFormat.*;
+
+/**
+ * Writer of the binary table dump.
+ * <p>
+ * The rows are collected into the blocks of {@link TableDumpFormat#BLOCK_ROWS}
+ * rows, every block is written column by column, encoded and deflated. The
+ * values are converted to the storage kind of their column when they are
+ * added, so the values of the result set, of the table model or the texts
+ * are accepted as they are.
+ *
+ * @see TableDumpReader
+ */
+public class TableDumpWriter implements Closeable {
+
+    private final DataOutputStream output;
+
+    private final TableDumpColumn[] columns;
+
+    private final Object[][] blockValues;
+
+    private final ByteArrayOutputStream rawBlock = new ByteArrayOutputStream(1 << 16);
+
+    private final DataOutputStream rawOutput = new DataOutputStream(rawBlock);
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    private byte[] compressed = new byte[1 << 16];
+
+    private int blockRowCount;
+
+    private long rowCount;
+
+    private boolean closed;
+
+    /**
+     * Writes the dump header.
+     *
+     * @param outputStream the output, closed with the writer
+     * @param tableName    the name of the dumped table or null
+     * @param columns      the columns of the dumped rows
+     */
+    public TableDumpWriter(OutputStream outputStream, String tableName, List<TableDumpColumn> columns) throws IOException {
+
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        this.columns = columns.toArray(new TableDumpColumn[0]);
+        this.blockValues = new Object[this.columns.length][BLOCK_ROWS];
+
+        try {
+
+            output.write(MAGIC);
+            output.writeByte(VERSION);
+            output.writeUTF(tableName != null ? tableName : "");
+
+            writeVarLong(output, this.columns.length);
+            for (TableDumpColumn column : this.columns) {
+                output.writeUTF(column.getName());
+                output.writeInt(column.getSqlType());
+                output.writeUTF(column.getTypeName());
+                output.writeInt(column.getSize());
+                output.writeInt(column.getScale());
+                output.writeBoolean(column.isNullable());
+            }
+
+        } catch (IOException | RuntimeException e) {
+            deflater.end();
+            output.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the row with the values of all the columns, null for the NULL values.
+     */
+    public void addRow(Object[] values) throws IOException {
+
+        if (values.length != columns.length)
+            throw new IllegalArgumentException("The row has " + values.length + " values for " + columns.length + " columns");
+
+        for (int col = 0; col < columns.length; col++) {
+
+            try {
+                blockValues[col][blockRowCount] = values[col] != null ? toKind(columns[col].getKind(), values[col]) : null;
+
+            } catch (RuntimeException e) {
+                throw new IOException("The value of the column " + columns[col].getName() + " in the row " + (rowCount + 1)
+                        + " can not be stored as " + columns[col].getTypeName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        rowCount++;
+        if (++blockRowCount == BLOCK_ROWS)
+            writeBlock();
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the rows left and the end of the dump.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed)
+            return;
+        closed = true;
+
+        try {
+
+            if (blockRowCount > 0)
+                writeBlock();
+
+            writeVarLong(output, 0);
+            writeVarLong(output, rowCount);
+
+        } finally {
+            deflater.end();
+            output.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+
+        rawBlock.reset();
+        for (int col = 0; col < columns.length; col++) {
+            writeColumn(columns[col].getKind(), blockValues[col], blockRowCount);
+            Arrays.fill(blockValues[col], 0, blockRowCount, null);
+        }
+
+        byte[] raw = rawBlock.toByteArray();
+        int compressedLength = deflate(raw);
+
+        writeVarLong(output, blockRowCount);
+        if (compressedLength < raw.length) {
+
+            output.writeBoolean(true);
+            writeVarLong(output, raw.length);
+            writeVarLong(output, compressedLength);
+            output.write(compressed, 0, compressedLength);
+
+        } else {
+
+            output.writeBoolean(false);
+            writeVarLong(output, raw.length);
+            writeVarLong(output, raw.length);
+            output.write(raw);
+        }
+
+        blockRowCount = 0;
+    }
+
+    /**
+     * Deflates the raw block into the compressed buffer.
+     *
+     * @return the compressed length or the raw length if it does not pay off
+     */
+    private int deflate(byte[] raw) {
+
+        if (compressed.length < raw.length)
+            compressed = new byte[raw.length];
+
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+
+        int length = 0;
+        while (!deflater.finished() && length < compressed.length)
+            length += deflater.deflate(compressed, length, compressed.length - length);
+
+        return deflater.finished() ? length : raw.length;
+    }
+
+    private void writeColumn(byte kind, Object[] values, int count) throws IOException {
+
+        int nonNullCount = 0;
+        for (int row = 0; row < count; row++)
+            if (values[row] != null)
+                nonNullCount++;
+
+        if (nonNullCount == 0) {
+            rawOutput.writeByte(ALL_NULLS);
+            return;
+        }
+
+        if (nonNullCount < count) {
+
+            rawOutput.writeByte(SOME_NULLS);
+            byte[] bitmap = new byte[(count + 7) / 8];
+            for (int row = 0; row < count; row++)
+                if (values[row] == null)
+                    bitmap[row >> 3] |= 1 << (row & 7);
+            rawOutput.write(bitmap);
+
+        } else
+            rawOutput.writeByte(NO_NULLS);
+
+        Object[] nonNullValues = values;
+        if (nonNullCount < count) {
+            nonNullValues = new Object[nonNullCount];
+            for (int row = 0, i = 0; row < count; row++)
+                if (values[row] != null)
+                    nonNullValues[i++] = values[row];
+        }
+
+        writeValues(kind, nonNullValues, nonNullCount);
+    }
+
+    private void writeValues(byte kind, Object[] values, int count) throws IOException {
+
+        int runCount = 1;
+        for (int i = 1; i < count; i++)
+            if (!sameValue(values[i - 1], values[i]))
+                runCount++;
+
+        if (runCount * 2 <= count) {
+
+            rawOutput.writeByte(RUN_LENGTH);
+            writeVarLong(rawOutput, runCount);
+
+            int runStart = 0;
+            for (int i = 1; i <= count; i++) {
+                if (i == count || !sameValue(values[runStart], values[i])) {
+                    writeVarLong(rawOutput, i - runStart);
+                    writeValue(kind, values[runStart]);
+                    runStart = i;
+                }
+            }
+            return;
+        }
+
+        if (kind != TableDumpColumn.KIND_BOOLEAN) {
+
+            Map<Object, Integer> dictionary = createDictionary(values, count);
+            if (dictionary != null) {
+
+                rawOutput.writeByte(DICTIONARY);
+                writeVarLong(rawOutput, dictionary.size());
+                for (Object key : dictionary.keySet())
+                    writeValue(kind, key instanceof ByteBuffer ? ((ByteBuffer) key).array() : key);
+
+                for (int i = 0; i < count; i++)
+                    writeVarLong(rawOutput, dictionary.get(dictionaryKey(values[i])));
+                return;
+            }
+        }
+
+        rawOutput.writeByte(PLAIN);
+        if (kind == TableDumpColumn.KIND_LONG || kind == TableDumpColumn.KIND_DATE || kind == TableDumpColumn.KIND_TIME) {
+
+            // the deltas of the keys and the sequences are short
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                long value = (Long) values[i];
+                writeSignedVarLong(rawOutput, value - previous);
+                previous = value;
+            }
+
+        } else {
+
+            for (int i = 0; i < count; i++)
+                writeValue(kind, values[i]);
+        }
+    }
+
+    /**
+     * Returns the indexes of the distinct values in the order they appear
+     * or null if there are too many of them for the dictionary to pay off.
+     */
+    private static Map<Object, Integer> createDictionary(Object[] values, int count) {
+
+        int maxSize = count / 2;
+        Map<Object, Integer> dictionary = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+
+            Object key = dictionaryKey(values[i]);
+            if (!dictionary.containsKey(key)) {
+                if (dictionary.size() == maxSize)
+                    return null;
+                dictionary.put(key, dictionary.size());
+            }
+        }
+        return dictionary;
+    }
+
+    private static Object dictionaryKey(Object value) {
+        return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value;
+    }
+
+    private static boolean sameValue(Object value, Object other) {
+
+        if (value instanceof byte[])
+            return other instanceof byte[] && Arrays.equals((byte[]) value, (byte[]) other);
+        return value.equals(other);
+    }
+
+    private void writeValue(byte kind, Object value) throws IOException {
+
+        switch (kind) {
+
+            case TableDumpColumn.KIND_LONG:
+            case TableDumpColumn.KIND_DATE:
+            case TableDumpColumn.KIND_TIME:
+                writeSignedVarLong(rawOutput, (Long) value);
+                break;
+
+            case TableDumpColumn.KIND_DOUBLE:
+                rawOutput.writeLong(Double.doubleToRawLongBits((Double) value));
+                break;
+
+            case TableDumpColumn.KIND_DECIMAL:
+                BigDecimal decimal = (BigDecimal) value;
+                writeSignedVarLong(rawOutput, decimal.scale());
+                writeBytes(decimal.unscaledValue().toByteArray());
+                break;
+
+            case TableDumpColumn.KIND_BOOLEAN:
+                rawOutput.writeBoolean((Boolean) value);
+                break;
+
+            case TableDumpColumn.KIND_STRING:
+                writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+                break;
+
+            case TableDumpColumn.KIND_BYTES:
+                writeBytes((byte[]) value);
+                break;
+
+            case TableDumpColumn.KIND_TIMESTAMP:
+                LocalDateTime timestamp = (LocalDateTime) value;
+                writeSignedVarLong(rawOutput, timestamp.toEpochSecond(ZoneOffset.UTC));
+                writeVarLong(rawOutput, timestamp.getNano());
+                break;
+
+            default:
+                throw new IOException("Unknown column kind " + kind);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarLong(rawOutput, bytes.length);
+        rawOutput.write(bytes);
+    }
+
+    /**
+     * Converts the value to the storage form of the column kind.
+     */
+    private static Object toKind(byte kind, Object value) {
+
+        switch (kind) {
+
+            case TableDumpColumn.KIND_LONG:
+                if (value instanceof Number)
+                    return ((Number) value).longValue();
+                if (value instanceof Boolean)
+                    return (Boolean) value ? 1L : 0L;
+                return Long.parseLong(value.toString().trim());
+
+            case TableDumpColumn.KIND_DOUBLE:
+                if (value instanceof Number)
+                    return ((Number) value).doubleValue();
+                return Double.parseDouble(value.toString().trim());
+
+            case TableDumpColumn.KIND_DECIMAL:
+                if (value instanceof BigDecimal)
+                    return value;
+                if (value instanceof BigInteger)
+                    return new BigDecimal((BigInteger) value);
+                return new BigDecimal(value.toString().trim());
+
+            case TableDumpColumn.KIND_BOOLEAN:
+                if (value instanceof Boolean)
+                    return value;
+                if (value instanceof Number)
+                    return ((Number) value).intValue() != 0;
+                String text = value.toString().trim();
+                return text.equalsIgnoreCase("true") || text.equals("1");
+
+            case TableDumpColumn.KIND_BYTES:
+                if (value instanceof byte[])
+                    return value;
+                return value.toString().getBytes(StandardCharsets.UTF_8);
+
+            case TableDumpColumn.KIND_DATE:
+                return toLocalDate(value).toEpochDay();
+
+            case TableDumpColumn.KIND_TIME:
+                return toLocalTime(value).toNanoOfDay();
+
+            case TableDumpColumn.KIND_TIMESTAMP:
+                return toLocalDateTime(value);
+
+            default:
+                return value.toString();
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+
+        if (value instanceof LocalDate)
+            return (LocalDate) value;
+        if (value instanceof java.sql.Date)
+            return ((java.sql.Date) value).toLocalDate();
+        if (value instanceof Date || value instanceof LocalDateTime)
+            return toLocalDateTime(value).toLocalDate();
+        return LocalDate.parse(value.toString().trim());
+    }
+
+    private static LocalTime toLocalTime(Object value) {
+
+        if (value instanceof LocalTime)
+            return (LocalTime) value;
+        if (value instanceof java.sql.Time)
+            return ((java.sql.Time) value).toLocalTime();
+        if (value instanceof Date || value instanceof LocalDateTime)
+            return toLocalDateTime(value).toLocalTime();
+        return LocalTime.parse(value.toString().trim());
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+
+        if (value instanceof LocalDateTime)
+            return (LocalDateTime) value;
+        if (value instanceof Timestamp)
+            return ((Timestamp) value).toLocalDateTime();
+        if (value instanceof Date)
+            return new Timestamp(((Date) value).getTime()).toLocalDateTime();
+        if (value instanceof LocalDate)
+            return ((LocalDate) value).atStartOfDay();
+
+        String text = value.toString().trim();
+        return text.indexOf('T') > 0 ? LocalDateTime.parse(text) : Timestamp.valueOf(text).toLocalDateTime();
+    }
+
+}
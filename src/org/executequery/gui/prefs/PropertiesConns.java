@@ -86,6 +86,34 @@ public class PropertiesConns extends AbstractPropertiesBasePanel {
                 bundledString("Connection.connect.timeout"),
                 Integer.valueOf(SystemProperties.getProperty("user", key))));
 
+        key = "connection.statement.cache.size";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                key,
+                bundledString("Connection.statement.cache.size"),
+                Integer.valueOf(SystemProperties.getProperty("user", key))));
+
+        key = "connection.checkout.timeout";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                key,
+                bundledString("Connection.checkout.timeout"),
+                Integer.valueOf(SystemProperties.getProperty("user", key))));
+
+        key = "connection.maintenance.interval";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                key,
+                bundledString("Connection.maintenance.interval"),
+                Integer.valueOf(SystemProperties.getProperty("user", key))));
+
+        key = "connection.metadata.snapshot";
+        list.add(new UserPreference(
+                UserPreference.BOOLEAN_TYPE,
+                key,
+                bundledString("Connection.metadata.snapshot"),
+                Boolean.valueOf(SystemProperties.getProperty("user", key))));
+
         key = "startup.default.connection.username";
         list.add(new UserPreference(
             UserPreference.STRING_TYPE,
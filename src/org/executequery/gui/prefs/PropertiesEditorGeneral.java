@@ -157,6 +157,30 @@ public class PropertiesEditorGeneral extends AbstractPropertiesBasePanel {
                 bundledString("OpenANewEditorForNewOpenConnection"),
                 Boolean.valueOf(SystemProperties.getBooleanProperty("user", key))));
 
+        key = "editor.script.batch.size";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                5,
+                key,
+                bundledString("ScriptBatchSize"),
+                stringUserProperty(key)));
+
+        key = "editor.script.commit.interval";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                7,
+                key,
+                bundledString("ScriptCommitInterval"),
+                stringUserProperty(key)));
+
+        key = "editor.script.parallel.threads";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                2,
+                key,
+                bundledString("ScriptParallelThreads"),
+                stringUserProperty(key)));
+
 
         list.add(new UserPreference(
                 UserPreference.CATEGORY_TYPE,
@@ -124,6 +124,30 @@ public class PropertiesGeneral extends AbstractPropertiesBasePanel {
                 encodingValue(),
                 availableCharsets()));
 
+        key = "export.excel.row.window";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                7,
+                key,
+                bundledString("ExcelExportRowWindow"),
+                stringUserProperty(key)));
+
+        key = "export.parallel.connections";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                2,
+                key,
+                bundledString("ParallelExportConnections"),
+                stringUserProperty(key)));
+
+        key = "export.parallel.min.rows";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                9,
+                key,
+                bundledString("ParallelExportMinRows"),
+                stringUserProperty(key)));
+
         key = "startup.java.path";
         list.add(new UserPreference(
                 System.getProperty("os.name").toLowerCase().contains("win") ? UserPreference.DIR_TYPE : UserPreference.FILE_TYPE,
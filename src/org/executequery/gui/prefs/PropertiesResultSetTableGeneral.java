@@ -170,6 +170,27 @@ public class PropertiesResultSetTableGeneral extends AbstractPropertiesBasePanel
                 bundledString("FetchSize"),
                 Integer.valueOf(stringUserProperty(key))));
 
+        key = "results.table.columnar.storage";
+        list.add(new UserPreference(
+                UserPreference.BOOLEAN_TYPE,
+                key,
+                bundledString("ColumnarStorage"),
+                Boolean.valueOf(stringUserProperty(key))));
+
+        key = "results.table.memory.budget";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                key,
+                bundledString("ResultSetMemoryBudget"),
+                Integer.valueOf(stringUserProperty(key))));
+
+        key = "results.table.prefetch.depth";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                key,
+                bundledString("PrefetchDepth"),
+                Integer.valueOf(stringUserProperty(key))));
+
         UserPreference[] preferences =
                 list.toArray(new UserPreference[list.size()]);
         preferencesPanel = new SimplePreferencesPanel(preferences);
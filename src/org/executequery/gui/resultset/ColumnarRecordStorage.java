@@ -0,0 +1,1187 @@
+/*
+ * ColumnarRecordStorage.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.resultset;
+
+import org.executequery.databaseobjects.Types;
+import org.executequery.log.Log;
+import org.underworldlabs.jdbc.DataSourceException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Column oriented storage of the fetched result set rows.
+ * <p>
+ * Integer, long, double and date/time values are kept in primitive
+ * arrays, strings in a dictionary shared by all columns (or in a
+ * per-column byte arena once the dictionary is full) and nulls in
+ * bitmaps. Row lists of <code>RecordDataItem</code>s are created on
+ * demand only for the rows being viewed and are kept for the rows
+ * being edited, so the rest of the result set model sees a plain
+ * <code>List&lt;List&lt;RecordDataItem&gt;&gt;</code>.
+ * <p>
+ * Rows are held in fixed size segments. Once the estimated heap size
+ * of the segments exceeds the memory budget, the oldest completed
+ * segments are spilled to a temporary file and read back on access.
+ * The segments read back are cached up to a quarter of the budget.
+ * <p>
+ * LOB and array columns still hold their record data items since
+ * these carry detached driver objects and charset state - segments
+ * with such values are never spilled.
+ */
+public class ColumnarRecordStorage extends AbstractList<List<RecordDataItem>> {
+
+    /**
+     * The number of materialized rows kept for viewing
+     */
+    private static final int VIEW_CACHE_SIZE = 1024;
+
+    /**
+     * The maximum number of distinct strings interned in the dictionary
+     */
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    /**
+     * The maximum string length interned in the dictionary
+     */
+    private static final int MAX_DICTIONARY_STRING_LENGTH = 64;
+
+    /**
+     * The number of row slots per segment
+     */
+    private static final int SEGMENT_SIZE = 8192;
+
+    /**
+     * The number of spilled segments kept loaded in memory
+     * regardless of the memory budget
+     */
+    private static final int LOADED_SEGMENTS = 4;
+
+    /**
+     * The estimated heap size of a value read back from the spill file
+     */
+    private static final int LOADED_VALUE_SIZE = 48;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<ResultSetColumnHeader> columnHeaders;
+
+    private final RecordDataItemFactory recordDataItemFactory;
+
+    private final Map<String, Integer> dictionaryIndex;
+
+    private final List<String> dictionary;
+
+    private long dictionarySize;
+
+    private final List<Segment> segments;
+
+    /**
+     * The heap budget in bytes, 0 to keep all segments in memory
+     */
+    private final long memoryBudget;
+
+    private volatile ResultSetSpillFile spillFile;
+
+    /**
+     * spilled segments recently read back
+     */
+    private final Map<Segment, Object[][]> loadedSegments;
+
+    /**
+     * the estimated heap size of the loaded segments
+     */
+    private long loadedSize;
+
+    /**
+     * row position -> storage slot
+     */
+    private int[] rowSlots;
+
+    private int rowCount;
+
+    private int slotCount;
+
+    /**
+     * rows edited, added or deleted by the user - never evicted
+     */
+    private final Map<Integer, List<RecordDataItem>> pinnedRows;
+
+    /**
+     * rows recently materialized for viewing
+     */
+    private final Map<Integer, List<RecordDataItem>> viewedRows;
+
+    public ColumnarRecordStorage(List<ResultSetColumnHeader> columnHeaders,
+                                 RecordDataItemFactory recordDataItemFactory) {
+
+        this(columnHeaders, recordDataItemFactory, 0);
+    }
+
+    public ColumnarRecordStorage(List<ResultSetColumnHeader> columnHeaders,
+                                 RecordDataItemFactory recordDataItemFactory, long memoryBudget) {
+
+        this.columnHeaders = columnHeaders;
+        this.recordDataItemFactory = recordDataItemFactory;
+        this.memoryBudget = memoryBudget;
+
+        dictionaryIndex = new HashMap<>();
+        dictionary = new ArrayList<>();
+        segments = new ArrayList<>();
+        pinnedRows = new HashMap<>();
+        viewedRows = new LinkedHashMap<Integer, List<RecordDataItem>>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<RecordDataItem>> eldest) {
+
+                if (size() <= VIEW_CACHE_SIZE) {
+
+                    return false;
+                }
+
+                if (isModified(eldest.getValue())) {
+
+                    pinnedRows.put(eldest.getKey(), eldest.getValue());
+                }
+                return true;
+            }
+        };
+        loadedSegments = new LinkedHashMap<>(16, 0.75f, true);
+
+        rowSlots = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns whether values of the specified column are stored as
+     * record data items rather than as raw values.
+     */
+    public static boolean isItemColumn(int dataType) {
+
+        switch (dataType) {
+
+            case Types.LONGVARCHAR:
+            case Types.CLOB:
+            case Types.LONGVARBINARY:
+            case Types.VARBINARY:
+            case Types.BINARY:
+            case Types.BLOB:
+            case Types.ARRAY:
+                return true;
+
+            default:
+                return false;
+        }
+
+    }
+
+    /**
+     * Appends the fetched row values. Values for item columns
+     * (see {@link #isItemColumn(int)}) are expected as record data items,
+     * all others as the raw values retrieved from the result set.
+     */
+    public void addRecord(Object[] values) {
+
+        int slot = allocateSlot();
+        Segment segment = segments.get(slot / SEGMENT_SIZE);
+        for (int i = 0; i < values.length; i++) {
+
+            segment.set(i, slot % SEGMENT_SIZE, values[i]);
+        }
+        appendRowSlot(slot);
+
+        if (slot % SEGMENT_SIZE == SEGMENT_SIZE - 1) {
+
+            checkMemoryBudget();
+        }
+    }
+
+    @Override
+    public List<RecordDataItem> get(int index) {
+
+        checkIndex(index);
+        int slot = rowSlots[index];
+
+        List<RecordDataItem> row = pinnedRows.get(slot);
+        if (row == null) {
+
+            row = viewedRows.get(slot);
+            if (row == null) {
+
+                row = materialize(slot);
+                viewedRows.put(slot, row);
+            }
+        }
+
+        return row;
+    }
+
+    /**
+     * Returns the row at the specified position and keeps its
+     * record data items for the lifetime of this storage.
+     * To be used when the row is about to be edited.
+     */
+    public List<RecordDataItem> pin(int index) {
+
+        checkIndex(index);
+        int slot = rowSlots[index];
+
+        List<RecordDataItem> row = pinnedRows.get(slot);
+        if (row == null) {
+
+            row = viewedRows.remove(slot);
+            if (row == null) {
+
+                row = materialize(slot);
+            }
+            pinnedRows.put(slot, row);
+        }
+
+        return row;
+    }
+
+    @Override
+    public List<RecordDataItem> set(int index, List<RecordDataItem> row) {
+
+        List<RecordDataItem> previous = get(index);
+        int slot = rowSlots[index];
+        viewedRows.remove(slot);
+        pinnedRows.put(slot, row);
+
+        return previous;
+    }
+
+    @Override
+    public void add(int index, List<RecordDataItem> row) {
+
+        if (index < 0 || index > rowCount) {
+
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rowCount);
+        }
+
+        int slot = allocateSlot();
+        Segment segment = segments.get(slot / SEGMENT_SIZE);
+        for (int i = 0; i < columnHeaders.size(); i++) {
+
+            segment.set(i, slot % SEGMENT_SIZE, null);
+        }
+        pinnedRows.put(slot, row);
+
+        appendRowSlot(slot);
+        if (index < rowCount - 1) {
+
+            System.arraycopy(rowSlots, index, rowSlots, index + 1, rowCount - 1 - index);
+            rowSlots[index] = slot;
+        }
+        modCount++;
+    }
+
+    @Override
+    public List<RecordDataItem> remove(int index) {
+
+        List<RecordDataItem> row = get(index);
+        int slot = rowSlots[index];
+        viewedRows.remove(slot);
+        pinnedRows.remove(slot);
+
+        System.arraycopy(rowSlots, index + 1, rowSlots, index, rowCount - index - 1);
+        rowCount--;
+        modCount++;
+
+        return row;
+    }
+
+    @Override
+    public void clear() {
+
+        segments.clear();
+        synchronized (loadedSegments) {
+
+            loadedSegments.clear();
+            loadedSize = 0;
+        }
+        rowSlots = new int[INITIAL_CAPACITY];
+        rowCount = 0;
+        slotCount = 0;
+
+        dictionaryIndex.clear();
+        dictionary.clear();
+        dictionarySize = 0;
+        pinnedRows.clear();
+        viewedRows.clear();
+        modCount++;
+
+        if (spillFile != null) {
+
+            spillFile.close();
+            spillFile = null;
+        }
+    }
+
+    @Override
+    public int size() {
+
+        return rowCount;
+    }
+
+    private List<RecordDataItem> materialize(int slot) {
+
+        Segment segment = segments.get(slot / SEGMENT_SIZE);
+        int offset = slot % SEGMENT_SIZE;
+
+        // the segment may be spilled by the fetching thread meanwhile,
+        // so its columns are read once
+        ColumnVector[] columns = segment.columns;
+        Object[][] loaded = null;
+        if (columns == null) {
+
+            loaded = load(segment);
+        }
+
+        int columnCount = columnHeaders.size();
+        List<RecordDataItem> row = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+
+            if (loaded != null) {
+
+                row.add(createItem(i, loaded[i][offset]));
+                continue;
+            }
+
+            ColumnVector column = columns[i];
+            if (column instanceof ItemVector) {
+
+                row.add((RecordDataItem) column.get(offset));
+                continue;
+            }
+
+            row.add(createItem(i, column.get(offset)));
+        }
+
+        return row;
+    }
+
+    private RecordDataItem createItem(int column, Object value) {
+
+        RecordDataItem item = recordDataItemFactory.create(columnHeaders.get(column));
+        item.setValue(value);
+
+        return item;
+    }
+
+    private Object[][] load(Segment segment) {
+
+        synchronized (loadedSegments) {
+
+            Object[][] values = loadedSegments.get(segment);
+            if (values == null) {
+
+                try {
+
+                    values = spillFile.read(segment.fileOffset, segment.fileLength, columnHeaders.size(), segment.rows);
+                    loadedSegments.put(segment, values);
+                    loadedSize += loadedSize(segment);
+                    evictLoadedSegments();
+
+                } catch (IOException e) {
+
+                    throw new DataSourceException(e);
+                }
+            }
+
+            return values;
+        }
+    }
+
+    /**
+     * Drops the least recently read segments above the loaded segments
+     * share of the memory budget. Called holding the loaded segments lock.
+     */
+    private void evictLoadedSegments() {
+
+        long limit = memoryBudget / 4;
+        Iterator<Segment> iterator = loadedSegments.keySet().iterator();
+        while (loadedSegments.size() > LOADED_SEGMENTS && loadedSize > limit && iterator.hasNext()) {
+
+            loadedSize -= loadedSize(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private long loadedSize(Segment segment) {
+
+        return (long) segment.rows * columnHeaders.size() * LOADED_VALUE_SIZE;
+    }
+
+    private void checkMemoryBudget() {
+
+        if (memoryBudget <= 0) {
+
+            return;
+        }
+
+        long heapSize = dictionarySize;
+        for (Segment segment : segments) {
+
+            heapSize += segment.estimatedSize();
+        }
+
+        // keep the segment being filled in memory
+
+        for (int i = 0, n = segments.size() - 1; i < n && heapSize > memoryBudget; i++) {
+
+            Segment segment = segments.get(i);
+            if (segment.isSpilled() || !segment.spillable) {
+
+                continue;
+            }
+
+            long size = segment.estimatedSize();
+            if (spill(segment)) {
+
+                heapSize -= size;
+            }
+        }
+
+    }
+
+    private boolean spill(Segment segment) {
+
+        try {
+
+            int columnCount = columnHeaders.size();
+            Object[][] values = new Object[columnCount][];
+            for (int i = 0; i < columnCount; i++) {
+
+                ColumnVector column = segment.columns[i];
+                if (column instanceof ItemVector) {
+
+                    segment.spillable = false;
+                    return false;
+                }
+
+                values[i] = new Object[segment.rows];
+                for (int j = 0; j < segment.rows; j++) {
+
+                    values[i][j] = column.get(j);
+                }
+            }
+
+            byte[] block = ResultSetSpillFile.encode(values, segment.rows);
+            if (block == null) {
+
+                segment.spillable = false;
+                return false;
+            }
+
+            if (spillFile == null) {
+
+                spillFile = new ResultSetSpillFile();
+            }
+
+            // the file position is published by the volatile columns write
+            segment.fileOffset = spillFile.write(block);
+            segment.fileLength = block.length;
+            segment.columns = null;
+
+            return true;
+
+        } catch (IOException e) {
+
+            Log.error("Error spilling result set rows to disk - keeping them in memory", e);
+            segment.spillable = false;
+            return false;
+        }
+
+    }
+
+    private boolean isModified(List<RecordDataItem> row) {
+
+        for (RecordDataItem item : row) {
+
+            if (item.isChanged() || item.isNew() || item.isDeleted()) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int allocateSlot() {
+
+        int slot = slotCount++;
+        if (slot / SEGMENT_SIZE == segments.size()) {
+
+            segments.add(new Segment(columnHeaders.size()));
+        }
+        segments.get(slot / SEGMENT_SIZE).rows = slot % SEGMENT_SIZE + 1;
+
+        return slot;
+    }
+
+    private void appendRowSlot(int slot) {
+
+        if (rowCount == rowSlots.length) {
+
+            rowSlots = Arrays.copyOf(rowSlots, rowSlots.length * 2);
+        }
+        rowSlots[rowCount++] = slot;
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+
+        if (index < 0 || index >= rowCount) {
+
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rowCount);
+        }
+    }
+
+    private int dictionaryCode(String value) {
+
+        Integer code = dictionaryIndex.get(value);
+        if (code != null) {
+
+            return code;
+        }
+
+        if (dictionary.size() >= MAX_DICTIONARY_SIZE || value.length() > MAX_DICTIONARY_STRING_LENGTH) {
+
+            return -1;
+        }
+
+        code = dictionary.size();
+        dictionary.add(value);
+        dictionaryIndex.put(value, code);
+        dictionarySize += 64 + 2L * value.length();
+
+        return code;
+    }
+
+    /**
+     * Fixed size block of row slots - in memory as column
+     * vectors or spilled to the file.
+     */
+    private final class Segment {
+
+        /**
+         * The column vectors, null once spilled. Spilling may run on the
+         * fetching thread while the rows are read on the event dispatch
+         * thread, so the readers take the array once.
+         */
+        private volatile ColumnVector[] columns;
+
+        private int rows;
+
+        private boolean spillable = true;
+
+        private long fileOffset;
+
+        private int fileLength;
+
+        Segment(int columnCount) {
+
+            columns = new ColumnVector[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+
+                columns[i] = isItemColumn(columnHeaders.get(i).getDataType()) ?
+                        new ItemVector() : new UndefinedVector();
+            }
+        }
+
+        void set(int column, int offset, Object value) {
+
+            columns[column] = columns[column].set(offset, value);
+        }
+
+        boolean isSpilled() {
+
+            return columns == null;
+        }
+
+        long estimatedSize() {
+
+            ColumnVector[] vectors = columns;
+            if (vectors == null) {
+
+                return 0;
+            }
+
+            long size = 0;
+            for (ColumnVector column : vectors) {
+
+                size += column.estimatedSize();
+            }
+
+            return size;
+        }
+
+    }
+
+    // ----------------------------------------------------------
+
+    /**
+     * Single column values with the null bitmap. Setting a value
+     * the vector can not hold returns the vector to be used instead.
+     */
+    private abstract static class ColumnVector {
+
+        private long[] nulls = new long[1];
+
+        protected int capacity;
+
+        ColumnVector set(int slot, Object value) {
+
+            ensureCapacity(slot + 1);
+            if (value == null) {
+
+                nulls[slot >> 6] |= 1L << slot;
+                return this;
+            }
+
+            if (!accepts(value)) {
+
+                return toObjectVector(slot).set(slot, value);
+            }
+
+            nulls[slot >> 6] &= ~(1L << slot);
+            setValue(slot, value);
+
+            return this;
+        }
+
+        Object get(int slot) {
+
+            if (isNull(slot)) {
+
+                return null;
+            }
+            return getValue(slot);
+        }
+
+        boolean isNull(int slot) {
+
+            return (nulls[slot >> 6] & (1L << slot)) != 0;
+        }
+
+        void ensureCapacity(int required) {
+
+            if (required > capacity) {
+
+                int newCapacity = Math.max(required, Math.min(SEGMENT_SIZE, Math.max(INITIAL_CAPACITY, capacity * 2)));
+                grow(newCapacity);
+                capacity = newCapacity;
+            }
+
+            int words = ((capacity - 1) >> 6) + 1;
+            if (words > nulls.length) {
+
+                nulls = Arrays.copyOf(nulls, words);
+            }
+        }
+
+        ColumnVector toObjectVector(int slots) {
+
+            ObjectVector vector = new ObjectVector();
+            for (int i = 0; i < slots; i++) {
+
+                vector.set(i, get(i));
+            }
+
+            return vector;
+        }
+
+        long estimatedSize() {
+
+            return 16L + (long) capacity * bytesPerValue() + nulls.length * 8L;
+        }
+
+        abstract int bytesPerValue();
+
+        abstract boolean accepts(Object value);
+
+        abstract void setValue(int slot, Object value);
+
+        abstract Object getValue(int slot);
+
+        abstract void grow(int newCapacity);
+
+    }
+
+    /**
+     * Column holding nulls only so far - the first value
+     * determines the storage type.
+     */
+    private final class UndefinedVector extends ColumnVector {
+
+        @Override
+        ColumnVector set(int slot, Object value) {
+
+            if (value == null) {
+
+                return super.set(slot, null);
+            }
+
+            ColumnVector vector;
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+
+                vector = new IntVector(value.getClass());
+
+            } else if (value instanceof Long) {
+
+                vector = new LongVector();
+
+            } else if (value instanceof Double || value instanceof Float) {
+
+                vector = new DoubleVector(value.getClass());
+
+            } else if (value instanceof LocalDateTime) {
+
+                vector = new TimestampVector();
+
+            } else if (value instanceof LocalDate || value instanceof LocalTime) {
+
+                vector = new TemporalVector(value.getClass());
+
+            } else if (value instanceof String) {
+
+                vector = new StringVector();
+
+            } else {
+
+                vector = new ObjectVector();
+            }
+
+            for (int i = 0; i < slot; i++) {
+
+                vector.set(i, null);
+            }
+
+            return vector.set(slot, value);
+        }
+
+        @Override
+        int bytesPerValue() {
+
+            return 0;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return false;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            return null;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+        }
+
+    }
+
+    private static final class IntVector extends ColumnVector {
+
+        private final Class<?> valueClass;
+
+        private int[] values = new int[0];
+
+        IntVector(Class<?> valueClass) {
+
+            this.valueClass = valueClass;
+        }
+
+        @Override
+        int bytesPerValue() {
+
+            return 4;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return value.getClass() == valueClass;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+
+            values[slot] = ((Number) value).intValue();
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            if (valueClass == Short.class) {
+
+                return (short) values[slot];
+
+            } else if (valueClass == Byte.class) {
+
+                return (byte) values[slot];
+            }
+
+            return values[slot];
+        }
+
+        @Override
+        void grow(int newCapacity) {
+
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+    }
+
+    private static final class LongVector extends ColumnVector {
+
+        private long[] values = new long[0];
+
+        @Override
+        int bytesPerValue() {
+
+            return 8;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return value instanceof Long;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+
+            values[slot] = (Long) value;
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            return values[slot];
+        }
+
+        @Override
+        void grow(int newCapacity) {
+
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+    }
+
+    private static final class DoubleVector extends ColumnVector {
+
+        private final Class<?> valueClass;
+
+        private double[] values = new double[0];
+
+        DoubleVector(Class<?> valueClass) {
+
+            this.valueClass = valueClass;
+        }
+
+        @Override
+        int bytesPerValue() {
+
+            return 8;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return value.getClass() == valueClass;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+
+            values[slot] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            if (valueClass == Float.class) {
+
+                return (float) values[slot];
+            }
+
+            return values[slot];
+        }
+
+        @Override
+        void grow(int newCapacity) {
+
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+    }
+
+    /**
+     * Timestamps as epoch seconds and nanos in UTC.
+     */
+    private static final class TimestampVector extends ColumnVector {
+
+        private long[] seconds = new long[0];
+
+        private int[] nanos = new int[0];
+
+        @Override
+        int bytesPerValue() {
+
+            return 12;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return value instanceof LocalDateTime;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+
+            LocalDateTime dateTime = (LocalDateTime) value;
+            seconds[slot] = dateTime.toEpochSecond(ZoneOffset.UTC);
+            nanos[slot] = dateTime.getNano();
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            return LocalDateTime.ofEpochSecond(seconds[slot], nanos[slot], ZoneOffset.UTC);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+
+            seconds = Arrays.copyOf(seconds, newCapacity);
+            nanos = Arrays.copyOf(nanos, newCapacity);
+        }
+
+    }
+
+    /**
+     * Dates as epoch days and times as nanos of the day.
+     */
+    private static final class TemporalVector extends ColumnVector {
+
+        private final Class<?> valueClass;
+
+        private long[] values = new long[0];
+
+        TemporalVector(Class<?> valueClass) {
+
+            this.valueClass = valueClass;
+        }
+
+        @Override
+        int bytesPerValue() {
+
+            return 8;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return value.getClass() == valueClass;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+
+            if (value instanceof LocalDate) {
+
+                values[slot] = ((LocalDate) value).toEpochDay();
+
+            } else {
+
+                values[slot] = ((LocalTime) value).toNanoOfDay();
+            }
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            if (valueClass == LocalDate.class) {
+
+                return LocalDate.ofEpochDay(values[slot]);
+            }
+
+            return LocalTime.ofNanoOfDay(values[slot]);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+    }
+
+    /**
+     * Strings as dictionary codes where possible, otherwise
+     * as UTF-8 bytes in the column arena (negative codes).
+     */
+    private final class StringVector extends ColumnVector {
+
+        private int[] codes = new int[0];
+
+        private byte[] arena = new byte[0];
+
+        private int[] arenaOffsets = new int[INITIAL_CAPACITY];
+
+        private int arenaEntries;
+
+        private int arenaSize;
+
+        @Override
+        long estimatedSize() {
+
+            return super.estimatedSize() + arena.length + arenaOffsets.length * 4L;
+        }
+
+        @Override
+        int bytesPerValue() {
+
+            return 4;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return value instanceof String;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+
+            String string = (String) value;
+            int code = dictionaryCode(string);
+            if (code >= 0) {
+
+                codes[slot] = code;
+                return;
+            }
+
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            if (arenaSize + bytes.length > arena.length) {
+
+                arena = Arrays.copyOf(arena, Math.max(arenaSize + bytes.length, arena.length * 2));
+            }
+            if (arenaEntries + 1 >= arenaOffsets.length) {
+
+                arenaOffsets = Arrays.copyOf(arenaOffsets, arenaOffsets.length * 2);
+            }
+
+            System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+            arenaOffsets[arenaEntries] = arenaSize;
+            arenaSize += bytes.length;
+            arenaOffsets[arenaEntries + 1] = arenaSize;
+
+            codes[slot] = -(++arenaEntries);
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            int code = codes[slot];
+            if (code >= 0) {
+
+                return dictionary.get(code);
+            }
+
+            int entry = -code - 1;
+            int offset = arenaOffsets[entry];
+
+            return new String(arena, offset, arenaOffsets[entry + 1] - offset, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+
+            codes = Arrays.copyOf(codes, newCapacity);
+        }
+
+    }
+
+    private static class ObjectVector extends ColumnVector {
+
+        private Object[] values = new Object[0];
+
+        @Override
+        int bytesPerValue() {
+
+            return 40;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+
+            return true;
+        }
+
+        @Override
+        void setValue(int slot, Object value) {
+
+            values[slot] = value;
+        }
+
+        @Override
+        Object getValue(int slot) {
+
+            return values[slot];
+        }
+
+        @Override
+        void grow(int newCapacity) {
+
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+    }
+
+    /**
+     * Record data items of the LOB and array columns.
+     */
+    private static final class ItemVector extends ObjectVector {
+
+        @Override
+        int bytesPerValue() {
+
+            return 128;
+        }
+
+    }
+
+}
@@ -0,0 +1,430 @@
+/*
+ * ResultSetPrefetcher.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.resultset;
+
+import org.executequery.log.Log;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads fetch blocks of an open result set ahead of the grid
+ * viewport on a single worker thread.
+ * <p>
+ * The blocks are read strictly in order - the worker is the only
+ * thread touching the result set while the prefetcher is running,
+ * including its shutdown: the result set is closed by the action run
+ * on the worker once it stops. The worker only reads the blocks, they
+ * are added to the table model by the thread taking them - on the event
+ * dispatch thread it polls for the next block and is called back when
+ * the block is read.
+ * <p>
+ * The connection of the result set is still shared with the statements
+ * run by the editor meanwhile. The driver serializes the calls on one
+ * connection, so such a statement waits for the block being read at most.
+ * A block being read on shutdown is cut short by the canceller, which is
+ * expected to cancel the statement of the result set.
+ *
+ * @param <T> the fetched record type
+ */
+public class ResultSetPrefetcher<T> {
+
+    /**
+     * Reads the next block of records from the result set.
+     */
+    public interface BlockReader<T> {
+
+        /**
+         * Reads up to the specified number of records. A block
+         * smaller than requested marks the end of the result set.
+         */
+        List<T> read(int size) throws Exception;
+
+    }
+
+    /**
+     * A block of records read by the worker.
+     */
+    public static final class Block<T> {
+
+        private final List<T> records;
+
+        private final boolean last;
+
+        private final long fetchTime;
+
+        Block(List<T> records, boolean last, long fetchTime) {
+
+            this.records = records;
+            this.last = last;
+            this.fetchTime = fetchTime;
+        }
+
+        public List<T> getRecords() {
+
+            return records;
+        }
+
+        public boolean isLast() {
+
+            return last;
+        }
+
+        /**
+         * Returns the time taken to read the block in millis.
+         */
+        public long getFetchTime() {
+
+            return fetchTime;
+        }
+
+    }
+
+    private final BlockReader<T> reader;
+
+    private final Runnable canceller;
+
+    private final int blockSize;
+
+    private final int depth;
+
+    private final ExecutorService executor;
+
+    private final Deque<BlockTask> pending;
+
+    private volatile long lastFetchTime;
+
+    private boolean finished;
+
+    /**
+     * Creates a new prefetcher reading blocks of the specified
+     * size keeping up to <code>depth</code> blocks ahead.
+     *
+     * @param canceller stops the block being read on shutdown,
+     *                  called on the thread shutting down
+     */
+    public ResultSetPrefetcher(BlockReader<T> reader, Runnable canceller, int blockSize, int depth) {
+
+        this.reader = reader;
+        this.canceller = canceller;
+        this.blockSize = blockSize;
+        this.depth = Math.max(1, depth);
+
+        pending = new ArrayDeque<>();
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "ResultSetPrefetcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts reading the blocks ahead.
+     */
+    public synchronized void start() {
+
+        fill();
+    }
+
+    /**
+     * Returns the next block, waiting for the worker if it
+     * has not been read yet, and schedules the following ones.
+     *
+     * @return the next block or null if all blocks were taken
+     */
+    public Block<T> take() throws Exception {
+
+        BlockTask next;
+        synchronized (this) {
+
+            fill();
+            next = pending.poll();
+        }
+
+        if (next == null) {
+
+            return null;
+        }
+
+        return taken(next);
+    }
+
+    /**
+     * Returns the next block if it has been read already, without
+     * waiting for the worker, and schedules the following ones.
+     *
+     * @return the next block or null if it is not read yet or all blocks were taken
+     */
+    public Block<T> poll() throws Exception {
+
+        BlockTask next;
+        synchronized (this) {
+
+            fill();
+            next = pending.peek();
+            if (next == null || !next.isDone()) {
+
+                return null;
+            }
+            pending.poll();
+        }
+
+        return taken(next);
+    }
+
+    /**
+     * Runs the action once the next block is read - on the worker
+     * thread, or on the calling one if the block is read already.
+     */
+    public void whenReady(Runnable action) {
+
+        BlockTask next;
+        synchronized (this) {
+
+            fill();
+            next = pending.peek();
+        }
+
+        if (next == null) {
+
+            action.run();
+            return;
+        }
+
+        // the block may be read meanwhile, then the action is run here unless done() took it
+        next.readyAction.set(action);
+        if (next.isDone() && next.readyAction.compareAndSet(action, null)) {
+
+            action.run();
+        }
+    }
+
+    private Block<T> taken(BlockTask next) throws Exception {
+
+        try {
+
+            Block<T> block = next.get();
+            lastFetchTime = block.getFetchTime();
+
+            synchronized (this) {
+
+                if (block.isLast()) {
+
+                    finished = true;
+                    pending.clear();
+
+                } else {
+
+                    fill();
+                }
+            }
+
+            return block;
+
+        } catch (ExecutionException e) {
+
+            synchronized (this) {
+
+                finished = true;
+                pending.clear();
+            }
+
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+
+    }
+
+    /**
+     * Returns the number of blocks already read and waiting to be taken.
+     */
+    public synchronized int getReadyBlocks() {
+
+        int ready = 0;
+        for (BlockTask task : pending) {
+
+            if (task.isDone()) {
+
+                ready++;
+            }
+        }
+
+        return ready;
+    }
+
+    /**
+     * Returns the time taken to read the last taken block in millis.
+     */
+    public long getLastFetchTime() {
+
+        return lastFetchTime;
+    }
+
+    public synchronized boolean isFinished() {
+
+        return finished;
+    }
+
+    /**
+     * Stops the worker without waiting for it, the blocks not taken yet are discarded.
+     */
+    public void shutdown() {
+
+        shutdown(null);
+    }
+
+    /**
+     * Stops the worker without waiting for it, the blocks not taken yet are
+     * discarded. The block being read is cut short with the canceller.
+     *
+     * @param afterStop the action run on the worker once it has left
+     *                  the result set, like closing it - may be null
+     */
+    public synchronized void shutdown(Runnable afterStop) {
+
+        finished = true;
+        boolean reading = false;
+        for (BlockTask task : pending) {
+
+            reading |= task.running;
+
+            // the worker is not interrupted - the reader would
+            // leave the result set in an undefined state
+            task.cancel(false);
+        }
+        pending.clear();
+
+        if (reading && canceller != null) {
+
+            try {
+
+                canceller.run();
+
+            } catch (RuntimeException e) {
+
+                Log.debug("Unable to cancel the block being prefetched: " + e.getMessage());
+            }
+        }
+
+        // queued after the block being read, the cancelled ones are skipped
+        if (afterStop != null) {
+
+            executor.execute(afterStop);
+        }
+        executor.shutdown();
+    }
+
+    private void fill() {
+
+        while (!finished && pending.size() < depth) {
+
+            if (isLastPending()) {
+
+                return;
+            }
+
+            BlockTask task = new BlockTask();
+            pending.add(task);
+            executor.execute(task);
+        }
+    }
+
+    private boolean isLastPending() {
+
+        BlockTask last = pending.peekLast();
+        if (last == null || !last.isDone() || last.isCancelled()) {
+
+            return false;
+        }
+
+        try {
+
+            return last.get().isLast();
+
+        } catch (Exception e) {
+
+            return true;
+        }
+    }
+
+    /**
+     * Reads a block on the worker and runs the action waiting for it when done.
+     */
+    private final class BlockTask extends FutureTask<Block<T>> {
+
+        private final AtomicReference<Runnable> readyAction = new AtomicReference<>();
+
+        private volatile boolean running;
+
+        BlockTask() {
+
+            super(new Callable<Block<T>>() {
+
+                @Override
+                public Block<T> call() throws Exception {
+
+                    long start = System.currentTimeMillis();
+                    List<T> records = reader.read(blockSize);
+
+                    return new Block<>(records, records.size() < blockSize, System.currentTimeMillis() - start);
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+
+            running = true;
+            try {
+
+                super.run();
+
+            } finally {
+
+                running = false;
+            }
+        }
+
+        @Override
+        protected void done() {
+
+            Runnable action = readyAction.getAndSet(null);
+            if (action != null) {
+
+                action.run();
+            }
+        }
+
+    }
+
+}
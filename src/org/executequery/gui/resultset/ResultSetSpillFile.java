@@ -0,0 +1,370 @@
+/*
+ * ResultSetSpillFile.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.resultset;
+
+import org.executequery.log.Log;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+/**
+ * Temporary file holding result set segments spilled from the heap.
+ * <p>
+ * Segments are appended as blocks of column values, each value prefixed
+ * with a type tag, and read back through a single memory mapping of the
+ * file, which is renewed only when a block written after it is read.
+ * A mapping is released by the garbage collector only, so mapping every
+ * read block would keep all of them in the address space.
+ * The file is removed on {@link #close()} or on exit.
+ */
+class ResultSetSpillFile {
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte SHORT = 2;
+    private static final byte BYTE = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte TIMESTAMP = 7;
+    private static final byte DATE = 8;
+    private static final byte TIME = 9;
+    private static final byte STRING = 10;
+    private static final byte BIG_DECIMAL = 11;
+    private static final byte BIG_INTEGER = 12;
+    private static final byte BOOLEAN = 13;
+    private static final byte SERIALIZED = 14;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private long size;
+
+    /**
+     * The file as written up to the last mapping
+     */
+    private MappedByteBuffer mapping;
+
+    ResultSetSpillFile() throws IOException {
+
+        File file = File.createTempFile("redexpert-resultset", ".tmp");
+        file.deleteOnExit();
+
+        path = file.toPath();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Encodes the specified column values of a segment - values[column][row].
+     *
+     * @return the encoded block or null if any of the values can not be spilled
+     */
+    static byte[] encode(Object[][] values, int rows) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows * values.length * 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        for (Object[] column : values) {
+
+            for (int i = 0; i < rows; i++) {
+
+                if (!writeValue(out, column[i])) {
+
+                    return null;
+                }
+            }
+        }
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Appends the encoded block and returns its offset in the file.
+     */
+    synchronized long write(byte[] block) throws IOException {
+
+        long offset = size;
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        while (buffer.hasRemaining()) {
+
+            channel.write(buffer, size + buffer.position());
+        }
+        size += block.length;
+
+        return offset;
+    }
+
+    /**
+     * Reads the block at the specified offset back into values[column][row].
+     */
+    synchronized Object[][] read(long offset, int length, int columns, int rows) throws IOException {
+
+        ByteBuffer buffer = region(offset, length);
+
+        Object[][] values = new Object[columns][rows];
+        for (int column = 0; column < columns; column++) {
+
+            for (int i = 0; i < rows; i++) {
+
+                values[column][i] = readValue(buffer);
+            }
+        }
+
+        return values;
+    }
+
+    private ByteBuffer region(long offset, int length) throws IOException {
+
+        if (offset + length > size) {
+
+            throw new IOException("Result set spill file block at " + offset + " is out of the file");
+        }
+
+        if (size > Integer.MAX_VALUE) {
+
+            // the file is over a single mapping - the block is read into the heap
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+
+                    throw new EOFException("Result set spill file ends inside the block at " + offset);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        if (mapping == null || offset + length > mapping.capacity()) {
+
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        ByteBuffer buffer = mapping.duplicate();
+        buffer.limit((int) offset + length);
+        buffer.position((int) offset);
+        return buffer;
+    }
+
+    synchronized void close() {
+
+        mapping = null;
+        try {
+
+            channel.close();
+            Files.deleteIfExists(path);
+
+        } catch (IOException e) {
+
+            Log.debug("Error removing result set spill file " + path, e);
+        }
+    }
+
+    private static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+
+        if (value == null) {
+
+            out.writeByte(NULL);
+
+        } else if (value instanceof Integer) {
+
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+
+        } else if (value instanceof Short) {
+
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+
+        } else if (value instanceof Byte) {
+
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+
+        } else if (value instanceof Long) {
+
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+
+        } else if (value instanceof Double) {
+
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+
+        } else if (value instanceof Float) {
+
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+
+        } else if (value instanceof LocalDateTime) {
+
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.writeByte(TIMESTAMP);
+            out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(dateTime.getNano());
+
+        } else if (value instanceof LocalDate) {
+
+            out.writeByte(DATE);
+            out.writeLong(((LocalDate) value).toEpochDay());
+
+        } else if (value instanceof LocalTime) {
+
+            out.writeByte(TIME);
+            out.writeLong(((LocalTime) value).toNanoOfDay());
+
+        } else if (value instanceof String) {
+
+            out.writeByte(STRING);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+
+        } else if (value instanceof BigDecimal) {
+
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(decimal.scale());
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+
+        } else if (value instanceof BigInteger) {
+
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+
+        } else if (value instanceof Boolean) {
+
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+
+        } else if (value instanceof Serializable && value.getClass().getName().startsWith("java.")) {
+
+            // other JDK value types only - driver objects may hold connection state
+
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+
+                objectOut.writeObject(value);
+            }
+
+            out.writeByte(SERIALIZED);
+            writeBytes(out, serialized.toByteArray());
+
+        } else {
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Object readValue(ByteBuffer buffer) throws IOException {
+
+        byte tag = buffer.get();
+        switch (tag) {
+
+            case NULL:
+                return null;
+
+            case INTEGER:
+                return buffer.getInt();
+
+            case SHORT:
+                return buffer.getShort();
+
+            case BYTE:
+                return buffer.get();
+
+            case LONG:
+                return buffer.getLong();
+
+            case DOUBLE:
+                return buffer.getDouble();
+
+            case FLOAT:
+                return buffer.getFloat();
+
+            case TIMESTAMP:
+                long seconds = buffer.getLong();
+                return LocalDateTime.ofEpochSecond(seconds, buffer.getInt(), ZoneOffset.UTC);
+
+            case DATE:
+                return LocalDate.ofEpochDay(buffer.getLong());
+
+            case TIME:
+                return LocalTime.ofNanoOfDay(buffer.getLong());
+
+            case STRING:
+                return new String(readBytes(buffer), StandardCharsets.UTF_8);
+
+            case BIG_DECIMAL:
+                int scale = buffer.getInt();
+                return new BigDecimal(new BigInteger(readBytes(buffer)), scale);
+
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(buffer));
+
+            case BOOLEAN:
+                return buffer.get() != 0;
+
+            case SERIALIZED:
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(readBytes(buffer)))) {
+
+                    return in.readObject();
+
+                } catch (ClassNotFoundException e) {
+
+                    throw new IOException(e);
+                }
+
+            default:
+                throw new IOException("Corrupted result set spill file - unknown value tag " + tag);
+        }
+
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+
+}
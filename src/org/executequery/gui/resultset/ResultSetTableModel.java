@@ -86,6 +86,12 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
      */
     private List<List<RecordDataItem>> tableData;
 
+    /**
+     * The columnar table values storage - null when
+     * the rows are kept as record data item lists
+     */
+    private ColumnarRecordStorage columnarStorage;
+
     /**
      * result set meta data model
      */
@@ -128,8 +134,17 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
         columnHeaders = new ArrayList<ResultSetColumnHeader>();
         visibleColumnHeaders = new ArrayList<ResultSetColumnHeader>();
 
-        tableData = new ArrayList<List<RecordDataItem>>();
         recordDataItemFactory = new RecordDataItemFactory();
+        if (UserProperties.getInstance().getBooleanProperty("results.table.columnar.storage")) {
+
+            long memoryBudget = UserProperties.getInstance().getIntProperty("results.table.memory.budget") * 1024L * 1024L;
+            columnarStorage = new ColumnarRecordStorage(columnHeaders, recordDataItemFactory, memoryBudget);
+            tableData = columnarStorage;
+
+        } else {
+
+            tableData = new ArrayList<List<RecordDataItem>>();
+        }
 
         fakeTable=new JTable();
         holdMetaData = UserProperties.getInstance().getBooleanProperty("editor.results.metadata");
@@ -174,9 +189,8 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
         createTable(resultSet, null);
     }
 
-    int zeroBaseIndex;
     int fetchSize;
-    boolean rsClose;
+    volatile boolean rsClose;
     ResultSet rs;
     int count;
     private int recordCount;
@@ -276,9 +290,22 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
     private boolean fetchAll = false;
     private boolean cancelled = false;
 
+    /**
+     * Whether the following fetch blocks are read ahead in background
+     */
+    private boolean prefetchEnabled;
+
+    private volatile ResultSetPrefetcher<Object> prefetcher;
+
+    /**
+     * Whether the next fetch block is waited for
+     */
+    private volatile boolean loading;
+
 
 
     public synchronized void getDataForTable(ResultSet resultSet, int count, List<ColumnData> columnDataList) throws SQLException, InterruptedException {
+        stopPrefetching();
         recordCount = 0;
         this.columnDataList = columnDataList;
         long time = System.currentTimeMillis();
@@ -286,11 +313,12 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
         rsClose = false;
         rs = resultSet;
         this.count = count;
-        if (isTable)
+        if (isTable) {
             for (int i = 0; i < fetchSize && !rsClose; i++) {
                 fetchOneRecord(resultSet, count);
             }
-        else if (maxRecords > 0) {
+            startPrefetching();
+        } else if (maxRecords > 0) {
             for (int i = 0; i < maxRecords && !rsClose; i++) {
                 fetchOneRecord(resultSet, count);
             }
@@ -311,13 +339,174 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
     }
 
     public boolean isResultSetClose() {
-        return rsClose;
+        return rsClose && prefetcher == null;
+    }
+
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.prefetchEnabled = prefetchEnabled;
+    }
+
+    /**
+     * Returns the number of fetch blocks read ahead and
+     * not yet added to the model.
+     */
+    public int getPrefetchDepth() {
+        ResultSetPrefetcher<Object> prefetcher = this.prefetcher;
+        return prefetcher != null ? prefetcher.getReadyBlocks() : 0;
+    }
+
+    /**
+     * Returns the time in millis taken to read the last fetch block
+     * in background, or -1 if prefetching is not active.
+     */
+    public long getLastFetchTime() {
+        ResultSetPrefetcher<Object> prefetcher = this.prefetcher;
+        return prefetcher != null ? prefetcher.getLastFetchTime() : -1;
+    }
+
+    private void startPrefetching() {
+
+        int depth = UserProperties.getInstance().getIntProperty("results.table.prefetch.depth");
+        if (prefetchEnabled && depth > 0 && !rsClose) {
+
+            prefetcher = new ResultSetPrefetcher<Object>(this::readBlock, this::cancelRead, fetchSize, depth);
+            prefetcher.start();
+        }
+    }
+
+    private void stopPrefetching() {
+
+        if (prefetcher != null) {
+
+            prefetcher.shutdown();
+            prefetcher = null;
+        }
+        loading = false;
+    }
+
+    /**
+     * Cancels the statement of the result set being read by the prefetcher.
+     */
+    private void cancelRead() {
+
+        try {
+
+            Statement statement = rs.getStatement();
+            if (statement != null) {
+
+                statement.cancel();
+            }
+
+        } catch (SQLException e) {
+
+            Log.debug("Unable to cancel the prefetching statement: " + e.getMessage());
+        }
+    }
+
+    private void fetchPrefetchedData() throws Exception {
+
+        if (fetchAll) {
+
+            // all the rows are needed at once, for sorting for example
+            ResultSetPrefetcher.Block<Object> block;
+            do {
+
+                block = prefetcher.take();
+                if (block != null) {
+
+                    appendBlock(block);
+                }
+
+            } while (block != null && !block.isLast());
+
+            stopPrefetching();
+            runOnEventDispatchThread(this::fireTableDataChanged);
+            return;
+        }
+
+        // the event dispatch thread is not blocked waiting for the worker
+        ResultSetPrefetcher.Block<Object> block = prefetcher.poll();
+        if (block == null && !prefetcher.isFinished()) {
+
+            waitForBlock();
+            return;
+        }
+
+        if (block != null) {
+
+            appendBlock(block);
+        }
+
+        if (block == null || block.isLast()) {
+
+            stopPrefetching();
+        }
+        runOnEventDispatchThread(this::fireTableDataChanged);
+    }
+
+    /**
+     * Fetches the next block once it is read by the prefetcher,
+     * the model is loading until then.
+     */
+    private void waitForBlock() {
+
+        if (loading) {
+
+            return;
+        }
+
+        loading = true;
+        ResultSetPrefetcher<Object> waited = prefetcher;
+        waited.whenReady(() -> SwingUtilities.invokeLater(() -> {
+
+            loading = false;
+            if (prefetcher == waited) {
+
+                fetchMoreData();
+            }
+        }));
+    }
+
+    /**
+     * Adds the prefetched records - the row count and the column
+     * widths are updated on the event dispatch thread.
+     */
+    private void appendBlock(ResultSetPrefetcher.Block<Object> block) throws Exception {
+
+        runOnEventDispatchThread(() -> {
+
+            for (Object record : block.getRecords()) {
+
+                appendRecord(record);
+            }
+        });
+    }
+
+    private static void runOnEventDispatchThread(Runnable runnable) throws InterruptedException, InvocationTargetException {
+
+        if (SwingUtilities.isEventDispatchThread()) {
+
+            runnable.run();
+
+        } else {
+
+            SwingUtilities.invokeAndWait(runnable);
+        }
+    }
+
+    /**
+     * Returns whether a fetch block is being waited for.
+     */
+    public boolean isLoading() {
+        return loading;
     }
 
     public void fetchMoreData() {
-        if (!rsClose)
+        if (!isResultSetClose())
             try {
-                if (fetchAll) {
+                if (prefetcher != null) {
+                    fetchPrefetchedData();
+                } else if (fetchAll) {
                     fetchAllRecords(rs, count);
                 } else {
                     for (int i = 0; i < fetchSize && !rsClose; i++) {
@@ -326,6 +515,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                     fireTableDataChanged();
                 }
             } catch (Exception e) {
+                stopPrefetching();
                 rsClose = true;
                 if (cancelled) {
                     cancelled = false;
@@ -461,7 +651,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     }
 
-    private void asStringOrObject(RecordDataItem value, ResultSet resultSet, int column) throws SQLException {
+    private static String asStringOrObject(ResultSet resultSet, int column) throws SQLException {
 
         // often getString returns a more useful representation
         // return using getString where object.toString is the default impl
@@ -479,7 +669,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
             }
         }
 
-        value.setValue(valueAsString);
+        return valueAsString;
     }
 
     private boolean isOpenAndValid(ResultSet resultSet) {
@@ -533,168 +723,257 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     private void addingRecord(ResultSet resultSet, int count) throws SQLException, InterruptedException {
 
+        appendRecord(readRecord(resultSet, count));
+    }
 
-            if (interrupted || Thread.interrupted()) {
-
-                throw new InterruptedException();
-            }
-
-            recordCount++;
-            List<RecordDataItem> rowData = new ArrayList<RecordDataItem>(count);
-
-            for (int i = 1; i <= count; i++) {
+    /**
+     * Reads the current result set row - as the record data item list
+     * or, with the columnar storage, as the row values array.
+     */
+    private Object readRecord(ResultSet resultSet, int count) throws SQLException, InterruptedException {
 
-                zeroBaseIndex = i - 1;
+        if (interrupted || Thread.interrupted()) {
 
-                ResultSetColumnHeader header = columnHeaders.get(zeroBaseIndex);
-                RecordDataItem value = recordDataItemFactory.create(header);
+            throw new InterruptedException();
+        }
 
-                try {
+        List<RecordDataItem> rowData = columnarStorage == null ? new ArrayList<RecordDataItem>(count) : null;
+        Object[] rowValues = columnarStorage != null ? new Object[count] : null;
 
-                    int dataType = header.getDataType();
-                    switch (dataType) {
-
-                        // some drivers (informix for example)
-                        // was noticed to return the hashcode from
-                        // getObject for -1 data types (eg. longvarchar).
-                        // force string for these - others stick with
-                        // getObject() for default value formatting
-
-                        case Types.CHAR:
-                        case Types.VARCHAR:
-                            value.setValue(resultSet.getString(i));
-                            break;
-                        case Types.TIME_WITH_TIMEZONE:
-                            value.setValue(resultSet.getObject(i, OffsetTime.class));
-                            break;
-                        case Types.TIMESTAMP_WITH_TIMEZONE:
-                            value.setValue(resultSet.getObject(i, OffsetDateTime.class));
-                            break;
-                        case Types.DATE:
-                            value.setValue(resultSet.getObject(i, LocalDate.class));
-                            break;
-                        case Types.TIME:
-                            value.setValue(resultSet.getObject(i, LocalTime.class));
-                            break;
-                        case Types.TIMESTAMP:
-                            value.setValue(resultSet.getObject(i, LocalDateTime.class));
-                            break;
-                        case Types.LONGVARCHAR:
-                        case Types.CLOB:
-                            Clob clob = resultSet.getClob(i);
-                            if (clob != null && clob.getClass().getName().contains("org.firebirdsql.jdbc")) {
-                                try {
-                                    PooledResultSet pooledResultSet = (PooledResultSet) resultSet;
-                                    PooledConnection connection = (PooledConnection) pooledResultSet.getStatement().getConnection();
-                                    Connection unwrapCon = connection.unwrap(Connection.class);
-                                    IFBClob ifbClob = (IFBClob) DynamicLibraryLoader.loadingObjectFromClassLoader(connection.getDatabaseConnection().getDriverMajorVersion(), unwrapCon, "FBClobImpl");
-                                    ifbClob.detach(clob, ((PooledStatement) pooledResultSet.getStatement()).getStatement());
-                                    value.setValue(ifbClob);
-                                } catch (ClassNotFoundException e) {
-                                    e.printStackTrace();
-                                }
-                            } else {
-                                value.setValue(clob);
-                            }
-                            if (columnDataList != null) {
-                                ((ClobRecordDataItem) value).setCharset(columnDataList.get(i - 1).getCharset());
-                                if (MiscUtils.isNull(columnDataList.get(i - 1).getCharset()) || Objects.equals(columnDataList.get(i - 1).getCharset(), CreateTableSQLSyntax.NONE))
-                                    ((ClobRecordDataItem) value).setCharset(columnDataList.get(i - 1).getDatabaseConnection().getCharset());
-                            } else ((ClobRecordDataItem) value).setCharset(CreateTableSQLSyntax.NONE);
-                            break;
-                        case Types.LONGVARBINARY:
-                        case Types.VARBINARY:
-                        case Types.BINARY:
-                            value.setValue(resultSet.getBytes(i));
-                            break;
-                        case Types.BLOB:
-                            Blob blob = resultSet.getBlob(i);
-                            if (blob != null && blob.getClass().getName().contains("org.firebirdsql.jdbc")) {
-                                try {
-                                    PooledResultSet pooledResultSet = (PooledResultSet) resultSet;
-                                    PooledConnection connection = (PooledConnection) pooledResultSet.getStatement().getConnection();
-                                    Connection unwrapCon = connection.unwrap(Connection.class);
-                                    IFBBlob ifbBlob = (IFBBlob) DynamicLibraryLoader.loadingObjectFromClassLoader(connection.getDatabaseConnection().getDriverMajorVersion(), unwrapCon, "FBBlobImpl");
-                                    ifbBlob.detach(blob, ((PooledStatement) pooledResultSet.getStatement()).getStatement());
-                                    value.setValue(ifbBlob);
-                                } catch (ClassNotFoundException e) {
-                                    e.printStackTrace();
-                                }
-                            } else {
-                                value.setValue(blob);
-                            }
-                            break;
-                        case Types.BIT:
-                        case Types.TINYINT:
-                        case Types.SMALLINT:
-                        case Types.INTEGER:
-                        case Types.INT128:
-                        case Types.BIGINT:
-                        case Types.FLOAT:
-                        case Types.REAL:
-                        case Types.DOUBLE:
-                        case Types.NUMERIC:
-                        case Types.DECIMAL:
-                        case Types.NULL:
-                        case Types.OTHER:
-                        case Types.JAVA_OBJECT:
-                        case Types.DISTINCT:
-                        case Types.STRUCT:
-                        case Types.ARRAY:
-                        case Types.REF:
-                        case Types.DATALINK:
-                        case Types.BOOLEAN:
-                        case Types.ROWID:
-                        case Types.NCHAR:
-                        case Types.NVARCHAR:
-                        case Types.LONGNVARCHAR:
-                        case Types.NCLOB:
-                        case Types.SQLXML:
-
-                            // use getObject for all other known types
-
-                            value.setValue(resultSet.getObject(i));
-                            break;
-
-                        default:
-
-                            // otherwise try as string
-
-                            asStringOrObject(value, resultSet, i);
-                            break;
-                    }
+        for (int i = 1; i <= count; i++) {
 
-                } catch (Exception e) {
+            int zeroBaseIndex = i - 1;
 
-                    try {
+            ResultSetColumnHeader header = columnHeaders.get(zeroBaseIndex);
+            Object cellValue = readValue(resultSet, i, header);
+            boolean wasNull = resultSet.wasNull();
 
-                        // ... and on dump, resort to string
-                        value.setValue(resultSet.getString(i));
+            if (columnarStorage != null && !ColumnarRecordStorage.isItemColumn(header.getDataType())) {
 
-                    } catch (SQLException sqlException) {
+                rowValues[zeroBaseIndex] = wasNull ? null : cellValue;
 
-                        // catch-all SQLException - yes, this is hideous
+            } else {
 
-                        // noticed with invalid date formatted values in mysql
+                RecordDataItem value = recordDataItemFactory.create(header);
+                value.setValue(cellValue);
+                if (value instanceof ClobRecordDataItem) {
 
-                        value.setValue("<Error - " + sqlException.getMessage() + ">");
-                    }
+                    setClobCharset((ClobRecordDataItem) value, zeroBaseIndex);
                 }
 
-                if (resultSet.wasNull()) {
+                if (wasNull) {
 
                     value.setNull();
                 }
 
-                rowData.add(value);
-                if(value.getDisplayValue()!=null) {
-                    int width = fakeTable.getFontMetrics(fakeTable.getFont()).stringWidth(value.getDisplayValue().toString());
-                    if(width>header.getColWidth())
-                        header.setColWidth(width+5);
+                if (rowData != null) {
+
+                    rowData.add(value);
+
+                } else {
+
+                    rowValues[zeroBaseIndex] = value;
                 }
             }
+        }
+
+        if (columnarStorage != null) {
+
+            return rowValues;
+        }
+        return rowData;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void appendRecord(Object record) {
+
+        recordCount++;
+        if (columnarStorage != null) {
+
+            Object[] values = (Object[]) record;
+            for (int i = 0; i < values.length; i++) {
+
+                Object value = values[i];
+                updateColumnWidth(i, value instanceof RecordDataItem ? ((RecordDataItem) value).getDisplayValue() : value);
+            }
+            columnarStorage.addRecord(values);
 
+        } else {
+
+            List<RecordDataItem> rowData = (List<RecordDataItem>) record;
+            for (int i = 0; i < rowData.size(); i++) {
+
+                updateColumnWidth(i, rowData.get(i).getDisplayValue());
+            }
             tableData.add(rowData);
+        }
+    }
+
+    private void updateColumnWidth(int column, Object displayValue) {
+
+        if (displayValue != null) {
+
+            ResultSetColumnHeader header = columnHeaders.get(column);
+            int width = fakeTable.getFontMetrics(fakeTable.getFont()).stringWidth(displayValue.toString());
+            if (width > header.getColWidth())
+                header.setColWidth(width + 5);
+        }
+    }
+
+    /**
+     * Reads the next block of records on the prefetcher thread -
+     * the records are added to the model by the thread taking them.
+     */
+    private List<Object> readBlock(int size) throws SQLException, InterruptedException {
+
+        List<Object> records = new ArrayList<Object>(size);
+        while (records.size() < size && !rsClose) {
+
+            if (rs.next()) {
+
+                records.add(readRecord(rs, count));
+
+            } else {
+
+                rs.close();
+                rsClose = true;
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Reads the column value of the current result set row
+     * as it is kept in the record data item of the column.
+     */
+    public static Object readValue(ResultSet resultSet, int i, ResultSetColumnHeader header) throws SQLException {
+
+        try {
+
+            int dataType = header.getDataType();
+            switch (dataType) {
+
+                // some drivers (informix for example)
+                // was noticed to return the hashcode from
+                // getObject for -1 data types (eg. longvarchar).
+                // force string for these - others stick with
+                // getObject() for default value formatting
+
+                case Types.CHAR:
+                case Types.VARCHAR:
+                    return resultSet.getString(i);
+                case Types.TIME_WITH_TIMEZONE:
+                    return resultSet.getObject(i, OffsetTime.class);
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return resultSet.getObject(i, OffsetDateTime.class);
+                case Types.DATE:
+                    return resultSet.getObject(i, LocalDate.class);
+                case Types.TIME:
+                    return resultSet.getObject(i, LocalTime.class);
+                case Types.TIMESTAMP:
+                    return resultSet.getObject(i, LocalDateTime.class);
+                case Types.LONGVARCHAR:
+                case Types.CLOB:
+                    Clob clob = resultSet.getClob(i);
+                    if (clob != null && clob.getClass().getName().contains("org.firebirdsql.jdbc")) {
+                        try {
+                            PooledResultSet pooledResultSet = (PooledResultSet) resultSet;
+                            PooledConnection connection = (PooledConnection) pooledResultSet.getStatement().getConnection();
+                            Connection unwrapCon = connection.unwrap(Connection.class);
+                            IFBClob ifbClob = (IFBClob) DynamicLibraryLoader.loadingObjectFromClassLoader(connection.getDatabaseConnection().getDriverMajorVersion(), unwrapCon, "FBClobImpl");
+                            ifbClob.detach(clob, ((PooledStatement) pooledResultSet.getStatement()).getStatement());
+                            return ifbClob;
+                        } catch (ClassNotFoundException e) {
+                            e.printStackTrace();
+                            return null;
+                        }
+                    }
+                    return clob;
+                case Types.LONGVARBINARY:
+                case Types.VARBINARY:
+                case Types.BINARY:
+                    return resultSet.getBytes(i);
+                case Types.BLOB:
+                    Blob blob = resultSet.getBlob(i);
+                    if (blob != null && blob.getClass().getName().contains("org.firebirdsql.jdbc")) {
+                        try {
+                            PooledResultSet pooledResultSet = (PooledResultSet) resultSet;
+                            PooledConnection connection = (PooledConnection) pooledResultSet.getStatement().getConnection();
+                            Connection unwrapCon = connection.unwrap(Connection.class);
+                            IFBBlob ifbBlob = (IFBBlob) DynamicLibraryLoader.loadingObjectFromClassLoader(connection.getDatabaseConnection().getDriverMajorVersion(), unwrapCon, "FBBlobImpl");
+                            ifbBlob.detach(blob, ((PooledStatement) pooledResultSet.getStatement()).getStatement());
+                            return ifbBlob;
+                        } catch (ClassNotFoundException e) {
+                            e.printStackTrace();
+                            return null;
+                        }
+                    }
+                    return blob;
+                case Types.BIT:
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.INT128:
+                case Types.BIGINT:
+                case Types.FLOAT:
+                case Types.REAL:
+                case Types.DOUBLE:
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                case Types.NULL:
+                case Types.OTHER:
+                case Types.JAVA_OBJECT:
+                case Types.DISTINCT:
+                case Types.STRUCT:
+                case Types.ARRAY:
+                case Types.REF:
+                case Types.DATALINK:
+                case Types.BOOLEAN:
+                case Types.ROWID:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.NCLOB:
+                case Types.SQLXML:
+
+                    // use getObject for all other known types
+
+                    return resultSet.getObject(i);
+
+                default:
+
+                    // otherwise try as string
+
+                    return asStringOrObject(resultSet, i);
+            }
+
+        } catch (Exception e) {
+
+            try {
+
+                // ... and on dump, resort to string
+                return resultSet.getString(i);
+
+            } catch (SQLException sqlException) {
+
+                // catch-all SQLException - yes, this is hideous
+
+                // noticed with invalid date formatted values in mysql
+
+                return "<Error - " + sqlException.getMessage() + ">";
+            }
+        }
+
+    }
+
+    private void setClobCharset(ClobRecordDataItem value, int column) {
+
+        if (columnDataList != null) {
+            value.setCharset(columnDataList.get(column).getCharset());
+            if (MiscUtils.isNull(columnDataList.get(column).getCharset()) || Objects.equals(columnDataList.get(column).getCharset(), CreateTableSQLSyntax.NONE))
+                value.setCharset(columnDataList.get(column).getDatabaseConnection().getCharset());
+        } else value.setCharset(CreateTableSQLSyntax.NONE);
     }
 
     public void cancelFetch() {
@@ -890,13 +1169,32 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public List<RecordDataItem> getRowDataForRow(int row) {
 
+        return getRowForEditing(row);
+    }
+
+    /**
+     * Returns the row values for read-only access. Unlike
+     * {@link #getRowDataForRow(int)} the returned items are not
+     * retained by the columnar storage and should not be modified.
+     */
+    public List<RecordDataItem> getRowDataForView(int row) {
+
+        return tableData.get(row);
+    }
+
+    private List<RecordDataItem> getRowForEditing(int row) {
+
+        if (columnarStorage != null) {
+
+            return columnarStorage.pin(row);
+        }
         return tableData.get(row);
     }
 
     @Override
     public void setValueAt(Object value, int row, int column) {
 
-        List<RecordDataItem> rowData = tableData.get(row);
+        List<RecordDataItem> rowData = getRowForEditing(row);
         if (column < rowData.size()) {
 
             try {
@@ -1033,7 +1331,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public void deleteRow(int rowNumber) {
         if (rowNumber >= 0 && rowNumber < tableData.size()) {
-            List<RecordDataItem> row = tableData.get(rowNumber);
+            List<RecordDataItem> row = getRowForEditing(rowNumber);
             if (row.get(0).isNew()) {
                 deletedRow = tableData.get(rowNumber);
                 tableData.remove(rowNumber);
@@ -1076,7 +1374,14 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
             return String.class;
         }
 
-        int columnType = recordDataItem.getDataType();
+        return getColumnClassForType(recordDataItem.getDataType());
+    }
+
+    /**
+     * Returns the class of the values of the column of the given type.
+     */
+    public static Class<?> getColumnClassForType(int columnType) {
+
         switch (columnType) {
 
             case Types.TINYINT:
@@ -1125,8 +1430,28 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
     }
 
     public void closeResultSet() throws SQLException {
-        if (rs != null && !rs.isClosed())
-            rs.close();
+        ResultSetPrefetcher<Object> stopped = prefetcher;
+        if (stopped != null) {
+            // the worker may still be reading the result set - it is closed by the worker
+            ResultSet resultSet = rs;
+            DefaultStatementExecutor resultSetExecutor = executor;
+            prefetcher = null;
+            loading = false;
+            stopped.shutdown(() -> {
+                try {
+                    closeResultSet(resultSet, resultSetExecutor);
+                } catch (SQLException e) {
+                    Log.debug("Error closing the prefetched result set: " + e.getMessage());
+                }
+            });
+            return;
+        }
+        closeResultSet(rs, executor);
+    }
+
+    private static void closeResultSet(ResultSet resultSet, DefaultStatementExecutor executor) throws SQLException {
+        if (resultSet != null && !resultSet.isClosed())
+            resultSet.close();
         if (executor != null)
             executor.releaseResources();
     }
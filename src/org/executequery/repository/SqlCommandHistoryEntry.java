@@ -0,0 +1,60 @@
+/*
+ * SqlCommandHistoryEntry.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.repository;
+
+/**
+ * The executed SQL command of the history with its last execution.
+ */
+public final class SqlCommandHistoryEntry {
+
+    private final String query;
+
+    private final long executed;
+
+    private final long duration;
+
+    public SqlCommandHistoryEntry(String query, long executed, long duration) {
+        this.query = query;
+        this.executed = executed;
+        this.duration = duration;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns the time the command was last executed at in milliseconds,
+     * 0 if it is not known.
+     */
+    public long getExecuted() {
+        return executed;
+    }
+
+    /**
+     * Returns the duration of the last execution in milliseconds,
+     * -1 if it is not known.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+}
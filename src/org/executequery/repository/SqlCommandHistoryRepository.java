@@ -20,6 +20,7 @@
 
 package org.executequery.repository;
 
+import java.util.List;
 import java.util.Vector;
 
 /**
@@ -33,8 +34,27 @@ public interface SqlCommandHistoryRepository extends Repository {
 
     void addSqlCommand(String query, String connectionID);
 
+    /**
+     * Adds the executed command with the duration of its execution in milliseconds.
+     */
+    void addSqlCommand(String query, String connectionID, long duration);
+
+    /**
+     * Returns the executed commands, the most recent first.
+     */
     Vector<String> getSqlCommandHistory(String connectionID);
 
+    /**
+     * Returns the executed commands with their last executions, the most recent first.
+     */
+    List<SqlCommandHistoryEntry> getSqlCommandHistoryEntries(String connectionID);
+
+    /**
+     * Returns the indexes in the history of the commands with the words
+     * starting with each word of the text.
+     */
+    List<Integer> findSqlCommands(String text, String connectionID);
+
 }
 
 
@@ -257,6 +257,7 @@ public class DatabaseConnectionXMLRepository extends AbstractXMLResourceReaderWr
     private static final String SSH_HOST = "sshhost";
     private static final String SSH_STORE_PASSWORD = "sshstorepassword";
     private static final String NAMES_TO_UPPER_CASE = "namestouppercase";
+    private static final String STATEMENT_CACHE_SIZE = "statementcachesize";
 
     private static final String PATH_TO_TRACE_CONFIG = "pathtotraceconfig";
 
@@ -518,6 +519,12 @@ public class DatabaseConnectionXMLRepository extends AbstractXMLResourceReaderWr
                     databaseConnection.setNamesToUpperCase(true);
                 }
 
+            } else if (localNameIsKey(localName, STATEMENT_CACHE_SIZE)) {
+                if (hasContents()) {
+
+                    databaseConnection.setStatementCacheSize(contentsAsInt());
+                }
+
             } else if (localNameIsKey(localName, PATH_TO_TRACE_CONFIG)) {
                 if (hasContents()) {
 
@@ -716,6 +723,8 @@ public class DatabaseConnectionXMLRepository extends AbstractXMLResourceReaderWr
                         valueToString(connection.isNamesToUpperCase()), INDENT_TWO);
                 writeXML(PATH_TO_TRACE_CONFIG,
                         connection.getPathToTraceConfig(), INDENT_TWO);
+                writeXML(STATEMENT_CACHE_SIZE,
+                        valueToString(connection.getStatementCacheSize()), INDENT_TWO);
 
                 if (connection.isSshPasswordStored()) {
 
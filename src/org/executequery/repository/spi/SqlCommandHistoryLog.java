@@ -0,0 +1,378 @@
+/*
+ * SqlCommandHistoryLog.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.repository.spi;
+
+import org.executequery.log.Log;
+import org.executequery.repository.SqlCommandHistoryEntry;
+import org.underworldlabs.util.FileUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * The SQL command history of one connection kept in an append-only log.
+ * <p>
+ * Every executed command is appended to the log as a record and the log
+ * is read once, when the history is first used. The history is indexed in
+ * memory by the command text, so a command executed again is moved to the
+ * top instead of being added twice, and the oldest commands are dropped
+ * over the history size. The log is rewritten with the commands kept when
+ * the dropped and the repeated records outweigh them.
+ * <p>
+ * The commands are searched by the words of their text through an inverted
+ * index built with the history.
+ */
+final class SqlCommandHistoryLog {
+
+    private static final int MAGIC = 0x52584831; // RXH1
+
+    private static final byte RECORD_ADD = 1;
+    private static final byte RECORD_CLEAR = 2;
+
+    private static final int MIN_COMPACTED_RECORDS = 64;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}_$]+");
+
+    private final File file;
+
+    private final File legacyFile;
+
+    /**
+     * The commands from the oldest to the most recent
+     */
+    private final LinkedHashMap<String, SqlCommandHistoryEntry> entries = new LinkedHashMap<>();
+
+    private final TreeMap<String, Set<String>> wordIndex = new TreeMap<>();
+
+    private Vector<String> queries;
+
+    private int recordCount;
+
+    private int maxCount;
+
+    private boolean loaded;
+
+    /**
+     * @param file       the log file
+     * @param legacyFile the serialized history of the previous versions, moved to the log once
+     * @param maxCount   the history size
+     */
+    SqlCommandHistoryLog(File file, File legacyFile, int maxCount) {
+        this.file = file;
+        this.legacyFile = legacyFile;
+        this.maxCount = maxCount;
+    }
+
+    synchronized void add(String query, long executed, long duration, int maxCount) {
+
+        load();
+        this.maxCount = maxCount;
+
+        SqlCommandHistoryEntry entry = new SqlCommandHistoryEntry(query, executed, duration);
+        put(entry);
+
+        try (DataOutputStream output = openAppend()) {
+            writeAdd(output, entry);
+
+        } catch (IOException e) {
+            Log.debug("IO error storing SQL command history.", e);
+        }
+        recordCount++;
+
+        if (needsCompaction())
+            compact();
+    }
+
+    synchronized void clear() {
+
+        load();
+        entries.clear();
+        wordIndex.clear();
+        queries = null;
+
+        if (compact())
+            return;
+
+        try (DataOutputStream output = openAppend()) {
+            output.writeByte(RECORD_CLEAR);
+
+        } catch (IOException e) {
+            Log.debug("IO error storing SQL command history.", e);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Returns the command texts, the most recent first.
+     */
+    synchronized Vector<String> getQueries() {
+
+        load();
+        if (queries == null) {
+
+            queries = new Vector<>(entries.size());
+            for (String query : entries.keySet())
+                queries.add(query);
+            Collections.reverse(queries);
+        }
+
+        return new Vector<>(queries);
+    }
+
+    /**
+     * Returns the commands, the most recent first.
+     */
+    synchronized List<SqlCommandHistoryEntry> getEntries() {
+
+        load();
+        List<SqlCommandHistoryEntry> list = new ArrayList<>(entries.values());
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * Returns the indexes of the commands containing the words starting with the
+     * words of the text, in the order of {@link #getQueries()}.
+     */
+    synchronized List<Integer> find(String text) {
+
+        load();
+
+        Set<String> found = null;
+        for (String word : words(text)) {
+
+            Set<String> wordFound = new HashSet<>();
+            for (Set<String> queriesOfWord : wordIndex.subMap(word, true, word + Character.MAX_VALUE, true).values())
+                wordFound.addAll(queriesOfWord);
+
+            if (found == null)
+                found = wordFound;
+            else
+                found.retainAll(wordFound);
+
+            if (found.isEmpty())
+                break;
+        }
+
+        List<Integer> indexes = new ArrayList<>();
+        if (found == null || found.isEmpty())
+            return indexes;
+
+        int index = entries.size() - 1;
+        for (String query : entries.keySet()) {
+            if (found.contains(query))
+                indexes.add(index);
+            index--;
+        }
+
+        Collections.reverse(indexes);
+        return indexes;
+    }
+
+    private void put(SqlCommandHistoryEntry entry) {
+
+        // the repeated command is moved to the top
+        if (entries.remove(entry.getQuery()) == null)
+            indexWords(entry.getQuery());
+        entries.put(entry.getQuery(), entry);
+
+        Iterator<String> oldest = entries.keySet().iterator();
+        while (entries.size() > Math.max(maxCount, 0)) {
+
+            String query = oldest.next();
+            oldest.remove();
+            removeWords(query);
+        }
+
+        queries = null;
+    }
+
+    private void indexWords(String query) {
+
+        for (String word : words(query))
+            wordIndex.computeIfAbsent(word, key -> new HashSet<>()).add(query);
+    }
+
+    private void removeWords(String query) {
+
+        for (String word : words(query)) {
+
+            Set<String> queriesOfWord = wordIndex.get(word);
+            if (queriesOfWord != null && queriesOfWord.remove(query) && queriesOfWord.isEmpty())
+                wordIndex.remove(word);
+        }
+    }
+
+    private static Set<String> words(String text) {
+
+        Set<String> words = new HashSet<>();
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+            if (!word.isEmpty())
+                words.add(word);
+
+        return words;
+    }
+
+    private boolean needsCompaction() {
+        return recordCount > Math.max(2 * entries.size(), MIN_COMPACTED_RECORDS);
+    }
+
+    // --- log file ---
+
+    private void load() {
+
+        if (loaded)
+            return;
+        loaded = true;
+
+        if (!file.exists()) {
+            loadLegacyHistory();
+            return;
+        }
+
+        boolean damaged = false;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+
+            if (input.readInt() != MAGIC)
+                throw new IOException("The file is not an SQL command history log");
+
+            while (true) {
+
+                int type = input.read();
+                if (type == -1)
+                    break;
+
+                if (type == RECORD_ADD)
+                    put(readAdd(input));
+
+                else if (type == RECORD_CLEAR) {
+                    entries.clear();
+                    wordIndex.clear();
+
+                } else
+                    throw new IOException("Unknown SQL command history record " + type);
+
+                recordCount++;
+            }
+
+        } catch (IOException e) {
+            // the records after the last complete one are dropped
+            Log.debug("SQL command history log is damaged after the record " + recordCount, e);
+            damaged = true;
+        }
+
+        if (damaged || needsCompaction())
+            compact();
+    }
+
+    private void loadLegacyHistory() {
+
+        if (legacyFile == null || !legacyFile.exists())
+            return;
+
+        try {
+
+            Object object = FileUtils.readObject(legacyFile);
+            if (object instanceof Vector) {
+
+                List<?> history = (List<?>) object;
+                for (int i = history.size() - 1; i >= 0; i--)
+                    if (history.get(i) instanceof String)
+                        put(new SqlCommandHistoryEntry((String) history.get(i), 0, -1));
+            }
+
+        } catch (IOException e) {
+            Log.debug("IO error opening SQL command history.", e);
+        }
+
+        if (compact() && !legacyFile.delete())
+            legacyFile.deleteOnExit();
+    }
+
+    /**
+     * Rewrites the log with the commands of the history.
+     *
+     * @return true if the log is rewritten
+     */
+    private boolean compact() {
+
+        File compacted = new File(file.getPath() + ".tmp");
+        try {
+
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted), 1 << 16))) {
+
+                output.writeInt(MAGIC);
+                for (SqlCommandHistoryEntry entry : entries.values())
+                    writeAdd(output, entry);
+            }
+
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            recordCount = entries.size();
+            return true;
+
+        } catch (IOException e) {
+            Log.debug("IO error compacting SQL command history.", e);
+            compacted.delete();
+            return false;
+        }
+    }
+
+    private DataOutputStream openAppend() throws IOException {
+
+        if (!file.exists() && !compact())
+            throw new IOException("SQL command history log can not be created");
+
+        return new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file.toPath(), StandardOpenOption.APPEND)));
+    }
+
+    private static void writeAdd(DataOutputStream output, SqlCommandHistoryEntry entry) throws IOException {
+
+        byte[] query = entry.getQuery().getBytes(StandardCharsets.UTF_8);
+
+        output.writeByte(RECORD_ADD);
+        output.writeLong(entry.getExecuted());
+        output.writeLong(entry.getDuration());
+        output.writeInt(query.length);
+        output.write(query);
+    }
+
+    private SqlCommandHistoryEntry readAdd(DataInputStream input) throws IOException {
+
+        long executed = input.readLong();
+        long duration = input.readLong();
+
+        int length = input.readInt();
+        if (length < 0 || length > file.length())
+            throw new IOException("Malformed SQL command history record");
+
+        byte[] query = new byte[length];
+        input.readFully(query);
+
+        return new SqlCommandHistoryEntry(new String(query, StandardCharsets.UTF_8), executed, duration);
+    }
+
+}
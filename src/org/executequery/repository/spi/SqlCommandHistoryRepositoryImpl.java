@@ -20,52 +20,35 @@
 
 package org.executequery.repository.spi;
 
-import org.executequery.log.Log;
+import org.executequery.repository.SqlCommandHistoryEntry;
 import org.executequery.repository.SqlCommandHistoryRepository;
 import org.executequery.util.UserProperties;
 import org.executequery.util.UserSettingsProperties;
-import org.underworldlabs.util.FileUtils;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 public class SqlCommandHistoryRepositoryImpl implements SqlCommandHistoryRepository {
 
     private static final String FILE_PATH = "sql-command.history";
 
-    private UserSettingsProperties settings;
-
-    public void addSqlCommand(String query, String connectionID) {
-
-        if (!hasQueryAtZero(query, connectionID)) {
-
-            final Vector<String> history = getSqlCommandHistory(connectionID);
+    private static final String LOG_FILE_PATH = "sql-command.history.log";
 
-            int size = history.size();
-            if (size == maxHistoryCount()) {
+    private final Map<String, SqlCommandHistoryLog> histories = new HashMap<>();
 
-                history.remove(size - 1);
-            }
+    private UserSettingsProperties settings;
 
-            history.add(0, query);
+    public void addSqlCommand(String query, String connectionID) {
 
-            writeHistory(history, connectionID);
-        }
+        addSqlCommand(query, connectionID, -1);
     }
 
-    private boolean hasQueryAtZero(String query, String connectionID) {
-
-        final Vector<String> history = getSqlCommandHistory(connectionID);
+    public void addSqlCommand(String query, String connectionID, long duration) {
 
-        if (history.isEmpty()) {
-
-            return false;
-        }
-
-        String queryAtZero = history.get(0);
-
-        return (queryAtZero.compareTo(query) == 0);
+        history(connectionID).add(query, System.currentTimeMillis(), duration, maxHistoryCount());
     }
 
     private int maxHistoryCount() {
@@ -75,69 +58,33 @@ public class SqlCommandHistoryRepositoryImpl implements SqlCommandHistoryReposit
 
     public void clearSqlCommandHistory(String connectionID) {
 
-        writeHistory(new Vector<String>(0), connectionID);
+        history(connectionID).clear();
     }
 
-    @SuppressWarnings("unchecked")
     public Vector<String> getSqlCommandHistory(String connectionID) {
 
-        try {
-
-            File file = new File(filePath(connectionID));
-
-            if (!file.exists()) {
-
-                return emptyHistory();
-
-            } else {
-
-                Object object = FileUtils.readObject(file);
-
-                if (object == null || !(object instanceof Vector)) {
-
-                    return emptyHistory();
-
-                } else {
-
-                    return (Vector<String>) object;
-                }
-            }
-
-        } catch (IOException e) {
-
-            if (Log.isDebugEnabled()) {
-
-                Log.debug("IO error opening SQL command history.", e);
-            }
-
-            return emptyHistory();
-        }
-
+        return history(connectionID).getQueries();
     }
 
-    private void writeHistory(Vector<String> history, String connectionID) {
-
-        try {
-
-            FileUtils.writeObject(history, filePath(connectionID));
+    public List<SqlCommandHistoryEntry> getSqlCommandHistoryEntries(String connectionID) {
 
-        } catch (IOException e) {
-
-            if (Log.isDebugEnabled()) {
-
-                Log.debug("IO error storing SQL command history.", e);
-            }
+        return history(connectionID).getEntries();
+    }
 
-        }
+    public List<Integer> findSqlCommands(String text, String connectionID) {
 
+        return history(connectionID).find(text);
     }
 
-    private Vector<String> emptyHistory() {
+    private synchronized SqlCommandHistoryLog history(String connectionID) {
 
-        return new Vector<String>();
+        return histories.computeIfAbsent(connectionID, id -> new SqlCommandHistoryLog(
+                new File(filePath(id, LOG_FILE_PATH)),
+                new File(filePath(id, FILE_PATH)),
+                maxHistoryCount()));
     }
 
-    private String filePath(String connectionID) {
+    private String filePath(String connectionID, String fileName) {
 
         if (settings == null) {
 
@@ -148,7 +95,7 @@ public class SqlCommandHistoryRepositoryImpl implements SqlCommandHistoryReposit
         if (!f_dir.exists()) {
             f_dir.mkdirs();
         }
-        return dir + connectionID + "." + FILE_PATH;
+        return dir + connectionID + "." + fileName;
     }
 
     public String getId() {
@@ -0,0 +1,408 @@
+/*
+ * ParallelScriptExecutor.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.sql;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.underworldlabs.util.MiscUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Executes the segments of a script marked as independent on several
+ * connections at once.
+ * <p>
+ * The script is split with marker comments placed before a statement:
+ * <ul>
+ * <li><code>-- @segment</code> - starts a new segment which runs in
+ * parallel with the segments started before</li>
+ * <li><code>-- @wait</code> - waits for all running segments to complete
+ * and starts a new segment</li>
+ * </ul>
+ * Each segment runs on its own pooled connection in its own transaction,
+ * committed when the segment completes and rolled back on error, the
+ * statements committed at the script commit interval and the DDL
+ * statements, committed as they are executed, excepted.
+ * The statements are handed to the segments through bounded queues,
+ * so the script is still read as a stream.
+ */
+class ParallelScriptExecutor {
+
+    private static final String SEGMENT_MARKER = "segment";
+
+    private static final String WAIT_MARKER = "wait";
+
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private static final long OFFER_TIMEOUT = 100;
+
+    private final ExecutionController executionController;
+
+    private final DatabaseConnection databaseConnection;
+
+    private final ActionOnError actionOnError;
+
+    private final int threads;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    private volatile boolean cancel;
+
+    private volatile boolean failed;
+
+    ParallelScriptExecutor(ExecutionController executionController, DatabaseConnection databaseConnection,
+                           ActionOnError actionOnError, int threads) {
+
+        this.executionController = executionController;
+        this.databaseConnection = databaseConnection;
+        this.actionOnError = actionOnError;
+        this.threads = threads;
+    }
+
+    SqlStatementResult execute(SqlScriptReader scriptReader) {
+
+        SqlStatementResult sqlStatementResult = new SqlStatementResult();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            private int count;
+
+            public synchronized Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "ParallelScriptExecutor-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        Semaphore permits = new Semaphore(threads);
+        List<Future<?>> running = new ArrayList<>();
+        long start = System.currentTimeMillis();
+
+        executionController.message("Executing script segments on up to " + threads + " connections");
+
+        try {
+
+            Segment segment = null;
+            DerivedQuery query;
+            while ((query = scriptReader.nextQuery()) != null) {
+
+                if (cancel || failed || Thread.currentThread().isInterrupted()) {
+
+                    throw new InterruptedException();
+                }
+
+                String marker = scriptReader.getMarker();
+                if (WAIT_MARKER.equals(marker)) {
+
+                    endSegment(segment);
+                    segment = null;
+                    waitFor(running);
+                }
+
+                if (segment == null || SEGMENT_MARKER.equals(marker)) {
+
+                    endSegment(segment);
+                    permits.acquire();
+
+                    segment = new Segment(segments.size() + 1, scriptReader.getLineNumber(), permits);
+                    segments.add(segment);
+                    running.add(executor.submit(segment));
+                }
+
+                segment.offer(query, scriptReader.getLineNumber());
+            }
+
+            endSegment(segment);
+            waitFor(running);
+
+        } catch (InterruptedException e) {
+
+            stop();
+            sqlStatementResult.setOtherException(e);
+
+        } catch (IOException e) {
+
+            stop();
+            sqlStatementResult.setOtherException(e);
+
+        } finally {
+
+            executor.shutdown();
+            try {
+
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int count = 0;
+        int result = 0;
+        for (Segment segment : segments) {
+
+            SqlStatementResult segmentResult = segment.result;
+            if (segmentResult == null) {
+
+                continue;
+            }
+
+            count += segmentResult.getStatementCount();
+            result += segmentResult.getUpdateCount();
+
+            // report the failure over the interruptions it caused
+            boolean reported = sqlStatementResult.isException() && !sqlStatementResult.isInterrupted();
+            if (segmentResult.isException() && !segmentResult.isInterrupted() && !reported) {
+
+                sqlStatementResult = new SqlStatementResult();
+                if (segmentResult.getSqlException() != null) {
+
+                    sqlStatementResult.setSqlException(segmentResult.getSqlException());
+
+                } else {
+
+                    sqlStatementResult.setOtherException(segmentResult.getOtherException());
+                }
+            }
+        }
+
+        executionController.message("Executed " + segments.size() + " segments in "
+                + MiscUtils.formatDuration(System.currentTimeMillis() - start));
+
+        sqlStatementResult.setUpdateCount(result);
+        sqlStatementResult.setStatementCount(count);
+        return sqlStatementResult;
+    }
+
+    void stop() {
+
+        cancel = true;
+        for (Segment segment : segments) {
+
+            segment.runner.stop();
+        }
+    }
+
+    private void endSegment(Segment segment) throws InterruptedException {
+
+        if (segment != null) {
+
+            segment.offer(null, -1);
+        }
+    }
+
+    private void waitFor(List<Future<?>> running) throws InterruptedException {
+
+        for (Future<?> future : running) {
+
+            try {
+
+                future.get();
+
+            } catch (ExecutionException e) {
+
+                failed = true;
+                executionController.errorMessage(e.getCause().getMessage());
+            }
+        }
+        running.clear();
+    }
+
+    /**
+     * A part of the script executed on its own connection.
+     */
+    private class Segment implements Runnable, ScriptQuerySource {
+
+        private final long startLine;
+
+        private final Semaphore permits;
+
+        private final ExecutionController controller;
+
+        private final SqlScriptRunner runner;
+
+        private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private volatile boolean finished;
+
+        private volatile SqlStatementResult result;
+
+        private long lineNumber;
+
+        Segment(int number, long startLine, Semaphore permits) {
+
+            this.startLine = startLine;
+            this.permits = permits;
+            controller = new SegmentExecutionController(executionController, "[segment " + number + "] ");
+            runner = new SqlScriptRunner(controller);
+        }
+
+        public void run() {
+
+            long start = System.currentTimeMillis();
+            boolean success = false;
+
+            try {
+
+                controller.message("Started at line " + startLine);
+
+                SqlStatementResult segmentResult = runner.execute(databaseConnection, this, actionOnError, true);
+                success = !segmentResult.isException();
+
+                String duration = MiscUtils.formatDuration(System.currentTimeMillis() - start);
+                if (success) {
+
+                    controller.message("Finished: " + segmentResult.getStatementCount() + " statements, "
+                            + segmentResult.getUpdateCount() + " records affected, duration " + duration);
+
+                } else {
+
+                    if (!segmentResult.isInterrupted()) {
+
+                        controller.errorMessage(segmentResult.getErrorMessage());
+                        if (actionOnError != ActionOnError.CONTINUE) {
+
+                            failed = true;
+                            stop();
+                        }
+                    }
+                    controller.warningMessage("Rolled back after " + duration);
+                }
+                result = segmentResult;
+
+            } finally {
+
+                // the segment connection is in the manual commit mode for the run
+                runner.finishTransaction(success);
+
+                finished = true;
+                queue.clear();
+                permits.release();
+            }
+        }
+
+        /**
+         * Hands the statement over to the segment, null ends the segment.
+         */
+        void offer(DerivedQuery query, long line) throws InterruptedException {
+
+            Object[] entry = new Object[]{query, line};
+            while (!queue.offer(entry, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+
+                if (finished) {
+
+                    return;
+                }
+
+                if (cancel || failed) {
+
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        public DerivedQuery nextQuery() throws InterruptedException {
+
+            Object[] entry;
+            while ((entry = queue.poll(OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) == null) {
+
+                if (cancel) {
+
+                    throw new InterruptedException();
+                }
+            }
+            lineNumber = (Long) entry[1];
+            return (DerivedQuery) entry[0];
+        }
+
+        public long getLineNumber() {
+
+            return lineNumber;
+        }
+
+    }
+
+    /**
+     * Serializes the output of the segments and tags it with the segment number.
+     */
+    private static class SegmentExecutionController implements ExecutionController {
+
+        private final ExecutionController controller;
+
+        private final String prefix;
+
+        SegmentExecutionController(ExecutionController controller, String prefix) {
+
+            this.controller = controller;
+            this.prefix = prefix;
+        }
+
+        public void actionMessage(String message) {
+
+            synchronized (controller) {
+
+                controller.actionMessage(prefix + message);
+            }
+        }
+
+        public void queryMessage(String message) {
+
+            synchronized (controller) {
+
+                controller.queryMessage(prefix + message);
+            }
+        }
+
+        public void errorMessage(String message) {
+
+            synchronized (controller) {
+
+                controller.errorMessage(prefix + message);
+            }
+        }
+
+        public void warningMessage(String message) {
+
+            synchronized (controller) {
+
+                controller.warningMessage(prefix + message);
+            }
+        }
+
+        public void message(String message) {
+
+            synchronized (controller) {
+
+                controller.message(prefix + message);
+            }
+        }
+
+        public boolean logOutput() {
+
+            return controller.logOutput();
+        }
+
+    }
+
+}
@@ -101,8 +101,9 @@ public interface QueryDelegate {
      * history list if available.
      *
      * @param the statement to add
+     * @param the execution time in milliseconds
      */
-    void statementExecuted(String statement);
+    void statementExecuted(String statement, long duration);
 
     /**
      * Notifies that am execution has finished.
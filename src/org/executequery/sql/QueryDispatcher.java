@@ -636,9 +636,9 @@ public class QueryDispatcher {
                 }
 
                 end = System.currentTimeMillis();
-                statementExecuted(sql);
 
                 long timeTaken = end - start;
+                statementExecuted(sql, timeTaken);
 
                 logExecutionTime(timeTaken, anyConnections);
 
@@ -891,7 +891,7 @@ public class QueryDispatcher {
             logExecutionTime(timeTaken, anyConnections);
 
 
-            statementExecuted(sql);
+            statementExecuted(sql, timeTaken);
 
         } catch (SQLException e) {
 
@@ -1252,7 +1252,7 @@ public class QueryDispatcher {
                     ConnectionsTreePanel.getPanelFromBrowser().reloadPath(metaTagNode.getTreePath());
                 }
             }
-            statementExecuted(script);
+            statementExecuted(script, timeTaken);
 
         } catch (InterruptedException e) {
 
@@ -1503,9 +1503,9 @@ public class QueryDispatcher {
         delegate.setResult(dc, updateCount, type, metaName);
     }
 
-    private void statementExecuted(String sql) {
+    private void statementExecuted(String sql, long duration) {
 
-        delegate.statementExecuted(sql);
+        delegate.statementExecuted(sql, duration);
     }
 
     private Object executeCreateOrAlterObject(String sql, DerivedQuery procQuery, boolean anyConnection)
@@ -1539,7 +1539,7 @@ public class QueryDispatcher {
 
         logExecutionTime(start, end, anyConnection);
 
-        statementExecuted(sql);
+        statementExecuted(sql, end - start);
 
         return DONE;
     }
@@ -0,0 +1,42 @@
+/*
+ * ScriptQuerySource.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.sql;
+
+import java.io.IOException;
+
+/**
+ * Sequential source of the statements executed by the script runner.
+ */
+interface ScriptQuerySource {
+
+    /**
+     * Returns the next statement to execute.
+     *
+     * @return the next statement or null when there are no more statements
+     */
+    DerivedQuery nextQuery() throws IOException, InterruptedException;
+
+    /**
+     * Returns the script line the last returned statement starts at.
+     */
+    long getLineNumber();
+
+}
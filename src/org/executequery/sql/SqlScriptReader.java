@@ -0,0 +1,451 @@
+/*
+ * SqlScriptReader.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.sql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits an SQL script read from a character stream into statements
+ * one at a time, so the script is never held in memory as a whole.
+ * <p>
+ * The statement delimiter is recognised outside of string literals
+ * (including the <code>q'...'</code> form), quoted identifiers and
+ * comments only, and may be changed by the <code>SET TERM</code> command.
+ * <p>
+ * A single line comment of the form <code>-- @name</code> preceding a
+ * statement is reported as the marker of that statement.
+ */
+public class SqlScriptReader implements ScriptQuerySource, Closeable {
+
+    private static final Pattern SET_TERM = Pattern.compile("^set\\s+term\\s+(.+)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern MARKER = Pattern.compile("^\\s*@(\\w+)");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Statement buffers grown above this capacity are dropped after use
+     * instead of being kept for the next statement.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final int NORMAL = 0;
+    private static final int STRING = 1;
+    private static final int Q_STRING = 2;
+    private static final int QUOTED_IDENTIFIER = 3;
+    private static final int LINE_COMMENT = 4;
+    private static final int BLOCK_COMMENT = 5;
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private String delimiter = ";";
+
+    private StringBuilder query = new StringBuilder();
+
+    private StringBuilder queryWithoutComments = new StringBuilder();
+
+    private int state = NORMAL;
+
+    /**
+     * Number of the non-whitespace characters of the statement text without comments.
+     */
+    private int content;
+
+    private StringBuilder lineComment;
+
+    private String pendingMarker;
+
+    private String marker;
+
+    /**
+     * Number of the trailing characters of the statement read
+     * outside of literals and comments.
+     */
+    private int normalRun;
+
+    private char qClose;
+
+    private boolean qOpening;
+
+    private long lineNumber = 1;
+
+    private long queryLineNumber = 1;
+
+    private long charsRead;
+
+    public SqlScriptReader(Reader reader) {
+
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next executable statement of the script.
+     *
+     * @return the next statement or null at the end of the script
+     */
+    public DerivedQuery nextQuery() throws IOException {
+
+        int c;
+        while ((c = read()) != -1) {
+
+            if (accept((char) c)) {
+
+                DerivedQuery derivedQuery = endOfQuery(query.length() - delimiter.length());
+                if (derivedQuery != null) {
+
+                    return marked(derivedQuery);
+                }
+            }
+        }
+
+        if (query.length() > 0) {
+
+            DerivedQuery derivedQuery = endOfQuery(query.length());
+            if (derivedQuery != null) {
+
+                return marked(derivedQuery);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the marker name preceding the last returned statement.
+     *
+     * @return the lower case marker name or null if the statement is not marked
+     */
+    public String getMarker() {
+
+        return marker;
+    }
+
+    /**
+     * Returns the current statement delimiter.
+     */
+    public String getDelimiter() {
+
+        return delimiter;
+    }
+
+    /**
+     * Returns the script line the last returned statement starts at.
+     */
+    public long getLineNumber() {
+
+        return queryLineNumber;
+    }
+
+    /**
+     * Returns the number of characters read from the script so far.
+     */
+    public long getCharsRead() {
+
+        return charsRead;
+    }
+
+    public void close() throws IOException {
+
+        reader.close();
+    }
+
+    private int read() throws IOException {
+
+        if (position == limit) {
+
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+
+                limit = 0;
+                return -1;
+            }
+        }
+
+        charsRead++;
+        return buffer[position++];
+    }
+
+    /**
+     * Appends the character to the current statement.
+     *
+     * @return whether the statement ends with the delimiter
+     */
+    private boolean accept(char c) {
+
+        if (query.length() == 0 && Character.isWhitespace(c)) {
+
+            countLine(c);
+            return false;
+        }
+
+        if (query.length() == 0) {
+
+            queryLineNumber = lineNumber;
+        }
+
+        countLine(c);
+        query.append(c);
+
+        switch (state) {
+
+            case STRING:
+
+                queryWithoutComments.append(c);
+                if (c == '\'') {
+
+                    state = NORMAL;
+                }
+                return false;
+
+            case Q_STRING:
+
+                queryWithoutComments.append(c);
+                if (qOpening) {
+
+                    qOpening = false;
+                    qClose = closingQuote(c);
+
+                } else if (c == '\'' && previous(1) == qClose) {
+
+                    state = NORMAL;
+                }
+                return false;
+
+            case QUOTED_IDENTIFIER:
+
+                queryWithoutComments.append(c);
+                if (c == '"') {
+
+                    state = NORMAL;
+                }
+                return false;
+
+            case LINE_COMMENT:
+
+                if (c == '\n') {
+
+                    queryWithoutComments.append(c);
+                    state = NORMAL;
+                    lineCommentEnded();
+
+                } else if (lineComment != null) {
+
+                    lineComment.append(c);
+                }
+                return false;
+
+            case BLOCK_COMMENT:
+
+                if (c == '/' && previous(1) == '*' && normalRun != -1) {
+
+                    queryWithoutComments.append(' ');
+                    state = NORMAL;
+
+                } else {
+
+                    // the opening '*' may not be reused as the closing one
+                    normalRun = 0;
+                }
+                return false;
+        }
+
+        queryWithoutComments.append(c);
+        normalRun++;
+        if (!Character.isWhitespace(c)) {
+
+            content++;
+        }
+
+        if (normalRun >= delimiter.length() && endsWithDelimiter()) {
+
+            return true;
+        }
+
+        if (c == '\'') {
+
+            char q = previous(1);
+            if ((q == 'q' || q == 'Q') && !isIdentifierPart(previous(2))) {
+
+                state = Q_STRING;
+                qOpening = true;
+
+            } else {
+
+                state = STRING;
+            }
+            normalRun = 0;
+
+        } else if (c == '"') {
+
+            state = QUOTED_IDENTIFIER;
+            normalRun = 0;
+
+        } else if (c == '-' && previous(1) == '-' && normalRun > 1) {
+
+            state = LINE_COMMENT;
+            queryWithoutComments.setLength(queryWithoutComments.length() - 2);
+            normalRun = 0;
+            content -= 2;
+            lineComment = content == 0 ? new StringBuilder() : null;
+
+        } else if (c == '*' && previous(1) == '/' && normalRun > 1) {
+
+            state = BLOCK_COMMENT;
+            queryWithoutComments.setLength(queryWithoutComments.length() - 2);
+            normalRun = -1;
+            content -= 2;
+        }
+
+        return false;
+    }
+
+    private DerivedQuery endOfQuery(int length) {
+
+        String originalQuery = query.substring(0, length);
+        String noCommentsQuery = queryWithoutComments.substring(0,
+                Math.max(0, queryWithoutComments.length() - (query.length() - length))).trim();
+        reset();
+
+        Matcher matcher = SET_TERM.matcher(noCommentsQuery);
+        if (matcher.find()) {
+
+            String newDelimiter = matcher.group(1).trim();
+            if (newDelimiter.isEmpty()) {
+
+                throw new IllegalStateException("Delimiter cannot be empty:\n" + originalQuery);
+            }
+            delimiter = newDelimiter;
+            return null;
+        }
+
+        if (noCommentsQuery.isEmpty()) {
+
+            return null;
+        }
+
+        DerivedQuery derivedQuery = new DerivedQuery(originalQuery);
+        derivedQuery.setQueryWithoutComments(noCommentsQuery);
+        return derivedQuery;
+    }
+
+    private void reset() {
+
+        if (query.capacity() > MAX_RETAINED_CAPACITY) {
+
+            query = new StringBuilder();
+            queryWithoutComments = new StringBuilder();
+
+        } else {
+
+            query.setLength(0);
+            queryWithoutComments.setLength(0);
+        }
+
+        state = NORMAL;
+        normalRun = 0;
+        qOpening = false;
+        content = 0;
+        lineComment = null;
+    }
+
+    private void lineCommentEnded() {
+
+        if (lineComment != null) {
+
+            Matcher matcher = MARKER.matcher(lineComment);
+            if (matcher.find()) {
+
+                pendingMarker = matcher.group(1).toLowerCase();
+            }
+            lineComment = null;
+        }
+    }
+
+    private DerivedQuery marked(DerivedQuery derivedQuery) {
+
+        marker = pendingMarker;
+        pendingMarker = null;
+        return derivedQuery;
+    }
+
+    private boolean endsWithDelimiter() {
+
+        int start = query.length() - delimiter.length();
+        for (int i = 0; i < delimiter.length(); i++) {
+
+            if (Character.toLowerCase(query.charAt(start + i)) != Character.toLowerCase(delimiter.charAt(i))) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private char previous(int offset) {
+
+        int index = query.length() - 1 - offset;
+        return index >= 0 ? query.charAt(index) : ' ';
+    }
+
+    private void countLine(char c) {
+
+        if (c == '\n') {
+
+            lineNumber++;
+        }
+    }
+
+    private static boolean isIdentifierPart(char c) {
+
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static char closingQuote(char c) {
+
+        switch (c) {
+
+            case '(':
+                return ')';
+            case '[':
+                return ']';
+            case '{':
+                return '}';
+            case '<':
+                return '>';
+            default:
+                return c;
+        }
+    }
+
+}
@@ -35,15 +35,21 @@ import org.executequery.localization.Bundles;
 import org.executequery.log.Log;
 import org.underworldlabs.util.DynamicLibraryLoader;
 import org.underworldlabs.util.MiscUtils;
+import org.underworldlabs.util.SystemProperties;
 
 import javax.resource.ResourceException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -52,18 +58,43 @@ import java.util.regex.Pattern;
 
 public class SqlScriptRunner {
 
+    private static final Pattern RETURNING = Pattern.compile("\\bRETURNING\\b", Pattern.CASE_INSENSITIVE);
+
     private Connection connection;
 
     DefaultStatementExecutor querySender;
 
     private final ExecutionController executionController;
 
-    private boolean cancel;
+    private volatile boolean cancel;
+
+    private volatile ParallelScriptExecutor parallelExecutor;
+
+    private int parallelThreads;
 
     private SimpleDataSource localDataSource;
 
     boolean needCloseDatabase;
 
+    private int batchSize;
+
+    private int commitInterval;
+
+    private int uncommitted;
+
+    /**
+     * The pooled connection the script is executed on in the manual commit mode
+     */
+    private Connection scriptConnection;
+
+    private boolean scriptConnectionAutoCommit;
+
+    /**
+     * Whether the transaction of the script connection is started for
+     * the consecutive DML batches of an auto-commit connection
+     */
+    private boolean batchTransaction;
+
     public SqlScriptRunner(ExecutionController executionController) {
 
         super();
@@ -73,15 +104,81 @@ public class SqlScriptRunner {
     public void stop() {
 
         cancel = true;
+
+        ParallelScriptExecutor executor = parallelExecutor;
+        if (executor != null) {
+
+            executor.stop();
+        }
+    }
+
+    /**
+     * Sets the number of connections the marked script segments
+     * are executed on in parallel. Values less than 2 turn the
+     * parallel execution off.
+     */
+    public void setParallelThreads(int parallelThreads) {
+
+        this.parallelThreads = parallelThreads;
     }
 
     public SqlStatementResult execute(DatabaseConnection databaseConnection,
                                       String script, ActionOnError actionOnError) {
 
+        return execute(databaseConnection, new StringReader(script), actionOnError);
+    }
+
+    /**
+     * Executes the script read from the specified reader statement by
+     * statement. The reader is consumed and closed.
+     */
+    public SqlStatementResult execute(DatabaseConnection databaseConnection,
+                                      Reader script, ActionOnError actionOnError) {
+
+        SqlScriptReader scriptReader = new SqlScriptReader(script);
+        try {
+
+            if (parallelThreads > 1 && databaseConnection != null) {
+
+                needCloseDatabase = false;
+                parallelExecutor = new ParallelScriptExecutor(
+                        executionController, databaseConnection, actionOnError, parallelThreads);
+                return parallelExecutor.execute(scriptReader);
+            }
+
+            return execute(databaseConnection, scriptReader, actionOnError, false);
+
+        } finally {
+
+            parallelExecutor = null;
+            try {
+                scriptReader.close();
+            } catch (IOException e) {
+                Log.debug("Error closing script reader: " + e.getMessage());
+            }
+            System.gc();
+        }
+    }
+
+    /**
+     * Executes the statements of the specified source one by one
+     * on the current connection.
+     * <p>
+     * Without a transaction the statements are executed in the commit mode
+     * of the connection and only the DML batches of an auto-commit connection
+     * are run in their own transactions. With a transaction the statements
+     * are executed in a transaction left open, ended by
+     * {@link #finishTransaction(boolean)}. The DDL statements are committed
+     * as they are executed in both cases, as they are in the auto-commit mode.
+     *
+     * @param inTransaction whether the statements are executed in a transaction
+     */
+    SqlStatementResult execute(DatabaseConnection databaseConnection, ScriptQuerySource scriptReader,
+                               ActionOnError actionOnError, boolean inTransaction) {
+
         int count = 0;
         int result = 0;
 
-        PreparedStatement statement = null;
         SqlStatementResult sqlStatementResult = new SqlStatementResult();
         needCloseDatabase = false;
         querySender = new DefaultStatementExecutor();
@@ -90,54 +187,58 @@ public class SqlScriptRunner {
 
             cancel = false;
 
-            executionController.message("Scanning and tokenizing queries...");
-            QueryTokenizer queryTokenizer = new QueryTokenizer();
-            //List<DerivedQuery> queries =
-
             close();
             if (databaseConnection != null) {
                 querySender.setDatabaseConnection(databaseConnection);
+                if (inTransaction) {
+
+                    beginTransaction(false);
+                }
             }
 
-            List<DerivedQuery> executableQueries = new ArrayList<DerivedQuery>();
             DerivedQuery createDBQuery = null;
             String sqlDialect = "3";
-            String delimiter = ";";
-            //queries.clear();
-
-
 
-            //executionController.message("Found " + executableQueries.size() + " executable queries");
             executionController.message(Bundles.getCommon("executing"));
 
-            /*if (connection == null)
-                throw new SQLException("There is no connection. Select a connection from the available connections " +
-                        "list or add a database creation statement.");*/
-
-            long start = 0L;
-            long end = 0L;
-            int thisResult = 0;
             boolean logOutput = executionController.logOutput();
-            int startIndex = 0;
-            String lowQuery = script.toLowerCase();
-            executionController.message("Start extracting comments and String constants");
-            queryTokenizer.extractTokens(script);
-            executionController.message("Finish extracting comments and String constants");
-            while (script!=null &&!script.isEmpty()) {
-                QueryTokenizer.QueryTokenized fquery=queryTokenizer.tokenizeFirstQuery(script,lowQuery,startIndex,delimiter);
-                script= fquery.script;
-                delimiter = fquery.delimiter;
-                DerivedQuery query =  fquery.query;
-                lowQuery = fquery.lowScript;
-                startIndex = fquery.startIndex;
-                if(query==null||!query.isExecutable())
+            batchSize = SystemProperties.getIntProperty("user", "editor.script.batch.size");
+            commitInterval = SystemProperties.getIntProperty("user", "editor.script.commit.interval");
+            uncommitted = 0;
+
+            DmlBatch batch = new DmlBatch();
+            DerivedQuery query;
+            while ((query = scriptReader.nextQuery()) != null) {
+
+                if (!query.isExecutable())
                     continue;
                 if (shouldNotContinue()) {
 
                     throw new InterruptedException();
                 }
+                if (batchSize > 1 && isBatchable(query)) {
+
+                    batch.add(query, scriptReader.getLineNumber());
+                    if (batch.size() >= batchSize) {
+
+                        count += batch.size();
+                        result += executeBatch(batch, actionOnError, logOutput);
+                    }
+                    continue;
+                }
+                if (batch.size() > 0) {
+
+                    count += batch.size();
+                    result += executeBatch(batch, actionOnError, logOutput);
+                }
+                endBatchTransaction();
+
                 if (query.getQueryType() == QueryTypes.CREATE_DATABASE) {
                     createDBQuery = query;
+                    if (scriptConnection != null) {
+                        endTransaction(true);
+                        querySender.releaseResources();
+                    }
                     localDataSource = createDatabase(createDBQuery, sqlDialect);
                     connection = localDataSource.getConnection();
                     connection.setAutoCommit(false);
@@ -155,62 +256,23 @@ public class SqlScriptRunner {
                         sqlDialect = matcher.group().trim();
                     continue;
                 }
-                String derivedQuery = query.getDerivedQuery();
-                try {
-
-                    count++;
-
-                    if (logOutput) {
-
-                        executionController.message("Executing query " + count + ":");
-                        executionController.queryMessage(query.getDerivedQuery());
-                    }
-
-                    statement = querySender.getPreparedStatement(derivedQuery);
-                    start = System.currentTimeMillis();
-                    sqlStatementResult = querySender.execute(query.getQueryType(), statement);
-                    if (sqlStatementResult.isException()) {
-                        if (sqlStatementResult.getSqlException() != null)
-                            throw sqlStatementResult.getSqlException();
-                        if (sqlStatementResult.getOtherException() != null)
-                            throw sqlStatementResult.getOtherException();
-                    }
-                    result += sqlStatementResult.getUpdateCount();
-
-                } catch (Throwable e) {
-
-                    executionController.errorMessage("Error executing statement:");
-                    executionController.actionMessage(derivedQuery);
-
-                    if (actionOnError != ActionOnError.CONTINUE) {
-
-                        throw e;
-
-                    } else {
-
-                        executionController.errorMessage(e.getMessage());
-                    }
-
-                } finally {
-
-                    if (statement != null && !statement.isClosed()) {
-
-                        try {
-                            statement.close();
-                        } catch (SQLException e) {
-                            e.printStackTrace();
-                        }
-                    }
-
-                }
 
-                end = System.currentTimeMillis();
+                count++;
                 if (logOutput) {
 
-                    executionController.message("Records affected: " + thisResult + "\nDuration: " + MiscUtils.formatDuration(end - start));
+                    executionController.message("Executing query " + count + ":");
+                    executionController.queryMessage(query.getDerivedQuery());
                 }
+                result += executeStatement(query, scriptReader.getLineNumber(), actionOnError, logOutput);
+                commitIfRequired(1, isDdl(query));
+            }
 
+            if (batch.size() > 0) {
+
+                count += batch.size();
+                result += executeBatch(batch, actionOnError, logOutput);
             }
+            endBatchTransaction();
 
         } catch (SQLException e) {
 
@@ -225,6 +287,12 @@ public class SqlScriptRunner {
             sqlStatementResult.setOtherException(e);
 
         } finally {
+            try {
+                // the statements executed before a failed one are kept as in the auto-commit mode
+                endBatchTransaction();
+            } catch (SQLException e) {
+                executionController.errorMessage(e.getMessage());
+            }
             if (needCloseDatabase) {
                 try {
                     localDataSource.close();
@@ -232,7 +300,6 @@ public class SqlScriptRunner {
                     e.printStackTrace();
                 }
             }
-            System.gc();
         }
 
         sqlStatementResult.setUpdateCount(result);
@@ -245,6 +312,228 @@ public class SqlScriptRunner {
         return needCloseDatabase;
     }
 
+    private int executeStatement(DerivedQuery query, long lineNumber,
+                                 ActionOnError actionOnError, boolean logOutput) throws Throwable {
+
+        int updated = 0;
+        long start = System.currentTimeMillis();
+        String derivedQuery = query.getDerivedQuery();
+        PreparedStatement statement = null;
+        try {
+
+            statement = querySender.getPreparedStatement(derivedQuery);
+            SqlStatementResult sqlStatementResult = querySender.execute(query.getQueryType(), statement);
+            if (sqlStatementResult.isException()) {
+                if (sqlStatementResult.getSqlException() != null)
+                    throw sqlStatementResult.getSqlException();
+                if (sqlStatementResult.getOtherException() != null)
+                    throw sqlStatementResult.getOtherException();
+            }
+            updated = Math.max(0, sqlStatementResult.getUpdateCount());
+
+        } catch (Throwable e) {
+
+            statementError(query, lineNumber, e, actionOnError);
+
+        } finally {
+
+            if (statement != null && !statement.isClosed()) {
+
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+
+        }
+
+        if (logOutput) {
+
+            long end = System.currentTimeMillis();
+            executionController.message("Records affected: " + updated + "\nDuration: " + MiscUtils.formatDuration(end - start));
+        }
+
+        return updated;
+    }
+
+    /**
+     * Executes the collected DML statements as a single JDBC batch and
+     * clears the batch. When a statement of the batch fails it is reported
+     * on its own and, with {@link ActionOnError#CONTINUE}, the rest of the
+     * batch is resubmitted.
+     *
+     * @return the number of records affected
+     */
+    private int executeBatch(DmlBatch batch, ActionOnError actionOnError, boolean logOutput) throws Throwable {
+
+        int updated = 0;
+        int offset = 0;
+        long start = System.currentTimeMillis();
+
+        if (logOutput) {
+
+            executionController.message("Executing batch of " + batch.size() + " queries:");
+        }
+
+        if (scriptConnection == null) {
+
+            batchTransaction = beginTransaction(true);
+        }
+
+        try {
+
+            while (offset < batch.size()) {
+
+                Statement statement = querySender.getBatchStatement();
+                if (statement == null) {
+
+                    throw new SQLException(Bundles.get("ConnectionPanel.status.NotConnected"));
+                }
+
+                try {
+
+                    // in auto-commit mode a failed batch may be rolled back as a whole
+                    // so the statements are executed one by one to keep the results exact
+                    if (statement.getConnection().getAutoCommit()) {
+
+                        statement.close();
+                        for (int i = offset; i < batch.size(); i++) {
+
+                            updated += executeStatement(batch.getQuery(i), batch.getLineNumber(i), actionOnError, false);
+                        }
+                        break;
+                    }
+
+                    for (int i = offset; i < batch.size(); i++) {
+
+                        statement.addBatch(batch.getQuery(i).getDerivedQuery());
+                    }
+                    updated += sum(statement.executeBatch());
+                    offset = batch.size();
+
+                } catch (BatchUpdateException e) {
+
+                    int[] counts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+                    updated += sum(counts);
+
+                    if (counts.length >= batch.size() - offset) {
+
+                        // the driver went on after the failed statements
+                        for (int i = 0; i < counts.length; i++) {
+
+                            if (counts[i] == Statement.EXECUTE_FAILED) {
+
+                                int index = offset + i;
+                                statementError(batch.getQuery(index), batch.getLineNumber(index), e, actionOnError);
+                            }
+                        }
+                        offset = batch.size();
+
+                    } else {
+
+                        // the driver stopped on the first failed statement
+                        int index = offset + counts.length;
+                        statementError(batch.getQuery(index), batch.getLineNumber(index), e, actionOnError);
+                        offset = index + 1;
+                    }
+
+                } finally {
+
+                    if (!statement.isClosed()) {
+
+                        statement.close();
+                    }
+                }
+            }
+
+        } finally {
+
+            commitIfRequired(batch.size(), false);
+            batch.clear();
+        }
+
+        if (logOutput) {
+
+            long end = System.currentTimeMillis();
+            executionController.message("Records affected: " + updated + "\nDuration: " + MiscUtils.formatDuration(end - start));
+        }
+
+        return updated;
+    }
+
+    private void statementError(DerivedQuery query, long lineNumber,
+                                Throwable e, ActionOnError actionOnError) throws Throwable {
+
+        executionController.errorMessage("Error executing statement at line " + lineNumber + ":");
+        executionController.actionMessage(query.getDerivedQuery());
+
+        if (actionOnError != ActionOnError.CONTINUE) {
+
+            throw e;
+
+        } else {
+
+            executionController.errorMessage(e.getMessage());
+        }
+    }
+
+    /**
+     * Commits the transaction started by the runner at the commit interval
+     * or after a DDL statement, which Firebird applies on commit only.
+     */
+    private void commitIfRequired(int executed, boolean ddl) throws Throwable {
+
+        if (scriptConnection == null) {
+
+            // the connection commits in its own mode
+            return;
+        }
+
+        uncommitted += executed;
+        if (ddl || (commitInterval > 0 && uncommitted >= commitInterval)) {
+
+            SqlStatementResult commitResult = querySender.execute(QueryTypes.COMMIT, (PreparedStatement) null);
+            if (commitResult.getSqlException() != null) {
+
+                throw commitResult.getSqlException();
+            }
+            uncommitted = 0;
+        }
+    }
+
+    private static boolean isDdl(DerivedQuery query) {
+
+        int type = query.getQueryType();
+        return type == QueryTypes.CREATE_OBJECT || type == QueryTypes.DROP_OBJECT
+                || type == QueryTypes.CREATE_OR_ALTER || type == QueryTypes.RECREATE_OBJECT || type == QueryTypes.ALTER_OBJECT;
+    }
+
+    private boolean isBatchable(DerivedQuery query) {
+
+        int type = query.getQueryType();
+        if (type != QueryTypes.INSERT && type != QueryTypes.UPDATE && type != QueryTypes.DELETE)
+            return false;
+
+        // the statements returning the values give a result set, which can not be batched
+        return !RETURNING.matcher(query.getQueryWithoutComments()).find();
+    }
+
+    private static int sum(int[] updateCounts) {
+
+        int sum = 0;
+        for (int updateCount : updateCounts) {
+
+            // skip the SUCCESS_NO_INFO and EXECUTE_FAILED markers
+            if (updateCount > 0) {
+
+                sum += updateCount;
+            }
+        }
+
+        return sum;
+    }
+
     private SimpleDataSource createDatabase(DerivedQuery query, String sqlDialect) throws SQLException {
         String derivedQuery = query.getDerivedQuery();
 
@@ -390,6 +679,109 @@ public class SqlScriptRunner {
         return Thread.interrupted() || cancel;
     }
 
+    /**
+     * Puts the script connection in the manual commit mode, so the
+     * statements are committed at the commit interval and the DML
+     * statements are executed as batches.
+     *
+     * @param autoCommitOnly whether the transaction is started on an auto-commit
+     *                       connection only, the transaction of a manual commit
+     *                       connection is left to its owner then
+     * @return true if the transaction is started
+     */
+    private boolean beginTransaction(boolean autoCommitOnly) throws SQLException {
+
+        Connection connection = querySender.getConnection();
+        if (connection == null || connection.isClosed()) {
+
+            return false;
+        }
+
+        if (autoCommitOnly && !connection.getAutoCommit()) {
+
+            return false;
+        }
+
+        uncommitted = 0;
+        scriptConnection = connection;
+        scriptConnectionAutoCommit = connection.getAutoCommit();
+        querySender.setKeepAlive(true);
+        querySender.setCommitMode(false);
+        return true;
+    }
+
+    /**
+     * Commits or rolls back the statements executed on the script
+     * connection and restores its commit mode.
+     */
+    private void endTransaction(boolean commit) throws SQLException {
+
+        Connection connection = scriptConnection;
+        scriptConnection = null;
+        if (connection == null || connection.isClosed()) {
+
+            return;
+        }
+
+        try {
+
+            if (!connection.getAutoCommit()) {
+
+                if (commit) {
+
+                    connection.commit();
+
+                } else {
+
+                    connection.rollback();
+                }
+            }
+
+        } finally {
+
+            querySender.setKeepAlive(false);
+            connection.setAutoCommit(scriptConnectionAutoCommit);
+        }
+    }
+
+    /**
+     * Commits the transaction started for the consecutive DML batches
+     * and puts the connection back in the auto-commit mode.
+     */
+    private void endBatchTransaction() throws SQLException {
+
+        if (batchTransaction) {
+
+            batchTransaction = false;
+            endTransaction(true);
+        }
+    }
+
+    /**
+     * Ends the transaction of the statements executed by the last
+     * call to execute and releases its connection.
+     */
+    void finishTransaction(boolean commit) {
+
+        if (querySender == null || scriptConnection == null) {
+
+            return;
+        }
+
+        try {
+
+            endTransaction(commit);
+
+        } catch (SQLException e) {
+
+            executionController.errorMessage(e.getMessage());
+
+        } finally {
+
+            querySender.releaseResources();
+        }
+    }
+
     public void close() throws SQLException {
 
         if (connection != null) {
@@ -414,6 +806,46 @@ public class SqlScriptRunner {
         }
     }
 
+    /**
+     * Consecutive DML statements collected for a batch execution
+     * along with the script lines they start at.
+     */
+    private static class DmlBatch {
+
+        private final List<DerivedQuery> queries = new ArrayList<>();
+
+        private final List<Long> lineNumbers = new ArrayList<>();
+
+        void add(DerivedQuery query, long lineNumber) {
+
+            queries.add(query);
+            lineNumbers.add(lineNumber);
+        }
+
+        DerivedQuery getQuery(int index) {
+
+            return queries.get(index);
+        }
+
+        long getLineNumber(int index) {
+
+            return lineNumbers.get(index);
+        }
+
+        int size() {
+
+            return queries.size();
+        }
+
+        void clear() {
+
+            queries.clear();
+            lineNumbers.clear();
+        }
+
+    }
+
+
 
 }
 
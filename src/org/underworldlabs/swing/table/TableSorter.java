@@ -120,6 +120,12 @@ public class TableSorter extends AbstractTableModel {
     private Row[] viewToModel;
     private int[] modelToView;
 
+    /**
+     * the values of the sorting columns read once in the model order
+     * while sorting - [sorting column][model row]
+     */
+    private Object[][] sortKeys;
+
     private JTableHeader tableHeader;
     private MouseListener mouseListener;
     private TableModelListener tableModelListener;
@@ -308,7 +314,26 @@ public class TableSorter extends AbstractTableModel {
 
             if (isSorting()) {
 
-                Arrays.sort(viewToModel);
+                // the model rows may be read back from disk - reading them
+                // in order once is far cheaper than in the comparison order
+                sortKeys = new Object[sortingColumns.size()][tableModelRowCount];
+                for (int row = 0; row < tableModelRowCount; row++) {
+
+                    for (int i = 0; i < sortKeys.length; i++) {
+
+                        Directive directive = (Directive) sortingColumns.get(i);
+                        sortKeys[i][row] = viewToModel[row].valueToCompareFromModel(row, directive.column);
+                    }
+                }
+
+                try {
+
+                    Arrays.sort(viewToModel);
+
+                } finally {
+
+                    sortKeys = null;
+                }
             }
 
         }
@@ -423,14 +448,14 @@ public class TableSorter extends AbstractTableModel {
             int row1 = modelIndex;
             int row2 = ((Row) o).modelIndex;
 
-            for (Object sortingColumn : sortingColumns) {
+            for (int i = 0; i < sortingColumns.size(); i++) {
 
-                Directive directive = (Directive) sortingColumn;
+                Directive directive = (Directive) sortingColumns.get(i);
 
                 int column = directive.column;
 
-                Object o1 = valueToCompareFromModel(row1, column);
-                Object o2 = valueToCompareFromModel(row2, column);
+                Object o1 = sortKeys != null ? sortKeys[i][row1] : valueToCompareFromModel(row1, column);
+                Object o2 = sortKeys != null ? sortKeys[i][row2] : valueToCompareFromModel(row2, column);
 
                 int comparison = 0;
 
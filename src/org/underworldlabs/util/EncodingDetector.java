@@ -31,6 +31,16 @@ public class EncodingDetector {
 
     public String detectCharset(File file) throws IOException {
 
+        return detectCharset(file, Long.MAX_VALUE);
+    }
+
+    /**
+     * Detects the charset of the file from its first bytes only.
+     *
+     * @param limit the maximum number of bytes read from the file start
+     */
+    public String detectCharset(File file, long limit) throws IOException {
+
         byte[] buf = new byte[4096];
         FileInputStream fis = new FileInputStream(file);
         UniversalDetector detector = new UniversalDetector(null);
@@ -38,9 +48,12 @@ public class EncodingDetector {
         try {
 
             int read = 0;
-            while ((read = fis.read(buf)) > 0 && !detector.isDone()) {
+            long remaining = limit;
+            while (remaining > 0 && !detector.isDone()
+                    && (read = fis.read(buf, 0, (int) Math.min(buf.length, remaining))) > 0) {
 
                 detector.handleData(buf, 0, read);
+                remaining -= read;
             }
             detector.dataEnd();
 